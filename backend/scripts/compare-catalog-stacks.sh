@@ -0,0 +1,54 @@
+#!/usr/bin/env sh
+# Starts the backend once with the reactive-catalog profile and drives the same closed-loop load
+# (LoadTestHarness) at the servlet catalog (/api) and at the reactive one (/api/reactive), recording
+# throughput, latency percentiles and resident memory idle and under load. Needs a MongoDB holding
+# seeded catalog data (MONGODB_URI). Results and the server log are written to target/loadtest-*.
+#
+#   USERS=2000 DURATION=60 scripts/compare-catalog-stacks.sh
+set -e
+cd "$(dirname "$0")/.."
+
+USERS=${USERS:-2000}
+DURATION=${DURATION:-60}
+PORT=${LOADTEST_PORT:-8089}
+export STOCK_HISTORY_JOURNAL=${STOCK_HISTORY_JOURNAL:-$(pwd)/target/stock-history.journal}
+
+./mvnw -q -B -DskipTests package
+./mvnw -q -B test-compile dependency:build-classpath -Dmdep.outputFile=target/loadtest-classpath.txt
+CLASSPATH="target/test-classes:target/classes:$(cat target/loadtest-classpath.txt)"
+
+java -jar target/ecommerce-backend-1.0.0.jar --server.port="$PORT" --spring.profiles.active=reactive-catalog \
+    > target/loadtest-server-stacks.log 2>&1 &
+server=$!
+trap 'kill "$server" 2> /dev/null || true' EXIT
+until curl -sf "http://localhost:$PORT/api/reactive/categories" > /dev/null; do
+    kill -0 "$server" 2> /dev/null || { echo "backend failed to start, see target/loadtest-server-stacks.log"; exit 1; }
+    sleep 1
+done
+
+rss() {
+    ps -o rss= -p "$server" | tr -d ' '
+}
+
+for stack in servlet reactive; do
+    [ "$stack" = reactive ] && api=/api/reactive || api=/api
+    echo "== $stack ($api)"
+    # A short warm-up run so both stacks are measured with JIT-compiled code and filled pools
+    java -cp "$CLASSPATH" com.ecommerce.benchmark.LoadTestHarness "http://localhost:$PORT" 50 10 5 "$api" > /dev/null
+    idle=$(rss)
+
+    java -cp "$CLASSPATH" com.ecommerce.benchmark.LoadTestHarness "http://localhost:$PORT" "$USERS" "$DURATION" 15 "$api" \
+        > "target/loadtest-$stack.txt" &
+    harness=$!
+    # Peak RSS, sampled while the measured run is in flight
+    peak=$idle
+    while kill -0 "$harness" 2> /dev/null; do
+        now=$(rss)
+        [ "$now" -gt "$peak" ] && peak=$now
+        sleep 1
+    done
+    wait "$harness"
+
+    cat "target/loadtest-$stack.txt"
+    echo "rss idle=${idle}KB peak=${peak}KB per-user=$(( (peak - idle) * 1024 / USERS ))B" | tee -a "target/loadtest-$stack.txt"
+done
@@ -0,0 +1,38 @@
+#!/usr/bin/env sh
+# Starts the backend with platform threads, then with virtual threads, and drives the same
+# closed-loop load (LoadTestHarness) against each. Needs a Java 21 JDK and a MongoDB holding seeded
+# catalog data (MONGODB_URI). Results and server logs are written to target/loadtest-*.
+#
+#   USERS=2000 DURATION=60 scripts/compare-thread-modes.sh
+set -e
+cd "$(dirname "$0")/.."
+
+USERS=${USERS:-2000}
+DURATION=${DURATION:-60}
+PORT=${LOADTEST_PORT:-8089}
+export STOCK_HISTORY_JOURNAL=${STOCK_HISTORY_JOURNAL:-$(pwd)/target/stock-history.journal}
+
+./mvnw -q -B -DskipTests package
+./mvnw -q -B test-compile dependency:build-classpath -Dmdep.outputFile=target/loadtest-classpath.txt
+CLASSPATH="target/test-classes:target/classes:$(cat target/loadtest-classpath.txt)"
+
+for virtual in false true; do
+    echo "== VIRTUAL_THREADS=$virtual"
+    # tracePinnedThreads prints a stack trace whenever a virtual thread blocks while pinned
+    VIRTUAL_THREADS=$virtual java -Djdk.tracePinnedThreads=short -jar target/ecommerce-backend-1.0.0.jar \
+        --server.port="$PORT" > "target/loadtest-server-$virtual.log" 2>&1 &
+    server=$!
+    until curl -sf "http://localhost:$PORT/api/categories" > /dev/null; do
+        kill -0 "$server" 2> /dev/null || { echo "backend failed to start, see target/loadtest-server-$virtual.log"; exit 1; }
+        sleep 1
+    done
+
+    java -cp "$CLASSPATH" com.ecommerce.benchmark.LoadTestHarness "http://localhost:$PORT" "$USERS" "$DURATION" \
+        | tee "target/loadtest-$virtual.txt"
+
+    kill "$server"
+    wait "$server" 2> /dev/null || true
+done
+
+echo "== Pinned virtual threads (stack traces in target/loadtest-server-true.log)"
+grep -c "<== monitors" target/loadtest-server-true.log || true
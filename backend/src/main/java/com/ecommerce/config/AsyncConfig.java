@@ -0,0 +1,73 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enables @Async. Plain @Async methods run on Spring Boot's applicationTaskExecutor, which uses
+ * virtual threads when spring.threads.virtual.enabled is set (Java 21+). Mail is the exception:
+ * Jakarta Mail's SMTP transport does its socket I/O inside synchronized methods, which pins a
+ * virtual thread to its carrier for the whole send. A few slow sends would then occupy every
+ * carrier and stall all request handling, so mail gets a small pool of platform threads instead.
+ * Its queue is bounded and mail that does not fit is discarded and counted: running it on the
+ * caller would put an SMTP send back on a request thread, which is exactly what this pool avoids.
+ * A discarded send's future never completes, so callers that wait on one go through
+ * MailService.awaitSent, which gives up after app.mail.await-timeout-ms.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+
+    @Bean
+    public DiscardAndCountPolicy mailRejections() {
+        return new DiscardAndCountPolicy("mail");
+    }
+
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor(@Value("${app.mail.workers:4}") int workers,
+            @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+            DiscardAndCountPolicy mailRejections) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        // A full queue means SMTP is down or far behind; dropping is better than blocking requests on it
+        executor.setRejectedExecutionHandler(mailRejections);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    public static class DiscardAndCountPolicy implements RejectedExecutionHandler {
+
+        private final String pool;
+        private final AtomicLong discarded = new AtomicLong();
+
+        public DiscardAndCountPolicy(String pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            long count = discarded.incrementAndGet();
+            // Every rejection would flood the output while SMTP is down
+            if (count == 1 || count % 100 == 0) {
+                System.out.println("Executor " + pool + " is full; " + count + " tasks discarded so far");
+            }
+        }
+
+        public long discarded() {
+            return discarded.get();
+        }
+    }
+}
@@ -1,72 +1,51 @@
 package com.ecommerce.config;
 
-import com.ecommerce.model.User;
-import com.ecommerce.repository.UserRepository;
+import com.ecommerce.dto.request.SeedRequest;
+import com.ecommerce.service.DataGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.Optional;
+import java.util.Map;
 
+/**
+ * Creates the default logins on startup and, with app.seed.run, generates synthetic data with the
+ * volumes under app.seed (see SeedRequest). As a command-line tool:
+ *
+ *   java -jar ecommerce-backend-1.0.0.jar --spring.main.web-application-type=none \
+ *       --app.seed.run=true --app.seed.exit=true --app.seed.products=200000 --app.seed.orders=2000000
+ */
 @Component
 @RequiredArgsConstructor
 public class DataSeeder implements CommandLineRunner {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final DataGenerator dataGenerator;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
 
-    @Override
-    public void run(String... args) throws Exception {
-        createOrUpdateAdminUser();
-        createOrUpdateRegularUser();
-    }
+    @Value("${app.seed.run:false}")
+    private boolean run;
 
-    private void createOrUpdateAdminUser() {
-        Optional<User> existingAdmin = userRepository.findByEmail("admin@example.com");
-        if (existingAdmin.isPresent()) {
-            User admin = existingAdmin.get();
-            admin.setPassword(passwordEncoder.encode("admin123"));
-            admin.setRoles(Set.of(User.Role.ADMIN, User.Role.USER));
-            admin.setActive(true);
-            userRepository.save(admin);
-            System.out.println("Default Admin User UPDATED: admin@example.com / admin123");
-        } else {
-            User admin = User.builder()
-                    .firstName("Admin")
-                    .lastName("User")
-                    .email("admin@example.com")
-                    .password(passwordEncoder.encode("admin123"))
-                    .phone("1234567890")
-                    .roles(Set.of(User.Role.ADMIN, User.Role.USER))
-                    .active(true)
-                    .build();
-            userRepository.save(admin);
-            System.out.println("Default Admin User CREATED: admin@example.com / admin123");
-        }
-    }
+    @Value("${app.seed.exit:false}")
+    private boolean exit;
 
-    private void createOrUpdateRegularUser() {
-        Optional<User> existingUser = userRepository.findByEmail("user@example.com");
-        if (existingUser.isPresent()) {
-            User user = existingUser.get();
-            user.setPassword(passwordEncoder.encode("user123"));
-            user.setActive(true);
-            userRepository.save(user);
-            System.out.println("Default Regular User UPDATED: user@example.com / user123");
-        } else {
-            User user = User.builder()
-                    .firstName("Regular")
-                    .lastName("User")
-                    .email("user@example.com")
-                    .password(passwordEncoder.encode("user123"))
-                    .phone("0987654321")
-                    .roles(Set.of(User.Role.USER))
-                    .active(true)
-                    .build();
-            userRepository.save(user);
-            System.out.println("Default Regular User CREATED: user@example.com / user123");
+    @Override
+    public void run(String... args) {
+        dataGenerator.ensureDefaultAccounts();
+        System.out.println("Default logins: admin@example.com / admin123, user@example.com / user123");
+        if (!run) {
+            return;
+        }
+        SeedRequest request = Binder.get(environment).bind("app.seed", SeedRequest.class).orElseGet(SeedRequest::new);
+        Map<String, Object> report = dataGenerator.generate(request);
+        System.out.println("Synthetic data generated: " + report);
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.ecommerce.config;
 
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
@@ -19,4 +20,9 @@ public class MongoConfig {
     public LocalValidatorFactoryBean validator() {
         return new LocalValidatorFactoryBean();
     }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryTrackerCustomizer(QueryTracker queryTracker) {
+        return builder -> builder.addCommandListener(queryTracker);
+    }
 }
@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The most MongoDB commands one call to this endpoint should send, counting those made while
+ * authenticating the request. A budget that does not depend on the data size is what keeps N+1
+ * lookups out; see QueryBudgetFilter.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
@@ -0,0 +1,184 @@
+package com.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a QueryTracker scope around each request, ahead of the security filters so the user lookup
+ * is counted too. Afterwards it records ecommerce.request.queries per endpoint, reports query shapes
+ * repeated app.query-budget.repeat-threshold times or more as possible N+1s (once per endpoint and
+ * shape), and checks the endpoint's @QueryBudget. With app.query-budget.headers the counts are also
+ * sent as X-Mongo-* response headers, covering the commands made before the body started.
+ *
+ * With app.query-budget.fail-on-exceed the budget is checked again just before the body is written,
+ * so an endpoint over budget fails with a 500 instead of a 200. Commands sent while the body streams
+ * (StreamingResponseBody, cursor-backed exports) are only seen after the response is committed; the
+ * exception then still fails the request in tests but can no longer change the status the client got.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    public static final String QUERIES_HEADER = "X-Mongo-Queries";
+    public static final String DOCUMENTS_HEADER = "X-Mongo-Documents";
+    public static final String BYTES_HEADER = "X-Mongo-Bytes";
+    public static final String REPEATED_HEADER = "X-Mongo-Repeated";
+
+    private final QueryTracker queryTracker;
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+    private final boolean headers;
+    private final boolean failOnExceed;
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public QueryBudgetFilter(QueryTracker queryTracker, MeterRegistry meterRegistry,
+            @Value("${app.query-budget.repeat-threshold:5}") int repeatThreshold,
+            @Value("${app.query-budget.headers:false}") boolean headers,
+            @Value("${app.query-budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.queryTracker = queryTracker;
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+        this.headers = headers;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryTracker.Stats stats = queryTracker.open();
+        BeforeBodyResponse wrapped = headers || failOnExceed
+                ? new BeforeBodyResponse(response, () -> beforeBody(request, response, stats)) : null;
+        try {
+            filterChain.doFilter(request, wrapped != null ? wrapped : response);
+        } finally {
+            queryTracker.close();
+        }
+        if (wrapped != null) {
+            // Responses without a body never asked for a stream
+            wrapped.beforeBody();
+        }
+        check(request, stats);
+    }
+
+    // Runs once per request, when the body starts or after the chain for responses without one
+    private void beforeBody(HttpServletRequest request, HttpServletResponse response, QueryTracker.Stats stats) {
+        if (headers) {
+            writeHeaders(response, stats);
+        }
+        if (failOnExceed) {
+            String overBudget = overBudget(request, stats);
+            if (overBudget != null) {
+                throw new IllegalStateException(overBudget);
+            }
+        }
+    }
+
+    private void check(HttpServletRequest request, QueryTracker.Stats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            // Not routed to a controller (static resources, 404s, rejected by security)
+            return;
+        }
+        String endpoint = request.getMethod() + " " + pattern;
+        DistributionSummary.builder("ecommerce.request.queries")
+                .description("MongoDB commands sent while serving one request")
+                .tags("method", request.getMethod(), "uri", pattern.toString())
+                .register(meterRegistry)
+                .record(stats.queries());
+
+        for (Map.Entry<String, Integer> entry : stats.repeated(repeatThreshold).entrySet()) {
+            if (reported.add(endpoint + " " + entry.getKey())) {
+                log.warn("Possible N+1 on {}: {} x {}", endpoint, entry.getValue(), entry.getKey());
+            }
+        }
+
+        String overBudget = overBudget(request, stats);
+        if (overBudget != null) {
+            if (failOnExceed) {
+                throw new IllegalStateException(overBudget);
+            }
+            log.warn(overBudget);
+        }
+    }
+
+    // The budget message if the endpoint went over its @QueryBudget, otherwise null
+    private static String overBudget(HttpServletRequest request, QueryTracker.Stats stats) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        QueryBudget budget = handler instanceof HandlerMethod method ? method.getMethodAnnotation(QueryBudget.class)
+                : null;
+        if (budget == null || stats.queries() <= budget.value()) {
+            return null;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + pattern + " sent " + stats.queries()
+                + " MongoDB commands, over its budget of " + budget.value() + "; repeated: " + stats.repeated(2);
+    }
+
+    private static void writeHeaders(HttpServletResponse response, QueryTracker.Stats stats) {
+        response.setHeader(QUERIES_HEADER, String.valueOf(stats.queries()));
+        response.setHeader(DOCUMENTS_HEADER, String.valueOf(stats.documents()));
+        response.setHeader(BYTES_HEADER, String.valueOf(stats.bytes()));
+        stats.repeated(2).entrySet().stream().findFirst()
+                .ifPresent(entry -> response.setHeader(REPEATED_HEADER, entry.getValue() + " x " + entry.getKey()));
+    }
+
+    // Runs the hook once, just before the body is written, while headers and status can still change
+    private static final class BeforeBodyResponse extends HttpServletResponseWrapper {
+
+        private final Runnable hook;
+        private boolean done;
+
+        BeforeBodyResponse(HttpServletResponse response, Runnable hook) {
+            super(response);
+            this.hook = hook;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeBody();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeBody();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeBody();
+            super.flushBuffer();
+        }
+
+        void beforeBody() {
+            if (done || isCommitted()) {
+                return;
+            }
+            done = true;
+            hook.run();
+        }
+    }
+}
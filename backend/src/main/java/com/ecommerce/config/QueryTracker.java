@@ -0,0 +1,178 @@
+package com.ecommerce.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the MongoDB commands, returned documents and reply bytes of the current request, through the
+ * driver's CommandListener. The synchronous driver notifies on the thread that sent the command, so a
+ * scope opened by QueryBudgetFilter sees exactly the commands of its request; work handed to other
+ * threads (domain event handlers, @Async, batch pools) is not attributed to any request.
+ */
+@Component
+public class QueryTracker implements CommandListener {
+
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    public Stats open() {
+        Stats stats = new Stats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public void close() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.started(shape(event.getCommandName(), event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            BsonDocument reply = event.getResponse();
+            stats.succeeded(documents(reply), reply instanceof RawBsonDocument raw ? raw.getByteBuffer().remaining() : 0);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+
+    /**
+     * The command with every value replaced by ?, e.g. "find products {_id:?}", so lookups that differ
+     * only in their arguments compare equal. Null for cursor continuations (getMore, killCursors).
+     */
+    static String shape(String commandName, BsonDocument command) {
+        if ("getMore".equals(commandName) || "killCursors".equals(commandName)) {
+            return null;
+        }
+        BsonValue target = command.get(commandName);
+        StringBuilder shape = new StringBuilder(commandName);
+        if (target != null && target.isString()) {
+            shape.append(' ').append(target.asString().getValue());
+        }
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "aggregate" -> command.get("pipeline");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "update" -> first(command.get("updates"), "q");
+            case "delete" -> first(command.get("deletes"), "q");
+            default -> null;
+        };
+        if (filter != null) {
+            shape.append(' ');
+            appendShape(shape, filter);
+        }
+        return shape.toString();
+    }
+
+    private static BsonValue first(BsonValue statements, String field) {
+        return statements != null && statements.isArray() && !statements.asArray().isEmpty()
+                && statements.asArray().get(0).isDocument()
+                ? statements.asArray().get(0).asDocument().get(field) : null;
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value) {
+        if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (!first) {
+                    shape.append(',');
+                }
+                first = false;
+                shape.append(entry.getKey()).append(':');
+                appendShape(shape, entry.getValue());
+            }
+            shape.append('}');
+        } else if (value.isArray() && !value.asArray().isEmpty() && value.asArray().get(0).isDocument()) {
+            // Pipelines and $and/$or clauses keep their structure; lists of values ($in) collapse to [?]
+            BsonArray array = value.asArray();
+            shape.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    shape.append(',');
+                }
+                appendShape(shape, array.get(i));
+            }
+            shape.append(']');
+        } else if (value.isArray()) {
+            shape.append("[?]");
+        } else {
+            shape.append('?');
+        }
+    }
+
+    // Documents in a cursor batch, or the one document returned by findAndModify
+    static int documents(BsonDocument reply) {
+        BsonValue cursor = reply.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch") : cursor.asDocument().get("nextBatch");
+            return batch != null && batch.isArray() ? batch.asArray().size() : 0;
+        }
+        BsonValue value = reply.get("value");
+        return value != null && value.isDocument() ? 1 : 0;
+    }
+
+    /** Counts for one request; only touched by the request's own thread. */
+    public static final class Stats {
+
+        private int queries;
+        private int documents;
+        private long bytes;
+        private final Map<String, Integer> shapes = new LinkedHashMap<>();
+
+        // Cursor continuations add documents and bytes but are not separate queries
+        void started(String shape) {
+            if (shape != null) {
+                queries++;
+                shapes.merge(shape, 1, Integer::sum);
+            }
+        }
+
+        void succeeded(int documentCount, int byteCount) {
+            documents += documentCount;
+            bytes += byteCount;
+        }
+
+        public int queries() {
+            return queries;
+        }
+
+        public int documents() {
+            return documents;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        /** Query shapes sent at least threshold times, most repeated first. */
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapes.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= threshold)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+            return repeated;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.config;
+
+import com.ecommerce.controller.ReactiveCatalogHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * The reactive catalog read path, enabled with the reactive-catalog profile. Functional WebFlux
+ * routes backed by the reactive Mongo driver are mounted under /api/reactive in the same Tomcat as
+ * the servlet stack, through Servlet non-blocking I/O, so both can be deployed and compared side by
+ * side. The reactive Mongo client and repositories are only created in this profile (application.yml
+ * excludes their auto-configuration and application-reactive-catalog.yml lifts the exclusion).
+ */
+@Configuration
+@Profile("reactive-catalog")
+public class ReactiveCatalogConfig {
+
+    public static final String PATH = "/api/reactive";
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveCatalogRoutes(ReactiveCatalogHandler handler) {
+        return RouterFunctions.route()
+                .GET("/products", handler::listProducts)
+                .GET("/products/featured", handler::featuredProducts)
+                .GET("/products/search", handler::searchProducts)
+                .GET("/products/category/{categoryId}", handler::productsByCategory)
+                .GET("/products/{id}", handler::getProduct)
+                .GET("/categories", handler::listCategories)
+                .GET("/categories/root", handler::rootCategories)
+                .GET("/categories/slug/{slug}", handler::getCategoryBySlug)
+                .GET("/categories/{id}/subcategories", handler::subCategories)
+                .GET("/categories/{id}", handler::getCategory)
+                .build();
+    }
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveCatalogServlet(
+            RouterFunction<ServerResponse> reactiveCatalogRoutes, ObjectMapper objectMapper) {
+        // Same JSON settings as the servlet stack
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ServletHttpHandlerAdapter servlet = new ServletHttpHandlerAdapter(
+                RouterFunctions.toHttpHandler(reactiveCatalogRoutes, strategies));
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(servlet, PATH + "/*");
+        registration.setName("reactiveCatalog");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+}
@@ -1,10 +1,14 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.QueryBudget;
+import com.ecommerce.dto.request.BulkOrderStatusRequest;
 import com.ecommerce.dto.request.CategoryRequest;
 import com.ecommerce.dto.request.CouponRequest;
 import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.request.SeedRequest;
 import com.ecommerce.dto.request.WarehouseRequest;
 import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.dto.response.BulkOrderStatusResponse;
 import com.ecommerce.dto.response.CategoryResponse;
 import com.ecommerce.dto.response.DashboardStatsResponse;
 import com.ecommerce.dto.response.OrderResponse;
@@ -16,25 +20,43 @@ import com.ecommerce.model.Warehouse;
 import com.ecommerce.service.CategoryService;
 import com.ecommerce.service.ComplaintService;
 import com.ecommerce.service.DashboardService;
+import com.ecommerce.service.DataGenerator;
+import com.ecommerce.service.DomainEventLog;
+import com.ecommerce.service.FlashSaleService;
+import com.ecommerce.service.InvoiceService;
 import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.LowStockMonitor;
+import com.ecommerce.service.OrderBulkStatusService;
+import com.ecommerce.service.OrderExportService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentReconciler;
 import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.PaymentWebhookService;
 import com.ecommerce.service.ProductService;
 import com.ecommerce.service.UserService;
+import com.ecommerce.service.WarehouseAllocationService;
 import com.ecommerce.service.WarehouseService;
 import com.ecommerce.service.ReportService;
+import com.ecommerce.service.StockHistoryWriter;
 import com.ecommerce.service.AdminManagementService;
+import com.ecommerce.service.AdminActivityLogWriter;
+import com.ecommerce.service.Audited;
+import com.ecommerce.service.AuditTrail;
 import com.ecommerce.repository.CouponRepository;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -45,24 +67,56 @@ public class AdminController {
     private final ProductService productService;
     private final CategoryService categoryService;
     private final OrderService orderService;
+    private final OrderBulkStatusService orderBulkStatusService;
+    private final OrderExportService orderExportService;
+    private final InvoiceService invoiceService;
     private final UserService userService;
     private final DashboardService dashboardService;
     private final ComplaintService complaintService;
     private final PaymentService paymentService;
+    private final PaymentWebhookService paymentWebhookService;
+    private final PaymentReconciler paymentReconciler;
     private final InventoryService inventoryService;
+    private final FlashSaleService flashSaleService;
+    private final StockHistoryWriter stockHistoryWriter;
+    private final LowStockMonitor lowStockMonitor;
+    private final DomainEventLog domainEventLog;
     private final CouponRepository couponRepository;
     private final WarehouseService warehouseService;
+    private final WarehouseAllocationService warehouseAllocationService;
     private final ReportService reportService;
     private final AdminManagementService adminManagementService;
+    private final AdminActivityLogWriter activityLogWriter;
+    private final AuditTrail auditTrail;
+    private final DataGenerator dataGenerator;
+
+    // Generating data can wipe the store (reset), so the endpoint is off unless a non-production profile turns it on
+    @Value("${app.seed.enabled:false}")
+    private boolean seedEnabled;
 
     // ========== Dashboard ==========
 
     @GetMapping("/dashboard/stats")
+    @QueryBudget(30)
     public ResponseEntity<ApiResponse<DashboardStatsResponse>> getDashboardStats() {
         DashboardStatsResponse stats = dashboardService.getDashboardStats();
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
 
+    @GetMapping("/dashboard/daily-sales")
+    public ResponseEntity<ApiResponse<List<com.ecommerce.model.SalesDaily>>> getDailySales(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate to) {
+        return ResponseEntity.ok(ApiResponse.success(dashboardService.getDailySales(from, to)));
+    }
+
+    // ========== Domain Events ==========
+
+    @GetMapping("/events/handlers")
+    public ResponseEntity<ApiResponse<java.util.Map<String, java.util.Map<String, Object>>>> getEventHandlerStats() {
+        return ResponseEntity.ok(ApiResponse.success(domainEventLog.getStats()));
+    }
+
     // ========== Product Management ==========
 
     @GetMapping("/products")
@@ -76,12 +130,14 @@ public class AdminController {
     }
 
     @PostMapping("/products")
+    @Audited(action = "CREATE_PRODUCT", entityType = "PRODUCT")
     public ResponseEntity<ApiResponse<ProductResponse>> createProduct(@Valid @RequestBody ProductRequest request) {
         ProductResponse product = productService.createProduct(request);
         return ResponseEntity.ok(ApiResponse.success("Product created successfully", product));
     }
 
     @PutMapping("/products/{id}")
+    @Audited(action = "UPDATE_PRODUCT", entityType = "PRODUCT")
     public ResponseEntity<ApiResponse<ProductResponse>> updateProduct(
             @PathVariable String id,
             @RequestBody ProductRequest request) {
@@ -90,12 +146,14 @@ public class AdminController {
     }
 
     @DeleteMapping("/products/{id}")
+    @Audited(action = "DELETE_PRODUCT", entityType = "PRODUCT")
     public ResponseEntity<ApiResponse<Void>> deleteProduct(@PathVariable String id) {
         productService.deleteProduct(id);
         return ResponseEntity.ok(ApiResponse.success("Product deleted successfully", null));
     }
 
     @PostMapping("/products/bulk-upload")
+    @Audited(action = "BULK_UPLOAD_PRODUCTS", entityType = "PRODUCT")
     public ResponseEntity<ApiResponse<Void>> bulkUploadProducts(@RequestParam("file") MultipartFile file) {
         productService.saveProductsFromCsv(file);
         return ResponseEntity.ok(ApiResponse.success("Products uploaded successfully", null));
@@ -104,12 +162,14 @@ public class AdminController {
     // ========== Category Management ==========
 
     @PostMapping("/categories")
+    @Audited(action = "CREATE_CATEGORY", entityType = "CATEGORY")
     public ResponseEntity<ApiResponse<CategoryResponse>> createCategory(@Valid @RequestBody CategoryRequest request) {
         CategoryResponse category = categoryService.createCategory(request);
         return ResponseEntity.ok(ApiResponse.success("Category created successfully", category));
     }
 
     @PutMapping("/categories/{id}")
+    @Audited(action = "UPDATE_CATEGORY", entityType = "CATEGORY")
     public ResponseEntity<ApiResponse<CategoryResponse>> updateCategory(
             @PathVariable String id,
             @RequestBody CategoryRequest request) {
@@ -118,6 +178,7 @@ public class AdminController {
     }
 
     @DeleteMapping("/categories/{id}")
+    @Audited(action = "DELETE_CATEGORY", entityType = "CATEGORY")
     public ResponseEntity<ApiResponse<Void>> deleteCategory(@PathVariable String id) {
         categoryService.deleteCategory(id);
         return ResponseEntity.ok(ApiResponse.success("Category deleted successfully", null));
@@ -135,6 +196,58 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate to,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) String afterId,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        OrderExportService.Format exportFormat;
+        java.util.Set<Order.OrderStatus> statuses = java.util.EnumSet.noneOf(Order.OrderStatus.class);
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+            if (status != null) {
+                status.forEach(value -> statuses.add(Order.OrderStatus.valueOf(value.trim().toUpperCase())));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new com.ecommerce.exception.BadRequestException("Unknown export format or order status");
+        }
+
+        StreamingResponseBody body = orderExportService.export(new OrderExportService.Filter(
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                statuses, afterId, includeArchived), exportFormat, gzip);
+
+        String extension = exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + extension + (gzip ? ".gz\"" : "\""))
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType)
+                .body(body);
+    }
+
+    @GetMapping("/orders/invoices")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new com.ecommerce.exception.BadRequestException("'to' must not be before 'from'");
+        }
+
+        StreamingResponseBody body = out -> invoiceService.writeInvoiceZip(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"invoices_" + from + "_" + to + ".zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
     @GetMapping("/orders/{id}")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrderById(@PathVariable String id) {
         OrderResponse order = orderService.getOrderByIdAdmin(id);
@@ -154,6 +267,7 @@ public class AdminController {
     }
 
     @PutMapping("/orders/{id}/status")
+    @Audited(action = "UPDATE_ORDER_STATUS", entityType = "ORDER")
     public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
             @PathVariable String id,
             @RequestParam String status) {
@@ -161,7 +275,16 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success("Order status updated", order));
     }
 
+    @PostMapping("/orders/bulk-status")
+    @Audited(action = "BULK_UPDATE_ORDER_STATUS", entityType = "ORDER", recordArgs = true)
+    public ResponseEntity<ApiResponse<BulkOrderStatusResponse>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request) {
+        BulkOrderStatusResponse result = orderBulkStatusService.updateStatus(request);
+        return ResponseEntity.ok(ApiResponse.success("Bulk status update finished", result));
+    }
+
     @PutMapping("/orders/{id}/tracking")
+    @Audited(action = "UPDATE_TRACKING_NUMBER", entityType = "ORDER")
     public ResponseEntity<ApiResponse<OrderResponse>> updateTrackingNumber(
             @PathVariable String id,
             @RequestParam String trackingNumber) {
@@ -188,6 +311,7 @@ public class AdminController {
     }
 
     @PutMapping("/users/{id}")
+    @Audited(action = "UPDATE_USER", entityType = "USER")
     public ResponseEntity<ApiResponse<UserResponse>> updateUser(
             @PathVariable String id,
             @RequestBody com.ecommerce.dto.request.UpdateProfileRequest request) {
@@ -196,12 +320,14 @@ public class AdminController {
     }
 
     @PutMapping("/users/{id}/toggle-status")
+    @Audited(action = "TOGGLE_USER_STATUS", entityType = "USER")
     public ResponseEntity<ApiResponse<Void>> toggleUserStatus(@PathVariable String id) {
         userService.toggleUserStatus(id);
         return ResponseEntity.ok(ApiResponse.success("User status updated", null));
     }
 
     @PutMapping("/users/{id}/role")
+    @Audited(action = "UPDATE_USER_ROLE", entityType = "USER")
     public ResponseEntity<ApiResponse<UserResponse>> updateUserRole(
             @PathVariable String id,
             @RequestParam String role) {
@@ -210,20 +336,25 @@ public class AdminController {
     }
 
     @PutMapping("/users/{id}/activate")
+    @Audited(action = "ACTIVATE_USER", entityType = "USER")
     public ResponseEntity<ApiResponse<Void>> activateUser(@PathVariable String id) {
         userService.activateUser(id);
         return ResponseEntity.ok(ApiResponse.success("User activated", null));
     }
 
     @PutMapping("/users/{id}/deactivate")
+    @Audited(action = "DEACTIVATE_USER", entityType = "USER")
     public ResponseEntity<ApiResponse<Void>> deactivateUser(@PathVariable String id) {
         userService.deactivateUser(id);
         return ResponseEntity.ok(ApiResponse.success("User deactivated", null));
     }
 
     @GetMapping("/users/{id}/orders")
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrderHistory(@PathVariable String id) {
-        List<OrderResponse> orders = orderService.getOrdersByUserId(id);
+    public ResponseEntity<ApiResponse<Page<OrderResponse>>> getUserOrderHistory(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<OrderResponse> orders = orderService.getOrdersByUserId(id, PageRequest.of(page, size));
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
@@ -238,6 +369,7 @@ public class AdminController {
     }
 
     @PutMapping("/complaints/{id}/status")
+    @Audited(action = "UPDATE_COMPLAINT_STATUS", entityType = "COMPLAINT")
     public ResponseEntity<ApiResponse<com.ecommerce.model.Complaint>> updateComplaintStatus(
             @PathVariable String id,
             @RequestParam com.ecommerce.model.Complaint.ComplaintStatus status,
@@ -257,6 +389,27 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
+    @PostMapping("/payments/reconcile")
+    @Audited(action = "RECONCILE_PAYMENTS", entityType = "PAYMENT")
+    public ResponseEntity<ApiResponse<com.ecommerce.model.PaymentReconciliation>> reconcilePayments() {
+        com.ecommerce.model.PaymentReconciliation report = paymentReconciler.reconcile();
+        if (report == null) {
+            throw new com.ecommerce.exception.BadRequestException("A reconciliation run is already in progress");
+        }
+        return ResponseEntity.ok(ApiResponse.success("Reconciliation finished", report));
+    }
+
+    @GetMapping("/payments/reconciliations")
+    public ResponseEntity<ApiResponse<List<com.ecommerce.model.PaymentReconciliation>>> getReconciliationReports(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(paymentReconciler.getRecentReports(Math.min(limit, 100))));
+    }
+
+    @GetMapping("/payments/webhooks/stats")
+    public ResponseEntity<ApiResponse<java.util.Map<String, Long>>> getWebhookStats() {
+        return ResponseEntity.ok(ApiResponse.success(paymentWebhookService.getStats()));
+    }
+
     // ========== Warehouse Management ==========
 
     @GetMapping("/warehouses")
@@ -265,12 +418,14 @@ public class AdminController {
     }
 
     @PostMapping("/warehouses")
+    @Audited(action = "CREATE_WAREHOUSE", entityType = "WAREHOUSE")
     public ResponseEntity<ApiResponse<Warehouse>> createWarehouse(@Valid @RequestBody WarehouseRequest request) {
         return ResponseEntity
                 .ok(ApiResponse.success("Warehouse created successfully", warehouseService.createWarehouse(request)));
     }
 
     @PutMapping("/warehouses/{id}")
+    @Audited(action = "UPDATE_WAREHOUSE", entityType = "WAREHOUSE")
     public ResponseEntity<ApiResponse<Warehouse>> updateWarehouse(@PathVariable String id,
             @RequestBody WarehouseRequest request) {
         return ResponseEntity.ok(
@@ -278,11 +433,28 @@ public class AdminController {
     }
 
     @DeleteMapping("/warehouses/{id}")
+    @Audited(action = "DELETE_WAREHOUSE", entityType = "WAREHOUSE")
     public ResponseEntity<ApiResponse<Void>> deleteWarehouse(@PathVariable String id) {
         warehouseService.deleteWarehouse(id);
         return ResponseEntity.ok(ApiResponse.success("Warehouse deleted successfully", null));
     }
 
+    @GetMapping("/warehouses/{id}/stock")
+    public ResponseEntity<ApiResponse<List<com.ecommerce.model.WarehouseStock>>> getWarehouseStock(
+            @PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success(warehouseAllocationService.getWarehouseStock(id)));
+    }
+
+    @PutMapping("/warehouses/{id}/stock/{productId}")
+    @Audited(action = "SET_WAREHOUSE_STOCK", entityType = "WAREHOUSE")
+    public ResponseEntity<ApiResponse<com.ecommerce.model.WarehouseStock>> setWarehouseStock(
+            @PathVariable String id,
+            @PathVariable String productId,
+            @RequestParam int quantity) {
+        return ResponseEntity.ok(ApiResponse.success("Warehouse stock updated",
+                warehouseAllocationService.setWarehouseStock(id, productId, quantity)));
+    }
+
     // ========== Inventory Management ==========
 
     @GetMapping("/inventory/low-stock")
@@ -290,7 +462,13 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(inventoryService.getLowStockAlerts()));
     }
 
+    @GetMapping(value = "/inventory/low-stock/stream", produces = org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE)
+    public org.springframework.web.servlet.mvc.method.annotation.SseEmitter streamLowStockEvents() {
+        return lowStockMonitor.subscribe();
+    }
+
     @PostMapping("/inventory/update-stock")
+    @Audited(action = "UPDATE_STOCK", entityType = "PRODUCT", entityId = "productId")
     public ResponseEntity<ApiResponse<Void>> updateStock(
             @RequestParam String productId,
             @RequestParam int change,
@@ -300,6 +478,50 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success("Stock updated successfully", null));
     }
 
+    @GetMapping("/inventory/{productId}/history")
+    public ResponseEntity<ApiResponse<Page<com.ecommerce.model.StockHistory>>> getStockHistory(
+            @PathVariable String productId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ApiResponse.success(inventoryService.getStockHistory(productId, from, to,
+                PageRequest.of(page, Math.min(size, 500), Sort.by("timestamp").descending()))));
+    }
+
+    @GetMapping("/inventory/{productId}/history/daily")
+    public ResponseEntity<ApiResponse<List<com.ecommerce.model.StockHistoryDaily>>> getDailyStockHistory(
+            @PathVariable String productId,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate to) {
+        return ResponseEntity.ok(ApiResponse.success(inventoryService.getDailyStockHistory(productId, from, to)));
+    }
+
+    @GetMapping("/inventory/history-writer")
+    public ResponseEntity<ApiResponse<java.util.Map<String, Object>>> getStockHistoryWriterStats() {
+        return ResponseEntity.ok(ApiResponse.success(stockHistoryWriter.getStats()));
+    }
+
+    // ========== Flash Sales ==========
+
+    @GetMapping("/flash-sales")
+    public ResponseEntity<ApiResponse<java.util.Map<String, Integer>>> getFlashSales() {
+        return ResponseEntity.ok(ApiResponse.success(flashSaleService.getRemaining()));
+    }
+
+    @PostMapping("/flash-sales/{productId}")
+    @Audited(action = "ENABLE_FLASH_SALE", entityType = "PRODUCT", entityId = "productId")
+    public ResponseEntity<ApiResponse<com.ecommerce.model.Product>> enableFlashSale(@PathVariable String productId) {
+        return ResponseEntity.ok(ApiResponse.success("Flash-sale mode enabled", flashSaleService.enable(productId)));
+    }
+
+    @DeleteMapping("/flash-sales/{productId}")
+    @Audited(action = "DISABLE_FLASH_SALE", entityType = "PRODUCT", entityId = "productId")
+    public ResponseEntity<ApiResponse<Void>> disableFlashSale(@PathVariable String productId) {
+        flashSaleService.disable(productId);
+        return ResponseEntity.ok(ApiResponse.success("Flash-sale mode disabled", null));
+    }
+
     // ========== Coupon Management ==========
 
     @GetMapping("/coupons")
@@ -308,6 +530,7 @@ public class AdminController {
     }
 
     @PostMapping("/coupons")
+    @Audited(action = "CREATE_COUPON", entityType = "COUPON")
     public ResponseEntity<ApiResponse<Coupon>> createCoupon(@Valid @RequestBody CouponRequest request) {
         Coupon coupon = Coupon.builder()
                 .code(request.getCode())
@@ -326,6 +549,7 @@ public class AdminController {
     }
 
     @PutMapping("/coupons/{id}")
+    @Audited(action = "UPDATE_COUPON", entityType = "COUPON")
     public ResponseEntity<ApiResponse<Coupon>> updateCoupon(@PathVariable String id,
             @RequestBody CouponRequest request) {
         Coupon coupon = couponRepository.findById(id)
@@ -345,6 +569,7 @@ public class AdminController {
     }
 
     @DeleteMapping("/coupons/{id}")
+    @Audited(action = "DELETE_COUPON", entityType = "COUPON")
     public ResponseEntity<ApiResponse<Void>> deleteCoupon(@PathVariable String id) {
         couponRepository.deleteById(id);
         return ResponseEntity.ok(ApiResponse.success("Coupon deleted successfully", null));
@@ -353,12 +578,29 @@ public class AdminController {
     // ========== Reports & Analytics ==========
 
     @GetMapping("/reports")
+    @QueryBudget(10)
     public ResponseEntity<ApiResponse<com.ecommerce.dto.response.ReportsResponse>> getReports(
             @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate startDate,
             @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate endDate) {
         return ResponseEntity.ok(ApiResponse.success(reportService.generateFullReport(startDate, endDate)));
     }
 
+    // ========== Synthetic Data ==========
+
+    @PostMapping("/seed")
+    @Audited(action = "GENERATE_DATA", entityType = "SYSTEM")
+    public ResponseEntity<ApiResponse<java.util.Map<String, Object>>> generateData(
+            @Valid @RequestBody(required = false) SeedRequest request) {
+        if (!seedEnabled) {
+            throw new com.ecommerce.exception.ResourceNotFoundException("Data generation is disabled (app.seed.enabled)");
+        }
+        java.util.Map<String, Object> report = dataGenerator.generate(request != null ? request : new SeedRequest());
+        if (report == null) {
+            throw new com.ecommerce.exception.BadRequestException("Data generation is already in progress");
+        }
+        return ResponseEntity.ok(ApiResponse.success("Synthetic data generated", report));
+    }
+
     // ========== Admin Role Management ==========
 
     @GetMapping("/admin-users")
@@ -378,7 +620,22 @@ public class AdminController {
 
     @GetMapping("/activity-logs")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<com.ecommerce.model.AdminActivityLog>>> getActivityLogs() {
-        return ResponseEntity.ok(ApiResponse.success(adminManagementService.getAllLogs()));
+    public ResponseEntity<ApiResponse<com.ecommerce.dto.response.CursorPageResponse<com.ecommerce.model.AdminActivityLog>>> getActivityLogs(
+            @RequestParam(required = false) String adminId,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ApiResponse.success(
+                adminManagementService.getLogs(adminId, entityType, from, to, cursor, size)));
+    }
+
+    @GetMapping("/activity-logs/writer")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<java.util.Map<String, Object>>> getActivityLogWriterStats() {
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>(activityLogWriter.getStats());
+        stats.put("audit", auditTrail.getStats());
+        return ResponseEntity.ok(ApiResponse.success(stats));
     }
 }
@@ -1,10 +1,11 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.QueryBudget;
 import com.ecommerce.dto.request.OrderRequest;
 import com.ecommerce.dto.response.ApiResponse;
 import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.service.OrderService;
-import com.ecommerce.service.PdfService;
+import com.ecommerce.service.InvoiceService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,9 +20,10 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
-    private final PdfService pdfService;
+    private final InvoiceService invoiceService;
 
     @PostMapping
+    @QueryBudget(30) // two stock updates per cart line, so about ten lines
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(@Valid @RequestBody OrderRequest request) {
         OrderResponse order = orderService.createOrder(request);
         return ResponseEntity.ok(ApiResponse.success("Order placed successfully", order));
@@ -50,15 +52,7 @@ public class OrderController {
 
     @GetMapping("/{id}/invoice")
     public ResponseEntity<byte[]> generateInvoice(@PathVariable String id) {
-        // Ensure user has access (handled by getOrderEntity internal checks or we
-        // should do it here)
-        // orderService.getOrderById(id) does access check.
-        // But getOrderEntity might not?
-        // Let's use getOrderById first to verify access, then get entity.
-        orderService.getOrderById(id);
-        com.ecommerce.model.Order order = orderService.getOrderEntity(id);
-
-        byte[] pdfBytes = pdfService.generateInvoice(order);
+        byte[] pdfBytes = invoiceService.getInvoice(orderService.getAccessibleOrder(id));
 
         return ResponseEntity.ok()
                 .header("Content-Type", "application/pdf")
@@ -5,6 +5,7 @@ import com.ecommerce.model.Order;
 import com.ecommerce.model.Payment;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.PaymentWebhookService;
 import com.razorpay.RazorpayException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,7 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final OrderService orderService;
+    private final PaymentWebhookService paymentWebhookService;
 
     @PostMapping("/razorpay/order/{orderId}")
     public ResponseEntity<ApiResponse<Payment>> createRazorpayOrder(@PathVariable String orderId)
@@ -38,11 +40,22 @@ public class PaymentController {
         boolean isValid = paymentService.verifyPaymentSignature(razorpayOrderId, razorpayPaymentId, razorpaySignature);
 
         if (isValid) {
-            paymentService.completePayment(paymentId, razorpayPaymentId, "UPI"); // Razorpay method can be dynamic, but
-                                                                                 // UPI is placeholder
+            // Razorpay method can be dynamic, but UPI is placeholder; the webhook records the real one
+            // if it gets there first
+            paymentService.completePayment(paymentId, razorpayOrderId, razorpayPaymentId, "UPI");
             return ResponseEntity.ok(ApiResponse.success("Payment verified successfully", "success"));
         } else {
             return ResponseEntity.badRequest().body(ApiResponse.error("Payment verification failed"));
         }
     }
+
+    // Called by the gateway, not the browser; authenticated by the signature instead of a token
+    @PostMapping("/webhooks/razorpay")
+    public ResponseEntity<ApiResponse<String>> receiveWebhook(
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId,
+            @RequestBody String body) {
+        boolean accepted = paymentWebhookService.ingest(eventId, signature, body);
+        return ResponseEntity.ok(ApiResponse.success(accepted ? "Event received" : "Duplicate event", "ok"));
+    }
 }
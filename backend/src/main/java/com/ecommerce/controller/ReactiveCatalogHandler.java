@@ -0,0 +1,126 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.model.Category;
+import com.ecommerce.repository.ReactiveCategoryRepository;
+import com.ecommerce.repository.ReactiveProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Functional handlers for the reactive catalog routes (see ReactiveCatalogConfig). They mirror the
+ * reads in ProductController and CategoryController, but lists are streamed as they come off the
+ * Mongo cursor rather than collected into a page: a JSON array by default, or one document per
+ * line for clients that accept application/x-ndjson. Demand from the client connection flows back
+ * to the cursor, so a slow reader slows the query instead of buffering results in memory.
+ * Detail routes return the bare object and 404 when it does not exist.
+ */
+@Component
+@Profile("reactive-catalog")
+@RequiredArgsConstructor
+public class ReactiveCatalogHandler {
+
+    static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE = Set.of("createdAt", "price", "name", "averageRating", "reviewCount");
+
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveCategoryRepository categoryRepository;
+
+    public Mono<ServerResponse> listProducts(ServerRequest request) {
+        String sortBy = request.queryParam("sortBy").filter(SORTABLE::contains).orElse("createdAt");
+        Sort sort = request.queryParam("sortDir").filter("asc"::equalsIgnoreCase).isPresent()
+                ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        return stream(request, productRepository.findByActiveTrue(page(request, 12, sort))
+                .map(ProductResponse::fromProduct), ProductResponse.class);
+    }
+
+    public Mono<ServerResponse> featuredProducts(ServerRequest request) {
+        return stream(request, productRepository.findByFeaturedTrueAndActiveTrue(page(request, 8, Sort.unsorted()))
+                .map(ProductResponse::fromProduct), ProductResponse.class);
+    }
+
+    public Mono<ServerResponse> productsByCategory(ServerRequest request) {
+        return stream(request, productRepository.findByCategoryIdAndActiveTrue(request.pathVariable("categoryId"),
+                page(request, 12, Sort.unsorted())).map(ProductResponse::fromProduct), ProductResponse.class);
+    }
+
+    public Mono<ServerResponse> searchProducts(ServerRequest request) {
+        String query = request.queryParam("q").orElse("");
+        // Matched literally: the servlet search passes user input through as a regex
+        return stream(request, productRepository.searchByName(Pattern.quote(query), page(request, 12, Sort.unsorted()))
+                .map(ProductResponse::fromProduct), ProductResponse.class);
+    }
+
+    public Mono<ServerResponse> getProduct(ServerRequest request) {
+        return productRepository.findById(request.pathVariable("id"))
+                .map(ProductResponse::fromProduct)
+                .flatMap(product -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(product))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> listCategories(ServerRequest request) {
+        return stream(request, categoryRepository.findByActiveTrue().map(CategoryResponse::fromCategory),
+                CategoryResponse.class);
+    }
+
+    public Mono<ServerResponse> rootCategories(ServerRequest request) {
+        return stream(request, categoryRepository.findByParentIdIsNullAndActiveTrue().map(CategoryResponse::fromCategory),
+                CategoryResponse.class);
+    }
+
+    public Mono<ServerResponse> subCategories(ServerRequest request) {
+        return stream(request, categoryRepository.findByParentIdAndActiveTrue(request.pathVariable("id"))
+                .map(CategoryResponse::fromCategory), CategoryResponse.class);
+    }
+
+    public Mono<ServerResponse> getCategory(ServerRequest request) {
+        return category(categoryRepository.findById(request.pathVariable("id")));
+    }
+
+    public Mono<ServerResponse> getCategoryBySlug(ServerRequest request) {
+        return category(categoryRepository.findBySlug(request.pathVariable("slug")));
+    }
+
+    private Mono<ServerResponse> category(Mono<Category> category) {
+        return category.map(CategoryResponse::fromCategory)
+                .flatMap(response -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(response))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private static <T> Mono<ServerResponse> stream(ServerRequest request, Flux<T> items, Class<T> type) {
+        List<MediaType> accept = request.headers().accept();
+        MediaType contentType = accept.stream().anyMatch(MediaType.APPLICATION_NDJSON::isCompatibleWith)
+                ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+        return ServerResponse.ok().contentType(contentType).body(items, type);
+    }
+
+    private static Pageable page(ServerRequest request, int defaultSize, Sort sort) {
+        int page = intParam(request, "page", 0);
+        int size = intParam(request, "size", defaultSize);
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), sort);
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        try {
+            return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.QueryBudget;
 import com.ecommerce.dto.response.ApiResponse;
 import com.ecommerce.dto.response.ProductResponse;
 import com.ecommerce.model.User;
@@ -22,6 +23,7 @@ public class WishlistController {
     private final UserService userService;
 
     @GetMapping
+    @QueryBudget(8) // products are resolved from their DBRefs in one query
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getWishlist() {
         User currentUser = userService.getCurrentUser();
         List<ProductResponse> wishlistItems = wishlistService.getWishlist(currentUser);
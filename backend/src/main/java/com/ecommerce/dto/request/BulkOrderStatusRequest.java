@@ -0,0 +1,37 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Either orderIds or filter selects the orders
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+    @NotBlank(message = "Target status is required")
+    private String status;
+
+    private List<String> orderIds;
+
+    private Filter filter;
+
+    @Builder.Default
+    private boolean notifyCustomers = true;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private String currentStatus;
+        private LocalDateTime createdFrom;
+        private LocalDateTime createdTo;
+    }
+}
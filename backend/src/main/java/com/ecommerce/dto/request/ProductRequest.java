@@ -36,6 +36,9 @@ public class ProductRequest {
     
     @Min(value = 0, message = "Stock quantity must be positive")
     private int stockQuantity;
+
+    @Min(value = 0, message = "Low stock threshold must be positive")
+    private Integer lowStockThreshold;
     
     private boolean active;
     private boolean featured;
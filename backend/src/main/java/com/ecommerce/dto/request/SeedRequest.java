@@ -0,0 +1,86 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Volumes for the synthetic data generator; also bound from app.seed.* when it runs at startup
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeedRequest {
+    // The same seed and asOf always produce the same documents
+    @Builder.Default
+    private long seed = 42;
+
+    // Defaults to today; pin it to reproduce a data set on a later day
+    private LocalDate asOf;
+
+    @Builder.Default
+    @Min(1)
+    @Max(1000)
+    private int rootCategories = 8;
+
+    @Builder.Default
+    @Min(0)
+    @Max(100)
+    private int subcategories = 6; // per root category
+
+    @Builder.Default
+    @Min(0)
+    @Max(10_000_000)
+    private int products = 10_000;
+
+    @Builder.Default
+    @Min(0)
+    @Max(10_000_000)
+    private int users = 5_000;
+
+    @Builder.Default
+    @Min(0)
+    @Max(50_000_000)
+    private int orders = 50_000;
+
+    @Builder.Default
+    @Min(0)
+    @Max(50_000_000)
+    private int reviews = 20_000;
+
+    @Builder.Default
+    @Min(0)
+    @Max(100)
+    private int cartPercent = 20; // share of users with an open cart
+
+    @Builder.Default
+    @Min(0)
+    @Max(1000)
+    private int stockEventsPerProduct = 6;
+
+    @Builder.Default
+    @Min(1)
+    @Max(3650)
+    private int days = 365; // orders and reviews are spread over this many days before asOf
+
+    // Zipf exponent of product popularity in orders, reviews and carts; 0 is uniform
+    @Builder.Default
+    @DecimalMin("0.0")
+    @DecimalMax("3.0")
+    private double popularitySkew = 1.0;
+
+    // Deletes the generated collections first, including documents not created by the generator
+    @Builder.Default
+    private boolean reset = false;
+
+    @Builder.Default
+    @Min(1)
+    @Max(100_000)
+    private int batchSize = 1000;
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusResponse {
+    private String status;
+    private int requested;
+    private Map<Outcome, Integer> counts;
+    private long elapsedMillis;
+
+    @Builder.Default
+    private List<Result> results = new ArrayList<>();
+
+    public enum Outcome {
+        UPDATED, ALREADY_IN_STATUS, INVALID_TRANSITION, CONFLICT, NOT_FOUND
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String orderId;
+        private String orderNumber;
+        private Outcome outcome;
+        private String previousStatus;
+        private String message;
+    }
+}
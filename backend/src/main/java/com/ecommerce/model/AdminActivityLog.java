@@ -4,8 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -16,6 +17,8 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "admin_activity_logs")
+@CompoundIndex(name = "adminId_timestamp", def = "{'adminId': 1, 'timestamp': -1, '_id': -1}")
+@CompoundIndex(name = "entityType_timestamp", def = "{'entityType': 1, 'timestamp': -1, '_id': -1}")
 public class AdminActivityLog {
     @Id
     private String id;
@@ -33,6 +36,7 @@ public class AdminActivityLog {
 
     private String ipAddress;
 
-    @CreatedDate
+    // Set when the action happens rather than when the batch is written; entries are kept for 180 days
+    @Indexed(expireAfterSeconds = 180 * 24 * 3600)
     private LocalDateTime timestamp;
 }
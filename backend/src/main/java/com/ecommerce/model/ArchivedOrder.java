@@ -0,0 +1,62 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A finished order moved out of orders by the archiver. Keeps what order history, invoices and
+ * reports read; warehouse allocations, notes and bookkeeping fields are dropped, and the line
+ * items are stored gzipped since archived orders are only ever read whole.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "orders_archive")
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}")
+public class ArchivedOrder {
+    @Id
+    private String id;
+
+    @Indexed
+    private String orderNumber;
+    private String userId;
+    private String userName;
+    private String userEmail;
+
+    private Order.ShippingAddress shippingAddress;
+
+    private BigDecimal subtotal;
+    private BigDecimal shippingCost;
+    private BigDecimal tax;
+    private BigDecimal totalAmount;
+    private BigDecimal discountAmount;
+    private String couponCode;
+
+    private Order.OrderStatus status;
+    private Order.PaymentStatus paymentStatus;
+    private String paymentId;
+    private String paymentMethod;
+    private String trackingNumber;
+
+    private int itemCount;
+    // Gzipped JSON array of Order.OrderItem
+    private byte[] items;
+
+    @Indexed
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime shippedAt;
+    private LocalDateTime deliveredAt;
+    @Indexed
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One entry of the domain event log, with the delivery state of every handler that consumes it
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "domain_events")
+@CompoundIndex(name = "pendingHandlers_createdAt", def = "{'pendingHandlers': 1, 'createdAt': 1}")
+public class DomainEvent {
+    public static final String ORDER_PLACED = "OrderPlaced";
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+
+    @Id
+    private String id;
+
+    private String type;
+    private String aggregateId;
+
+    @Builder.Default
+    private Map<String, Object> payload = new HashMap<>();
+
+    // Handlers that have not finished with this event yet
+    @Builder.Default
+    private List<String> pendingHandlers = new ArrayList<>();
+
+    @Builder.Default
+    private Map<String, Delivery> deliveries = new HashMap<>();
+
+    private LocalDateTime createdAt;
+
+    // Set once every handler is done; the event is then kept for a week for inspection
+    @Indexed(expireAfterSeconds = 7 * 24 * 3600)
+    private LocalDateTime completedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Delivery {
+        private DeliveryStatus status;
+        private int attempts;
+        private LocalDateTime nextAttemptAt;
+        // A RUNNING delivery whose lease has passed is assumed lost and is picked up again
+        private LocalDateTime leaseUntil;
+        private LocalDateTime completedAt;
+        private String lastError;
+    }
+
+    public enum DeliveryStatus {
+        PENDING, RUNNING, DONE, DEAD
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// The outcome of a request sent with an Idempotency-Key, kept so retries get the same response
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    // "<user>:<Idempotency-Key>"
+    @Id
+    private String id;
+
+    // SHA-256 of method, path and body; a reused key with a different request is rejected
+    private String requestHash;
+
+    private Status status;
+    private int responseStatus;
+    private String responseContentType;
+    private byte[] responseBody;
+
+    // The node running the request renews leaseUntil; once it lapses a retry may take the claim over
+    private String owner;
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+}
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -19,10 +21,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "orders")
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}")
+@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}")
 public class Order {
     @Id
     private String id;
 
+    @Indexed(unique = true)
     private String orderNumber;
     private String userId;
     private String userName;
@@ -33,6 +38,10 @@ public class Order {
 
     private ShippingAddress shippingAddress;
 
+    // Which warehouse ships which units; warehouseId is null for units no warehouse tracks
+    @Builder.Default
+    private List<Allocation> allocations = new ArrayList<>();
+
     private BigDecimal subtotal;
     private BigDecimal shippingCost;
     private BigDecimal tax;
@@ -61,6 +70,9 @@ public class Order {
     private LocalDateTime shippedAt;
     private LocalDateTime deliveredAt;
 
+    // Tokens of bulk status changes that moved this order and have not yet read it back
+    private List<String> bulkTokens;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -88,6 +100,17 @@ public class Order {
         private String country;
     }
 
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Allocation {
+        private String warehouseId;
+        private String warehouseName;
+        private String productId;
+        private int quantity;
+    }
+
     public enum OrderStatus {
         PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED, RETURN_REQUESTED, RETURNED, REFUNDED
     }
@@ -0,0 +1,75 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revenue and per-product sales of counted (not cancelled or refunded) orders. One document holds
+ * the totals of orders_archive up to archivedThrough, refreshed after each archiver run; reads
+ * add live orders and anything archived since on top of it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "orders_archive_rollup")
+public class OrderSalesRollup {
+    @Id
+    private String id;
+
+    @Builder.Default
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Keyed by product id
+    @Builder.Default
+    private Map<String, ProductSales> products = new HashMap<>();
+
+    private LocalDateTime archivedThrough;
+
+    public static boolean counts(Order.OrderStatus status) {
+        return status != Order.OrderStatus.CANCELLED && status != Order.OrderStatus.REFUNDED;
+    }
+
+    public void add(Order order) {
+        if (!counts(order.getStatus())) {
+            return;
+        }
+        if (order.getTotalAmount() != null) {
+            revenue = revenue.add(order.getTotalAmount());
+        }
+        if (order.getItems() != null) {
+            for (Order.OrderItem item : order.getItems()) {
+                add(item.getProductId(), item.getProductName(), item.getQuantity(), item.getSubtotal());
+            }
+        }
+    }
+
+    public void add(String productId, String name, long quantity, BigDecimal productRevenue) {
+        ProductSales sales = products.computeIfAbsent(productId, id -> new ProductSales(name, 0, BigDecimal.ZERO));
+        if (sales.getName() == null) {
+            sales.setName(name);
+        }
+        sales.setQuantity(sales.getQuantity() + quantity);
+        if (productRevenue != null) {
+            sales.setRevenue(sales.getRevenue().add(productRevenue));
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductSales {
+        private String name;
+        private long quantity;
+        private BigDecimal revenue;
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -16,6 +18,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payments")
+@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}")
 public class Payment {
     @Id
     private String id;
@@ -30,6 +33,7 @@ public class Payment {
     private PaymentStatus status;
 
     private String transactionId;
+    @Indexed(sparse = true)
     private String razorpayOrderId;
     private String gatewayResponse;
 
@@ -41,6 +45,10 @@ public class Payment {
 
     private LocalDateTime completedAt;
 
+    // Run of the reconciler that last corrected this payment
+    @Indexed(sparse = true)
+    private String lastReconciliationRun;
+
     public enum PaymentMethod {
         CREDIT_CARD, DEBIT_CARD, UPI, NET_BANKING, COD, WALLET
     }
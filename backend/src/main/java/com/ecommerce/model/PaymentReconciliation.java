@@ -0,0 +1,57 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Report of one reconciliation run of open payments against the gateway
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "payment_reconciliations")
+public class PaymentReconciliation {
+    @Id
+    private String id;
+
+    private String gateway;
+
+    @Indexed(expireAfterSeconds = 90 * 24 * 3600)
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private long scanned;
+    private long unchanged;
+    // Corrections decided per kind, and how many of them were written; the rest had moved on meanwhile
+    @Builder.Default
+    private Map<String, Long> corrections = new LinkedHashMap<>();
+    private long applied;
+    private long gatewayErrors;
+
+    private long discrepancyCount;
+    // The first discrepancies found, up to the configured limit
+    @Builder.Default
+    private List<Discrepancy> discrepancies = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Discrepancy {
+        private String paymentId;
+        private String orderId;
+        private String gatewayOrderId;
+        private String kind;
+        private String detail;
+    }
+}
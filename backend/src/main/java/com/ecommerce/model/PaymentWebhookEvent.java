@@ -0,0 +1,52 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A payment gateway webhook as received, keyed by the gateway's event id so a redelivered event
+ * is recognised on insert. The raw body is kept verbatim and parsed when the event is processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "payment_webhook_events")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class PaymentWebhookEvent {
+    @Id
+    private String id;
+
+    private String gateway;
+    private String payload;
+    private LocalDateTime receivedAt;
+
+    // Filled in when the event is processed
+    private String type;
+    private String gatewayOrderId;
+    private String gatewayPaymentId;
+
+    private Status status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    // A RUNNING event whose lease has passed is assumed lost and is picked up again
+    private LocalDateTime leaseUntil;
+    private String outcome;
+    private String lastError;
+
+    // Kept for 30 days, which is longer than any gateway keeps retrying an event
+    @Indexed(expireAfterSeconds = 30 * 24 * 3600)
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        PENDING, RUNNING, DONE, DEAD
+    }
+}
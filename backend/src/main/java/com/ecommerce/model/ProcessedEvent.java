@@ -0,0 +1,27 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Marks a domain event as applied by a handler whose effect is not idempotent on its own
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "processed_events")
+public class ProcessedEvent {
+    // "<handler>:<event id>"
+    @Id
+    private String id;
+
+    // Kept well past the event log's own retention, after which no redelivery can arrive
+    @Indexed(expireAfterSeconds = 30 * 24 * 3600)
+    private LocalDateTime processedAt;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -37,8 +38,12 @@ public class Product {
     @Builder.Default
     private List<String> images = new ArrayList<>();
 
-    private int stockQuantity;
-    private int lowStockThreshold;
+    private int stockQuantity; // available to sell
+    private int reservedQuantity; // held by unpaid orders
+    private int soldQuantity;
+    private int lowStockThreshold; // 0 means the store default
+    @Indexed
+    private boolean lowStock; // maintained by LowStockMonitor
     private String warehouseId;
 
     @Builder.Default
@@ -47,6 +52,9 @@ public class Product {
     @Builder.Default
     private boolean featured = false;
 
+    @Builder.Default
+    private boolean flashSale = false;
+
     @Builder.Default
     private double averageRating = 0.0;
 
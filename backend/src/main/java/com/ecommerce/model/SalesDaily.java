@@ -0,0 +1,36 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Orders placed per day, maintained from OrderPlaced events; _id is the ISO date
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sales_daily")
+public class SalesDaily {
+    @Id
+    private String id;
+
+    @Indexed
+    private LocalDate date;
+
+    private long orders;
+    private long units;
+    private double revenue;
+    private double discounts;
+
+    // Events counted here whose ProcessedEvent marker is not written yet; empty between deliveries
+    @Builder.Default
+    private List<String> pendingEvents = new ArrayList<>();
+}
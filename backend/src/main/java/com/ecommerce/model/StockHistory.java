@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
@@ -13,6 +15,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "stock_history")
+@CompoundIndex(name = "productId_timestamp", def = "{'productId': 1, 'timestamp': 1}")
 public class StockHistory {
     @Id
     private String id;
@@ -22,6 +25,7 @@ public class StockHistory {
     private StockChangeType type;
     private String notes;
     private String referenceId; // orderId or manual update reference
+    @Indexed
     private LocalDateTime timestamp;
 
     public enum StockChangeType {
@@ -29,6 +33,7 @@ public class StockHistory {
         ORDER_PLACEMENT,
         ORDER_CANCELLATION,
         ORDER_RETURN,
+        RESERVATION_RELEASE,
         RESTOCK
     }
 }
@@ -0,0 +1,43 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// One row per product per day, folded from raw stock_history events once they pass retention
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_history_daily")
+@CompoundIndex(name = "productId_date", def = "{'productId': 1, 'date': 1}")
+public class StockHistoryDaily {
+    @Id
+    private String id; // productId:yyyy-MM-dd
+
+    private String productId;
+    private LocalDate date;
+
+    private int openingQuantity;
+    private int closingQuantity;
+    private int totalIn;
+    private int totalOut;
+    private int eventCount;
+
+    @Builder.Default
+    private Map<StockHistory.StockChangeType, Integer> byType = new EnumMap<>(StockHistory.StockChangeType.class);
+
+    // Raw event ids folded into this row whose removal is not yet confirmed; absent once the batch is done
+    @Indexed(sparse = true)
+    private List<String> lastBatch;
+}
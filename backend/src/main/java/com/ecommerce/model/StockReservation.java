@@ -0,0 +1,58 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_reservations")
+@CompoundIndex(name = "status_expiresAt", def = "{'status': 1, 'expiresAt': 1}")
+public class StockReservation {
+    @Id
+    private String orderId;
+
+    private String userId;
+
+    @Builder.Default
+    private List<Item> items = new ArrayList<>();
+
+    @Builder.Default
+    private List<Order.Allocation> allocations = new ArrayList<>();
+
+    @Builder.Default
+    private ReservationStatus status = ReservationStatus.HELD;
+
+    private LocalDateTime expiresAt;
+    private LocalDateTime resolvedAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String productId;
+        private int quantity;
+    }
+
+    public enum ReservationStatus {
+        HELD, // stock moved from available to reserved, waiting for payment
+        CONVERTED, // paid, stock moved from reserved to sold
+        RELEASED, // hold expired or order cancelled before payment
+        REVERSED // sale cancelled or returned after payment
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// On-hand quantity of one product in one warehouse; Product.stockQuantity stays the sellable total
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "warehouse_stock")
+@CompoundIndex(name = "productId_warehouseId", def = "{'productId': 1, 'warehouseId': 1}", unique = true)
+public class WarehouseStock {
+    @Id
+    private String id;
+
+    private String warehouseId;
+    private String productId;
+    private int quantity;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -9,4 +9,6 @@ public interface CouponUsageRepository extends MongoRepository<CouponUsage, Stri
     long countByCouponId(String couponId);
 
     boolean existsByCouponIdAndUserId(String couponId, String userId);
+
+    boolean existsByCouponIdAndOrderId(String couponId, String orderId);
 }
@@ -0,0 +1,51 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderSalesRollup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Order queries that span both storage tiers: live orders in orders and finished ones moved to
+ * orders_archive. Archived orders come back as regular Order objects. Writes always go to the
+ * hot collection; archived orders are final.
+ */
+public interface OrderHistoryRepository {
+
+    // Only orders in these statuses are ever archived
+    Set<Order.OrderStatus> ARCHIVED_STATUSES = Collections.unmodifiableSet(EnumSet.of(Order.OrderStatus.DELIVERED,
+            Order.OrderStatus.CANCELLED, Order.OrderStatus.RETURNED, Order.OrderStatus.REFUNDED));
+
+    Optional<Order> findAnyById(String id);
+
+    // Newest first, regardless of the pageable's sort
+    Page<Order> findHistoryByUserId(String userId, Pageable pageable);
+
+    List<Order> findHistoryByUserIdAndStatus(String userId, Order.OrderStatus status);
+
+    List<Order> findHistoryByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    // Cursor-backed, in _id order with every order once; the caller must close the stream
+    Stream<Order> streamHistoryByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    // Revenue and per-product sales over both tiers, from the stored archive rollup plus live orders
+    OrderSalesRollup findSalesTotals();
+
+    // Recomputes the stored rollup of archived orders; run after archiving
+    void refreshArchiveRollup();
+
+    long countHistory();
+
+    long countHistoryByStatus(Order.OrderStatus status);
+
+    // Copies the orders to the archive and removes them from orders; returns how many were moved
+    int archive(List<Order> orders);
+}
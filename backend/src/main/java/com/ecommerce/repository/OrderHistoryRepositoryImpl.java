@@ -0,0 +1,341 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderSalesRollup;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Spring Data picks this up as the implementation of OrderHistoryRepository for OrderRepository
+public class OrderHistoryRepositoryImpl implements OrderHistoryRepository {
+
+    private static final String ROLLUP_ID = "archive";
+    private static final int ROLLUP_MARGIN_MINUTES = 5;
+    private static final TypeReference<List<Order.OrderItem>> ITEM_LIST = new TypeReference<>() {
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OrderHistoryRepositoryImpl(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Optional<Order> findAnyById(String id) {
+        Order order = mongoTemplate.findById(id, Order.class);
+        if (order != null) {
+            return Optional.of(order);
+        }
+        return Optional.ofNullable(mongoTemplate.findById(id, ArchivedOrder.class)).map(this::toOrder);
+    }
+
+    @Override
+    public Page<Order> findHistoryByUserId(String userId, Pageable pageable) {
+        Criteria byUser = Criteria.where("userId").is(userId);
+        long total = mongoTemplate.count(Query.query(byUser), Order.class)
+                + mongoTemplate.count(Query.query(byUser), ArchivedOrder.class);
+        int wanted = (int) pageable.getOffset() + pageable.getPageSize();
+
+        List<Order> recent = mongoTemplate.find(Query.query(byUser)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(wanted), Order.class);
+        // Archived orders only matter if they are newer than the oldest live one the page could show
+        Query older = Query.query(Criteria.where("userId").is(userId));
+        if (recent.size() == wanted) {
+            older.addCriteria(Criteria.where("createdAt").gt(recent.get(recent.size() - 1).getCreatedAt()));
+        }
+        List<ArchivedOrder> archived = mongoTemplate.find(older
+                .with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(wanted), ArchivedOrder.class);
+
+        List<Order> merged = new ArrayList<>(recent);
+        archived.forEach(order -> merged.add(toOrder(order)));
+        merged.sort(Comparator.comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(wanted, merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, total);
+    }
+
+    @Override
+    public List<Order> findHistoryByUserIdAndStatus(String userId, Order.OrderStatus status) {
+        return findBoth(Criteria.where("userId").is(userId).and("status").is(status),
+                ARCHIVED_STATUSES.contains(status));
+    }
+
+    @Override
+    public List<Order> findHistoryByCreatedAtBetween(LocalDateTime start, LocalDateTime end) {
+        return findBoth(Criteria.where("createdAt").gt(start).lt(end), true);
+    }
+
+    /**
+     * Both tiers are read in _id order and merged on _id, like OrderExportService does. An order
+     * caught between being copied and being removed from orders is returned once, as the live copy.
+     */
+    @Override
+    public Stream<Order> streamHistoryByCreatedAtBetween(LocalDateTime start, LocalDateTime end) {
+        Query query = Query.query(Criteria.where("createdAt").gte(start).lt(end)).with(Sort.by("_id"));
+        Stream<Order> live = mongoTemplate.stream(query, Order.class);
+        Stream<ArchivedOrder> archived = mongoTemplate.stream(query, ArchivedOrder.class);
+        Iterator<Order> left = live.iterator();
+        Iterator<ArchivedOrder> right = archived.iterator();
+        Iterator<Order> merged = new Iterator<>() {
+            private Order nextLeft = left.hasNext() ? left.next() : null;
+            private ArchivedOrder nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextLeft == null ? 1 : nextRight == null ? -1
+                        : nextLeft.getId().compareTo(nextRight.getId());
+                if (order <= 0) {
+                    if (order == 0) {
+                        nextRight = right.hasNext() ? right.next() : null;
+                    }
+                    Order row = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                    return row;
+                }
+                ArchivedOrder row = nextRight;
+                nextRight = right.hasNext() ? right.next() : null;
+                return toOrder(row);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try (live; archived) {
+                        // Closes both cursors
+                    }
+                });
+    }
+
+    @Override
+    public OrderSalesRollup findSalesTotals() {
+        OrderSalesRollup totals = mongoTemplate.findById(ROLLUP_ID, OrderSalesRollup.class);
+        if (totals == null) {
+            totals = OrderSalesRollup.builder().id(ROLLUP_ID).build();
+        }
+        // Orders archived since the rollup was last refreshed
+        Query recent = totals.getArchivedThrough() != null
+                ? Query.query(Criteria.where("archivedAt").gte(totals.getArchivedThrough()))
+                : new Query();
+        try (Stream<ArchivedOrder> archived = mongoTemplate.stream(recent, ArchivedOrder.class)) {
+            archived.map(this::toOrder).forEach(totals::add);
+        }
+
+        Criteria counted = Criteria.where("status").nin(Order.OrderStatus.CANCELLED, Order.OrderStatus.REFUNDED);
+        Document live = mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(counted),
+                        Aggregation.group().sum(ConvertOperators.ToDecimal.toDecimal("$totalAmount")).as("revenue")),
+                Order.class, Document.class).getUniqueMappedResult();
+        if (live != null) {
+            totals.setRevenue(totals.getRevenue().add(decimal(live.get("revenue"))));
+        }
+        OrderSalesRollup result = totals;
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(counted),
+                        Aggregation.unwind("items"),
+                        Aggregation.group("items.productId")
+                                .sum("items.quantity").as("quantity")
+                                .sum(ConvertOperators.ToDecimal.toDecimal("$items.subtotal")).as("revenue")
+                                .first("items.productName").as("name")),
+                Order.class, Document.class)
+                .forEach(product -> result.add(product.getString("_id"), product.getString("name"),
+                        ((Number) product.get("quantity")).longValue(), decimal(product.get("revenue"))));
+        return result;
+    }
+
+    @Override
+    public void refreshArchiveRollup() {
+        // Stops short of now, so copies written while this runs are picked up by findSalesTotals instead
+        LocalDateTime through = LocalDateTime.now().minusMinutes(ROLLUP_MARGIN_MINUTES);
+        OrderSalesRollup rollup = OrderSalesRollup.builder().id(ROLLUP_ID).archivedThrough(through).build();
+        Query archived = Query.query(Criteria.where("archivedAt").lt(through));
+        try (Stream<ArchivedOrder> orders = mongoTemplate.stream(archived, ArchivedOrder.class)) {
+            orders.map(this::toOrder).forEach(rollup::add);
+        }
+        mongoTemplate.save(rollup);
+    }
+
+    @Override
+    public long countHistory() {
+        return mongoTemplate.count(new Query(), Order.class) + mongoTemplate.count(new Query(), ArchivedOrder.class);
+    }
+
+    @Override
+    public long countHistoryByStatus(Order.OrderStatus status) {
+        Query query = Query.query(Criteria.where("status").is(status));
+        long hot = mongoTemplate.count(query, Order.class);
+        return ARCHIVED_STATUSES.contains(status) ? hot + mongoTemplate.count(query, ArchivedOrder.class) : hot;
+    }
+
+    @Override
+    public int archive(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Replaced rather than inserted, so a copy left by a run that stopped early is refreshed
+        BulkOperations copies = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedOrder.class);
+        BulkOperations removals = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            copies.replaceOne(Query.query(Criteria.where("_id").is(order.getId())), toArchived(order, now),
+                    FindAndReplaceOptions.options().upsert());
+            // Only removed if it is still exactly what was copied
+            removals.remove(Query.query(Criteria.where("_id").is(order.getId())
+                    .and("status").is(order.getStatus())
+                    .and("paymentStatus").is(order.getPaymentStatus())
+                    .and("updatedAt").is(order.getUpdatedAt())));
+        }
+        copies.execute();
+        int removed = removals.execute().getDeletedCount();
+
+        if (removed < orders.size()) {
+            // Changed after being copied: the stale copy is dropped, and the archiver's next query
+            // copies the order again if it is still finished
+            Query stillLive = Query.query(Criteria.where("_id").in(orders.stream().map(Order::getId).toList()));
+            stillLive.fields().include("_id");
+            Set<String> live = new HashSet<>();
+            mongoTemplate.find(stillLive, Order.class).forEach(order -> live.add(order.getId()));
+            if (!live.isEmpty()) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(live)), ArchivedOrder.class);
+            }
+        }
+        return removed;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return value instanceof Number number ? new BigDecimal(number.toString()) : BigDecimal.ZERO;
+    }
+
+    private List<Order> findBoth(Criteria criteria, boolean includeArchive) {
+        List<Order> orders = new ArrayList<>(mongoTemplate.find(Query.query(criteria), Order.class));
+        if (includeArchive) {
+            mongoTemplate.find(Query.query(criteria), ArchivedOrder.class)
+                    .forEach(order -> orders.add(toOrder(order)));
+        }
+        return orders;
+    }
+
+    private ArchivedOrder toArchived(Order order, LocalDateTime archivedAt) {
+        return ArchivedOrder.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userId(order.getUserId())
+                .userName(order.getUserName())
+                .userEmail(order.getUserEmail())
+                .shippingAddress(order.getShippingAddress())
+                .subtotal(order.getSubtotal())
+                .shippingCost(order.getShippingCost())
+                .tax(order.getTax())
+                .totalAmount(order.getTotalAmount())
+                .discountAmount(order.getDiscountAmount())
+                .couponCode(order.getCouponCode())
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .paymentId(order.getPaymentId())
+                .paymentMethod(order.getPaymentMethod())
+                .trackingNumber(order.getTrackingNumber())
+                .itemCount(order.getItems() != null ? order.getItems().size() : 0)
+                .items(compress(order.getItems() != null ? order.getItems() : List.of()))
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .shippedAt(order.getShippedAt())
+                .deliveredAt(order.getDeliveredAt())
+                .archivedAt(archivedAt)
+                .build();
+    }
+
+    private Order toOrder(ArchivedOrder archived) {
+        return Order.builder()
+                .id(archived.getId())
+                .orderNumber(archived.getOrderNumber())
+                .userId(archived.getUserId())
+                .userName(archived.getUserName())
+                .userEmail(archived.getUserEmail())
+                .items(decompress(archived.getItems()))
+                .shippingAddress(archived.getShippingAddress())
+                .subtotal(archived.getSubtotal())
+                .shippingCost(archived.getShippingCost())
+                .tax(archived.getTax())
+                .totalAmount(archived.getTotalAmount())
+                .discountAmount(archived.getDiscountAmount())
+                .couponCode(archived.getCouponCode())
+                .status(archived.getStatus())
+                .paymentStatus(archived.getPaymentStatus())
+                .paymentId(archived.getPaymentId())
+                .paymentMethod(archived.getPaymentMethod())
+                .trackingNumber(archived.getTrackingNumber())
+                .createdAt(archived.getCreatedAt())
+                .updatedAt(archived.getUpdatedAt())
+                .shippedAt(archived.getShippedAt())
+                .deliveredAt(archived.getDeliveredAt())
+                .build();
+    }
+
+    private byte[] compress(List<Order.OrderItem> items) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, items);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<Order.OrderItem> decompress(byte[] items) {
+        if (items == null) {
+            return new ArrayList<>();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(items))) {
+            return objectMapper.readValue(in, ITEM_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
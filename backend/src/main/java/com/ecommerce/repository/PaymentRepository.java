@@ -12,4 +12,5 @@ public interface PaymentRepository extends MongoRepository<Payment, String> {
     Optional<Payment> findByOrderId(String orderId);
     List<Payment> findByUserId(String userId);
     Optional<Payment> findByTransactionId(String transactionId);
+    Optional<Payment> findByRazorpayOrderId(String razorpayOrderId);
 }
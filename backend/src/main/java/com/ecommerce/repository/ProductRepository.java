@@ -34,9 +34,13 @@ public interface ProductRepository extends MongoRepository<Product, String> {
 
     long countByActiveTrue();
 
-    long countByStockQuantityLessThan(int stockQuantity);
+    long countByLowStockTrue();
 
-    List<Product> findByStockQuantityLessThanAndActiveTrue(int stockQuantity);
+    List<Product> findByLowStockTrue();
+
+    List<Product> findTop10ByLowStockTrueAndActiveTrueOrderByStockQuantityAsc();
 
     List<Product> findTop10ByActiveTrueOrderByReviewCountDesc();
+
+    List<Product> findByFlashSaleTrue();
 }
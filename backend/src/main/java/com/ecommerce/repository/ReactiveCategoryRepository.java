@@ -0,0 +1,17 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Category;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reactive twin of the catalog reads in CategoryRepository, used by the reactive-catalog profile
+public interface ReactiveCategoryRepository extends ReactiveMongoRepository<Category, String> {
+    Flux<Category> findByActiveTrue();
+
+    Flux<Category> findByParentIdIsNullAndActiveTrue();
+
+    Flux<Category> findByParentIdAndActiveTrue(String parentId);
+
+    Mono<Category> findBySlug(String slug);
+}
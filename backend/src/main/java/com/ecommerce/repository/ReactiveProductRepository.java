@@ -0,0 +1,19 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+// Reactive twin of the catalog reads in ProductRepository, used by the reactive-catalog profile
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+    Flux<Product> findByActiveTrue(Pageable pageable);
+
+    Flux<Product> findByCategoryIdAndActiveTrue(String categoryId, Pageable pageable);
+
+    Flux<Product> findByFeaturedTrueAndActiveTrue(Pageable pageable);
+
+    @Query("{'name': {$regex: ?0, $options: 'i'}, 'active': true}")
+    Flux<Product> searchByName(String name, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.SalesDaily;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesDailyRepository extends MongoRepository<SalesDaily, String> {
+    @Query(value = "{ 'date': { $gte: ?0, $lte: ?1 } }", fields = "{ 'pendingEvents': 0 }", sort = "{ 'date': 1 }")
+    List<SalesDaily> findSummariesBetween(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.StockHistoryDaily;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StockHistoryDailyRepository extends MongoRepository<StockHistoryDaily, String> {
+    List<StockHistoryDaily> findByProductIdAndDateBetweenOrderByDateAsc(String productId, LocalDate start,
+            LocalDate end);
+}
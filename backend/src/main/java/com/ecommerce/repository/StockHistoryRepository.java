@@ -1,11 +1,17 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.StockHistory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
-import java.util.List;
+
+import java.time.LocalDateTime;
 
 @Repository
 public interface StockHistoryRepository extends MongoRepository<StockHistory, String> {
-    List<StockHistory> findByProductIdOrderByTimestampDesc(String productId);
+    Page<StockHistory> findByProductId(String productId, Pageable pageable);
+
+    Page<StockHistory> findByProductIdAndTimestampBetween(String productId, LocalDateTime start, LocalDateTime end,
+            Pageable pageable);
 }
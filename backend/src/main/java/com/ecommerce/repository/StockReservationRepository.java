@@ -0,0 +1,14 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.StockReservation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends MongoRepository<StockReservation, String> {
+    List<StockReservation> findTop500ByStatusAndExpiresAtBefore(StockReservation.ReservationStatus status,
+            LocalDateTime time);
+}
@@ -4,6 +4,7 @@ import com.ecommerce.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +14,6 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByEmail(String email);
 
     Optional<User> findByResetToken(String token);
+
+    long countByCreatedAtBetween(LocalDateTime from, LocalDateTime to);
 }
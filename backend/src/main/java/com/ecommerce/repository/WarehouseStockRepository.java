@@ -0,0 +1,15 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.WarehouseStock;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WarehouseStockRepository extends MongoRepository<WarehouseStock, String> {
+    List<WarehouseStock> findByProductIdIn(Collection<String> productIds);
+
+    List<WarehouseStock> findByWarehouseId(String warehouseId);
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+// The authenticated user, carrying the id and display name so request code does not have to look them up
+@Getter
+public class UserPrincipal extends org.springframework.security.core.userdetails.User {
+
+    private final String id;
+    private final String fullName;
+
+    public UserPrincipal(String id, String fullName, String email, String password, boolean enabled,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.fullName = fullName;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.AdminActivityLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes admin_activity_logs off the request thread. Entries go into a lock-free ring buffer and a
+ * background thread inserts them in unordered bulk batches once the batch is full or the linger
+ * time has passed. Unlike stock history, the activity log is best effort: when the buffer is full
+ * the entry is dropped and counted, so logging never slows down the admin action being logged.
+ * A batch that keeps failing is retried a bounded number of times and then dropped the same way.
+ */
+@Slf4j
+@Service
+public class AdminActivityLogWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final RingBuffer<AdminActivityLog> ring;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastBatchMillis;
+
+    private final List<AdminActivityLog> batch;
+    private Thread worker;
+    private volatile boolean running;
+
+    public AdminActivityLogWriter(MongoTemplate mongoTemplate,
+            @Value("${app.admin.activity-log.buffer-size:8192}") int bufferSize,
+            @Value("${app.admin.activity-log.batch-size:500}") int batchSize,
+            @Value("${app.admin.activity-log.linger-ms:200}") long lingerMillis,
+            @Value("${app.admin.activity-log.max-attempts:5}") int maxAttempts,
+            @Value("${app.admin.activity-log.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.ring = new RingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "admin-activity-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean write(AdminActivityLog log) {
+        if (log.getId() == null) {
+            log.setId(new ObjectId().toHexString());
+        }
+        if (ring.offer(log)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buffered", ring.size());
+        stats.put("capacity", ring.capacity());
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("lastBatchMillis", lastBatchMillis);
+        return stats;
+    }
+
+    RingBuffer<?> buffer() {
+        return ring;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (worker.isAlive()) {
+            // The ring has a single consumer; draining next to a worker stuck in a write would corrupt it
+            log.warn("Admin activity writer did not stop in time; leaving {} buffered entries unwritten", ring.size());
+            return;
+        }
+
+        // One synchronous attempt at whatever is left; the worker has stopped so draining here is safe
+        do {
+            ring.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                try {
+                    insert(batch);
+                } catch (RuntimeException e) {
+                    failedBatches.incrementAndGet();
+                    dropped.addAndGet(batch.size());
+                }
+                batch.clear();
+            }
+        } while (ring.size() > 0);
+    }
+
+    private void run() {
+        long deadline = 0;
+        while (running) {
+            boolean wasEmpty = batch.isEmpty();
+            ring.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                // Producers never signal, so an idle writer just checks back after the linger time
+                LockSupport.parkNanos(lingerNanos);
+                continue;
+            }
+            if (wasEmpty) {
+                deadline = System.nanoTime() + lingerNanos;
+            }
+            long wait = deadline - System.nanoTime();
+            if (batch.size() < batchSize && wait > 0) {
+                LockSupport.parkNanos(Math.min(wait, TimeUnit.MILLISECONDS.toNanos(10)));
+                continue;
+            }
+            try {
+                writeWithRetry();
+            } catch (InterruptedException e) {
+                // Shutting down: the batch is left for the final flush
+                Thread.currentThread().interrupt();
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeWithRetry() throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insert(batch);
+                return;
+            } catch (RuntimeException e) {
+                failedBatches.incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    // Give up on this batch so a persistent failure cannot stall the writer while the ring fills
+                    log.warn("Dropping {} admin activity entries after {} failed attempts: {}", batch.size(),
+                            attempt, e.getMessage());
+                    dropped.addAndGet(batch.size());
+                    return;
+                }
+                Thread.sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void insert(List<AdminActivityLog> entries) {
+        long start = System.currentTimeMillis();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminActivityLog.class)
+                    .insert(entries)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Duplicate ids mean a retried batch had partly gone through already
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == 11000);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+        written.addAndGet(entries.size());
+        batches.incrementAndGet();
+        lastBatchMillis = System.currentTimeMillis() - start;
+    }
+}
@@ -1,15 +1,27 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.response.CursorPageResponse;
+import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.model.AdminActivityLog;
 import com.ecommerce.model.User;
-import com.ecommerce.repository.AdminActivityLogRepository;
 import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,29 +30,43 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class AdminManagementService {
 
+    static final int MAX_LOG_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
-    private final AdminActivityLogRepository activityLogRepository;
+    private final AdminActivityLogWriter activityLogWriter;
+    private final MongoTemplate mongoTemplate;
 
+    // Never touches the database on the caller's thread: the admin comes from the authenticated principal
     public void logActivity(String action, String entityType, String entityId, String description,
             Map<String, Object> details) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth != null ? auth.getName() : "SYSTEM";
-
-        User admin = userRepository.findByEmail(email).orElse(null);
-
-        AdminActivityLog log = AdminActivityLog.builder()
-                .adminId(admin != null ? admin.getId() : "SYSTEM")
-                .adminName(admin != null ? admin.getFirstName() + " " + admin.getLastName() : "SYSTEM")
-                .adminEmail(email)
-                .action(action)
-                .entityType(entityType)
-                .entityId(entityId)
-                .description(description)
-                .details(details)
-                .timestamp(LocalDateTime.now())
-                .build();
+        AdminActivityLog log = newLogEntry();
+        log.setAction(action);
+        log.setEntityType(entityType);
+        log.setEntityId(entityId);
+        log.setDescription(description);
+        log.setDetails(details);
+        activityLogWriter.write(log);
+    }
 
-        activityLogRepository.save(log);
+    // An entry stamped with the current admin, client address and time; must be called on the request thread
+    static AdminActivityLog newLogEntry() {
+        AdminActivityLog log = new AdminActivityLog();
+        log.setTimestamp(LocalDateTime.now());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof UserPrincipal principal) {
+            log.setAdminId(principal.getId());
+            log.setAdminName(principal.getFullName());
+            log.setAdminEmail(principal.getUsername());
+        } else {
+            log.setAdminId("SYSTEM");
+            log.setAdminName("SYSTEM");
+            log.setAdminEmail(auth != null ? auth.getName() : "SYSTEM");
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request) {
+            log.setIpAddress(request.getRequest().getRemoteAddr());
+        }
+        return log;
     }
 
     public List<User> getAllAdmins() {
@@ -51,6 +77,7 @@ public class AdminManagementService {
                 .toList();
     }
 
+    @Audited(action = "UPDATE_ADMIN_PERMISSIONS", entityType = "USER", entityId = "adminId")
     public User updateAdminPermissions(String adminId, Set<String> permissions) {
         User user = userRepository.findById(adminId)
                 .orElseThrow(() -> new RuntimeException("Admin not found"));
@@ -58,7 +85,74 @@ public class AdminManagementService {
         return userRepository.save(user);
     }
 
-    public List<AdminActivityLog> getAllLogs() {
-        return activityLogRepository.findAll();
+    /**
+     * Newest first, filtered by admin, entity type and [from, to). Pages are keyed on the last
+     * entry's (timestamp, id) rather than an offset, so each page is an index range scan however
+     * deep the caller has paged.
+     */
+    public CursorPageResponse<AdminActivityLog> getLogs(String adminId, String entityType, LocalDateTime from,
+            LocalDateTime to, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_LOG_PAGE_SIZE));
+        Criteria criteria = new Criteria();
+        if (adminId != null && !adminId.isBlank()) {
+            criteria.and("adminId").is(adminId);
+        }
+        if (entityType != null && !entityType.isBlank()) {
+            criteria.and("entityType").is(entityType);
+        }
+        if (from != null || to != null) {
+            Criteria timestamp = criteria.and("timestamp");
+            if (from != null) {
+                timestamp.gte(from);
+            }
+            if (to != null) {
+                timestamp.lt(to);
+            }
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            LogCursor after = LogCursor.parse(cursor);
+            criteria.orOperator(
+                    Criteria.where("timestamp").lt(after.timestamp()),
+                    Criteria.where("timestamp").is(after.timestamp()).and("_id").lt(after.id()));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(limit + 1);
+        List<AdminActivityLog> logs = new ArrayList<>(mongoTemplate.find(query, AdminActivityLog.class));
+        String nextCursor = null;
+        if (logs.size() > limit) {
+            logs.subList(limit, logs.size()).clear();
+            nextCursor = LogCursor.of(logs.get(limit - 1)).toString();
+        }
+        return CursorPageResponse.<AdminActivityLog>builder()
+                .content(logs)
+                .size(logs.size())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // "<epoch millis>_<id>" of the last entry on the previous page
+    record LogCursor(LocalDateTime timestamp, ObjectId id) {
+
+        static LogCursor of(AdminActivityLog log) {
+            return new LogCursor(log.getTimestamp(), new ObjectId(log.getId()));
+        }
+
+        static LogCursor parse(String cursor) {
+            int separator = cursor.indexOf('_');
+            try {
+                long millis = Long.parseLong(cursor.substring(0, separator));
+                return new LogCursor(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()),
+                        new ObjectId(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + "_" + id.toHexString();
+        }
     }
 }
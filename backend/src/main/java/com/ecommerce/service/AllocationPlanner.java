@@ -0,0 +1,101 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Warehouse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits an order's demand across warehouses. A single warehouse that can ship everything wins
+ * (nearest first); otherwise warehouses are picked greedily by how many of the remaining units
+ * they cover, ties going to the nearer one, which keeps the number of shipments low. Distance is
+ * 0 when the warehouse is in the destination state and 1 otherwise. Units no warehouse can cover
+ * are returned with a null warehouse id.
+ */
+public final class AllocationPlanner {
+
+    private AllocationPlanner() {
+    }
+
+    public record Line(String warehouseId, String productId, int quantity) {
+    }
+
+    /**
+     * @param demand     productId to quantity
+     * @param stock      warehouseId to (productId to available quantity)
+     * @param warehouses candidate warehouses, tried in the given order when distances are equal
+     */
+    public static List<Line> plan(Map<String, Integer> demand, String destinationState, List<Warehouse> warehouses,
+            Map<String, Map<String, Integer>> stock) {
+        List<Warehouse> byDistance = new ArrayList<>(warehouses);
+        byDistance.sort(Comparator.comparingInt(w -> distance(w, destinationState)));
+
+        for (Warehouse warehouse : byDistance) {
+            Map<String, Integer> available = stock.getOrDefault(warehouse.getId(), Map.of());
+            if (demand.entrySet().stream().allMatch(e -> available.getOrDefault(e.getKey(), 0) >= e.getValue())) {
+                List<Line> lines = new ArrayList<>(demand.size());
+                demand.forEach((productId, quantity) -> lines.add(new Line(warehouse.getId(), productId, quantity)));
+                return lines;
+            }
+        }
+
+        Map<String, Integer> remaining = new LinkedHashMap<>(demand);
+        List<Line> lines = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        while (!remaining.isEmpty()) {
+            Warehouse best = null;
+            int bestUnits = 0;
+            for (Warehouse warehouse : byDistance) {
+                if (used.contains(warehouse.getId())) {
+                    continue;
+                }
+                int units = coverage(stock.getOrDefault(warehouse.getId(), Map.of()), remaining);
+                if (units > bestUnits) {
+                    best = warehouse;
+                    bestUnits = units;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+
+            used.add(best.getId());
+            Map<String, Integer> available = stock.getOrDefault(best.getId(), Map.of());
+            Iterator<Map.Entry<String, Integer>> it = remaining.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Integer> need = it.next();
+                int take = Math.min(need.getValue(), available.getOrDefault(need.getKey(), 0));
+                if (take <= 0) {
+                    continue;
+                }
+                lines.add(new Line(best.getId(), need.getKey(), take));
+                if (take == need.getValue()) {
+                    it.remove();
+                } else {
+                    need.setValue(need.getValue() - take);
+                }
+            }
+        }
+
+        remaining.forEach((productId, quantity) -> lines.add(new Line(null, productId, quantity)));
+        return lines;
+    }
+
+    static int distance(Warehouse warehouse, String destinationState) {
+        return destinationState != null && destinationState.equalsIgnoreCase(warehouse.getState()) ? 0 : 1;
+    }
+
+    private static int coverage(Map<String, Integer> available, Map<String, Integer> remaining) {
+        int units = 0;
+        for (Map.Entry<String, Integer> need : remaining.entrySet()) {
+            units += Math.min(need.getValue(), available.getOrDefault(need.getKey(), 0));
+        }
+        return units;
+    }
+}
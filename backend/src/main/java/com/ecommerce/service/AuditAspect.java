@@ -0,0 +1,25 @@
+package com.ecommerce.service;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+// Hands every successful @Audited call to the audit trail; failed calls changed nothing and are not logged
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class AuditAspect {
+
+    private final AuditTrail auditTrail;
+
+    @Around("@annotation(audited)")
+    public Object audit(ProceedingJoinPoint joinPoint, Audited audited) throws Throwable {
+        Object result = joinPoint.proceed();
+        auditTrail.record(audited, ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs(),
+                result);
+        return result;
+    }
+}
@@ -0,0 +1,289 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.model.AdminActivityLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Turns @Audited calls into admin activity log entries. The calling thread only stamps the admin,
+ * address and time and drops the raw call (arguments and return value) into a ring buffer; a
+ * background thread resolves the entity id, snapshots the returned entity and diffs it against the
+ * last state it saw for that entity before handing the entry to {@link AdminActivityLogWriter}.
+ * The last-seen states live in a bounded in-memory cache on this node only. When an entity is not
+ * in it (after a restart or eviction, or when the last change went through another node) the entry
+ * records its full state and marks the before-state as unknown rather than presenting it as new.
+ * Changes made outside audited methods show up in the next diff.
+ */
+@Slf4j
+@Service
+public class AuditTrail {
+
+    // Never copied into the log, at any depth of whatever entity they turn up in. Passwords and
+    // tokens match case-insensitively anywhere in the key, so passwordHash and refreshToken go too
+    private static final List<String> REDACTED_PARTS = List.of("password", "token");
+    private static final Set<String> REDACTED = Set.of("otp");
+
+    record Call(Audited audited, Method method, Object[] args, Object result, AdminActivityLog entry) {
+    }
+
+    private final AdminActivityLogWriter writer;
+    private final ObjectMapper objectMapper;
+    private final RingBuffer<Call> ring;
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+
+    // Only touched by the worker thread
+    private final Map<Method, String[]> parameterNameCache = new HashMap<>();
+    private final Map<String, Map<String, Object>> lastStates;
+    private final CacheStats stateCacheStats = new CacheStats();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public AuditTrail(AdminActivityLogWriter writer,
+            ObjectMapper objectMapper,
+            @Value("${app.admin.audit.buffer-size:4096}") int bufferSize,
+            @Value("${app.admin.audit.state-cache-size:10000}") int stateCacheSize) {
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.ring = new RingBuffer<>(bufferSize);
+        this.lastStates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > stateCacheSize;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "audit-trail");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // The request-thread part: no reflection, serialization or I/O
+    public void record(Audited audited, Method method, Object[] args, Object result) {
+        if (ring.offer(new Call(audited, method, args, result, AdminManagementService.newLogEntry()))) {
+            recorded.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buffered", ring.size());
+        stats.put("capacity", ring.capacity());
+        stats.put("recorded", recorded.get());
+        stats.put("dropped", dropped.get());
+        stats.put("processed", processed.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    RingBuffer<?> buffer() {
+        return ring;
+    }
+
+    CacheStats stateCacheStats() {
+        return stateCacheStats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (worker.isAlive()) {
+            // A second consumer would corrupt the single-consumer ring, so what is left is only counted
+            int left = ring.size();
+            dropped.addAndGet(left);
+            log.warn("Audit trail worker did not stop in time; {} buffered calls not logged", left);
+            return;
+        }
+        // Runs before the writer's own shutdown, which flushes what this hands over
+        while (drain() > 0) {
+            // drain takes at most one chunk per call
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+        }
+    }
+
+    private int drain() {
+        List<Call> calls = new ArrayList<>(64);
+        ring.drainTo(calls, 64);
+        for (Call call : calls) {
+            try {
+                writer.write(toLogEntry(call));
+                processed.incrementAndGet();
+            } catch (RuntimeException e) {
+                // A return value that will not serialize costs its own entry, never the worker
+                failed.incrementAndGet();
+            }
+        }
+        return calls.size();
+    }
+
+    AdminActivityLog toLogEntry(Call call) {
+        Audited audited = call.audited();
+        String[] names = parameterNameCache.computeIfAbsent(call.method(), this::namesOf);
+        Map<String, Object> state = stateOf(call.result());
+
+        String entityId = null;
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        for (int i = 0; i < call.args().length; i++) {
+            Object arg = call.args()[i];
+            if (names[i].equals(audited.entityId())) {
+                entityId = Objects.toString(arg, null);
+            } else if (isScalar(arg)) {
+                arguments.put(names[i], arg instanceof Enum<?> value ? value.name() : arg);
+            } else if (arg instanceof MultipartFile file) {
+                arguments.put(names[i], file.getOriginalFilename());
+            } else if (audited.recordArgs() && arg != null) {
+                arguments.put(names[i], redact(objectMapper.convertValue(arg, Object.class)));
+            }
+        }
+        if (entityId == null && state != null) {
+            entityId = Objects.toString(state.get("id"), null);
+        }
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> changes = null;
+        if (state != null) {
+            Map<String, Object> previous = entityId == null ? null
+                    : lastStates.put(audited.entityType() + ":" + entityId, state);
+            if (entityId != null) {
+                stateCacheStats.record(previous != null);
+            }
+            if (previous != null) {
+                changes = diff(previous, state);
+                details.put("changes", changes);
+            } else {
+                details.put("state", state);
+                details.put("before", "unknown");
+            }
+        }
+        if (!arguments.isEmpty()) {
+            details.put("arguments", arguments);
+        }
+
+        AdminActivityLog entry = call.entry();
+        entry.setAction(audited.action());
+        entry.setEntityType(audited.entityType());
+        entry.setEntityId(entityId);
+        entry.setDescription(describe(audited.action(), entityId, changes)
+                + (details.containsKey("before") && !audited.action().startsWith("CREATE") ? " (before-state unknown)" : ""));
+        entry.setDetails(details.isEmpty() ? null : details);
+        return entry;
+    }
+
+    // Fields whose values differ, as {field: {from, to}}
+    static Map<String, Map<String, Object>> diff(Map<String, Object> before, Map<String, Object> after) {
+        Set<String> fields = new TreeSet<>(before.keySet());
+        fields.addAll(after.keySet());
+        Map<String, Map<String, Object>> changes = new LinkedHashMap<>();
+        for (String field : fields) {
+            Object from = before.get(field);
+            Object to = after.get(field);
+            if (!Objects.equals(from, to)) {
+                Map<String, Object> change = new LinkedHashMap<>();
+                change.put("from", from);
+                change.put("to", to);
+                changes.put(field, change);
+            }
+        }
+        return changes;
+    }
+
+    // "UPDATE_PRODUCT" on 42 changing price and stock becomes "Update product 42: price, stock"
+    static String describe(String action, String entityId, Map<String, Map<String, Object>> changes) {
+        String words = action.toLowerCase().replace('_', ' ');
+        StringBuilder description = new StringBuilder(Character.toUpperCase(words.charAt(0)) + words.substring(1));
+        if (entityId != null) {
+            description.append(' ').append(entityId);
+        }
+        if (changes != null && !changes.isEmpty()) {
+            description.append(": ").append(String.join(", ", changes.keySet()));
+        }
+        return description.toString();
+    }
+
+    // The entity a call returned, unwrapped from ResponseEntity and ApiResponse
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stateOf(Object result) {
+        Object value = result instanceof ResponseEntity<?> response ? response.getBody() : result;
+        value = value instanceof ApiResponse<?> response ? response.getData() : value;
+        if (value == null || isScalar(value)) {
+            return null;
+        }
+        Object converted = redact(objectMapper.convertValue(value, Object.class));
+        return converted instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Object redact(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            ((Map<String, Object>) map).keySet().removeIf(AuditTrail::isRedacted);
+            map.values().forEach(AuditTrail::redact);
+        } else if (value instanceof List<?> list) {
+            list.forEach(AuditTrail::redact);
+        }
+        return value;
+    }
+
+    private static boolean isRedacted(String key) {
+        String lower = key.toLowerCase();
+        return REDACTED.contains(lower) || REDACTED_PARTS.stream().anyMatch(lower::contains);
+    }
+
+    private String[] namesOf(Method method) {
+        String[] names = parameterNames.getParameterNames(method);
+        if (names != null) {
+            return names;
+        }
+        names = new String[method.getParameterCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "arg" + i;
+        }
+        return names;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum<?>;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records a successful call to the annotated bean method in the admin activity log. The entry is
+ * built off the request thread by {@link AuditTrail}, which diffs the returned entity against the
+ * last audited state of the same entity.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Audited {
+
+    String action();
+
+    String entityType();
+
+    // Parameter holding the entity id; when the method has none, the id of the returned entity is used
+    String entityId() default "id";
+
+    // Also record non-scalar arguments such as request bodies, for actions without a single entity
+    boolean recordArgs() default false;
+}
@@ -4,6 +4,7 @@ import com.ecommerce.dto.request.*;
 import com.ecommerce.dto.response.AuthResponse;
 import com.ecommerce.dto.response.UserResponse;
 import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ServiceUnavailableException;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
 import com.ecommerce.security.JwtTokenProvider;
@@ -112,7 +113,9 @@ public class AuthService {
         userRepository.save(user);
 
         try {
-            mailService.sendPasswordResetOtp(email, otp);
+            mailService.awaitSent(mailService.sendPasswordResetOtp(email, otp));
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Failed to send OTP email: " + e.getMessage());
             throw new BadRequestException("Failed to send email");
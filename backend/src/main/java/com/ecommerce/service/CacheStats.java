@@ -0,0 +1,29 @@
+package com.ecommerce.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Lookup counts of an in-process cache, published by ServiceMetrics
+public final class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void record(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // Since startup; NaN until the first lookup
+    public double hitRatio() {
+        long hitCount = hits();
+        long total = hitCount + misses();
+        return total == 0 ? Double.NaN : (double) hitCount / total;
+    }
+}
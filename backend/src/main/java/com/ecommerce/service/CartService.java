@@ -5,6 +5,7 @@ import com.ecommerce.dto.response.CartResponse;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Cart;
+import com.ecommerce.model.Order;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.CartRepository;
@@ -15,7 +16,9 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -135,6 +138,26 @@ public class CartService {
         }
     }
 
+    /**
+     * Takes an order's items out of its customer's cart. Runs after checkout, so anything added to
+     * the cart since the order was placed is kept.
+     */
+    public void removeOrderedItems(Order order) {
+        Cart cart = cartRepository.findByUserId(order.getUserId()).orElse(null);
+        if (cart == null) {
+            return;
+        }
+        Map<String, Integer> ordered = order.getItems().stream()
+                .collect(Collectors.toMap(Order.OrderItem::getProductId, Order.OrderItem::getQuantity, Integer::sum));
+        cart.getItems().removeIf(item -> item.getQuantity() <= ordered.getOrDefault(item.getProductId(), 0));
+        if (order.getCouponCode() != null && order.getCouponCode().equals(cart.getAppliedCoupon())) {
+            cart.setAppliedCoupon(null);
+            cart.setDiscount(BigDecimal.ZERO);
+        }
+        cart.recalculateTotals();
+        cartRepository.save(cart);
+    }
+
     public Cart getCartEntity() {
         User user = userService.getCurrentUser();
         return cartRepository.findByUserId(user.getId())
@@ -113,7 +113,7 @@ public class CategoryService {
         categoryRepository.save(category);
     }
     
-    private String generateSlug(String name) {
+    public static String generateSlug(String name) {
         return name.toLowerCase()
                 .replaceAll("[^a-z0-9\\s-]", "")
                 .replaceAll("\\s+", "-")
@@ -2,9 +2,12 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.response.DashboardStatsResponse;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderSalesRollup;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.SalesDaily;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SalesDailyRepository;
 import com.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -23,36 +26,37 @@ public class DashboardService {
         private final OrderRepository orderRepository;
         private final ProductRepository productRepository;
         private final UserRepository userRepository;
+        private final SalesDailyRepository salesDailyRepository;
+
+        public List<SalesDaily> getDailySales(LocalDate from, LocalDate to) {
+                return salesDailyRepository.findSummariesBetween(from, to);
+        }
 
         public DashboardStatsResponse getDashboardStats() {
                 // ── Basic counts ────────────────────────────────
-                long totalOrders = orderRepository.count();
+                long totalOrders = orderRepository.countHistory();
                 long totalProducts = productRepository.count();
                 long totalUsers = userRepository.count();
                 long activeProducts = productRepository.countByActiveTrue();
-                long lowStockCount = productRepository.countByStockQuantityLessThan(10);
+                long lowStockCount = productRepository.countByLowStockTrue();
 
                 // ── Order status counts ─────────────────────────
                 long pendingOrders = orderRepository.countByStatus(Order.OrderStatus.PENDING);
                 long confirmedOrders = orderRepository.countByStatus(Order.OrderStatus.CONFIRMED);
                 long processingOrders = orderRepository.countByStatus(Order.OrderStatus.PROCESSING);
                 long shippedOrders = orderRepository.countByStatus(Order.OrderStatus.SHIPPED);
-                long completedOrders = orderRepository.countByStatus(Order.OrderStatus.DELIVERED);
-                long cancelledOrders = orderRepository.countByStatus(Order.OrderStatus.CANCELLED);
+                long completedOrders = orderRepository.countHistoryByStatus(Order.OrderStatus.DELIVERED);
+                long cancelledOrders = orderRepository.countHistoryByStatus(Order.OrderStatus.CANCELLED);
 
                 // ── Revenue calculations ────────────────────────
                 // Total revenue = all non-cancelled orders
-                List<Order> allOrders = orderRepository.findAll();
-                BigDecimal totalRevenue = allOrders.stream()
-                                .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED
-                                                && o.getStatus() != Order.OrderStatus.REFUNDED)
-                                .map(Order::getTotalAmount)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                OrderSalesRollup salesTotals = orderRepository.findSalesTotals();
+                BigDecimal totalRevenue = salesTotals.getRevenue();
 
                 // Daily revenue (today)
                 LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
                 LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
-                List<Order> todayOrders = orderRepository.findByCreatedAtBetween(startOfDay, endOfDay);
+                List<Order> todayOrders = orderRepository.findHistoryByCreatedAtBetween(startOfDay, endOfDay);
                 BigDecimal dailyRevenue = todayOrders.stream()
                                 .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED
                                                 && o.getStatus() != Order.OrderStatus.REFUNDED)
@@ -61,7 +65,7 @@ public class DashboardService {
 
                 // Monthly revenue (current month)
                 LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-                List<Order> monthOrders = orderRepository.findByCreatedAtBetween(startOfMonth, endOfDay);
+                List<Order> monthOrders = orderRepository.findHistoryByCreatedAtBetween(startOfMonth, endOfDay);
                 BigDecimal monthlyRevenue = monthOrders.stream()
                                 .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED
                                                 && o.getStatus() != Order.OrderStatus.REFUNDED)
@@ -70,7 +74,7 @@ public class DashboardService {
 
                 // Yearly revenue (current year)
                 LocalDateTime startOfYear = LocalDate.now().withDayOfYear(1).atStartOfDay();
-                List<Order> yearOrders = orderRepository.findByCreatedAtBetween(startOfYear, endOfDay);
+                List<Order> yearOrders = orderRepository.findHistoryByCreatedAtBetween(startOfYear, endOfDay);
                 BigDecimal yearlyRevenue = yearOrders.stream()
                                 .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED
                                                 && o.getStatus() != Order.OrderStatus.REFUNDED)
@@ -78,34 +82,28 @@ public class DashboardService {
                                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
                 // ── Top selling products ────────────────────────
-                // Aggregate from order items
                 Map<String, Integer> productSalesCount = new HashMap<>();
                 Map<String, BigDecimal> productSalesRevenue = new HashMap<>();
                 Map<String, String> productNames = new HashMap<>();
 
-                for (Order order : allOrders) {
-                        if (order.getStatus() == Order.OrderStatus.CANCELLED
-                                        || order.getStatus() == Order.OrderStatus.REFUNDED)
-                                continue;
-                        if (order.getItems() == null)
-                                continue;
-
-                        for (Order.OrderItem item : order.getItems()) {
-                                String pid = item.getProductId();
-                                productSalesCount.merge(pid, item.getQuantity(), Integer::sum);
-                                productSalesRevenue.merge(pid,
-                                                item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO,
-                                                BigDecimal::add);
-                                productNames.putIfAbsent(pid, item.getProductName());
-                        }
-                }
-
-                List<DashboardStatsResponse.TopProduct> topProducts = productSalesCount.entrySet().stream()
+                salesTotals.getProducts().forEach((pid, sales) -> {
+                        productSalesCount.put(pid, (int) sales.getQuantity());
+                        productSalesRevenue.put(pid, sales.getRevenue());
+                        if (sales.getName() != null)
+                                productNames.put(pid, sales.getName());
+                });
+
+                List<Map.Entry<String, Integer>> bestSellers = productSalesCount.entrySet().stream()
                                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
                                 .limit(5)
+                                .collect(Collectors.toList());
+                Map<String, Product> bestSellerProducts = new HashMap<>();
+                productRepository.findAllById(bestSellers.stream().map(Map.Entry::getKey).collect(Collectors.toList()))
+                                .forEach(product -> bestSellerProducts.put(product.getId(), product));
+                List<DashboardStatsResponse.TopProduct> topProducts = bestSellers.stream()
                                 .map(entry -> {
                                         String pid = entry.getKey();
-                                        Product product = productRepository.findById(pid).orElse(null);
+                                        Product product = bestSellerProducts.get(pid);
                                         return DashboardStatsResponse.TopProduct.builder()
                                                         .id(pid)
                                                         .name(productNames.getOrDefault(pid, "Unknown"))
@@ -122,10 +120,9 @@ public class DashboardService {
                                 .collect(Collectors.toList());
 
                 // ── Low stock alerts ────────────────────────────
-                List<Product> lowStockProductList = productRepository.findByStockQuantityLessThanAndActiveTrue(10);
+                List<Product> lowStockProductList = productRepository
+                                .findTop10ByLowStockTrueAndActiveTrueOrderByStockQuantityAsc();
                 List<DashboardStatsResponse.LowStockProduct> lowStockAlerts = lowStockProductList.stream()
-                                .sorted(Comparator.comparingInt(Product::getStockQuantity))
-                                .limit(10)
                                 .map(p -> DashboardStatsResponse.LowStockProduct.builder()
                                                 .id(p.getId())
                                                 .name(p.getName())
@@ -0,0 +1,352 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.SeedRequest;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Category;
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderSalesRollup;
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.ProcessedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Review;
+import com.ecommerce.model.SalesDaily;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockHistoryDaily;
+import com.ecommerce.model.StockReservation;
+import com.ecommerce.model.User;
+import com.ecommerce.model.WarehouseStock;
+import com.ecommerce.repository.UserRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+/**
+ * Fills the database with synthetic store data at production-like volumes (see SyntheticData for
+ * the distributions). Documents are built in chunks on a pool of worker threads, converted with the
+ * application's mapping and written with one unordered insertMany per chunk, bypassing repository
+ * saves, auditing and lifecycle events. The first phase writes categories, users, carts, orders and
+ * reviews while tallying units sold and ratings per product; the second writes the products, which
+ * carry those tallies, their stock history and the daily sales rollup.
+ *
+ * Ids are deterministic, so a rerun with the same seed finds its documents already present: the
+ * duplicate-key errors are counted as existing and the run is a no-op. Use reset to replace data
+ * generated with other settings.
+ */
+@Service
+public class DataGenerator {
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final int parallelism;
+    private final int lowStockThreshold;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DataGenerator(MongoTemplate mongoTemplate,
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            @Value("${app.seed.parallelism:8}") int parallelism,
+            @Value("${app.inventory.low-stock-threshold:10}") int lowStockThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.parallelism = parallelism;
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    // Generates one data set and returns what was written; null if a run is already in progress
+    public Map<String, Object> generate(SeedRequest request) {
+        if ((request.getOrders() > 0 || request.getReviews() > 0) && (request.getUsers() == 0
+                || request.getProducts() == 0)) {
+            throw new BadRequestException("Orders and reviews need at least one user and one product");
+        }
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return run(request);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> run(SeedRequest request) {
+        long started = System.nanoTime();
+        LocalDateTime asOf = (request.getAsOf() != null ? request.getAsOf() : LocalDate.now()).atStartOfDay();
+        SyntheticData data = new SyntheticData(request, asOf, passwordEncoder.encode(SyntheticData.PASSWORD),
+                lowStockThreshold);
+        if (request.isReset()) {
+            reset();
+        }
+
+        Map<String, Tally> tallies = new LinkedHashMap<>();
+        for (Class<?> type : List.of(Category.class, User.class, Cart.class, Order.class, Review.class,
+                Product.class, StockHistory.class, SalesDaily.class)) {
+            tallies.put(mongoTemplate.getCollectionName(type), new Tally());
+        }
+        int products = request.getProducts();
+        AtomicIntegerArray sold = new AtomicIntegerArray(products);
+        AtomicIntegerArray reviewCounts = new AtomicIntegerArray(products);
+        AtomicLongArray ratingSums = new AtomicLongArray(products);
+        Map<LocalDate, Day> sales = new ConcurrentHashMap<>();
+        int batchSize = request.getBatchSize();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "data-generator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            tasks.add(workers.submit(() -> insert(data.categories(), tallies)));
+            chunks(request.getUsers(), batchSize, workers, tasks, (from, to) ->
+                    insert(build(from, to, data::user), tallies));
+            chunks(request.getUsers(), batchSize, workers, tasks, (from, to) ->
+                    insert(build(from, to, data::cart), tallies));
+            chunks(request.getOrders(), batchSize, workers, tasks, (from, to) -> {
+                List<Order> orders = build(from, to, data::order);
+                Map<LocalDate, Day> days = new LinkedHashMap<>();
+                for (Order order : orders) {
+                    for (Order.OrderItem item : order.getItems()) {
+                        if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+                            sold.addAndGet(SyntheticData.productIndex(item.getProductId()), item.getQuantity());
+                        }
+                    }
+                    days.computeIfAbsent(order.getCreatedAt().toLocalDate(), d -> new Day()).add(order);
+                }
+                days.forEach((day, partial) -> sales.merge(day, partial, Day::plus));
+                insert(orders, tallies);
+            });
+            chunks(request.getReviews(), batchSize, workers, tasks, (from, to) -> {
+                List<Review> reviews = build(from, to, data::review);
+                for (Review review : reviews) {
+                    int product = SyntheticData.productIndex(review.getProductId());
+                    reviewCounts.incrementAndGet(product);
+                    ratingSums.addAndGet(product, review.getRating());
+                }
+                insert(reviews, tallies);
+            });
+            await(tasks);
+
+            tasks.clear();
+            chunks(products, batchSize, workers, tasks, (from, to) -> {
+                List<Product> batch = new ArrayList<>(to - from);
+                List<StockHistory> history = new ArrayList<>((to - from) * request.getStockEventsPerProduct());
+                for (int i = from; i < to; i++) {
+                    Product product = data.product(i);
+                    history.addAll(data.withStock(product, i));
+                    data.withStats(product, sold.get(i), reviewCounts.get(i), ratingSums.get(i));
+                    batch.add(product);
+                }
+                insert(batch, tallies);
+                insert(history, tallies);
+            });
+            List<SalesDaily> days = new ArrayList<>();
+            sales.forEach((day, totals) -> days.add(totals.toSalesDaily(day)));
+            tasks.add(workers.submit(() -> insert(days, tallies)));
+            await(tasks);
+        } finally {
+            workers.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        ensureDefaultAccounts();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("seed", request.getSeed());
+        report.put("asOf", asOf.toLocalDate());
+        long inserted = 0;
+        Map<String, Object> collections = new LinkedHashMap<>();
+        for (Map.Entry<String, Tally> entry : tallies.entrySet()) {
+            inserted += entry.getValue().inserted.get();
+            collections.put(entry.getKey(), Map.of(
+                    "inserted", entry.getValue().inserted.get(),
+                    "existing", entry.getValue().existing.get()));
+        }
+        report.put("collections", collections);
+        report.put("inserted", inserted);
+        report.put("seconds", Math.round(seconds * 10) / 10.0);
+        report.put("docsPerSecond", Math.round(inserted / Math.max(seconds, 0.001)));
+        return report;
+    }
+
+    /**
+     * The admin@example.com / admin123 and user@example.com / user123 logins. They are created or
+     * reset on every startup, and again after a generator run in case reset removed them.
+     */
+    public void ensureDefaultAccounts() {
+        saveDefaultAccount("admin@example.com", "admin123", "Admin", "1234567890",
+                Set.of(User.Role.ADMIN, User.Role.USER));
+        saveDefaultAccount("user@example.com", "user123", "Regular", "0987654321", Set.of(User.Role.USER));
+    }
+
+    private void saveDefaultAccount(String email, String password, String firstName, String phone,
+            Set<User.Role> roles) {
+        User user = userRepository.findByEmail(email).orElseGet(() -> User.builder()
+                .firstName(firstName)
+                .lastName("User")
+                .email(email)
+                .phone(phone)
+                .build());
+        user.setPassword(passwordEncoder.encode(password));
+        user.setRoles(new HashSet<>(roles));
+        user.setActive(true);
+        userRepository.save(user);
+    }
+
+    // Everything the generator writes plus what the running app derives from it, so no rollup, stock
+    // count or pending event outlives the data it was built from. order_node_ids is left alone: its
+    // leases belong to running instances, not to the data.
+    private void reset() {
+        for (Class<?> type : List.of(Category.class, Product.class, StockHistory.class, StockHistoryDaily.class,
+                User.class, Cart.class, Order.class, ArchivedOrder.class, OrderSalesRollup.class, Review.class,
+                SalesDaily.class, StockReservation.class, WarehouseStock.class, Payment.class, DomainEvent.class,
+                ProcessedEvent.class)) {
+            // Keeps the collections and their indexes
+            mongoTemplate.remove(new Query(), type);
+        }
+        // Recorded settings such as the low-stock backfill threshold describe the data that is going away
+        mongoTemplate.remove(new Query(), LowStockMonitor.STATE_COLLECTION);
+    }
+
+    private void insert(List<?> entities, Map<String, Tally> tallies) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(entities.get(0).getClass());
+        List<Document> documents = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+            documents.add(document);
+        }
+        Tally tally = tallies.get(collection);
+        try {
+            mongoTemplate.getCollection(collection).insertMany(documents, new InsertManyOptions().ordered(false));
+            tally.inserted.addAndGet(documents.size());
+        } catch (MongoBulkWriteException e) {
+            // Left by an earlier run with the same seed; anything other than a duplicate is a real failure
+            long duplicates = e.getWriteErrors().stream().filter(error -> error.getCode() == 11000).count();
+            if (duplicates < e.getWriteErrors().size()) {
+                throw e;
+            }
+            tally.inserted.addAndGet(documents.size() - duplicates);
+            tally.existing.addAndGet(duplicates);
+        }
+    }
+
+    // Builds [from, to), skipping indexes that produce nothing (users without a cart)
+    private static <T> List<T> build(int from, int to, IntFunction<T> factory) {
+        List<T> built = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            T entity = factory.apply(i);
+            if (entity != null) {
+                built.add(entity);
+            }
+        }
+        return built;
+    }
+
+    private interface Chunk {
+        void write(int from, int to);
+    }
+
+    private static void chunks(int count, int batchSize, ExecutorService workers, List<Future<?>> tasks,
+            Chunk chunk) {
+        for (int from = 0; from < count; from += batchSize) {
+            int start = from;
+            int end = Math.min(count, from + batchSize);
+            tasks.add(workers.submit(() -> chunk.write(start, end)));
+        }
+    }
+
+    private static void await(List<Future<?>> tasks) {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw new IllegalStateException("Data generation failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Data generation interrupted", e);
+        }
+    }
+
+    // One day of sales; money is summed in paise so the totals do not depend on the summing order
+    private static final class Day {
+        long orders;
+        long units;
+        long revenue;
+        long discounts;
+
+        void add(Order order) {
+            orders++;
+            units += order.getItems().stream().mapToInt(Order.OrderItem::getQuantity).sum();
+            revenue += paise(order.getTotalAmount());
+            discounts += paise(order.getDiscountAmount());
+        }
+
+        Day plus(Day other) {
+            Day sum = new Day();
+            sum.orders = orders + other.orders;
+            sum.units = units + other.units;
+            sum.revenue = revenue + other.revenue;
+            sum.discounts = discounts + other.discounts;
+            return sum;
+        }
+
+        // Same figures as SalesRollupHandler keeps for orders placed through the API
+        SalesDaily toSalesDaily(LocalDate day) {
+            return SalesDaily.builder()
+                    .id(day.toString())
+                    .date(day)
+                    .orders(orders)
+                    .units(units)
+                    .revenue(revenue / 100.0)
+                    .discounts(discounts / 100.0)
+                    .build();
+        }
+
+        private static long paise(BigDecimal amount) {
+            return amount.movePointRight(2).longValueExact();
+        }
+    }
+
+    private static final class Tally {
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong existing = new AtomicLong();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+
+/**
+ * Consumes events from the domain event log. Delivery is at-least-once, so handle() must tolerate
+ * seeing the same event again; throwing schedules a retry with backoff.
+ */
+public interface DomainEventHandler {
+
+    // Stable key for this handler's delivery state in the log; must not contain dots
+    String name();
+
+    boolean handles(String eventType);
+
+    void handle(DomainEvent event) throws Exception;
+}
@@ -0,0 +1,248 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable log of domain events in domain_events. Each event records which handlers still have to
+ * process it; a handler's delivery is claimed with a lease, so it runs on one worker at a time and
+ * is picked up again if that worker dies. Events are dispatched to a local worker pool as soon as
+ * they are published, and a poller redelivers anything left pending (failed attempts after their
+ * backoff, expired leases, events from a previous run). Delivery is at-least-once.
+ */
+@Service
+public class DomainEventLog {
+
+    private static final int POLL_BATCH = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final List<DomainEventHandler> handlers;
+    private final int maxAttempts;
+    private final long leaseMillis;
+    private final long pollGraceMillis;
+    private final ExecutorService workers;
+    private final Map<String, HandlerStats> stats = new ConcurrentHashMap<>();
+
+    public DomainEventLog(MongoTemplate mongoTemplate,
+            List<DomainEventHandler> handlers,
+            @Value("${app.events.workers:4}") int workerCount,
+            @Value("${app.events.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.events.max-attempts:8}") int maxAttempts,
+            @Value("${app.events.lease-ms:60000}") long leaseMillis,
+            @Value("${app.events.poll-grace-ms:5000}") long pollGraceMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.handlers = handlers;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = leaseMillis;
+        this.pollGraceMillis = pollGraceMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // When the queue is full the publishing thread runs the handler itself, which slows producers down
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "domain-events-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        handlers.forEach(handler -> stats.put(handler.name(), new HandlerStats()));
+    }
+
+    /**
+     * Writes the event to the log without dispatching it. Callers append before the state change
+     * the event describes and publish after it, so a crash in between leaves a logged event whose
+     * handlers find nothing to do rather than a state change with no event.
+     */
+    public DomainEvent append(String type, String aggregateId, Map<String, Object> payload) {
+        return mongoTemplate.insert(newEvent(type, aggregateId, payload, LocalDateTime.now()));
+    }
+
+    // Appends one event per aggregate with a single insert; used by bulk operations
+    public List<DomainEvent> appendAll(String type, Map<String, Map<String, Object>> payloadsByAggregate) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DomainEvent> events = new ArrayList<>(payloadsByAggregate.size());
+        payloadsByAggregate.forEach((aggregateId, payload) -> events.add(newEvent(type, aggregateId, payload, now)));
+        return events.isEmpty() ? events : new ArrayList<>(mongoTemplate.insertAll(events));
+    }
+
+    public void publish(DomainEvent event) {
+        for (String handlerName : event.getPendingHandlers()) {
+            dispatch(event, handlerName);
+        }
+    }
+
+    // Drops an appended event whose state change did not happen
+    public void discard(DomainEvent event) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(event.getId())), DomainEvent.class);
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.poll-interval-ms:5000}")
+    public void redeliverPending() {
+        // Recent events are left to the publish fast path
+        Query query = Query.query(Criteria.where("pendingHandlers.0").exists(true)
+                        .and("createdAt").lt(LocalDateTime.now().minusNanos(pollGraceMillis * 1_000_000)))
+                .with(Sort.by("createdAt"))
+                .limit(POLL_BATCH);
+        for (DomainEvent event : mongoTemplate.find(query, DomainEvent.class)) {
+            publish(event);
+        }
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (DomainEventHandler handler : handlers) {
+            HandlerStats handlerStats = stats.get(handler.name());
+            Query pending = Query.query(Criteria.where("pendingHandlers").is(handler.name()));
+            DomainEvent oldest = mongoTemplate.findOne(Query.of(pending).with(Sort.by("createdAt")).limit(1),
+                    DomainEvent.class);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("pending", mongoTemplate.count(pending, DomainEvent.class));
+            entry.put("oldestPendingAgeMillis", oldest != null
+                    ? Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis() : 0);
+            entry.put("delivered", handlerStats.delivered.get());
+            entry.put("failedAttempts", handlerStats.failed.get());
+            entry.put("deadLettered", handlerStats.dead.get());
+            entry.put("lastLagMillis", handlerStats.lastLagMillis);
+            entry.put("maxLagMillis", handlerStats.maxLagMillis.get());
+            result.put(handler.name(), entry);
+        }
+        return result;
+    }
+
+    ExecutorService workers() {
+        return workers;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Anything still running keeps its lease and is redelivered after it expires
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private DomainEvent newEvent(String type, String aggregateId, Map<String, Object> payload, LocalDateTime now) {
+        DomainEvent event = DomainEvent.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .payload(payload)
+                .createdAt(now)
+                .build();
+        for (DomainEventHandler handler : handlers) {
+            if (handler.handles(type)) {
+                event.getPendingHandlers().add(handler.name());
+                event.getDeliveries().put(handler.name(), DomainEvent.Delivery.builder()
+                        .status(DomainEvent.DeliveryStatus.PENDING)
+                        .nextAttemptAt(now)
+                        .build());
+            }
+        }
+        if (event.getPendingHandlers().isEmpty()) {
+            event.setCompletedAt(now);
+        }
+        return event;
+    }
+
+    private void dispatch(DomainEvent event, String handlerName) {
+        DomainEventHandler handler = handlers.stream()
+                .filter(candidate -> candidate.name().equals(handlerName))
+                .findFirst()
+                .orElse(null);
+        if (handler != null && !workers.isShutdown()) {
+            workers.execute(() -> deliver(event, handler));
+        }
+    }
+
+    private void deliver(DomainEvent event, DomainEventHandler handler) {
+        String field = "deliveries." + handler.name();
+        LocalDateTime now = LocalDateTime.now();
+
+        DomainEvent claimed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(event.getId())
+                        .and("pendingHandlers").is(handler.name())
+                        .orOperator(
+                                Criteria.where(field + ".status").is(DomainEvent.DeliveryStatus.PENDING)
+                                        .and(field + ".nextAttemptAt").lte(now),
+                                Criteria.where(field + ".status").is(DomainEvent.DeliveryStatus.RUNNING)
+                                        .and(field + ".leaseUntil").lt(now))),
+                new Update().set(field + ".status", DomainEvent.DeliveryStatus.RUNNING)
+                        .set(field + ".leaseUntil", now.plusNanos(leaseMillis * 1_000_000))
+                        .inc(field + ".attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), DomainEvent.class);
+        if (claimed == null) {
+            // Done, not due yet, or being handled elsewhere
+            return;
+        }
+
+        HandlerStats handlerStats = stats.get(handler.name());
+        try {
+            handler.handle(claimed);
+        } catch (Exception e) {
+            handlerStats.failed.incrementAndGet();
+            int attempts = claimed.getDeliveries().get(handler.name()).getAttempts();
+            Update update = new Update().set(field + ".lastError", String.valueOf(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                handlerStats.dead.incrementAndGet();
+                update.set(field + ".status", DomainEvent.DeliveryStatus.DEAD).pull("pendingHandlers", handler.name());
+            } else {
+                long backoffSeconds = Math.min(300, 1L << attempts);
+                update.set(field + ".status", DomainEvent.DeliveryStatus.PENDING)
+                        .set(field + ".nextAttemptAt", LocalDateTime.now().plusSeconds(backoffSeconds));
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(claimed.getId())), update, DomainEvent.class);
+            markCompletedIfDrained(claimed.getId());
+            return;
+        }
+
+        LocalDateTime completedAt = LocalDateTime.now();
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(claimed.getId())),
+                new Update().set(field + ".status", DomainEvent.DeliveryStatus.DONE)
+                        .set(field + ".completedAt", completedAt)
+                        .pull("pendingHandlers", handler.name()),
+                DomainEvent.class);
+        markCompletedIfDrained(claimed.getId());
+
+        long lag = Duration.between(claimed.getCreatedAt(), completedAt).toMillis();
+        handlerStats.delivered.incrementAndGet();
+        handlerStats.lastLagMillis = lag;
+        handlerStats.maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    private void markCompletedIfDrained(String eventId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(eventId)
+                        .and("pendingHandlers").size(0)
+                        .and("completedAt").exists(false)),
+                new Update().set("completedAt", LocalDateTime.now()),
+                DomainEvent.class);
+    }
+
+    private static final class HandlerStats {
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dead = new AtomicLong();
+        private final AtomicLong maxLagMillis = new AtomicLong();
+        private volatile long lastLagMillis;
+    }
+}
@@ -0,0 +1,261 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockReservation;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Flash-sale mode keeps the available stock of selected products in an in-memory CAS counter.
+ * Accepted holds are queued and written to products and stock_history in batches, so a sold-out
+ * request is rejected without touching the database. The ledger lives in this JVM, so flash-sale
+ * traffic for a product must be served by a single node.
+ *
+ * Takes not yet flushed when the process dies are missing from products, but their reservations
+ * were saved as HELD. On startup each flash-sale product's reservedQuantity is reconciled against
+ * the units its HELD reservations account for and the difference is deducted before the ledger is
+ * seeded, so releasing those reservations later cannot hand back units that were never taken.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashSaleService {
+
+    private final ProductRepository productRepository;
+    private final StockHistoryWriter stockHistoryWriter;
+    private final MongoTemplate mongoTemplate;
+    private final LowStockMonitor lowStockMonitor;
+
+    private final Map<String, Ledger> ledgers = new ConcurrentHashMap<>();
+    private final Queue<Take> pending = new ConcurrentLinkedQueue<>();
+    // A lock rather than synchronized, so the bulk write never pins a virtual thread to its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreLedgers() {
+        List<Product> products = productRepository.findByFlashSaleTrue();
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> held = heldUnits(products.stream().map(Product::getId).toList());
+        for (Product product : products) {
+            int unflushed = held.getOrDefault(product.getId(), 0) - product.getReservedQuantity();
+            if (unflushed > 0) {
+                // Takes that were acknowledged and reserved but died in the queue before their flush
+                Product repaired = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(product.getId())),
+                        new Update().inc("stockQuantity", -unflushed).inc("reservedQuantity", unflushed),
+                        FindAndModifyOptions.options().returnNew(true), Product.class);
+                if (repaired != null) {
+                    log.warn("Flash-sale product {}: applied {} units of takes lost before their flush",
+                            product.getId(), unflushed);
+                    product = repaired;
+                }
+            }
+            ledgers.put(product.getId(), new Ledger(Math.max(0, product.getStockQuantity())));
+        }
+    }
+
+    // Units each product has in HELD reservations, which a consistent product counts in reservedQuantity
+    private Map<String, Integer> heldUnits(List<String> productIds) {
+        Map<String, Integer> held = new HashMap<>();
+        List<StockReservation> reservations = mongoTemplate.find(Query.query(
+                Criteria.where("status").is(StockReservation.ReservationStatus.HELD)
+                        .and("items.productId").in(productIds)), StockReservation.class);
+        for (StockReservation reservation : reservations) {
+            for (StockReservation.Item item : reservation.getItems()) {
+                if (productIds.contains(item.getProductId())) {
+                    held.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        return held;
+    }
+
+    public Product enable(String productId) {
+        // Holds on this node go to the ledger from here on; it sells nothing until seeded below
+        Ledger ledger = new Ledger(0);
+        if (ledgers.putIfAbsent(productId, ledger) != null) {
+            return productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        }
+        // The flag is set and the stock read in one step. Regular holds skip flash-sale products,
+        // so nothing taken in Mongo after this read is also counted in the ledger
+        Product product = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(productId)),
+                Update.update("flashSale", true), FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            ledgers.remove(productId, ledger);
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        ledger.available.addAndGet(product.getStockQuantity());
+        return product;
+    }
+
+    public void disable(String productId) {
+        Ledger ledger = ledgers.get(productId);
+        if (ledger == null) {
+            throw new BadRequestException("Product is not in flash-sale mode");
+        }
+        // Stop selling, write every accepted hold to Mongo, and only then return the product to
+        // the regular path, whose holds would otherwise see stock the ledger already sold. The write
+        // lock waits out takes that are past the CAS but not yet queued, so the flush sees them
+        ledger.gate.writeLock().lock();
+        try {
+            ledger.closed = true;
+        } finally {
+            ledger.gate.writeLock().unlock();
+        }
+        flush();
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(productId)),
+                Update.update("flashSale", false), Product.class);
+        ledgers.remove(productId, ledger);
+    }
+
+    public boolean isActive(String productId) {
+        return ledgers.containsKey(productId);
+    }
+
+    /**
+     * Moves quantity from available to reserved in memory. Returns false when the product is sold out.
+     */
+    public boolean tryReserve(String productId, int quantity, String orderId) {
+        Ledger ledger = ledgers.get(productId);
+        if (ledger == null) {
+            throw new BadRequestException("Product is not in flash-sale mode");
+        }
+        // Take and enqueue as one step with respect to disable()
+        ledger.gate.readLock().lock();
+        try {
+            int remaining = ledger.take(quantity);
+            if (remaining < 0) {
+                return false;
+            }
+            pending.add(new Take(productId, quantity, remaining, orderId, LocalDateTime.now()));
+            return true;
+        } finally {
+            ledger.gate.readLock().unlock();
+        }
+    }
+
+    // Units given back through the regular Mongo path (expired holds, cancellations) rejoin the sale
+    public void returned(String productId, int quantity) {
+        Ledger ledger = ledgers.get(productId);
+        if (ledger != null) {
+            ledger.available.addAndGet(quantity);
+        }
+    }
+
+    public Map<String, Integer> getRemaining() {
+        Map<String, Integer> remaining = new HashMap<>();
+        ledgers.forEach((productId, ledger) -> remaining.put(productId, ledger.available.get()));
+        return remaining;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flash-sale.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        List<Take> batch = new ArrayList<>();
+        Take take;
+        while ((take = pending.poll()) != null) {
+            batch.add(take);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> totals = new HashMap<>();
+        List<StockHistory> history = new ArrayList<>(batch.size());
+        for (Take t : batch) {
+            totals.merge(t.productId(), t.quantity(), Integer::sum);
+            history.add(StockHistory.builder()
+                    .productId(t.productId())
+                    .changeQuantity(-t.quantity())
+                    .newQuantity(t.remaining())
+                    .type(StockHistory.StockChangeType.ORDER_PLACEMENT)
+                    .notes("Flash-sale reservation")
+                    .referenceId(t.orderId())
+                    .timestamp(t.at())
+                    .build());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        totals.forEach((productId, quantity) -> bulk.updateOne(
+                Query.query(Criteria.where("_id").is(productId)),
+                new Update().inc("stockQuantity", -quantity).inc("reservedQuantity", quantity)));
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            // Keep the takes for the next flush rather than losing them
+            pending.addAll(batch);
+            throw e;
+        }
+        totals.keySet().forEach(lowStockMonitor::refresh);
+        stockHistoryWriter.writeAll(history);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class Ledger {
+        private final AtomicInteger available;
+        private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+        private volatile boolean closed;
+
+        private Ledger(int initial) {
+            this.available = new AtomicInteger(initial);
+        }
+
+        // Returns the quantity left after the take, or -1 when there is not enough or the sale is ending
+        private int take(int quantity) {
+            while (!closed) {
+                int current = available.get();
+                if (current < quantity) {
+                    return -1;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return current - quantity;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private record Take(String productId, int quantity, int remaining, String orderId, LocalDateTime at) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tracks requests made with an Idempotency-Key. The first request for a key claims it (in memory,
+ * then with an insert into idempotency_keys so other nodes see the claim) and runs; its response is
+ * stored and replayed to every retry until the key expires. Duplicates that arrive on the same
+ * node while the first is still running wait on it rather than running checkout a second time;
+ * duplicates on other nodes poll the stored record for the same bounded time. A claim carries a
+ * lease that the owning node renews while the request runs; only a claim whose lease has run out,
+ * because its node died, is taken over by a retry.
+ */
+@Service
+public class IdempotencyService {
+
+    public enum Outcome {
+        // The caller owns the key and must call complete() or abandon()
+        EXECUTE,
+        // A stored response is available in Claim.record
+        REPLAY,
+        // The key was used for a different request
+        MISMATCH,
+        // Another request with this key is still running
+        IN_PROGRESS
+    }
+
+    public record Claim(Outcome outcome, IdempotencyRecord record) {
+    }
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final long keyTtlMinutes;
+    private final long memoryTtlMillis;
+    private final long waitMillis;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Map<String, Local> memory = new ConcurrentHashMap<>();
+    // Keys this node claimed in the store and is still running
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyService(MongoTemplate mongoTemplate,
+            @Value("${app.idempotency.ttl-minutes:1440}") long keyTtlMinutes,
+            @Value("${app.idempotency.memory-ttl-ms:600000}") long memoryTtlMillis,
+            @Value("${app.idempotency.wait-ms:10000}") long waitMillis,
+            @Value("${app.idempotency.lease-ms:30000}") long leaseMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.keyTtlMinutes = keyTtlMinutes;
+        this.memoryTtlMillis = memoryTtlMillis;
+        this.waitMillis = waitMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    public Claim begin(String key, String requestHash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Local local = memory.get(key);
+            if (local != null && !local.isExpired()) {
+                if (!local.requestHash.equals(requestHash)) {
+                    return new Claim(Outcome.MISMATCH, null);
+                }
+                IdempotencyRecord record = await(local, deadline);
+                if (record != null) {
+                    return new Claim(Outcome.REPLAY, record);
+                }
+                if (!local.result.isDone()) {
+                    return new Claim(Outcome.IN_PROGRESS, null);
+                }
+                // The first request was abandoned; the next caller through may run it
+                memory.remove(key, local);
+                continue;
+            }
+
+            Local mine = new Local(requestHash);
+            if (local != null ? !memory.replace(key, local, mine) : memory.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            return claimInStore(key, mine, deadline);
+        }
+    }
+
+    public void complete(String key, int status, String contentType, byte[] body) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(key)),
+                new Update().set("status", IdempotencyRecord.Status.COMPLETED)
+                        .set("responseStatus", status)
+                        .set("responseContentType", contentType)
+                        .set("responseBody", body)
+                        .set("expiresAt", now.plusMinutes(keyTtlMinutes)),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+        running.remove(key);
+        Local local = memory.get(key);
+        if (local != null) {
+            local.result.complete(record);
+        }
+    }
+
+    // Releases the key after a failure that is worth retrying, such as a server error
+    public void abandon(String key) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(key)
+                .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                .and("owner").is(owner)), IdempotencyRecord.class);
+        running.remove(key);
+        Local local = memory.remove(key);
+        if (local != null) {
+            local.result.complete(null);
+        }
+    }
+
+    // Keeps the claims of requests still running on this node from being taken over
+    @Scheduled(fixedDelayString = "${app.idempotency.lease-renew-ms:10000}")
+    public void renewLeases() {
+        if (running.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(List.copyOf(running))
+                        .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                        .and("owner").is(owner)),
+                new Update().set("leaseUntil", LocalDateTime.now().plus(Duration.ofMillis(leaseMillis))),
+                IdempotencyRecord.class);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.memory-sweep-ms:60000}")
+    public void evictExpired() {
+        memory.values().removeIf(Local::isExpired);
+    }
+
+    private Claim claimInStore(String key, Local mine, long deadline) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(key)
+                    .requestHash(mine.requestHash)
+                    .status(IdempotencyRecord.Status.IN_PROGRESS)
+                    .owner(owner)
+                    .leaseUntil(now.plus(Duration.ofMillis(leaseMillis)))
+                    .createdAt(now)
+                    .expiresAt(now.plusMinutes(keyTtlMinutes))
+                    .build());
+            running.add(key);
+            return new Claim(Outcome.EXECUTE, null);
+        } catch (DuplicateKeyException e) {
+            // Claimed before: by an earlier request that has since left memory, or by another node
+        }
+
+        while (true) {
+            IdempotencyRecord stored = mongoTemplate.findById(key, IdempotencyRecord.class);
+            if (stored == null) {
+                // Abandoned or expired in between; start over with a fresh claim
+                memory.remove(key, mine);
+                mine.result.complete(null);
+                return begin(key, mine.requestHash);
+            }
+            if (!stored.getRequestHash().equals(mine.requestHash)) {
+                memory.remove(key, mine);
+                mine.result.complete(null);
+                return new Claim(Outcome.MISMATCH, null);
+            }
+            if (stored.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                mine.result.complete(stored);
+                return new Claim(Outcome.REPLAY, stored);
+            }
+            if (takeOverExpiredLease(key)) {
+                running.add(key);
+                return new Claim(Outcome.EXECUTE, null);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                memory.remove(key, mine);
+                mine.result.complete(null);
+                return new Claim(Outcome.IN_PROGRESS, null);
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    // A claim whose owner died mid-request stops being renewed; claims written before leases
+    // existed fall back to their age
+    private boolean takeOverExpiredLease(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(key)
+                        .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                        .orOperator(Criteria.where("leaseUntil").lt(now),
+                                Criteria.where("leaseUntil").exists(false)
+                                        .and("createdAt").lt(now.minus(Duration.ofMillis(leaseMillis))))),
+                new Update().set("owner", owner).set("leaseUntil", now.plus(Duration.ofMillis(leaseMillis))),
+                IdempotencyRecord.class).getModifiedCount() > 0;
+    }
+
+    private IdempotencyRecord await(Local local, long deadline) throws InterruptedException {
+        try {
+            return local.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    private final class Local {
+        private final String requestHash;
+        private final CompletableFuture<IdempotencyRecord> result = new CompletableFuture<>();
+        private final long createdAt = System.currentTimeMillis();
+
+        private Local(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        // Only finished entries expire; a running request stays until it completes or is abandoned
+        private boolean isExpired() {
+            return result.isDone() && System.currentTimeMillis() - createdAt > memoryTtlMillis;
+        }
+    }
+}
@@ -4,38 +4,64 @@ import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockHistoryDaily;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockHistoryDailyRepository;
 import com.ecommerce.repository.StockHistoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
     private final ProductRepository productRepository;
+    private final StockHistoryWriter stockHistoryWriter;
     private final StockHistoryRepository stockHistoryRepository;
+    private final StockHistoryDailyRepository stockHistoryDailyRepository;
+    private final MongoTemplate mongoTemplate;
+    private final FlashSaleService flashSaleService;
+    private final LowStockMonitor lowStockMonitor;
 
     @Transactional
     public void updateStock(String productId, int quantityChange, StockHistory.StockChangeType type, String notes,
             String referenceId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        if (flashSaleService.isActive(productId)) {
+            throw new BadRequestException("Product is in flash-sale mode; end the sale before adjusting stock");
+        }
 
-        int oldQuantity = product.getStockQuantity();
-        int newQuantity = oldQuantity + quantityChange;
+        // Single conditional $inc so concurrent updates (and reservation counters on the same
+        // document) are never overwritten by a stale read-modify-write
+        Query query = new Query(Criteria.where("_id").is(productId));
+        if (quantityChange < 0) {
+            query.addCriteria(Criteria.where("stockQuantity").gte(-quantityChange));
+        }
+        Product product = mongoTemplate.findAndModify(query, new Update().inc("stockQuantity", quantityChange),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
 
-        if (newQuantity < 0) {
-            throw new BadRequestException("Insufficient stock for product: " + product.getName());
+        if (product == null) {
+            Product existing = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+            throw new BadRequestException("Insufficient stock for product: " + existing.getName());
         }
 
-        product.setStockQuantity(newQuantity);
-        productRepository.save(product);
+        lowStockMonitor.onStockChanged(product);
+        recordHistory(productId, quantityChange, product.getStockQuantity(), type, notes, referenceId);
+    }
 
+    public void recordHistory(String productId, int quantityChange, int newQuantity,
+            StockHistory.StockChangeType type, String notes, String referenceId) {
         StockHistory history = StockHistory.builder()
                 .productId(productId)
                 .changeQuantity(quantityChange)
@@ -45,13 +71,26 @@ public class InventoryService {
                 .referenceId(referenceId)
                 .timestamp(LocalDateTime.now())
                 .build();
-        stockHistoryRepository.save(history);
+        stockHistoryWriter.write(history);
+    }
+
+    public Page<StockHistory> getStockHistory(String productId, LocalDateTime from, LocalDateTime to,
+            Pageable pageable) {
+        if (from == null && to == null) {
+            return stockHistoryRepository.findByProductId(productId, pageable);
+        }
+        return stockHistoryRepository.findByProductIdAndTimestampBetween(productId,
+                from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0),
+                to != null ? to : LocalDateTime.now().plusDays(1), pageable);
+    }
+
+    // Per-day summaries for the period whose raw events have been compacted away
+    public List<StockHistoryDaily> getDailyStockHistory(String productId, LocalDate from, LocalDate to) {
+        return stockHistoryDailyRepository.findByProductIdAndDateBetweenOrderByDateAsc(productId, from, to);
     }
 
     public List<Product> getLowStockAlerts() {
-        return productRepository.findAll().stream()
-                .filter(p -> p.getStockQuantity() <= p.getLowStockThreshold())
-                .collect(Collectors.toList());
+        return productRepository.findByLowStockTrue();
     }
 
     @Transactional
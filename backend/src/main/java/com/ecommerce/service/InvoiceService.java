@@ -0,0 +1,226 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Serves invoice PDFs from a disk cache. An invoice is rendered the first time it is asked for and
+ * stored under the order id and a version taken from the order's last update, so a later status
+ * change produces a new file instead of a stale one. Concurrent requests for the same invoice share
+ * one render. Batch exports render on a bounded worker pool and stream the results as a ZIP.
+ */
+@Service
+public class InvoiceService {
+
+    private final PdfService pdfService;
+    private final OrderRepository orderRepository;
+    private final Path cacheDir;
+    private final int maxAgeDays;
+    private final int workerCount;
+    private final ExecutorService workers;
+    private final CacheStats cacheStats = new CacheStats();
+    private final Map<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    public InvoiceService(PdfService pdfService,
+            OrderRepository orderRepository,
+            @Value("${app.invoices.cache-dir:./data/invoices}") String cacheDir,
+            @Value("${app.invoices.cache-max-age-days:30}") int maxAgeDays,
+            @Value("${app.invoices.workers:0}") int workers) {
+        this.pdfService = pdfService;
+        this.orderRepository = orderRepository;
+        this.cacheDir = Path.of(cacheDir);
+        this.maxAgeDays = maxAgeDays;
+        this.workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "invoice-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public byte[] getInvoice(Order order) {
+        String key = cacheKey(order);
+        Path file = cacheDir.resolve(key + ".pdf");
+        if (Files.exists(file)) {
+            try {
+                byte[] cached = Files.readAllBytes(file);
+                cacheStats.record(true);
+                return cached;
+            } catch (IOException e) {
+                // Removed by the cleanup in between; render it again
+            }
+        }
+        cacheStats.record(false);
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            byte[] pdf = pdfService.generateInvoice(order);
+            store(order.getId(), file, pdf);
+            mine.complete(pdf);
+            return pdf;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, mine);
+        }
+    }
+
+    /**
+     * Writes the invoices of every order created in the range to a ZIP. At most twice the pool size
+     * invoices are in flight at a time, so memory stays flat however many orders match.
+     */
+    public void writeInvoiceZip(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF content is already compressed
+        zip.setLevel(Deflater.BEST_SPEED);
+        Deque<Rendered> window = new ArrayDeque<>();
+        try (Stream<Order> orders = orderRepository.streamHistoryByCreatedAtBetween(from, to)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                window.add(new Rendered(entryName(order),
+                        CompletableFuture.supplyAsync(() -> getInvoice(order), workers)));
+                if (window.size() >= workerCount * 2) {
+                    writeEntry(zip, window.poll());
+                }
+            }
+            while (!window.isEmpty()) {
+                writeEntry(zip, window.poll());
+            }
+        } finally {
+            window.forEach(pending -> pending.pdf().cancel(false));
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    @Scheduled(cron = "${app.invoices.cleanup-cron:0 15 4 * * *}")
+    public void removeExpired() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(LocalDateTime.now().minusDays(maxAgeDays).toInstant(ZoneOffset.UTC));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "*.pdf")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // Retried on the next run
+        }
+    }
+
+    ExecutorService workers() {
+        return workers;
+    }
+
+    CacheStats cacheStats() {
+        return cacheStats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void store(String orderId, Path file, byte[] pdf) {
+        try {
+            Files.createDirectories(cacheDir);
+            // Written under a temporary name and moved, so readers never see a partial file
+            Path temp = Files.createTempFile(cacheDir, orderId, ".tmp");
+            Files.write(temp, pdf);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Earlier versions of this invoice are never served again
+            try (DirectoryStream<Path> old = Files.newDirectoryStream(cacheDir, orderId + "-*.pdf")) {
+                for (Path previous : old) {
+                    if (!previous.equals(file)) {
+                        Files.deleteIfExists(previous);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The cache is an optimisation; the caller still gets the rendered PDF
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, Rendered rendered) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = rendered.pdf().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Invoice export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to render " + rendered.name(), e.getCause());
+        }
+        zip.putNextEntry(new ZipEntry(rendered.name()));
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for invoice", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    private static String cacheKey(Order order) {
+        LocalDateTime version = order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt();
+        long versionMillis = version != null ? version.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        return order.getId() + "-" + versionMillis;
+    }
+
+    private static String entryName(Order order) {
+        return "invoice_" + (order.getOrderNumber() != null ? order.getOrderNumber() : order.getId()) + ".pdf";
+    }
+
+    private record Rendered(String name, CompletableFuture<byte[]> pdf) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Maintains the indexed Product.lowStock flag so low-stock alerts are an index lookup instead of
+ * a field-to-field comparison over every product. Stock writers pass the document they got back
+ * from their atomic update; the flag is only re-evaluated (against the current document, in one
+ * conditional update) when that snapshot shows a crossing, and each crossing is pushed to
+ * subscribed admin clients over SSE.
+ */
+@Service
+public class LowStockMonitor {
+
+    static final String STATE_COLLECTION = "app_state";
+    static final String BACKFILL_STATE_ID = "lowStockBackfill";
+
+    private final MongoTemplate mongoTemplate;
+    private final int defaultThreshold;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    // Pushes to subscribers happen off the stock-writing thread so a slow client never delays checkout
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "low-stock-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LowStockMonitor(MongoTemplate mongoTemplate,
+            @Value("${app.inventory.low-stock-threshold:10}") int defaultThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    /**
+     * Backfills the flag for products written before it existed. When the default threshold differs
+     * from the one the last backfill ran with, every product whose flag no longer matches is
+     * recomputed, then the new threshold is recorded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiseFlags() {
+        Document state = mongoTemplate.findById(BACKFILL_STATE_ID, Document.class, STATE_COLLECTION);
+        boolean thresholdChanged = state == null || !Integer.valueOf(defaultThreshold).equals(state.get("defaultThreshold"));
+        Criteria stale = thresholdChanged ? Criteria.expr(flagIsStale()) : Criteria.where("lowStock").exists(false);
+        mongoTemplate.updateMulti(Query.query(stale),
+                AggregationUpdate.update().set("lowStock").toValue(isLowExpression()), Product.class);
+        if (thresholdChanged) {
+            mongoTemplate.save(new Document("_id", BACKFILL_STATE_ID).append("defaultThreshold", defaultThreshold),
+                    STATE_COLLECTION);
+        }
+    }
+
+    public boolean isLow(Product product) {
+        int threshold = product.getLowStockThreshold() > 0 ? product.getLowStockThreshold() : defaultThreshold;
+        return product.getStockQuantity() <= threshold;
+    }
+
+    public void onStockChanged(Product snapshot) {
+        if (snapshot != null && snapshot.isLowStock() != isLow(snapshot)) {
+            refresh(snapshot.getId());
+        }
+    }
+
+    /**
+     * Re-evaluates the flag against the current document. Used after whole-document saves where
+     * the stock or threshold may have changed.
+     */
+    public void refresh(String productId) {
+        Query query = Query.query(Criteria.where("_id").is(productId).andOperator(Criteria.expr(flagIsStale())));
+        Product updated = mongoTemplate.findAndModify(query,
+                AggregationUpdate.update().set("lowStock").toValue(isLowExpression()),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (updated != null) {
+            publish(LowStockEvent.builder()
+                    .productId(updated.getId())
+                    .productName(updated.getName())
+                    .stockQuantity(updated.getStockQuantity())
+                    .threshold(updated.getLowStockThreshold() > 0 ? updated.getLowStockThreshold() : defaultThreshold)
+                    .lowStock(updated.isLowStock())
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    private void publish(LowStockEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (SseEmitter emitter : subscribers) {
+                try {
+                    emitter.send(SseEmitter.event().name(event.isLowStock() ? "low-stock" : "restocked").data(event));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(emitter);
+                }
+            }
+        });
+    }
+
+    private AggregationExpression flagIsStale() {
+        return context -> new Document("$ne", List.of("$lowStock", isLowExpression()));
+    }
+
+    // stockQuantity <= (lowStockThreshold > 0 ? lowStockThreshold : default), evaluated inside Mongo
+    private Document isLowExpression() {
+        Document threshold = new Document("$cond", List.of(
+                new Document("$gt", List.of("$lowStockThreshold", 0)), "$lowStockThreshold", defaultThreshold));
+        return new Document("$lte", List.of("$stockQuantity", threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(SseEmitter::complete);
+        dispatcher.shutdown();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LowStockEvent {
+        private String productId;
+        private String productName;
+        private int stockQuantity;
+        private int threshold;
+        private boolean lowStock;
+        private LocalDateTime timestamp;
+    }
+}
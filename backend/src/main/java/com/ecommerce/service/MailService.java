@@ -1,15 +1,24 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.AsyncConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+// SMTP sends go to the mail pool (see AsyncConfig). Event-handler mail stays synchronous, on the event
+// log's own platform threads, so a failed send is retried
 @Service
 @RequiredArgsConstructor
 public class MailService {
@@ -22,7 +31,24 @@ public class MailService {
     @Value("${app.store.name:Sales Savvy}")
     private String storeName;
 
+    @Value("${app.mail.await-timeout-ms:30000}")
+    private long awaitTimeoutMillis;
+
+    // For callers that need the mail sent before answering. The mail pool discards sends once its
+    // queue is full and their futures never complete, so waiting is bounded and ends in a 503
+    public void awaitSent(CompletableFuture<Void> sent) throws ExecutionException {
+        try {
+            sent.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Email is delayed right now. Please try again in a few minutes.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while sending email");
+        }
+    }
+
     // 1. Welcome Email (After Registration)
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void sendWelcomeEmail(String to, String userName) {
         String subject = "Welcome to " + storeName + " \uD83C\uDF89";
         String content = "Hello " + userName + ",<br><br>"
@@ -37,6 +63,7 @@ public class MailService {
     }
 
     // 2. Login Alert Email
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void sendLoginAlertEmail(String to, String userName, String device, String location) {
         String subject = "New Login to Your Account";
         String content = "Hello " + userName + ",<br><br>"
@@ -53,6 +80,7 @@ public class MailService {
     }
 
     // 3. Change Password Confirmation
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void sendPasswordChangedConfirmation(String to, String userName) {
         String subject = "Your Password Has Been Changed";
         String content = "Hello " + userName + ",<br><br>"
@@ -67,7 +95,10 @@ public class MailService {
 
     // 4. Forgot Password / Reset Password
     // 4. Forgot Password / Reset Password - OTP
-    public void sendPasswordResetOtp(String to, String otp) {
+    // Runs on the mail pool even though callers wait for it: a virtual thread waiting on the future
+    // unmounts, whereas one doing the SMTP send itself would stay pinned to its carrier
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    public CompletableFuture<Void> sendPasswordResetOtp(String to, String otp) {
         String subject = "Password Reset OTP";
         String content = "<div style='font-family: Arial, sans-serif; color: #333;'>"
                 + "<h2>Password Reset Request</h2>"
@@ -81,6 +112,7 @@ public class MailService {
                 + "</div>";
 
         sendHtmlEmail(to, subject, content);
+        return CompletableFuture.completedFuture(null);
     }
 
     // 5. Order Confirmation Email
@@ -105,6 +137,7 @@ public class MailService {
     }
 
     // 6. Payment Successful
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public void sendPaymentSuccessEmail(String to, String userName, Double amount, String orderId) {
         String subject = "Payment Successful - #" + orderId;
         String content = "Hello " + userName + ",<br><br>"
@@ -0,0 +1,84 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderHistoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves finished orders older than the retention window from orders to orders_archive, so the
+ * live collection and its indexes only hold orders that can still change. An order is finished
+ * when the state machine allows no further transition from it; delivered orders count as finished
+ * once they are past the window, since the return period is long over by then.
+ */
+@Service
+public class OrderArchiver {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderStateMachine orderStateMachine;
+    private final int afterMonths;
+    private final int batchSize;
+
+    public OrderArchiver(MongoTemplate mongoTemplate,
+            OrderRepository orderRepository,
+            OrderStateMachine orderStateMachine,
+            @Value("${app.orders.archive.after-months:12}") int afterMonths,
+            @Value("${app.orders.archive.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderRepository = orderRepository;
+        this.orderStateMachine = orderStateMachine;
+        this.afterMonths = afterMonths;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 0 3 * * *}")
+    public void archiveFinishedOrders() {
+        archiveBefore(LocalDateTime.now().minusMonths(afterMonths));
+        orderRepository.refreshArchiveRollup();
+    }
+
+    public long archiveBefore(LocalDateTime cutoff) {
+        Query query = Query.query(Criteria.where("createdAt").lt(cutoff).orOperator(finishedStates()))
+                .with(Sort.by("createdAt"))
+                .limit(batchSize);
+
+        long archived = 0;
+        while (true) {
+            List<Order> batch = mongoTemplate.find(query, Order.class);
+            if (batch.isEmpty()) {
+                return archived;
+            }
+            int moved = orderRepository.archive(batch);
+            archived += moved;
+            if (moved == 0) {
+                // Every order in the batch changed under us; the next run will see them again
+                return archived;
+            }
+        }
+    }
+
+    private List<Criteria> finishedStates() {
+        List<Criteria> states = new ArrayList<>();
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            for (Order.PaymentStatus payment : Order.PaymentStatus.values()) {
+                boolean finished = status == Order.OrderStatus.DELIVERED
+                        || orderStateMachine.targetsOf(status, payment).isEmpty();
+                if (finished && OrderHistoryRepository.ARCHIVED_STATUSES.contains(status)) {
+                    states.add(Criteria.where("status").is(status).and("paymentStatus").is(payment));
+                }
+            }
+        }
+        return states;
+    }
+}
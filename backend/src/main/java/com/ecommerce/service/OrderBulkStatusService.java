@@ -0,0 +1,261 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.BulkOrderStatusRequest;
+import com.ecommerce.dto.response.BulkOrderStatusResponse;
+import com.ecommerce.dto.response.BulkOrderStatusResponse.Outcome;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.StockHistory;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves many orders to one status at once. Orders are read in chunks with a projection, checked
+ * against the state machine, and moved in one bulk write of updates conditional on each order's
+ * source state, so an order changed by someone else in the meantime is reported as a conflict
+ * instead of being overwritten. Stock for cancelled and returned orders is given back in one bulk write per chunk,
+ * and customer emails go out through the domain event log rather than on the request thread.
+ */
+@Service
+public class OrderBulkStatusService {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderStateMachine stateMachine;
+    private final StockReservationService stockReservationService;
+    private final InventoryService inventoryService;
+    private final DomainEventLog domainEventLog;
+    private final int chunkSize;
+    private final int maxOrders;
+
+    public OrderBulkStatusService(MongoTemplate mongoTemplate,
+            OrderStateMachine stateMachine,
+            StockReservationService stockReservationService,
+            InventoryService inventoryService,
+            DomainEventLog domainEventLog,
+            @Value("${app.orders.bulk.chunk-size:1000}") int chunkSize,
+            @Value("${app.orders.bulk.max-orders:20000}") int maxOrders) {
+        this.mongoTemplate = mongoTemplate;
+        this.stateMachine = stateMachine;
+        this.stockReservationService = stockReservationService;
+        this.inventoryService = inventoryService;
+        this.domainEventLog = domainEventLog;
+        this.chunkSize = chunkSize;
+        this.maxOrders = maxOrders;
+    }
+
+    public BulkOrderStatusResponse updateStatus(BulkOrderStatusRequest request) {
+        long started = System.currentTimeMillis();
+        Order.OrderStatus target = parseStatus(request.getStatus());
+        List<String> orderIds = resolveOrderIds(request);
+
+        Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            counts.put(outcome, 0);
+        }
+        BulkOrderStatusResponse response = BulkOrderStatusResponse.builder()
+                .status(target.name())
+                .requested(orderIds.size())
+                .counts(counts)
+                .build();
+
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            List<String> chunk = orderIds.subList(from, Math.min(orderIds.size(), from + chunkSize));
+            for (BulkOrderStatusResponse.Result result : applyChunk(chunk, target, request.isNotifyCustomers())) {
+                counts.merge(result.getOutcome(), 1, Integer::sum);
+                response.getResults().add(result);
+            }
+        }
+        response.setElapsedMillis(System.currentTimeMillis() - started);
+        return response;
+    }
+
+    private List<BulkOrderStatusResponse.Result> applyChunk(List<String> chunk, Order.OrderStatus target,
+            boolean notify) {
+        Query lookup = Query.query(Criteria.where("_id").in(chunk));
+        lookup.fields().include("orderNumber", "status", "paymentStatus");
+        Map<String, Order> current = new HashMap<>();
+        mongoTemplate.find(lookup, Order.class).forEach(order -> current.put(order.getId(), order));
+
+        Map<String, BulkOrderStatusResponse.Result> results = new LinkedHashMap<>();
+        Map<OrderStateMachine.Transition, List<String>> bySource = new LinkedHashMap<>();
+        for (String orderId : chunk) {
+            Order order = current.get(orderId);
+            if (order == null) {
+                results.put(orderId, result(orderId, null, Outcome.NOT_FOUND, null, "Order not found"));
+                continue;
+            }
+            OrderStateMachine.Transition transition =
+                    stateMachine.find(order.getStatus(), order.getPaymentStatus(), target);
+            if (order.getStatus() == target) {
+                results.put(orderId, result(orderId, order, Outcome.ALREADY_IN_STATUS, order.getStatus(), null));
+            } else if (transition == null) {
+                results.put(orderId, result(orderId, order, Outcome.INVALID_TRANSITION, order.getStatus(),
+                        "Cannot move from " + order.getStatus() + " with payment " + order.getPaymentStatus()
+                                + " to " + target));
+            } else {
+                bySource.computeIfAbsent(transition, key -> new ArrayList<>()).add(orderId);
+                results.put(orderId, null);
+            }
+        }
+        if (bySource.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+
+        // One unordered bulk of updates conditional on each order's source state. Every update also
+        // pushes this call's token, so the moved set is read back by token even when another bulk
+        // change touches the same orders concurrently, and the token is pulled again afterwards
+        LocalDateTime now = LocalDateTime.now();
+        String token = new ObjectId().toHexString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        List<String> attempted = new ArrayList<>();
+        bySource.forEach((transition, ids) -> {
+            for (String orderId : ids) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(orderId).andOperator(stateMachine.expected(transition))),
+                        stateMachine.updateFor(transition, now).push("bulkTokens", token));
+                attempted.add(orderId);
+            }
+        });
+        bulk.execute();
+
+        Query moved = Query.query(Criteria.where("_id").in(attempted).and("bulkTokens").is(token));
+        moved.fields().include("_id");
+        Set<String> updated = new HashSet<>();
+        mongoTemplate.find(moved, Order.class).forEach(order -> updated.add(order.getId()));
+        if (!updated.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(updated)),
+                    new Update().pull("bulkTokens", token), Order.class);
+        }
+
+        Set<String> released = new HashSet<>();
+        Set<String> returned = new HashSet<>();
+        Map<String, Map<String, Object>> notifications = new LinkedHashMap<>();
+        bySource.forEach((transition, ids) -> {
+            for (String orderId : ids) {
+                Order order = current.get(orderId);
+                if (!updated.contains(orderId)) {
+                    results.put(orderId, result(orderId, order, Outcome.CONFLICT, transition.from(),
+                            "Order changed while being updated"));
+                    continue;
+                }
+                results.put(orderId, result(orderId, order, Outcome.UPDATED, transition.from(), null));
+                if (transition.has(OrderStateMachine.Effect.RELEASE_STOCK)) {
+                    released.add(orderId);
+                }
+                if (transition.has(OrderStateMachine.Effect.RETURN_STOCK)) {
+                    returned.add(orderId);
+                }
+                if (notify && transition.has(OrderStateMachine.Effect.NOTIFY_CUSTOMER)) {
+                    Map<String, Object> payload = new HashMap<>();
+                    payload.put("from", transition.from().name());
+                    payload.put("to", transition.to().name());
+                    notifications.put(orderId, payload);
+                }
+            }
+        });
+
+        restock(released, true);
+        restock(returned, false);
+        for (DomainEvent event : domainEventLog.appendAll(DomainEvent.ORDER_STATUS_CHANGED, notifications)) {
+            domainEventLog.publish(event);
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private void restock(Set<String> orderIds, boolean cancelled) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        StockHistory.StockChangeType type = cancelled
+                ? StockHistory.StockChangeType.ORDER_CANCELLATION : StockHistory.StockChangeType.ORDER_RETURN;
+        Set<String> restocked = stockReservationService.restockOrders(orderIds, cancelled, type,
+                cancelled ? "Order cancelled" : "Order returned");
+
+        Set<String> legacy = new HashSet<>(orderIds);
+        legacy.removeAll(restocked);
+        if (legacy.isEmpty()) {
+            return;
+        }
+        // Orders placed before reservations existed
+        Query query = Query.query(Criteria.where("_id").in(legacy));
+        query.fields().include("items");
+        for (Order order : mongoTemplate.find(query, Order.class)) {
+            for (Order.OrderItem item : order.getItems()) {
+                if (cancelled) {
+                    inventoryService.restoreStockForCancellation(item.getProductId(), item.getQuantity(), order.getId());
+                } else {
+                    inventoryService.restoreStockForReturn(item.getProductId(), item.getQuantity(), order.getId());
+                }
+            }
+        }
+    }
+
+    private List<String> resolveOrderIds(BulkOrderStatusRequest request) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (request.getOrderIds() != null && !request.getOrderIds().isEmpty()) {
+            request.getOrderIds().stream().filter(id -> id != null && !id.isBlank()).forEach(ids::add);
+        } else if (request.getFilter() != null) {
+            BulkOrderStatusRequest.Filter filter = request.getFilter();
+            Criteria criteria = new Criteria();
+            if (filter.getCurrentStatus() != null) {
+                criteria.and("status").is(parseStatus(filter.getCurrentStatus()));
+            }
+            if (filter.getCreatedFrom() != null || filter.getCreatedTo() != null) {
+                Criteria created = criteria.and("createdAt");
+                if (filter.getCreatedFrom() != null) {
+                    created.gte(filter.getCreatedFrom());
+                }
+                if (filter.getCreatedTo() != null) {
+                    created.lt(filter.getCreatedTo());
+                }
+            }
+            Query query = Query.query(criteria).with(Sort.by("createdAt")).limit(maxOrders + 1);
+            query.fields().include("_id");
+            mongoTemplate.find(query, Order.class).forEach(order -> ids.add(order.getId()));
+        } else {
+            throw new BadRequestException("Either orderIds or filter is required");
+        }
+
+        if (ids.size() > maxOrders) {
+            throw new BadRequestException("At most " + maxOrders + " orders can be updated at once");
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static Order.OrderStatus parseStatus(String status) {
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown order status: " + status);
+        }
+    }
+
+    private static BulkOrderStatusResponse.Result result(String orderId, Order order, Outcome outcome,
+            Order.OrderStatus previous, String message) {
+        return BulkOrderStatusResponse.Result.builder()
+                .orderId(orderId)
+                .orderNumber(order != null ? order.getOrderNumber() : null)
+                .outcome(outcome)
+                .previousStatus(previous != null ? previous.name() : null)
+                .message(message)
+                .build();
+    }
+}
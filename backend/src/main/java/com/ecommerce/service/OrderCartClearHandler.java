@@ -0,0 +1,34 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Removes the ordered items from the customer's cart
+@Service
+@RequiredArgsConstructor
+public class OrderCartClearHandler implements DomainEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final CartService cartService;
+
+    @Override
+    public String name() {
+        return "cart-clear";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+        if (order != null) {
+            cartService.removeOrderedItems(order);
+        }
+    }
+}
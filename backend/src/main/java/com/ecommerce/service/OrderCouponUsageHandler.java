@@ -0,0 +1,42 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.repository.CouponRepository;
+import com.ecommerce.repository.CouponUsageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Records coupon usage for a newly placed order
+@Service
+@RequiredArgsConstructor
+public class OrderCouponUsageHandler implements DomainEventHandler {
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final CouponService couponService;
+
+    @Override
+    public String name() {
+        return "coupon-usage";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Object couponCode = event.getPayload().get("couponCode");
+        if (couponCode == null) {
+            return;
+        }
+        String orderId = event.getAggregateId();
+        String userId = (String) event.getPayload().get("userId");
+        couponRepository.findByCode(couponCode.toString()).ifPresent(coupon -> {
+            if (!couponUsageRepository.existsByCouponIdAndOrderId(coupon.getId(), orderId)) {
+                couponService.recordCouponUsage(coupon.getId(), userId, orderId);
+            }
+        });
+    }
+}
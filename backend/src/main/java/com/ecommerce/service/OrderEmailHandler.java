@@ -0,0 +1,47 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Sends the order confirmation and invoice emails for a newly placed order
+@Service
+@RequiredArgsConstructor
+public class OrderEmailHandler implements DomainEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final MailService mailService;
+
+    @Override
+    public String name() {
+        return "order-emails";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            return;
+        }
+
+        String addressString = order.getShippingAddress().getStreet() + ", " +
+                order.getShippingAddress().getCity() + ", " +
+                order.getShippingAddress().getState() + " - " +
+                order.getShippingAddress().getZipCode() + ", " +
+                order.getShippingAddress().getCountry();
+
+        mailService.sendOrderConfirmationEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
+                order.getCreatedAt().toString(), order.getTotalAmount().doubleValue(),
+                order.getPaymentMethod(), addressString);
+
+        mailService.sendInvoiceEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
+                "http://localhost:5173/orders/" + order.getId() + "/invoice");
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders for accounting as CSV or NDJSON. Orders are read through a cursor in _id order
+ * with a projection of the exported fields and written row by row, so memory use does not depend
+ * on the size of the export. Live and archived orders are merged on _id, which makes the id of the
+ * last row received a valid checkpoint: passing it as afterId resumes an interrupted export.
+ */
+@Service
+public class OrderExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public record Filter(LocalDateTime from, LocalDateTime to, Set<Order.OrderStatus> statuses, String afterId,
+            boolean includeArchived) {
+    }
+
+    static final String[] COLUMNS = {
+            "id", "orderNumber", "createdAt", "status", "paymentStatus", "paymentMethod", "userId", "userEmail",
+            "subtotal", "discountAmount", "couponCode", "shippingCost", "tax", "totalAmount", "shippingState",
+            "shippedAt", "deliveredAt"
+    };
+
+    private static final int CURSOR_BATCH = 1000;
+    private static final int FLUSH_EVERY = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // Validates the request up front, so a bad filter fails before any bytes are sent
+    public StreamingResponseBody export(Filter filter, Format format, boolean gzip) {
+        Query query = buildQuery(filter);
+        return out -> write(query, filter.includeArchived(), format, gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out);
+    }
+
+    private void write(Query query, boolean includeArchived, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String orders = mongoTemplate.getCollectionName(Order.class);
+        String archive = mongoTemplate.getCollectionName(ArchivedOrder.class);
+
+        try (Stream<Document> live = mongoTemplate.stream(query, Document.class, orders);
+                Stream<Document> archived = includeArchived
+                        ? mongoTemplate.stream(query, Document.class, archive) : Stream.empty()) {
+            RowSink sink = format == Format.CSV ? new CsvSink(writer) : new NdjsonSink(writer);
+            Iterator<Document> left = live.iterator();
+            Iterator<Document> right = archived.iterator();
+            Document nextLeft = left.hasNext() ? left.next() : null;
+            Document nextRight = right.hasNext() ? right.next() : null;
+            long rows = 0;
+            while (nextLeft != null || nextRight != null) {
+                Document row;
+                int order = nextRight == null ? -1 : nextLeft == null ? 1 : compareIds(nextLeft, nextRight);
+                if (order <= 0) {
+                    row = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                    if (order == 0) {
+                        // Copied to the archive but not yet removed: the live row wins and the copy is skipped
+                        nextRight = right.hasNext() ? right.next() : null;
+                    }
+                } else {
+                    row = nextRight;
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                sink.write(row);
+                if (++rows % FLUSH_EVERY == 0) {
+                    // Lets the client see progress and keeps the connection from idling out
+                    writer.flush();
+                }
+            }
+            sink.close();
+        }
+        writer.flush();
+        if (out instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        out.flush();
+    }
+
+    private Query buildQuery(Filter filter) {
+        Criteria criteria = new Criteria();
+        if (filter.from() != null || filter.to() != null) {
+            Criteria created = criteria.and("createdAt");
+            if (filter.from() != null) {
+                created.gte(filter.from());
+            }
+            if (filter.to() != null) {
+                created.lt(filter.to());
+            }
+        }
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            criteria.and("status").in(filter.statuses().stream().map(Enum::name).toList());
+        }
+        if (filter.afterId() != null && !filter.afterId().isBlank()) {
+            if (!ObjectId.isValid(filter.afterId())) {
+                throw new BadRequestException("afterId must be an order id");
+            }
+            criteria.and("_id").gt(new ObjectId(filter.afterId()));
+        }
+
+        Query query = Query.query(criteria).with(Sort.by("_id")).cursorBatchSize(CURSOR_BATCH);
+        query.fields().include("orderNumber", "createdAt", "status", "paymentStatus", "paymentMethod", "userId",
+                "userEmail", "subtotal", "discountAmount", "couponCode", "shippingCost", "tax", "totalAmount",
+                "shippingAddress.state", "shippedAt", "deliveredAt");
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareIds(Document a, Document b) {
+        return ((Comparable<Object>) a.get("_id")).compareTo(b.get("_id"));
+    }
+
+    private static Object value(Document row, String column) {
+        Object value = switch (column) {
+            case "id" -> row.get("_id");
+            case "shippingState" -> row.get("shippingAddress") instanceof Document address ? address.get("state") : null;
+            default -> row.get(column);
+        };
+        if (value instanceof ObjectId id) {
+            return id.toHexString();
+        }
+        if (value instanceof Date date) {
+            // Stored from LocalDateTime in the server's zone
+            return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).toString();
+        }
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof String text && isAmount(column)) {
+            return new BigDecimal(text);
+        }
+        return value;
+    }
+
+    private static boolean isAmount(String column) {
+        return switch (column) {
+            case "subtotal", "discountAmount", "shippingCost", "tax", "totalAmount" -> true;
+            default -> false;
+        };
+    }
+
+    private interface RowSink {
+        void write(Document row) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final CSVWriter csv;
+        private final String[] line = new String[COLUMNS.length];
+
+        private CsvSink(Writer writer) {
+            this.csv = new CSVWriter(writer);
+            csv.writeNext(COLUMNS, false);
+        }
+
+        @Override
+        public void write(Document row) {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Object value = value(row, COLUMNS[i]);
+                line[i] = value == null ? "" : value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+            }
+            csv.writeNext(line, false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The caller owns the underlying stream
+            csv.flush();
+        }
+    }
+
+    private final class NdjsonSink implements RowSink {
+        private final JsonGenerator json;
+        private final Map<String, Object> object = new LinkedHashMap<>();
+        private boolean empty = true;
+
+        private NdjsonSink(Writer writer) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void write(Document row) throws IOException {
+            for (String column : COLUMNS) {
+                object.put(column, value(row, column));
+            }
+            json.writeObject(object);
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!empty) {
+                json.writeRaw('\n');
+            }
+            json.close();
+        }
+    }
+}
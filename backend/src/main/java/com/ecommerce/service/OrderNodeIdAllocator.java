@@ -0,0 +1,87 @@
+package com.ecommerce.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Leases an order number node id from Mongo for instances started without an explicit
+ * app.order-number.node-id. One document per id; a claim is an upsert that only matches a free,
+ * expired or already-owned id, so two instances racing for the same id get a duplicate key and
+ * move on. The lease is renewed while the instance runs and released on shutdown.
+ */
+@Service
+public class OrderNodeIdAllocator {
+
+    static final String COLLECTION = "order_node_ids";
+
+    private final MongoTemplate mongoTemplate;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile int claimed = -1;
+
+    public OrderNodeIdAllocator(MongoTemplate mongoTemplate,
+            @Value("${app.order-number.lease-ms:600000}") long leaseMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseMillis = leaseMillis;
+    }
+
+    public synchronized int claim() {
+        if (claimed >= 0) {
+            return claimed;
+        }
+        Set<Object> held = mongoTemplate.find(
+                        Query.query(Criteria.where("leaseUntil").gte(LocalDateTime.now())), Document.class, COLLECTION)
+                .stream().map(lease -> lease.get("_id")).collect(Collectors.toSet());
+        for (int candidate = 0; candidate <= OrderNumberGenerator.MAX_NODE_ID; candidate++) {
+            if (!held.contains(candidate) && lease(candidate)) {
+                claimed = candidate;
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free order number node id; set app.order-number.node-id");
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-number.lease-renew-ms:60000}")
+    public void renew() {
+        int nodeId = claimed;
+        if (nodeId >= 0 && !lease(nodeId)) {
+            System.out.println("Order number node id " + nodeId + " was leased by another instance; order numbers may collide");
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        int nodeId = claimed;
+        if (nodeId >= 0) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId).and("owner").is(owner)), COLLECTION);
+        }
+    }
+
+    private boolean lease(int nodeId) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("_id").is(nodeId)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("leaseUntil").lt(now)));
+        try {
+            mongoTemplate.upsert(query,
+                    new Update().set("owner", owner).set("leaseUntil", now.plus(Duration.ofMillis(leaseMillis))),
+                    COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Starts payment for a newly placed order and commits the stock hold for settled and COD orders
+@Service
+@RequiredArgsConstructor
+public class OrderPaymentInitHandler implements DomainEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final PaymentService paymentService;
+    private final StockReservationService stockReservationService;
+
+    @Override
+    public String name() {
+        return "payment-init";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            return;
+        }
+
+        // A redelivery after the payment was created only has the conversion left to do
+        if (order.getPaymentId() == null) {
+            order = paymentService.processPayment(order, order.getPaymentMethod());
+            if (order == null) {
+                // Cancelled before payment started; the cancellation already released the hold
+                return;
+            }
+        }
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            return;
+        }
+
+        // Cash on delivery and instantly settled methods commit the sale now; gateway payments keep
+        // the hold until completePayment converts it or the sweeper releases it
+        if (order.getPaymentStatus() == Order.PaymentStatus.COMPLETED
+                || "COD".equalsIgnoreCase(order.getPaymentMethod())) {
+            stockReservationService.convertToSale(order.getId());
+        }
+    }
+}
@@ -5,22 +5,30 @@ import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Cart;
+import com.ecommerce.model.DomainEvent;
 import com.ecommerce.model.Order;
-import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockReservation;
 import com.ecommerce.model.User;
-import com.ecommerce.repository.CouponRepository;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,17 +39,30 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final CartService cartService;
     private final UserService userService;
-    private final PaymentService paymentService;
     private final InventoryService inventoryService;
-    private final CouponService couponService;
-    private final CouponRepository couponRepository;
-    private final MailService mailService;
+    private final StockReservationService stockReservationService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final DomainEventLog domainEventLog;
+    private final OrderStateMachine orderStateMachine;
+    private final MongoTemplate mongoTemplate;
 
     private static final BigDecimal TAX_RATE = new BigDecimal("0.18"); // 18% tax
     private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("500");
     private static final BigDecimal SHIPPING_COST = new BigDecimal("50");
 
-    @Transactional
+    public record Totals(BigDecimal shippingCost, BigDecimal tax, BigDecimal totalAmount) {
+    }
+
+    // Tax is charged on the discounted amount; shipping is free from FREE_SHIPPING_THRESHOLD
+    public static Totals calculateTotals(BigDecimal subtotal, BigDecimal discountAmount) {
+        BigDecimal taxableAmount = subtotal.subtract(discountAmount);
+        BigDecimal shippingCost = taxableAmount.compareTo(FREE_SHIPPING_THRESHOLD) >= 0
+                ? BigDecimal.ZERO
+                : SHIPPING_COST;
+        BigDecimal tax = taxableAmount.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        return new Totals(shippingCost, tax, taxableAmount.add(shippingCost).add(tax));
+    }
+
     public OrderResponse createOrder(OrderRequest request) {
         User user = userService.getCurrentUser();
         Cart cart = cartService.getCartEntity();
@@ -50,25 +71,16 @@ public class OrderService {
             throw new BadRequestException("Cart is empty");
         }
 
-        // Validate stock and create order items
+        // Create order items; stock is validated atomically when it is reserved below
         List<Order.OrderItem> orderItems = cart.getItems().stream()
-                .map(cartItem -> {
-                    Product product = productRepository.findById(cartItem.getProductId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Product", "id", cartItem.getProductId()));
-
-                    if (product.getStockQuantity() < cartItem.getQuantity()) {
-                        throw new BadRequestException("Insufficient stock for " + product.getName());
-                    }
-
-                    return Order.OrderItem.builder()
-                            .productId(cartItem.getProductId())
-                            .productName(cartItem.getProductName())
-                            .productImage(cartItem.getProductImage())
-                            .price(cartItem.getPrice())
-                            .quantity(cartItem.getQuantity())
-                            .subtotal(cartItem.getSubtotal())
-                            .build();
-                })
+                .map(cartItem -> Order.OrderItem.builder()
+                        .productId(cartItem.getProductId())
+                        .productName(cartItem.getProductName())
+                        .productImage(cartItem.getProductImage())
+                        .price(cartItem.getPrice())
+                        .quantity(cartItem.getQuantity())
+                        .subtotal(cartItem.getSubtotal())
+                        .build())
                 .collect(Collectors.toList());
 
         BigDecimal subtotal = cart.getItems().stream()
@@ -78,12 +90,7 @@ public class OrderService {
         BigDecimal discountAmount = cart.getDiscount() != null ? cart.getDiscount() : BigDecimal.ZERO;
         String couponCode = cart.getAppliedCoupon();
 
-        BigDecimal taxableAmount = subtotal.subtract(discountAmount);
-        BigDecimal shippingCost = taxableAmount.compareTo(FREE_SHIPPING_THRESHOLD) >= 0
-                ? BigDecimal.ZERO
-                : SHIPPING_COST;
-        BigDecimal tax = taxableAmount.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal totalAmount = taxableAmount.add(shippingCost).add(tax);
+        Totals totals = calculateTotals(subtotal, discountAmount);
 
         Order.ShippingAddress shippingAddress = Order.ShippingAddress.builder()
                 .fullName(request.getShippingAddress().getFullName())
@@ -95,12 +102,17 @@ public class OrderService {
                 .country(request.getShippingAddress().getCountry())
                 .build();
 
-        // Generate order number
-        String orderNumber = "ORD" + System.currentTimeMillis();
+        String orderNumber = orderNumberGenerator.nextOrderNumber();
         String userName = (user.getFirstName() != null ? user.getFirstName() : "") +
                 (user.getLastName() != null ? " " + user.getLastName() : "");
 
+        // The id is assigned up front so stock can be reserved against it before anything is persisted
+        String orderId = new ObjectId().toHexString();
+        StockReservation reservation = stockReservationService.reserve(orderId, user.getId(), orderItems,
+                shippingAddress.getState());
+
         Order order = Order.builder()
+                .id(orderId)
                 .orderNumber(orderNumber)
                 .userId(user.getId())
                 .userName(userName.trim().isEmpty() ? "Customer" : userName.trim())
@@ -108,63 +120,53 @@ public class OrderService {
                 .items(orderItems)
                 .shippingAddress(shippingAddress)
                 .subtotal(subtotal)
-                .shippingCost(shippingCost)
-                .tax(tax)
-                .totalAmount(totalAmount)
+                .shippingCost(totals.shippingCost())
+                .tax(totals.tax())
+                .totalAmount(totals.totalAmount())
                 .discountAmount(discountAmount)
                 .couponCode(couponCode)
                 .status(Order.OrderStatus.PENDING)
                 .paymentStatus(Order.PaymentStatus.PENDING)
                 .paymentMethod(request.getPaymentMethod())
                 .notes(request.getNotes())
+                .allocations(reservation.getAllocations())
                 .build();
 
-        order = orderRepository.save(order);
-
-        // Deduct stock using InventoryService
-        Order finalOrder = order;
-        finalOrder.getItems().forEach(item -> inventoryService.deductStockForOrder(item.getProductId(),
-                item.getQuantity(), finalOrder.getId()));
-
-        // Record coupon usage if applicable
-        if (couponCode != null) {
-            couponRepository.findByCode(couponCode).ifPresent(
-                    coupon -> couponService.recordCouponUsage(coupon.getId(), user.getId(), finalOrder.getId()));
+        // Logged before the order is saved so a saved order always has its event; handlers skip
+        // events whose order never made it
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", user.getId());
+        payload.put("couponCode", couponCode);
+        payload.put("paymentMethod", request.getPaymentMethod());
+        DomainEvent orderPlaced = domainEventLog.append(DomainEvent.ORDER_PLACED, orderId, payload);
+
+        try {
+            order = orderRepository.save(order);
+        } catch (RuntimeException e) {
+            stockReservationService.release(orderId, "Order could not be saved");
+            domainEventLog.discard(orderPlaced);
+            throw e;
         }
 
-        // Process payment (dummy implementation)
-        paymentService.processPayment(order, request.getPaymentMethod());
-
-        // Send order confirmation email
-        String addressString = order.getShippingAddress().getStreet() + ", " +
-                order.getShippingAddress().getCity() + ", " +
-                order.getShippingAddress().getState() + " - " +
-                order.getShippingAddress().getZipCode() + ", " +
-                order.getShippingAddress().getCountry();
-
-        mailService.sendOrderConfirmationEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
-                order.getCreatedAt().toString(), order.getTotalAmount().doubleValue(),
-                order.getPaymentMethod(), addressString);
-
-        // Send invoice email
-        mailService.sendInvoiceEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
-                "http://localhost:5173/orders/" + order.getId() + "/invoice");
-
-        // Clear cart after successful order
-        cartService.clearCart();
+        // Coupon usage, payment, emails, analytics and clearing the cart run off the request thread
+        domainEventLog.publish(orderPlaced);
 
         return OrderResponse.fromOrder(order);
     }
 
     public Page<OrderResponse> getUserOrders(Pageable pageable) {
         User user = userService.getCurrentUser();
-        return orderRepository.findByUserId(user.getId(), pageable)
+        return orderRepository.findHistoryByUserId(user.getId(), pageable)
                 .map(OrderResponse::fromOrder);
     }
 
     public OrderResponse getOrderById(String orderId) {
+        return OrderResponse.fromOrder(getAccessibleOrder(orderId));
+    }
+
+    public Order getAccessibleOrder(String orderId) {
         User user = userService.getCurrentUser();
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findAnyById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
         // Verify order belongs to user or user is admin
@@ -173,11 +175,11 @@ public class OrderService {
             throw new BadRequestException("Access denied");
         }
 
-        return OrderResponse.fromOrder(order);
+        return order;
     }
 
     public Order getOrderEntity(String orderId) {
-        return orderRepository.findById(orderId)
+        return orderRepository.findAnyById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
     }
 
@@ -190,19 +192,15 @@ public class OrderService {
             throw new BadRequestException("Access denied");
         }
 
-        if (order.getStatus() != Order.OrderStatus.PENDING &&
-                order.getStatus() != Order.OrderStatus.CONFIRMED) {
+        // Customers may only cancel before the order is being prepared
+        OrderStateMachine.Transition transition = order.getStatus() == Order.OrderStatus.PENDING
+                || order.getStatus() == Order.OrderStatus.CONFIRMED
+                ? orderStateMachine.find(order.getStatus(), order.getPaymentStatus(), Order.OrderStatus.CANCELLED)
+                : null;
+        if (transition == null) {
             throw new BadRequestException("Order cannot be cancelled at this stage");
         }
-
-        final Order finalOrderToCancel = order;
-        // Restore stock using InventoryService
-        finalOrderToCancel.getItems().forEach(item -> inventoryService.restoreStockForCancellation(item.getProductId(),
-                item.getQuantity(), finalOrderToCancel.getId()));
-
-        order.setStatus(Order.OrderStatus.CANCELLED);
-        order = orderRepository.save(order);
-        return OrderResponse.fromOrder(order);
+        return OrderResponse.fromOrder(transition(order, transition));
     }
 
     // Admin methods
@@ -211,7 +209,7 @@ public class OrderService {
     }
 
     public OrderResponse getOrderByIdAdmin(String orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findAnyById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         return OrderResponse.fromOrder(order);
     }
@@ -224,53 +222,74 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
-        Order.OrderStatus newStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-        order.setStatus(newStatus);
-
-        if (newStatus == Order.OrderStatus.SHIPPED) {
-            order.setShippedAt(LocalDateTime.now());
-        } else if (newStatus == Order.OrderStatus.DELIVERED) {
-            order.setDeliveredAt(LocalDateTime.now());
-        } else if (newStatus == Order.OrderStatus.RETURNED) {
-            final Order finalOrderToReturn = order;
-            // Restore stock on return using InventoryService
-            finalOrderToReturn.getItems().forEach(item -> inventoryService.restoreStockForReturn(item.getProductId(),
-                    item.getQuantity(), finalOrderToReturn.getId()));
-        } else if (newStatus == Order.OrderStatus.REFUNDED) {
-            order.setPaymentStatus(Order.PaymentStatus.REFUNDED);
+        Order.OrderStatus newStatus;
+        try {
+            newStatus = Order.OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown order status: " + status);
+        }
+        if (order.getStatus() == newStatus) {
+            throw new BadRequestException("Order is already " + newStatus);
         }
 
-        order = orderRepository.save(order);
-
-        // Trigger notifications based on status
-        if (newStatus == Order.OrderStatus.SHIPPED) {
-            mailService.sendOrderShippedEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
-                    order.getTrackingNumber() != null ? order.getTrackingNumber() : "TBA",
-                    "Sales Savvy Express", "3-5 business days");
-        } else if (newStatus == Order.OrderStatus.DELIVERED) {
-            mailService.sendOrderDeliveredEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber());
-        } else if (newStatus == Order.OrderStatus.RETURNED) {
-            mailService.sendReturnApprovedEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber());
-        } else if (newStatus == Order.OrderStatus.REFUNDED) {
-            mailService.sendRefundProcessedEmail(order.getUserEmail(), order.getUserName(),
-                    order.getTotalAmount().doubleValue(), order.getOrderNumber());
+        OrderStateMachine.Transition transition =
+                orderStateMachine.find(order.getStatus(), order.getPaymentStatus(), newStatus);
+        if (transition == null) {
+            throw new BadRequestException("Cannot move order from " + order.getStatus() + " with payment "
+                    + order.getPaymentStatus() + " to " + newStatus);
         }
+        return OrderResponse.fromOrder(transition(order, transition));
+    }
 
-        return OrderResponse.fromOrder(order);
+    /**
+     * Applies a transition the state machine allowed for the order as it was read, then runs its
+     * side effects. Only the request whose conditional update wins gets here, so stock is given
+     * back at most once even when two admins change the same order at the same time.
+     */
+    private Order transition(Order order, OrderStateMachine.Transition transition) {
+        Order updated = orderStateMachine.apply(order.getId(), transition);
+        if (updated == null) {
+            throw new BadRequestException("Order was changed by someone else, please reload and try again");
+        }
+
+        if (transition.has(OrderStateMachine.Effect.RELEASE_STOCK)) {
+            if (!stockReservationService.release(updated.getId(), "Order cancelled")
+                    && !stockReservationService.reverseSale(updated.getId(),
+                            StockHistory.StockChangeType.ORDER_CANCELLATION, "Order cancelled")) {
+                // Orders placed before reservations existed
+                updated.getItems().forEach(item -> inventoryService.restoreStockForCancellation(
+                        item.getProductId(), item.getQuantity(), updated.getId()));
+            }
+        }
+        if (transition.has(OrderStateMachine.Effect.RETURN_STOCK)) {
+            if (!stockReservationService.reverseSale(updated.getId(), StockHistory.StockChangeType.ORDER_RETURN,
+                    "Order returned")) {
+                updated.getItems().forEach(item -> inventoryService.restoreStockForReturn(
+                        item.getProductId(), item.getQuantity(), updated.getId()));
+            }
+        }
+        if (transition.has(OrderStateMachine.Effect.NOTIFY_CUSTOMER)) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("from", transition.from().name());
+            payload.put("to", transition.to().name());
+            domainEventLog.publish(domainEventLog.append(DomainEvent.ORDER_STATUS_CHANGED, updated.getId(), payload));
+        }
+        return updated;
     }
 
     public OrderResponse updateTrackingNumber(String orderId, String trackingNumber) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
-
-        order.setTrackingNumber(trackingNumber);
-        order = orderRepository.save(order);
+        // Only these two fields: saving the whole document could undo a status change made meanwhile
+        Order order = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId)),
+                new Update().set("trackingNumber", trackingNumber).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (order == null) {
+            throw new ResourceNotFoundException("Order", "id", orderId);
+        }
         return OrderResponse.fromOrder(order);
     }
 
-    public List<OrderResponse> getOrdersByUserId(String userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(OrderResponse::fromOrder)
-                .collect(Collectors.toList());
+    public Page<OrderResponse> getOrdersByUserId(String userId, Pageable pageable) {
+        return orderRepository.findHistoryByUserId(userId, pageable).map(OrderResponse::fromOrder);
     }
 }
@@ -0,0 +1,151 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Order.OrderStatus;
+import com.ecommerce.model.Order.PaymentStatus;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The allowed order status changes, keyed by current order status, current payment status and
+ * target status. Each entry says what the payment status becomes and which side effects follow.
+ * Changes are applied with a conditional update on the expected status pair, so of two concurrent
+ * edits only one wins and only the winner runs the side effects.
+ */
+@Service
+public class OrderStateMachine {
+
+    public enum Effect {
+        STAMP_SHIPPED,
+        STAMP_DELIVERED,
+        // Give back held or sold stock of a cancelled order
+        RELEASE_STOCK,
+        // Give back sold stock of a returned order
+        RETURN_STOCK,
+        NOTIFY_CUSTOMER
+    }
+
+    public record Transition(OrderStatus from, PaymentStatus payment, OrderStatus to, PaymentStatus paymentAfter,
+            Set<Effect> effects) {
+
+        public boolean has(Effect effect) {
+            return effects.contains(effect);
+        }
+    }
+
+    // Payment states in which the order is still being fulfilled
+    private static final Set<PaymentStatus> OPEN = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED);
+    private static final Set<PaymentStatus> UNREFUNDED =
+            EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED, PaymentStatus.FAILED);
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<OrderStatus, Map<PaymentStatus, Map<OrderStatus, Transition>>> table =
+            new EnumMap<>(OrderStatus.class);
+
+    public OrderStateMachine(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+
+        allow(OrderStatus.PENDING, OrderStatus.CONFIRMED, OPEN);
+        allow(OrderStatus.PENDING, OrderStatus.PROCESSING, OPEN);
+        allow(OrderStatus.PENDING, OrderStatus.CANCELLED, UNREFUNDED, Effect.RELEASE_STOCK);
+
+        allow(OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OPEN);
+        allow(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OPEN, Effect.STAMP_SHIPPED, Effect.NOTIFY_CUSTOMER);
+        allow(OrderStatus.CONFIRMED, OrderStatus.CANCELLED, UNREFUNDED, Effect.RELEASE_STOCK);
+
+        allow(OrderStatus.PROCESSING, OrderStatus.SHIPPED, OPEN, Effect.STAMP_SHIPPED, Effect.NOTIFY_CUSTOMER);
+        allow(OrderStatus.PROCESSING, OrderStatus.CANCELLED, UNREFUNDED, Effect.RELEASE_STOCK);
+
+        allow(OrderStatus.SHIPPED, OrderStatus.DELIVERED, Set.of(PaymentStatus.COMPLETED),
+                Effect.STAMP_DELIVERED, Effect.NOTIFY_CUSTOMER);
+        // Cash on delivery is collected when the parcel is handed over
+        allow(OrderStatus.SHIPPED, PaymentStatus.PENDING, OrderStatus.DELIVERED, PaymentStatus.COMPLETED,
+                Effect.STAMP_DELIVERED, Effect.NOTIFY_CUSTOMER);
+
+        allow(OrderStatus.DELIVERED, OrderStatus.RETURN_REQUESTED, OPEN);
+        allow(OrderStatus.DELIVERED, OrderStatus.RETURNED, OPEN, Effect.RETURN_STOCK, Effect.NOTIFY_CUSTOMER);
+
+        allow(OrderStatus.RETURN_REQUESTED, OrderStatus.RETURNED, OPEN, Effect.RETURN_STOCK, Effect.NOTIFY_CUSTOMER);
+        // Return rejected
+        allow(OrderStatus.RETURN_REQUESTED, OrderStatus.DELIVERED, OPEN);
+
+        allow(OrderStatus.RETURNED, PaymentStatus.COMPLETED, OrderStatus.REFUNDED, PaymentStatus.REFUNDED,
+                Effect.NOTIFY_CUSTOMER);
+        allow(OrderStatus.CANCELLED, PaymentStatus.COMPLETED, OrderStatus.REFUNDED, PaymentStatus.REFUNDED,
+                Effect.NOTIFY_CUSTOMER);
+    }
+
+    // Null when the change is not allowed from this status pair
+    public Transition find(OrderStatus from, PaymentStatus payment, OrderStatus to) {
+        Map<PaymentStatus, Map<OrderStatus, Transition>> byPayment = table.get(from);
+        if (byPayment == null) {
+            return null;
+        }
+        Map<OrderStatus, Transition> byTarget = byPayment.get(payment);
+        return byTarget != null ? byTarget.get(to) : null;
+    }
+
+    public Set<OrderStatus> targetsOf(OrderStatus from, PaymentStatus payment) {
+        Map<PaymentStatus, Map<OrderStatus, Transition>> byPayment = table.get(from);
+        if (byPayment == null || !byPayment.containsKey(payment)) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(byPayment.get(payment).keySet());
+    }
+
+    // Matches orders still in the transition's source state
+    public Criteria expected(Transition transition) {
+        return Criteria.where("status").is(transition.from()).and("paymentStatus").is(transition.payment());
+    }
+
+    public Update updateFor(Transition transition, LocalDateTime now) {
+        Update update = new Update().set("status", transition.to()).set("updatedAt", now);
+        if (transition.paymentAfter() != transition.payment()) {
+            update.set("paymentStatus", transition.paymentAfter());
+        }
+        if (transition.has(Effect.STAMP_SHIPPED)) {
+            update.set("shippedAt", now);
+        }
+        if (transition.has(Effect.STAMP_DELIVERED)) {
+            update.set("deliveredAt", now);
+        }
+        return update;
+    }
+
+    /**
+     * Applies the transition if the order is still in its source state and returns the updated
+     * order, or null if it has moved on in the meantime.
+     */
+    public Order apply(String orderId, Transition transition) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).andOperator(expected(transition))),
+                updateFor(transition, LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    private void allow(OrderStatus from, OrderStatus to, Set<PaymentStatus> payments, Effect... effects) {
+        for (PaymentStatus payment : payments) {
+            allow(from, payment, to, payment, effects);
+        }
+    }
+
+    private void allow(OrderStatus from, PaymentStatus payment, OrderStatus to, PaymentStatus paymentAfter,
+            Effect... effects) {
+        Set<Effect> effectSet = EnumSet.noneOf(Effect.class);
+        Collections.addAll(effectSet, effects);
+        table.computeIfAbsent(from, status -> new EnumMap<>(PaymentStatus.class))
+                .computeIfAbsent(payment, status -> new EnumMap<>(OrderStatus.class))
+                .put(to, new Transition(from, payment, to, paymentAfter, Collections.unmodifiableSet(effectSet)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Sends the customer email for an order status change
+@Service
+@RequiredArgsConstructor
+public class OrderStatusEmailHandler implements DomainEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final MailService mailService;
+
+    @Override
+    public String name() {
+        return "status-emails";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_STATUS_CHANGED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            return;
+        }
+
+        Order.OrderStatus status = Order.OrderStatus.valueOf((String) event.getPayload().get("to"));
+        if (status == Order.OrderStatus.SHIPPED) {
+            mailService.sendOrderShippedEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber(),
+                    order.getTrackingNumber() != null ? order.getTrackingNumber() : "TBA",
+                    "Sales Savvy Express", "3-5 business days");
+        } else if (status == Order.OrderStatus.DELIVERED) {
+            mailService.sendOrderDeliveredEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber());
+        } else if (status == Order.OrderStatus.RETURNED) {
+            mailService.sendReturnApprovedEmail(order.getUserEmail(), order.getUserName(), order.getOrderNumber());
+        } else if (status == Order.OrderStatus.REFUNDED) {
+            mailService.sendRefundProcessedEmail(order.getUserEmail(), order.getUserName(),
+                    order.getTotalAmount().doubleValue(), order.getOrderNumber());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.service;
+
+/**
+ * Read access to the payment gateway's view of a checkout, used to reconcile local payment
+ * records. Implementations may be called from several threads at once.
+ */
+public interface PaymentGateway {
+
+    enum State {
+        // Checkout opened, no payment attempt yet
+        CREATED,
+        AUTHORIZED,
+        CAPTURED,
+        FAILED,
+        REFUNDED
+    }
+
+    /**
+     * The most advanced payment the gateway holds for a checkout. amountPaise is null when the
+     * gateway has no attempt to report one from.
+     */
+    record GatewayPayment(String gatewayOrderId, State state, String paymentId, Long amountPaise, String method) {
+    }
+
+    String name();
+
+    // Null when the gateway does not know the checkout
+    GatewayPayment fetch(String gatewayOrderId) throws Exception;
+}
@@ -0,0 +1,325 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.PaymentReconciliation;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Resolves gateway payments stuck in INITIATED or PROCESSING, for example when the browser never
+ * returned from checkout and no webhook arrived. Open payments are read through a cursor in batches;
+ * each batch is looked up at the gateway in parallel under a shared rate limit, and the corrections
+ * are written with one unordered bulk write. Every write is conditional on the status that was read,
+ * so a payment the webhook or the browser callback settled in the meantime is left alone. Anything
+ * that cannot be corrected automatically is listed in the run's report.
+ */
+@Service
+public class PaymentReconciler {
+
+    enum Verdict {
+        UNCHANGED,
+        CAPTURE,
+        AUTHORIZE,
+        FAIL,
+        // The checkout was opened but never attempted
+        ABANDON,
+        MISSING_AT_GATEWAY,
+        AMOUNT_MISMATCH,
+        // Refunded at the gateway before it was ever recorded as paid here
+        REFUNDED_AT_GATEWAY,
+        GATEWAY_ERROR;
+
+        boolean isCorrection() {
+            return this == CAPTURE || this == AUTHORIZE || this == FAIL || this == ABANDON;
+        }
+    }
+
+    private static final Set<Payment.PaymentStatus> OPEN =
+            EnumSet.of(Payment.PaymentStatus.INITIATED, Payment.PaymentStatus.PROCESSING);
+    private static final BigDecimal PAISE = new BigDecimal("100");
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentGateway gateway;
+    private final PaymentService paymentService;
+    private final int batchSize;
+    private final long minAgeMinutes;
+    private final long abandonAfterHours;
+    private final int reportLimit;
+    private final RateLimiter rateLimiter;
+    private final ExecutorService workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PaymentReconciler(MongoTemplate mongoTemplate,
+            PaymentGateway gateway,
+            PaymentService paymentService,
+            @Value("${app.payments.reconciliation.batch-size:100}") int batchSize,
+            @Value("${app.payments.reconciliation.parallelism:8}") int parallelism,
+            @Value("${app.payments.reconciliation.rate-per-second:20}") double ratePerSecond,
+            @Value("${app.payments.reconciliation.min-age-minutes:15}") long minAgeMinutes,
+            @Value("${app.payments.reconciliation.abandon-after-hours:24}") long abandonAfterHours,
+            @Value("${app.payments.reconciliation.report-limit:200}") int reportLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.gateway = gateway;
+        this.paymentService = paymentService;
+        this.batchSize = batchSize;
+        this.minAgeMinutes = minAgeMinutes;
+        this.abandonAfterHours = abandonAfterHours;
+        this.reportLimit = reportLimit;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "payment-reconcile-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Scheduled(cron = "${app.payments.reconciliation.cron:0 */30 * * * *}")
+    public void scheduledRun() {
+        reconcile();
+    }
+
+    // Runs one pass and stores its report; null if a pass is already running on this instance
+    public PaymentReconciliation reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<PaymentReconciliation> getRecentReports(int limit) {
+        return mongoTemplate.find(new Query().with(Sort.by(Sort.Direction.DESC, "startedAt")).limit(limit),
+                PaymentReconciliation.class);
+    }
+
+    ExecutorService workers() {
+        return workers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    static Verdict classify(Payment local, PaymentGateway.GatewayPayment remote, LocalDateTime abandonBefore) {
+        if (remote == null) {
+            return Verdict.MISSING_AT_GATEWAY;
+        }
+        if (remote.amountPaise() != null
+                && remote.amountPaise() != local.getAmount().multiply(PAISE).longValue()) {
+            return Verdict.AMOUNT_MISMATCH;
+        }
+        return switch (remote.state()) {
+            case CAPTURED -> Verdict.CAPTURE;
+            case REFUNDED -> Verdict.REFUNDED_AT_GATEWAY;
+            case AUTHORIZED -> local.getStatus() == Payment.PaymentStatus.INITIATED ? Verdict.AUTHORIZE : Verdict.UNCHANGED;
+            case FAILED -> Verdict.FAIL;
+            case CREATED -> local.getCreatedAt() != null && local.getCreatedAt().isBefore(abandonBefore)
+                    ? Verdict.ABANDON : Verdict.UNCHANGED;
+        };
+    }
+
+    private PaymentReconciliation run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        PaymentReconciliation report = PaymentReconciliation.builder()
+                .id(new ObjectId().toHexString())
+                .gateway(gateway.name())
+                .startedAt(startedAt)
+                .build();
+        for (Verdict verdict : Verdict.values()) {
+            if (verdict.isCorrection()) {
+                report.getCorrections().put(verdict.name(), 0L);
+            }
+        }
+
+        // Younger payments are most likely still in the customer's checkout
+        Query query = Query.query(Criteria.where("status").in(OPEN)
+                        .and("createdAt").lt(startedAt.minusMinutes(minAgeMinutes))
+                        .and("razorpayOrderId").ne(null))
+                .cursorBatchSize(batchSize);
+        query.fields().include("orderId", "amount", "status", "razorpayOrderId", "createdAt");
+
+        List<Payment> batch = new ArrayList<>(batchSize);
+        try (Stream<Payment> payments = mongoTemplate.stream(query, Payment.class)) {
+            Iterator<Payment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    reconcileBatch(batch, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            reconcileBatch(batch, report);
+        }
+
+        report.setFinishedAt(LocalDateTime.now());
+        return mongoTemplate.insert(report);
+    }
+
+    private void reconcileBatch(List<Payment> batch, PaymentReconciliation report) {
+        List<Future<PaymentGateway.GatewayPayment>> lookups = new ArrayList<>(batch.size());
+        for (Payment payment : batch) {
+            lookups.add(workers.submit(() -> {
+                rateLimiter.acquire();
+                return gateway.fetch(payment.getRazorpayOrderId());
+            }));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime abandonBefore = now.minusHours(abandonAfterHours);
+        Map<String, Verdict> corrected = new HashMap<>();
+        BulkOperations bulk = null;
+        for (int i = 0; i < batch.size(); i++) {
+            Payment payment = batch.get(i);
+            report.setScanned(report.getScanned() + 1);
+            PaymentGateway.GatewayPayment remote;
+            try {
+                remote = lookups.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lookups.forEach(lookup -> lookup.cancel(true));
+                throw new IllegalStateException("Reconciliation interrupted", e);
+            } catch (ExecutionException e) {
+                // Left open; the next run asks again
+                report.setGatewayErrors(report.getGatewayErrors() + 1);
+                addDiscrepancy(report, payment, Verdict.GATEWAY_ERROR, String.valueOf(e.getCause().getMessage()));
+                continue;
+            }
+
+            Verdict verdict = classify(payment, remote, abandonBefore);
+            if (verdict == Verdict.UNCHANGED) {
+                report.setUnchanged(report.getUnchanged() + 1);
+            } else if (!verdict.isCorrection()) {
+                addDiscrepancy(report, payment, verdict, remote == null ? "Unknown to " + gateway.name()
+                        : remote.state() + ", " + remote.amountPaise() + " paise, payment " + remote.paymentId());
+            } else {
+                report.getCorrections().merge(verdict.name(), 1L, Long::sum);
+                corrected.put(payment.getId(), verdict);
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(payment.getId()).and("status").is(payment.getStatus())),
+                        correction(verdict, remote, report.getId(), now));
+            }
+        }
+        if (bulk == null) {
+            return;
+        }
+        bulk.execute();
+
+        // Only corrections whose payment was still in the status read were written; those carry the run id
+        Query written = Query.query(Criteria.where("_id").in(corrected.keySet())
+                .and("lastReconciliationRun").is(report.getId()));
+        written.fields().include("orderId");
+        List<String> unpaidOrders = new ArrayList<>();
+        for (Payment payment : mongoTemplate.find(written, Payment.class)) {
+            report.setApplied(report.getApplied() + 1);
+            Verdict verdict = corrected.get(payment.getId());
+            if (verdict == Verdict.CAPTURE) {
+                paymentService.settleOrder(payment.getOrderId());
+            } else if (verdict == Verdict.FAIL) {
+                unpaidOrders.add(payment.getOrderId());
+            }
+        }
+        if (!unpaidOrders.isEmpty()) {
+            paymentService.markOrdersUnpaid(unpaidOrders);
+        }
+    }
+
+    private static Update correction(Verdict verdict, PaymentGateway.GatewayPayment remote, String runId,
+            LocalDateTime now) {
+        Update update = new Update().set("lastReconciliationRun", runId);
+        switch (verdict) {
+            case CAPTURE -> {
+                update.set("status", Payment.PaymentStatus.SUCCESS)
+                        .set("transactionId", remote.paymentId())
+                        .set("completedAt", now);
+                if (remote.method() != null) {
+                    update.set("method", Payment.PaymentMethod.valueOf(PaymentWebhookService.methodOf(remote.method())));
+                }
+            }
+            case AUTHORIZE -> update.set("status", Payment.PaymentStatus.PROCESSING);
+            case FAIL -> update.set("status", Payment.PaymentStatus.FAILED)
+                    .set("gatewayResponse", "Failed at gateway (reconciliation)");
+            default -> update.set("status", Payment.PaymentStatus.CANCELLED)
+                    .set("gatewayResponse", "No payment attempt at gateway (reconciliation)");
+        }
+        return update;
+    }
+
+    private void addDiscrepancy(PaymentReconciliation report, Payment payment, Verdict kind, String detail) {
+        report.setDiscrepancyCount(report.getDiscrepancyCount() + 1);
+        if (report.getDiscrepancies().size() < reportLimit) {
+            report.getDiscrepancies().add(PaymentReconciliation.Discrepancy.builder()
+                    .paymentId(payment.getId())
+                    .orderId(payment.getOrderId())
+                    .gatewayOrderId(payment.getRazorpayOrderId())
+                    .kind(kind.name())
+                    .detail(detail)
+                    .build());
+        }
+    }
+
+    // Spaces gateway calls evenly at the configured rate across all worker threads
+    private static final class RateLimiter {
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        private RateLimiter(double perSecond) {
+            this.intervalNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+        }
+
+        private void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (next - now < 0) {
+                    next = now;
+                }
+                wait = next - now;
+                next += intervalNanos;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
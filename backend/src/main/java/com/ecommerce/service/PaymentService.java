@@ -1,8 +1,9 @@
 package com.ecommerce.service;
 
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.Payment;
-import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.PaymentRepository;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
@@ -10,40 +11,62 @@ import com.razorpay.Utils;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class PaymentService {
 
+    // Payment states a gateway capture or failure may still move out of
+    public static final Set<Payment.PaymentStatus> CAPTURABLE = EnumSet.of(
+            Payment.PaymentStatus.INITIATED, Payment.PaymentStatus.PROCESSING, Payment.PaymentStatus.FAILED);
+    public static final Set<Payment.PaymentStatus> FAILABLE = EnumSet.of(
+            Payment.PaymentStatus.INITIATED, Payment.PaymentStatus.PROCESSING);
+    private static final Set<Order.PaymentStatus> UNPAID = EnumSet.of(
+            Order.PaymentStatus.PENDING, Order.PaymentStatus.FAILED);
+
     private final PaymentRepository paymentRepository;
-    private final OrderRepository orderRepository;
+    private final MongoTemplate mongoTemplate;
     private final RazorpayClient razorpayClient;
     private final MailService mailService;
+    private final StockReservationService stockReservationService;
 
     @Value("${razorpay.key.secret:}")
     private String razorpayKeySecret;
 
     @Autowired
     public PaymentService(PaymentRepository paymentRepository,
-            OrderRepository orderRepository,
+            MongoTemplate mongoTemplate,
             @Autowired(required = false) @Nullable RazorpayClient razorpayClient,
-            MailService mailService) {
+            MailService mailService,
+            StockReservationService stockReservationService) {
         this.paymentRepository = paymentRepository;
-        this.orderRepository = orderRepository;
+        this.mongoTemplate = mongoTemplate;
         this.razorpayClient = razorpayClient;
         this.mailService = mailService;
+        this.stockReservationService = stockReservationService;
     }
 
     /**
      * Dummy payment processing - simulates successful payment
      * In production, integrate with real payment gateway (Stripe, Razorpay, etc.)
+     * Returns the updated order, or null if the order left its unpaid PENDING state in the meantime
+     * (e.g. it was cancelled); the payment is then recorded as cancelled.
      */
-    public Payment processPayment(Order order, String paymentMethod) {
+    public Order processPayment(Order order, String paymentMethod) {
         Payment.PaymentMethod method = parsePaymentMethod(paymentMethod);
 
         Payment payment = Payment.builder()
@@ -57,11 +80,11 @@ public class PaymentService {
 
         payment = paymentRepository.save(payment);
 
+        Update orderUpdate = new Update().set("paymentId", payment.getId()).set("updatedAt", LocalDateTime.now());
         // Simulate payment processing
         if (method == Payment.PaymentMethod.COD) {
             // COD doesn't require immediate payment
             payment.setStatus(Payment.PaymentStatus.SUCCESS);
-            order.setPaymentStatus(Order.PaymentStatus.PENDING);
         } else {
             // Simulate successful payment for other methods
             payment.setStatus(Payment.PaymentStatus.SUCCESS);
@@ -73,24 +96,37 @@ public class PaymentService {
                 payment.setCardBrand("VISA");
             }
 
-            order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
-            order.setStatus(Order.OrderStatus.CONFIRMED);
+            orderUpdate.set("paymentStatus", Order.PaymentStatus.COMPLETED)
+                    .set("status", Order.OrderStatus.CONFIRMED);
         }
 
-        order.setPaymentId(payment.getId());
-        orderRepository.save(order);
+        // Conditional on the placed state, like OrderStateMachine.apply, so a cancellation that
+        // landed first is not overwritten
+        Order updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(order.getId())
+                        .and("status").is(Order.OrderStatus.PENDING)
+                        .and("paymentStatus").is(Order.PaymentStatus.PENDING)
+                        .and("paymentId").is(null)),
+                orderUpdate, FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (updated == null) {
+            payment.setStatus(Payment.PaymentStatus.CANCELLED);
+            paymentRepository.save(payment);
+            return null;
+        }
 
         payment = paymentRepository.save(payment);
 
         // Send payment success email for online payments
         if (payment.getStatus() == Payment.PaymentStatus.SUCCESS && method != Payment.PaymentMethod.COD) {
-            mailService.sendPaymentSuccessEmail(order.getUserEmail(), order.getUserName(),
-                    order.getTotalAmount().doubleValue(), order.getOrderNumber());
+            mailService.sendPaymentSuccessEmail(updated.getUserEmail(), updated.getUserName(),
+                    updated.getTotalAmount().doubleValue(), updated.getOrderNumber());
         }
 
-        return payment;
+        return updated;
     }
 
+    // Links the gateway order only while the order is still placed and unpaid, as processPayment does;
+    // otherwise the payment is recorded as cancelled and the request rejected
     public Payment createRazorpayOrder(Order order) throws RazorpayException {
         if (razorpayClient == null) {
             throw new RuntimeException(
@@ -118,8 +154,20 @@ public class PaymentService {
 
         payment = paymentRepository.save(payment);
 
+        // A whole-order save here would bring back an order that was cancelled (and its stock released) meanwhile
+        Order linked = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(order.getId())
+                        .and("status").is(Order.OrderStatus.PENDING)
+                        .and("paymentStatus").in(UNPAID)
+                        .and("paymentId").is(null)),
+                new Update().set("paymentId", payment.getId()).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (linked == null) {
+            payment.setStatus(Payment.PaymentStatus.CANCELLED);
+            paymentRepository.save(payment);
+            throw new BadRequestException("Order is no longer awaiting payment");
+        }
         order.setPaymentId(payment.getId());
-        orderRepository.save(order);
 
         return payment;
     }
@@ -137,26 +185,106 @@ public class PaymentService {
         }
     }
 
-    public void completePayment(String paymentId, String transactionId, String method) {
-        Payment payment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
+    /**
+     * Records a captured payment and confirms its order. The payment must still be capturable and,
+     * when razorpayOrderId is given, belong to that gateway order. Returns false if the payment was
+     * already captured or moved on, so the browser callback and the gateway webhook can both report
+     * the same capture and only one of them settles the order.
+     */
+    public boolean completePayment(String paymentId, @Nullable String razorpayOrderId, String transactionId,
+            String method) {
+        Criteria criteria = Criteria.where("_id").is(paymentId).and("status").in(CAPTURABLE);
+        if (razorpayOrderId != null) {
+            criteria.and("razorpayOrderId").is(razorpayOrderId);
+        }
+        Payment payment = mongoTemplate.findAndModify(Query.query(criteria),
+                new Update().set("transactionId", transactionId)
+                        .set("status", Payment.PaymentStatus.SUCCESS)
+                        .set("method", parsePaymentMethod(method))
+                        .set("completedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Payment.class);
+        if (payment == null) {
+            if (!paymentRepository.existsById(paymentId)) {
+                throw new ResourceNotFoundException("Payment", "id", paymentId);
+            }
+            return false;
+        }
+        settleOrder(payment.getOrderId());
+        return true;
+    }
 
-        payment.setTransactionId(transactionId);
-        payment.setStatus(Payment.PaymentStatus.SUCCESS);
-        payment.setMethod(parsePaymentMethod(method));
-        payment.setCompletedAt(LocalDateTime.now());
-        paymentRepository.save(payment);
+    /**
+     * Brings the order in line with a captured payment. Called once by whoever captured it.
+     */
+    public void settleOrder(String orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        // Unpaid orders are confirmed, including ones the sweeper cancelled while the payment was in flight
+        Order order = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).orOperator(
+                        Criteria.where("status").is(Order.OrderStatus.PENDING).and("paymentStatus").in(UNPAID),
+                        Criteria.where("status").is(Order.OrderStatus.CANCELLED)
+                                .and("paymentStatus").is(Order.PaymentStatus.FAILED))),
+                new Update().set("status", Order.OrderStatus.CONFIRMED)
+                        .set("paymentStatus", Order.PaymentStatus.COMPLETED)
+                        .set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (order != null) {
+            stockReservationService.convertToSale(order.getId());
+        } else {
+            // Cancelled by the customer or already being fulfilled: record the money, which makes a
+            // cancelled order refundable
+            order = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(orderId).and("paymentStatus").in(UNPAID)),
+                    new Update().set("paymentStatus", Order.PaymentStatus.COMPLETED).set("updatedAt", now),
+                    FindAndModifyOptions.options().returnNew(true), Order.class);
+        }
+
+        if (order != null) {
+            mailService.sendPaymentSuccessEmail(order.getUserEmail(), order.getUserName(),
+                    order.getTotalAmount().doubleValue(), order.getOrderNumber());
+        }
+    }
 
-        Order order = orderRepository.findById(payment.getOrderId())
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+    // The gateway authorised the payment but has not captured it yet
+    public boolean markAuthorized(String paymentId) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(paymentId).and("status").is(Payment.PaymentStatus.INITIATED)),
+                new Update().set("status", Payment.PaymentStatus.PROCESSING),
+                Payment.class).getModifiedCount() > 0;
+    }
 
-        order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
-        order.setStatus(Order.OrderStatus.CONFIRMED);
-        orderRepository.save(order);
+    /**
+     * Records a failed attempt. The order stays open so the customer can retry; its hold is
+     * released by the sweeper if no payment succeeds in time.
+     */
+    public boolean markFailed(String paymentId, String reason) {
+        Payment payment = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(paymentId).and("status").in(FAILABLE)),
+                new Update().set("status", Payment.PaymentStatus.FAILED).set("gatewayResponse", reason),
+                FindAndModifyOptions.options().returnNew(true), Payment.class);
+        if (payment == null) {
+            return false;
+        }
+        markOrdersUnpaid(List.of(payment.getOrderId()));
+        return true;
+    }
+
+    // Flags open orders whose payment attempt failed; the customer can still pay them
+    public void markOrdersUnpaid(Collection<String> orderIds) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(orderIds)
+                        .and("status").is(Order.OrderStatus.PENDING)
+                        .and("paymentStatus").is(Order.PaymentStatus.PENDING)),
+                new Update().set("paymentStatus", Order.PaymentStatus.FAILED).set("updatedAt", LocalDateTime.now()),
+                Order.class);
+    }
 
-        // Send payment success email
-        mailService.sendPaymentSuccessEmail(order.getUserEmail(), order.getUserName(),
-                order.getTotalAmount().doubleValue(), order.getOrderNumber());
+    // Only the payment is updated; the order side of a refund goes through the admin status flow
+    public boolean markRefunded(String paymentId, String refundId) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(paymentId).and("status").is(Payment.PaymentStatus.SUCCESS)),
+                new Update().set("status", Payment.PaymentStatus.REFUNDED).set("gatewayResponse", "refund " + refundId),
+                Payment.class).getModifiedCount() > 0;
     }
 
     private Payment.PaymentMethod parsePaymentMethod(String method) {
@@ -0,0 +1,333 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.PaymentWebhookEvent;
+import com.ecommerce.repository.PaymentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests Razorpay webhooks. An event is stored raw in payment_webhook_events under the gateway's
+ * event id and acknowledged straight away; a second delivery of the same id fails the insert and is
+ * acknowledged without being queued again. Stored events are processed on a worker pool with leases
+ * and backoff, in the same way as the domain event log. Processing reconciles the event with the
+ * matching record in payments and moves it forward only: each event type applies from a fixed set
+ * of payment states, so duplicates and stale events become no-ops, and a refund that overtakes its
+ * capture waits for it.
+ */
+@Service
+public class PaymentWebhookService {
+
+    public static final String GATEWAY = "razorpay";
+
+    static final String PAYMENT_AUTHORIZED = "payment.authorized";
+    static final String PAYMENT_CAPTURED = "payment.captured";
+    static final String PAYMENT_FAILED = "payment.failed";
+    static final String REFUND_PROCESSED = "refund.processed";
+
+    private static final Set<String> HANDLED =
+            Set.of(PAYMENT_AUTHORIZED, PAYMENT_CAPTURED, PAYMENT_FAILED, REFUND_PROCESSED);
+
+    enum Action {
+        APPLY, SKIP, DEFER
+    }
+
+    private static final int POLL_BATCH = 200;
+    private static final BigDecimal PAISE = new BigDecimal("100");
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final String webhookSecret;
+    private final int maxAttempts;
+    private final long leaseMillis;
+    private final long pollGraceMillis;
+    private final ExecutorService workers;
+
+    public PaymentWebhookService(MongoTemplate mongoTemplate,
+            PaymentRepository paymentRepository,
+            PaymentService paymentService,
+            ObjectMapper objectMapper,
+            @Value("${razorpay.webhook.secret:}") String webhookSecret,
+            @Value("${app.payments.webhooks.workers:2}") int workerCount,
+            @Value("${app.payments.webhooks.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.payments.webhooks.max-attempts:10}") int maxAttempts,
+            @Value("${app.payments.webhooks.lease-ms:30000}") long leaseMillis,
+            @Value("${app.payments.webhooks.poll-grace-ms:5000}") long pollGraceMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.webhookSecret = webhookSecret;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = leaseMillis;
+        this.pollGraceMillis = pollGraceMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue drops the dispatch, not the event: it is stored and the poller picks it up
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "payment-webhooks-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Verifies the signature and stores the event. Returns false for an event id already received.
+     * Events without an id are keyed by a hash of the body, which a gateway retry repeats exactly.
+     */
+    public boolean ingest(String eventId, String signature, String body) {
+        if (!signatureValid(body, signature)) {
+            throw new BadRequestException("Invalid webhook signature");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        PaymentWebhookEvent event = PaymentWebhookEvent.builder()
+                .id(eventId != null && !eventId.isBlank() ? eventId : "sha256:" + sha256(body))
+                .gateway(GATEWAY)
+                .payload(body)
+                .receivedAt(now)
+                .status(PaymentWebhookEvent.Status.PENDING)
+                .nextAttemptAt(now)
+                .build();
+        try {
+            mongoTemplate.insert(event);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        dispatch(event.getId());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.webhooks.poll-interval-ms:5000}")
+    public void redeliverPending() {
+        LocalDateTime now = LocalDateTime.now();
+        // Fresh events are left to the ingest fast path
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(PaymentWebhookEvent.Status.PENDING)
+                                .and("nextAttemptAt").lte(now)
+                                .and("receivedAt").lt(now.minusNanos(pollGraceMillis * 1_000_000)),
+                        Criteria.where("status").is(PaymentWebhookEvent.Status.RUNNING)
+                                .and("leaseUntil").lt(now)))
+                .with(Sort.by("receivedAt"))
+                .limit(POLL_BATCH);
+        query.fields().include("_id");
+        for (PaymentWebhookEvent event : mongoTemplate.find(query, PaymentWebhookEvent.class)) {
+            dispatch(event.getId());
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (PaymentWebhookEvent.Status status : PaymentWebhookEvent.Status.values()) {
+            stats.put(status.name(), mongoTemplate.count(Query.query(Criteria.where("status").is(status)),
+                    PaymentWebhookEvent.class));
+        }
+        return stats;
+    }
+
+    ExecutorService workers() {
+        return workers;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Anything still running keeps its lease and is picked up again after it expires
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Whether an event of this type applies to a payment in this state. SKIP means the payment is
+     * already there or past it; DEFER means an earlier event it depends on has not been seen yet.
+     */
+    static Action decide(Payment.PaymentStatus current, String type) {
+        Set<Payment.PaymentStatus> from;
+        Set<Payment.PaymentStatus> waitingOn = EnumSet.noneOf(Payment.PaymentStatus.class);
+        switch (type) {
+            case PAYMENT_AUTHORIZED -> from = EnumSet.of(Payment.PaymentStatus.INITIATED);
+            case PAYMENT_CAPTURED -> from = PaymentService.CAPTURABLE;
+            case PAYMENT_FAILED -> from = PaymentService.FAILABLE;
+            case REFUND_PROCESSED -> {
+                from = EnumSet.of(Payment.PaymentStatus.SUCCESS);
+                waitingOn = PaymentService.CAPTURABLE;
+            }
+            default -> {
+                return Action.SKIP;
+            }
+        }
+        if (from.contains(current)) {
+            return Action.APPLY;
+        }
+        return waitingOn.contains(current) ? Action.DEFER : Action.SKIP;
+    }
+
+    /**
+     * Reconciles one event with the payments collection and applies it. Returns a short outcome for
+     * the event record. Throws Rejected for events that can never apply; any other exception is retried.
+     */
+    String apply(PaymentWebhookEvent event) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new Rejected("Malformed payload: " + e.getOriginalMessage());
+        }
+        String type = root.path("event").asText();
+        JsonNode entity = root.path("payload").path("payment").path("entity");
+        event.setType(type);
+        event.setGatewayOrderId(entity.path("order_id").asText(null));
+        event.setGatewayPaymentId(entity.path("id").asText(null));
+        if (!HANDLED.contains(type)) {
+            return "ignored " + type;
+        }
+        if (event.getGatewayOrderId() == null) {
+            throw new Rejected("No gateway order id in " + type);
+        }
+
+        // The checkout may not have stored its payment yet; a missing record is retried
+        Payment payment = paymentRepository.findByRazorpayOrderId(event.getGatewayOrderId())
+                .orElseThrow(() -> new IllegalStateException("No payment for gateway order " + event.getGatewayOrderId()));
+        long expectedPaise = payment.getAmount().multiply(PAISE).longValue();
+        if (entity.has("amount") && entity.path("amount").asLong() != expectedPaise) {
+            throw new Rejected("Amount " + entity.path("amount").asLong() + " does not match payment "
+                    + payment.getId() + " (" + expectedPaise + ")");
+        }
+
+        Action action = decide(payment.getStatus(), type);
+        if (action == Action.SKIP) {
+            return "no-op, payment " + payment.getStatus();
+        }
+        if (action == Action.DEFER) {
+            throw new IllegalStateException(type + " arrived before the payment was captured");
+        }
+
+        boolean applied = switch (type) {
+            case PAYMENT_AUTHORIZED -> paymentService.markAuthorized(payment.getId());
+            case PAYMENT_CAPTURED -> paymentService.completePayment(payment.getId(), event.getGatewayOrderId(),
+                    event.getGatewayPaymentId(), methodOf(entity.path("method").asText()));
+            case PAYMENT_FAILED -> paymentService.markFailed(payment.getId(),
+                    entity.path("error_description").asText("Payment failed"));
+            default -> paymentService.markRefunded(payment.getId(),
+                    root.path("payload").path("refund").path("entity").path("id").asText());
+        };
+        if (!applied) {
+            // Another event or the browser callback moved the payment in between; decide again
+            throw new IllegalStateException("Payment " + payment.getId() + " changed concurrently");
+        }
+        return "applied to payment " + payment.getId();
+    }
+
+    private void dispatch(String eventId) {
+        if (!workers.isShutdown()) {
+            workers.execute(() -> process(eventId));
+        }
+    }
+
+    private void process(String eventId) {
+        LocalDateTime now = LocalDateTime.now();
+        PaymentWebhookEvent claimed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(eventId).orOperator(
+                        Criteria.where("status").is(PaymentWebhookEvent.Status.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(PaymentWebhookEvent.Status.RUNNING).and("leaseUntil").lt(now))),
+                new Update().set("status", PaymentWebhookEvent.Status.RUNNING)
+                        .set("leaseUntil", now.plusNanos(leaseMillis * 1_000_000))
+                        .inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), PaymentWebhookEvent.class);
+        if (claimed == null) {
+            // Done, not due yet, or being processed elsewhere
+            return;
+        }
+
+        Update update;
+        try {
+            String outcome = apply(claimed);
+            update = new Update().set("status", PaymentWebhookEvent.Status.DONE)
+                    .set("outcome", outcome)
+                    .set("completedAt", LocalDateTime.now());
+        } catch (Exception e) {
+            update = new Update().set("lastError", String.valueOf(e.getMessage()));
+            if (e instanceof Rejected || claimed.getAttempts() >= maxAttempts) {
+                update.set("status", PaymentWebhookEvent.Status.DEAD).set("completedAt", LocalDateTime.now());
+            } else {
+                long backoffSeconds = Math.min(300, 1L << claimed.getAttempts());
+                update.set("status", PaymentWebhookEvent.Status.PENDING)
+                        .set("nextAttemptAt", LocalDateTime.now().plusSeconds(backoffSeconds));
+            }
+        }
+        update.set("type", claimed.getType())
+                .set("gatewayOrderId", claimed.getGatewayOrderId())
+                .set("gatewayPaymentId", claimed.getGatewayPaymentId());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(claimed.getId())), update,
+                PaymentWebhookEvent.class);
+    }
+
+    private boolean signatureValid(String body, String signature) {
+        if (webhookSecret == null || webhookSecret.isBlank() || signature == null || body == null) {
+            return false;
+        }
+        try {
+            return Utils.verifyWebhookSignature(body, signature, webhookSecret);
+        } catch (RazorpayException e) {
+            return false;
+        }
+    }
+
+    // Razorpay method names to PaymentMethod names
+    static String methodOf(String gatewayMethod) {
+        return switch (gatewayMethod) {
+            case "card" -> Payment.PaymentMethod.CREDIT_CARD.name();
+            case "netbanking" -> Payment.PaymentMethod.NET_BANKING.name();
+            case "wallet" -> Payment.PaymentMethod.WALLET.name();
+            default -> Payment.PaymentMethod.UPI.name();
+        };
+    }
+
+    private static String sha256(String body) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // An event that can never apply, such as one whose amount disagrees with the payment
+    static class Rejected extends RuntimeException {
+        Rejected(String message) {
+            super(message);
+        }
+    }
+}
@@ -13,24 +13,31 @@ import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 
+// Renders invoices. Fonts and formats are built once and shared; generateInvoice is safe to call concurrently.
 @Service
 public class PdfService {
 
+    // Fonts are only read while rendering, so one instance serves every thread
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.BLACK);
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.BLACK);
+    private static final Font TABLE_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.WHITE);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final float[] ITEM_COLUMN_WIDTHS = { 4, 1, 2, 2 };
+    // NumberFormat is not thread-safe
+    private static final ThreadLocal<NumberFormat> CURRENCY =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(new Locale("en", "IN"))); // INR
+
     public byte[] generateInvoice(Order order) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024)) {
             Document document = new Document(PageSize.A4);
             PdfWriter.getInstance(document, out);
 
             document.open();
 
-            // Font styles
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.BLACK);
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY);
-            Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.BLACK);
-            Font tableHeaderFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.WHITE);
-
             // Header
-            Paragraph header = new Paragraph("INVOICE", headerFont);
+            Paragraph header = new Paragraph("INVOICE", HEADER_FONT);
             header.setAlignment(Element.ALIGN_CENTER);
             document.add(header);
             document.add(new Paragraph("\n"));
@@ -41,16 +48,16 @@ public class PdfService {
 
             PdfPCell leftCell = new PdfPCell();
             leftCell.setBorder(Rectangle.NO_BORDER);
-            leftCell.addElement(new Paragraph("Order #: " + order.getOrderNumber(), normalFont));
+            leftCell.addElement(new Paragraph("Order #: " + order.getOrderNumber(), NORMAL_FONT));
             leftCell.addElement(new Paragraph("Date: " + (order.getCreatedAt() != null
-                    ? order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-                    : "N/A"), normalFont));
-            leftCell.addElement(new Paragraph("Status: " + order.getStatus(), normalFont));
+                    ? order.getCreatedAt().format(DATE_FORMAT)
+                    : "N/A"), NORMAL_FONT));
+            leftCell.addElement(new Paragraph("Status: " + order.getStatus(), NORMAL_FONT));
 
             PdfPCell rightCell = new PdfPCell();
             rightCell.setBorder(Rectangle.NO_BORDER);
-            rightCell.addElement(new Paragraph("Customer: " + order.getUserName(), normalFont));
-            rightCell.addElement(new Paragraph("Email: " + order.getUserEmail(), normalFont));
+            rightCell.addElement(new Paragraph("Customer: " + order.getUserName(), NORMAL_FONT));
+            rightCell.addElement(new Paragraph("Email: " + order.getUserEmail(), NORMAL_FONT));
             rightCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
 
             detailsTable.addCell(leftCell);
@@ -61,37 +68,37 @@ public class PdfService {
 
             // Shipping Address
             if (order.getShippingAddress() != null) {
-                document.add(new Paragraph("Shipping Address:", titleFont));
+                document.add(new Paragraph("Shipping Address:", TITLE_FONT));
                 com.ecommerce.model.Order.ShippingAddress addr = order.getShippingAddress();
-                document.add(new Paragraph(addr.getFullName(), normalFont));
-                document.add(new Paragraph(addr.getStreet(), normalFont));
+                document.add(new Paragraph(addr.getFullName(), NORMAL_FONT));
+                document.add(new Paragraph(addr.getStreet(), NORMAL_FONT));
                 document.add(
-                        new Paragraph(addr.getCity() + ", " + addr.getState() + " " + addr.getZipCode(), normalFont));
-                document.add(new Paragraph(addr.getCountry(), normalFont));
-                document.add(new Paragraph("Phone: " + addr.getPhone(), normalFont));
+                        new Paragraph(addr.getCity() + ", " + addr.getState() + " " + addr.getZipCode(), NORMAL_FONT));
+                document.add(new Paragraph(addr.getCountry(), NORMAL_FONT));
+                document.add(new Paragraph("Phone: " + addr.getPhone(), NORMAL_FONT));
                 document.add(new Paragraph("\n"));
             }
 
             // Items Table
             PdfPTable table = new PdfPTable(4);
             table.setWidthPercentage(100);
-            table.setWidths(new float[] { 4, 1, 2, 2 });
+            table.setWidths(ITEM_COLUMN_WIDTHS);
 
             // Table Header
-            addTableHeader(table, "Product", tableHeaderFont);
-            addTableHeader(table, "Qty", tableHeaderFont);
-            addTableHeader(table, "Price", tableHeaderFont);
-            addTableHeader(table, "Total", tableHeaderFont);
+            addTableHeader(table, "Product", TABLE_HEADER_FONT);
+            addTableHeader(table, "Qty", TABLE_HEADER_FONT);
+            addTableHeader(table, "Price", TABLE_HEADER_FONT);
+            addTableHeader(table, "Total", TABLE_HEADER_FONT);
 
             // Table Data
-            NumberFormat currency = NumberFormat.getCurrencyInstance(new Locale("en", "IN")); // INR
+            NumberFormat currency = CURRENCY.get();
 
             if (order.getItems() != null) {
                 for (Order.OrderItem item : order.getItems()) {
-                    table.addCell(new Phrase(item.getProductName(), normalFont));
-                    table.addCell(new Phrase(String.valueOf(item.getQuantity()), normalFont));
-                    table.addCell(new Phrase(currency.format(item.getPrice()), normalFont));
-                    table.addCell(new Phrase(currency.format(item.getSubtotal()), normalFont));
+                    table.addCell(new Phrase(item.getProductName(), NORMAL_FONT));
+                    table.addCell(new Phrase(String.valueOf(item.getQuantity()), NORMAL_FONT));
+                    table.addCell(new Phrase(currency.format(item.getPrice()), NORMAL_FONT));
+                    table.addCell(new Phrase(currency.format(item.getSubtotal()), NORMAL_FONT));
                 }
             }
             document.add(table);
@@ -103,10 +110,10 @@ public class PdfService {
             summaryTable.setWidthPercentage(40);
             summaryTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
 
-            addSummaryRow(summaryTable, "Subtotal:", currency.format(order.getSubtotal()), normalFont);
-            addSummaryRow(summaryTable, "Shipping:", currency.format(order.getShippingCost()), normalFont);
-            addSummaryRow(summaryTable, "Tax:", currency.format(order.getTax()), normalFont);
-            addSummaryRow(summaryTable, "Total:", currency.format(order.getTotalAmount()), titleFont);
+            addSummaryRow(summaryTable, "Subtotal:", currency.format(order.getSubtotal()), NORMAL_FONT);
+            addSummaryRow(summaryTable, "Shipping:", currency.format(order.getShippingCost()), NORMAL_FONT);
+            addSummaryRow(summaryTable, "Tax:", currency.format(order.getTax()), NORMAL_FONT);
+            addSummaryRow(summaryTable, "Total:", currency.format(order.getTotalAmount()), TITLE_FONT);
 
             document.add(summaryTable);
 
@@ -5,14 +5,21 @@ import com.ecommerce.dto.response.ProductResponse;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Category;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
 import com.ecommerce.repository.CategoryRepository;
 import com.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.io.InputStreamReader;
@@ -27,6 +34,9 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final LowStockMonitor lowStockMonitor;
+    private final InventoryService inventoryService;
+    private final MongoTemplate mongoTemplate;
 
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
         return productRepository.findByActiveTrue(pageable)
@@ -80,6 +90,7 @@ public class ProductService {
                 .categoryName(category.getName())
                 .images(request.getImages())
                 .stockQuantity(request.getStockQuantity())
+                .lowStockThreshold(request.getLowStockThreshold() != null ? request.getLowStockThreshold() : 0)
                 .active(request.isActive())
                 .featured(request.isFeatured())
                 .tags(request.getTags())
@@ -93,77 +104,85 @@ public class ProductService {
                 .build();
 
         product = productRepository.save(product);
+        lowStockMonitor.refresh(product.getId());
         return ProductResponse.fromProduct(product);
     }
 
+    // Only the edited fields are written: the stock counters on the same document are changed
+    // concurrently by reservations with $inc and must not be overwritten from a stale read
     public ProductResponse updateProduct(String productId, ProductRequest request) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
 
+        Update update = new Update();
         if (request.getCategoryId() != null && !request.getCategoryId().equals(product.getCategoryId())) {
             Category category = categoryRepository.findById(request.getCategoryId())
                     .orElseThrow(() -> new ResourceNotFoundException("Category", "id", request.getCategoryId()));
-            product.setCategoryId(category.getId());
-            product.setCategoryName(category.getName());
+            update.set("categoryId", category.getId()).set("categoryName", category.getName());
         }
 
         if (request.getName() != null)
-            product.setName(request.getName());
+            update.set("name", request.getName());
         if (request.getDescription() != null)
-            product.setDescription(request.getDescription());
+            update.set("description", request.getDescription());
         if (request.getBrand() != null)
-            product.setBrand(request.getBrand());
+            update.set("brand", request.getBrand());
         if (request.getPrice() != null)
-            product.setPrice(request.getPrice());
+            update.set("price", request.getPrice());
         if (request.getDiscountPrice() != null)
-            product.setDiscountPrice(request.getDiscountPrice());
-        product.setDiscountPercentage(request.getDiscountPercentage());
+            update.set("discountPrice", request.getDiscountPrice());
+        update.set("discountPercentage", request.getDiscountPercentage());
         if (request.getImages() != null)
-            product.setImages(request.getImages());
-        product.setStockQuantity(request.getStockQuantity());
-        product.setActive(request.isActive());
-        product.setFeatured(request.isFeatured());
+            update.set("images", request.getImages());
+        if (request.getLowStockThreshold() != null)
+            update.set("lowStockThreshold", request.getLowStockThreshold());
+        update.set("active", request.isActive());
+        update.set("featured", request.isFeatured());
         if (request.getTags() != null)
-            product.setTags(request.getTags());
+            update.set("tags", request.getTags());
 
-        if (request.getWeight() != null || request.getDimensions() != null ||
-                request.getColor() != null || request.getMaterial() != null ||
-                request.getWarranty() != null) {
+        if (request.getWeight() != null)
+            update.set("specs.weight", request.getWeight());
+        if (request.getDimensions() != null)
+            update.set("specs.dimensions", request.getDimensions());
+        if (request.getColor() != null)
+            update.set("specs.color", request.getColor());
+        if (request.getMaterial() != null)
+            update.set("specs.material", request.getMaterial());
+        if (request.getWarranty() != null)
+            update.set("specs.warranty", request.getWarranty());
+        update.set("updatedAt", LocalDateTime.now());
 
-            Product.ProductSpecs specs = product.getSpecs();
-            if (specs == null) {
-                specs = new Product.ProductSpecs();
-            }
-            if (request.getWeight() != null)
-                specs.setWeight(request.getWeight());
-            if (request.getDimensions() != null)
-                specs.setDimensions(request.getDimensions());
-            if (request.getColor() != null)
-                specs.setColor(request.getColor());
-            if (request.getMaterial() != null)
-                specs.setMaterial(request.getMaterial());
-            if (request.getWarranty() != null)
-                specs.setWarranty(request.getWarranty());
-            product.setSpecs(specs);
+        // The form shows the stock level it was loaded with; apply the admin's change as a delta
+        // so units reserved or sold since then are kept
+        int restock = request.getStockQuantity() - product.getStockQuantity();
+        if (restock != 0) {
+            inventoryService.updateStock(productId, restock, StockHistory.StockChangeType.MANUAL_UPDATE,
+                    "Stock set to " + request.getStockQuantity() + " by admin", null);
         }
 
-        product = productRepository.save(product);
-        return ProductResponse.fromProduct(product);
+        Product updated = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(productId)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (updated == null) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        lowStockMonitor.refresh(productId);
+        return ProductResponse.fromProduct(updated);
     }
 
     public void deleteProduct(String productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
-        product.setActive(false);
-        productRepository.save(product);
+        update(productId, new Update().set("active", false).set("updatedAt", LocalDateTime.now()));
     }
 
     public void updateProductRating(String productId, double newAverageRating, int reviewCount) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
-        product.setAverageRating(newAverageRating);
-        product.setReviewCount(reviewCount);
-        productRepository.save(product);
+        update(productId, new Update().set("averageRating", newAverageRating).set("reviewCount", reviewCount));
+    }
+
+    private void update(String productId, Update update) {
+        if (mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(productId)), update, Product.class)
+                .getMatchedCount() == 0) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
     }
 
     public Page<ProductResponse> getAllProductsAdmin(Pageable pageable) {
@@ -230,7 +249,8 @@ public class ProductService {
                     product.setDiscountPercentage((int) Math.round(discountPercentage));
                 }
 
-                productRepository.save(product);
+                product = productRepository.save(product);
+                lowStockMonitor.refresh(product.getId());
             }
         } catch (IOException | CsvValidationException e) {
             throw new RuntimeException("Failed to parse CSV file: " + e.getMessage());
@@ -0,0 +1,65 @@
+package com.ecommerce.service;
+
+import com.razorpay.Payment;
+import com.razorpay.RazorpayClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Reads checkout state from Razorpay's orders API
+@Service
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    private final RazorpayClient razorpayClient;
+
+    public RazorpayPaymentGateway(@Autowired(required = false) @Nullable RazorpayClient razorpayClient) {
+        this.razorpayClient = razorpayClient;
+    }
+
+    @Override
+    public String name() {
+        return "razorpay";
+    }
+
+    @Override
+    public GatewayPayment fetch(String gatewayOrderId) throws Exception {
+        if (razorpayClient == null) {
+            throw new IllegalStateException("Razorpay is not configured");
+        }
+        List<Payment> attempts = razorpayClient.orders.fetchPayments(gatewayOrderId);
+
+        // An order can have several attempts; the furthest along decides
+        GatewayPayment best = new GatewayPayment(gatewayOrderId, State.CREATED, null, null, null);
+        for (Payment attempt : attempts) {
+            State state = stateOf(attempt.get("status"));
+            if (rank(state) > rank(best.state())) {
+                best = new GatewayPayment(gatewayOrderId, state, attempt.get("id"),
+                        ((Number) attempt.get("amount")).longValue(), attempt.get("method"));
+            }
+        }
+        return best;
+    }
+
+    private static State stateOf(String status) {
+        return switch (status) {
+            case "authorized" -> State.AUTHORIZED;
+            case "captured" -> State.CAPTURED;
+            case "refunded" -> State.REFUNDED;
+            case "failed" -> State.FAILED;
+            default -> State.CREATED;
+        };
+    }
+
+    private static int rank(State state) {
+        return switch (state) {
+            case CREATED -> 0;
+            case FAILED -> 1;
+            case AUTHORIZED -> 2;
+            case CAPTURED, REFUNDED -> 3;
+        };
+    }
+}
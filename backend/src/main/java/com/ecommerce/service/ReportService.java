@@ -26,7 +26,7 @@ public class ReportService {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<Order> orders = orderRepository.findByCreatedAtBetween(start, end);
+        List<Order> orders = orderRepository.findHistoryByCreatedAtBetween(start, end);
         List<Order> completedOrders = orders.stream()
                 .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED
                         && o.getStatus() != Order.OrderStatus.REFUNDED)
@@ -63,32 +63,34 @@ public class ReportService {
     private ReportsResponse.CustomerReport generateCustomerReport(List<Order> completedOrders, LocalDateTime start,
             LocalDateTime end) {
         long totalCustomers = userRepository.count();
-        long newCustomers = userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(start)
-                        && u.getCreatedAt().isBefore(end))
-                .count();
+        long newCustomers = userRepository.countByCreatedAtBetween(start, end);
 
         Map<String, List<Order>> ordersByUser = completedOrders.stream()
                 .collect(Collectors.groupingBy(Order::getUserId));
+        Map<String, BigDecimal> spentByUser = new HashMap<>();
+        ordersByUser.forEach((userId, userOrders) -> spentByUser.put(userId,
+                userOrders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
 
-        List<ReportsResponse.TopCustomer> topCustomers = ordersByUser.entrySet().stream()
-                .map(entry -> {
-                    String userId = entry.getKey();
-                    List<Order> userOrders = entry.getValue();
-                    User user = userRepository.findById(userId).orElse(null);
-                    BigDecimal spent = userOrders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO,
-                            BigDecimal::add);
+        // Only the top ten are looked up, in one query
+        List<String> topUserIds = spentByUser.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, User> users = new HashMap<>();
+        userRepository.findAllById(topUserIds).forEach(user -> users.put(user.getId(), user));
 
+        List<ReportsResponse.TopCustomer> topCustomers = topUserIds.stream()
+                .map(userId -> {
+                    User user = users.get(userId);
                     return ReportsResponse.TopCustomer.builder()
                             .userId(userId)
                             .name(user != null ? user.getFirstName() + " " + user.getLastName() : "Unknown")
                             .email(user != null ? user.getEmail() : "N/A")
-                            .totalOrders(userOrders.size())
-                            .totalSpent(spent)
+                            .totalOrders(ordersByUser.get(userId).size())
+                            .totalSpent(spentByUser.get(userId))
                             .build();
                 })
-                .sorted((c1, c2) -> c2.getTotalSpent().compareTo(c1.getTotalSpent()))
-                .limit(10)
                 .toList();
 
         return ReportsResponse.CustomerReport.builder()
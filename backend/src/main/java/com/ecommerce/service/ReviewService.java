@@ -77,7 +77,7 @@ public class ReviewService {
      */
     private boolean hasUserPurchasedProduct(String userId, String productId) {
         // Get all delivered orders for this user
-        List<Order> deliveredOrders = orderRepository.findByUserIdAndStatus(userId, Order.OrderStatus.DELIVERED);
+        List<Order> deliveredOrders = orderRepository.findHistoryByUserIdAndStatus(userId, Order.OrderStatus.DELIVERED);
 
         // Check if any delivered order contains the product
         return deliveredOrders.stream()
@@ -0,0 +1,83 @@
+package com.ecommerce.service;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded multi-producer, single-consumer queue over a preallocated array. Producers claim a
+ * slot with one CAS and never block or allocate; when the buffer is full offer returns false.
+ * Each slot carries a sequence number that tells producers and the consumer whose turn it is,
+ * so a slot is only read after its item has been published. Only one thread may drain.
+ */
+public final class RingBuffer<T> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public RingBuffer(int capacity) {
+        // A power of two of at least 2, so a published slot is never mistaken for a free one
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(T item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long gap = sequences.get(index) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[index] = item;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                // The slot still holds an item from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> sink, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Empty, or the producer that claimed this slot has not published yet
+                break;
+            }
+            sink.add((T) items[index]);
+            items[index] = null;
+            sequences.set(index, position + items.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, Math.min(items.length, tail.get() - head));
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
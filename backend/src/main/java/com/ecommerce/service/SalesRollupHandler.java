@@ -0,0 +1,82 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.ProcessedEvent;
+import com.ecommerce.model.SalesDaily;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Adds each placed order to the per-day sales rollup
+@Service
+@RequiredArgsConstructor
+public class SalesRollupHandler implements DomainEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String name() {
+        return "sales-rollup";
+    }
+
+    @Override
+    public boolean handles(String eventType) {
+        return DomainEvent.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            return;
+        }
+
+        LocalDate day = event.getCreatedAt().toLocalDate();
+        String dayId = day.toString();
+        String markerId = name() + ":" + event.getId();
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(markerId)), ProcessedEvent.class)) {
+            clearPending(dayId, event.getId());
+            return;
+        }
+
+        int units = order.getItems().stream().mapToInt(Order.OrderItem::getQuantity).sum();
+        // The totals and the event id go into the day in one update; the id only stays there until
+        // the marker is written, so a redelivery finds one or the other and never counts twice
+        try {
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(dayId).and("pendingEvents").ne(event.getId())),
+                    new Update().setOnInsert("date", day)
+                            .inc("orders", 1)
+                            .inc("units", units)
+                            .inc("revenue", order.getTotalAmount().doubleValue())
+                            .inc("discounts", order.getDiscountAmount() != null
+                                    ? order.getDiscountAmount().doubleValue() : 0)
+                            .addToSet("pendingEvents", event.getId()),
+                    SalesDaily.class);
+        } catch (DuplicateKeyException e) {
+            // Counted by an earlier delivery that stopped before writing the marker
+        }
+
+        try {
+            mongoTemplate.insert(ProcessedEvent.builder().id(markerId).processedAt(LocalDateTime.now()).build());
+        } catch (DuplicateKeyException e) {
+            // Written by an earlier delivery
+        }
+        clearPending(dayId, event.getId());
+    }
+
+    private void clearPending(String dayId, String eventId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(dayId)),
+                new Update().pull("pendingEvents", eventId), SalesDaily.class);
+    }
+}
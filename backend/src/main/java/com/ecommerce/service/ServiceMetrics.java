@@ -0,0 +1,80 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.AsyncConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Gauges for the in-process queues and caches. Background writers report ecommerce.queue.size and
+ * ecommerce.queue.capacity, worker pools the executor.* metrics (Spring's own executors, such as the
+ * mail pool, are bound by Spring Boot; only the mail pool's executor.discarded is added here), and
+ * caches cache.gets by result plus cache.hit.ratio.
+ * Service call timings come from ServiceTimingAspect.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceMetrics implements MeterBinder {
+
+    private final StockHistoryWriter stockHistoryWriter;
+    private final AdminActivityLogWriter activityLogWriter;
+    private final AuditTrail auditTrail;
+    private final DomainEventLog domainEventLog;
+    private final PaymentWebhookService paymentWebhookService;
+    private final PaymentReconciler paymentReconciler;
+    private final InvoiceService invoiceService;
+    private final WarehouseAllocationService warehouseAllocationService;
+    private final AsyncConfig.DiscardAndCountPolicy mailRejections;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        queue(registry, "stock-history", stockHistoryWriter.queue(), BlockingQueue::size,
+                q -> q.size() + q.remainingCapacity());
+        queue(registry, "admin-activity-log", activityLogWriter.buffer(), RingBuffer::size, RingBuffer::capacity);
+        queue(registry, "audit-trail", auditTrail.buffer(), RingBuffer::size, RingBuffer::capacity);
+
+        executor(registry, "domain-events", domainEventLog.workers());
+        executor(registry, "payment-webhooks", paymentWebhookService.workers());
+        executor(registry, "payment-reconcile", paymentReconciler.workers());
+        executor(registry, "invoice-render", invoiceService.workers());
+        FunctionCounter.builder("executor.discarded", mailRejections, AsyncConfig.DiscardAndCountPolicy::discarded)
+                .tag("name", "mailExecutor")
+                .description("Tasks dropped because the pool's queue was full").register(registry);
+
+        cache(registry, "allocation-plans", warehouseAllocationService.planCacheStats());
+        Gauge.builder("cache.size", warehouseAllocationService, WarehouseAllocationService::planCacheSize)
+                .tag("cache", "allocation-plans")
+                .register(registry);
+        cache(registry, "invoices", invoiceService.cacheStats());
+        cache(registry, "audit-states", auditTrail.stateCacheStats());
+    }
+
+    private static <Q> void queue(MeterRegistry registry, String name, Q queue,
+            ToDoubleFunction<Q> size, ToDoubleFunction<Q> capacity) {
+        Gauge.builder("ecommerce.queue.size", queue, size).tag("queue", name)
+                .description("Items waiting to be processed").register(registry);
+        Gauge.builder("ecommerce.queue.capacity", queue, capacity).tag("queue", name).register(registry);
+    }
+
+    private static void executor(MeterRegistry registry, String name, ExecutorService executor) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+    }
+
+    private static void cache(MeterRegistry registry, String name, CacheStats stats) {
+        FunctionCounter.builder("cache.gets", stats, CacheStats::hits).tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", stats, CacheStats::misses).tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", stats, CacheStats::hitRatio).tag("cache", name)
+                .description("Share of lookups served from the cache since startup").register(registry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every public service call as ecommerce.service{class, method, exception}. Only the classes
+// or Class.method names in app.metrics.service-histograms publish histogram buckets; across every
+// service method and exception that would be thousands of series
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final Set<String> histograms;
+    private final Map<Method, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public ServiceTimingAspect(MeterRegistry registry,
+            @Value("${app.metrics.service-histograms:}") Set<String> histograms) {
+        this.registry = registry;
+        this.histograms = histograms;
+    }
+
+    @Around("within(com.ecommerce.service..*) && @within(org.springframework.stereotype.Service) "
+            + "&& execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(method, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Method method, String exception) {
+        String className = method.getDeclaringClass().getSimpleName();
+        boolean histogram = histograms.contains(className) || histograms.contains(className + "." + method.getName());
+        return timers.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(exception, e -> Timer.builder("ecommerce.service")
+                        .tag("class", className)
+                        .tag("method", method.getName())
+                        .tag("exception", e)
+                        .publishPercentileHistogram(histogram)
+                        .register(registry));
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process gateway for running reconciliation offline. Every answer is derived from the seed and
+ * the gateway order id, so a run over the same payments sees the same states, latencies and
+ * injected failures whatever the thread interleaving. The nth call for an id fails or not
+ * independently of calls for other ids.
+ */
+@Service
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "simulator")
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final long seed;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final double capturedRate;
+    private final double failedRate;
+    private final double authorizedRate;
+    private final double missingRate;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    public SimulatedPaymentGateway(@Value("${app.payments.simulator.seed:42}") long seed,
+            @Value("${app.payments.simulator.latency-ms:80}") long latencyMillis,
+            @Value("${app.payments.simulator.jitter-ms:40}") long jitterMillis,
+            @Value("${app.payments.simulator.failure-rate:0.02}") double failureRate,
+            @Value("${app.payments.simulator.captured-rate:0.6}") double capturedRate,
+            @Value("${app.payments.simulator.failed-rate:0.15}") double failedRate,
+            @Value("${app.payments.simulator.authorized-rate:0.05}") double authorizedRate,
+            @Value("${app.payments.simulator.missing-rate:0.05}") double missingRate) {
+        this.seed = seed;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+        this.capturedRate = capturedRate;
+        this.failedRate = failedRate;
+        this.authorizedRate = authorizedRate;
+        this.missingRate = missingRate;
+    }
+
+    @Override
+    public String name() {
+        return "simulator";
+    }
+
+    @Override
+    public GatewayPayment fetch(String gatewayOrderId) throws Exception {
+        int call = calls.computeIfAbsent(gatewayOrderId, id -> new AtomicInteger()).incrementAndGet();
+        SplittableRandom attempt = new SplittableRandom(seed * 31 + gatewayOrderId.hashCode() * 17L + call);
+        long latency = latencyMillis + (jitterMillis > 0 ? attempt.nextLong(jitterMillis + 1) : 0);
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+        if (attempt.nextDouble() < failureRate) {
+            throw new IllegalStateException("Simulated gateway timeout for " + gatewayOrderId);
+        }
+
+        // The outcome of a checkout does not change between calls
+        double roll = new SplittableRandom(seed * 31 + gatewayOrderId.hashCode()).nextDouble();
+        State state;
+        if ((roll -= capturedRate) < 0) {
+            state = State.CAPTURED;
+        } else if ((roll -= failedRate) < 0) {
+            state = State.FAILED;
+        } else if ((roll -= authorizedRate) < 0) {
+            state = State.AUTHORIZED;
+        } else if ((roll -= missingRate) < 0) {
+            return null;
+        } else {
+            state = State.CREATED;
+        }
+        String paymentId = state == State.CREATED ? null : "pay_sim_" + Integer.toHexString(gatewayOrderId.hashCode());
+        return new GatewayPayment(gatewayOrderId, state, paymentId, null, state == State.CREATED ? null : "upi");
+    }
+}
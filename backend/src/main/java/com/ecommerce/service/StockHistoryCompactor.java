@@ -0,0 +1,171 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockHistoryDaily;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Folds raw stock_history events older than the retention window into one stock_history_daily
+ * row per product per day, then deletes the raw events by id. Events are streamed in (productId,
+ * timestamp) order and applied in batches of at most {@value #BATCH_SIZE} events.
+ */
+@Service
+public class StockHistoryCompactor {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int rawRetentionDays;
+
+    public StockHistoryCompactor(MongoTemplate mongoTemplate,
+            @Value("${app.inventory.history.raw-retention-days:90}") int rawRetentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.rawRetentionDays = rawRetentionDays;
+    }
+
+    @Scheduled(cron = "${app.inventory.history.compaction-cron:0 30 2 * * *}")
+    public void compactExpiredHistory() {
+        compactBefore(LocalDate.now().minusDays(rawRetentionDays).atStartOfDay());
+    }
+
+    public long compactBefore(LocalDateTime cutoff) {
+        finishInterruptedBatches();
+
+        Query query = Query.query(Criteria.where("timestamp").lt(cutoff))
+                .with(Sort.by("productId", "timestamp"));
+
+        List<DayFold> pending = new ArrayList<>();
+        int pendingEvents = 0;
+        long folded = 0;
+        DayFold current = null;
+
+        try (Stream<StockHistory> events = mongoTemplate.stream(query, StockHistory.class)) {
+            for (StockHistory event : (Iterable<StockHistory>) events::iterator) {
+                LocalDate day = event.getTimestamp().toLocalDate();
+                if (current == null || !current.matches(event.getProductId(), day)) {
+                    current = new DayFold(event.getProductId(), day, event);
+                    pending.add(current);
+                }
+                current.add(event);
+                folded++;
+                if (++pendingEvents >= BATCH_SIZE) {
+                    applyBatch(pending);
+                    pending.clear();
+                    pendingEvents = 0;
+                    current = null;
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            applyBatch(pending);
+        }
+        return folded;
+    }
+
+    /**
+     * Summaries are written together with the ids they fold; the raw events are then removed by
+     * exactly those ids and the marker cleared. A run that stops in between is finished by the
+     * next one instead of folding the same events again.
+     */
+    private void applyBatch(List<DayFold> folds) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockHistoryDaily.class);
+        List<String> keys = new ArrayList<>();
+        List<String> eventIds = new ArrayList<>();
+        for (DayFold fold : folds) {
+            fold.upsertInto(bulk);
+            keys.add(fold.key());
+            eventIds.addAll(fold.eventIds);
+        }
+        bulk.execute();
+        removeFolded(keys, eventIds);
+    }
+
+    private void finishInterruptedBatches() {
+        Query interrupted = Query.query(Criteria.where("lastBatch").exists(true));
+        interrupted.fields().include("lastBatch");
+        for (StockHistoryDaily row : mongoTemplate.find(interrupted, StockHistoryDaily.class)) {
+            removeFolded(List.of(row.getId()), row.getLastBatch());
+        }
+    }
+
+    private void removeFolded(List<String> keys, List<String> eventIds) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(eventIds)), StockHistory.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(keys)),
+                new Update().unset("lastBatch"), StockHistoryDaily.class);
+    }
+
+    private static final class DayFold {
+        private final String productId;
+        private final LocalDate date;
+        private final int openingQuantity;
+        private int closingQuantity;
+        private int totalIn;
+        private int totalOut;
+        private int eventCount;
+        private final List<String> eventIds = new ArrayList<>();
+        private final Map<StockHistory.StockChangeType, Integer> byType =
+                new EnumMap<>(StockHistory.StockChangeType.class);
+
+        private DayFold(String productId, LocalDate date, StockHistory first) {
+            this.productId = productId;
+            this.date = date;
+            this.openingQuantity = first.getNewQuantity() - first.getChangeQuantity();
+        }
+
+        private boolean matches(String otherProductId, LocalDate otherDate) {
+            return Objects.equals(productId, otherProductId) && date.equals(otherDate);
+        }
+
+        private void add(StockHistory event) {
+            int change = event.getChangeQuantity();
+            if (change >= 0) {
+                totalIn += change;
+            } else {
+                totalOut -= change;
+            }
+            eventCount++;
+            eventIds.add(event.getId());
+            closingQuantity = event.getNewQuantity();
+            if (event.getType() != null) {
+                byType.merge(event.getType(), change, Integer::sum);
+            }
+        }
+
+        // Incremental so a day that was partly folded before (e.g. after a journal replay) is merged, not replaced
+        private void upsertInto(BulkOperations bulk) {
+            Update update = new Update()
+                    .setOnInsert("productId", productId)
+                    .setOnInsert("date", date)
+                    .setOnInsert("openingQuantity", openingQuantity)
+                    .set("closingQuantity", closingQuantity)
+                    .inc("totalIn", totalIn)
+                    .inc("totalOut", totalOut)
+                    .inc("eventCount", eventCount)
+                    .set("lastBatch", eventIds);
+            byType.forEach((type, quantity) -> update.inc("byType." + type.name(), quantity));
+            bulk.upsert(Query.query(Criteria.where("_id").is(key())), update);
+        }
+
+        private String key() {
+            return productId + ":" + date;
+        }
+    }
+}
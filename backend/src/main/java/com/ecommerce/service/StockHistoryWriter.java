@@ -0,0 +1,337 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.StockHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes stock_history off the request thread. Callers only queue the record; a background thread
+ * takes records off the queue, appends each group to a local journal with a single flush, and
+ * inserts them into Mongo in unordered bulk batches once the batch is full or the linger time has
+ * passed. The journal holds exactly the records taken but not yet written and is truncated after
+ * every successful batch. On startup a leftover journal from an unclean stop is set aside and
+ * replayed by the same thread, so startup never waits for Mongo (ids are assigned up front, so
+ * replays are idempotent). Records still in the queue when the process dies are lost; the window
+ * is the time the writer spends on one Mongo batch. When the queue is full the caller writes
+ * synchronously instead of dropping the record. A batch Mongo keeps rejecting is retried a bounded
+ * number of times and then dropped and counted, so one bad batch or a long outage cannot stall the
+ * only writer thread while the queue fills up behind it.
+ */
+@Slf4j
+@Service
+public class StockHistoryWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<StockHistory> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final Path journalPath;
+    private final Path replayPath;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong overflowWrites = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private volatile long lastBatchMillis;
+
+    // Only touched by the writer thread, and by shutdown once that thread has stopped
+    private BufferedWriter journal;
+    private Thread worker;
+    private volatile List<StockHistory> interruptedBatch = List.of();
+    private volatile boolean running;
+
+    public StockHistoryWriter(MongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.inventory.history.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.inventory.history.batch-size:500}") int batchSize,
+            @Value("${app.inventory.history.linger-ms:100}") long lingerMillis,
+            @Value("${app.inventory.history.max-attempts:10}") int maxAttempts,
+            @Value("${app.inventory.history.retry-backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${app.inventory.history.journal-path}") String journalPath) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.journalPath = Path.of(journalPath);
+        if (!this.journalPath.isAbsolute()) {
+            // A relative path would follow whatever directory the process was started from
+            throw new IllegalStateException("app.inventory.history.journal-path must be absolute: " + journalPath);
+        }
+        this.replayPath = Path.of(journalPath + ".replay");
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (journalPath.getParent() != null) {
+            Files.createDirectories(journalPath.getParent());
+        }
+        // Set a leftover journal aside (appending, in case an earlier replay never finished) so the
+        // new journal can start empty; only file I/O happens here, Mongo is left to the writer thread
+        if (Files.exists(journalPath) && Files.size(journalPath) > 0) {
+            Files.write(replayPath, Files.readAllBytes(journalPath), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+        journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        running = true;
+        worker = new Thread(this::run, "stock-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void write(StockHistory history) {
+        if (history.getId() == null) {
+            history.setId(new ObjectId().toHexString());
+        }
+        if (queue.offer(history)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        // Backpressure: the queue is full, so this caller pays for its own insert
+        overflowWrites.incrementAndGet();
+        insert(List.of(history));
+    }
+
+    public void writeAll(List<StockHistory> histories) {
+        histories.forEach(this::write);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", queue.size() + queue.remainingCapacity());
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("overflowWrites", overflowWrites.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("dropped", dropped.get());
+        stats.put("replayedOnStartup", replayed.get());
+        stats.put("lastBatchMillis", lastBatchMillis);
+        return stats;
+    }
+
+    BlockingQueue<?> queue() {
+        return queue;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        if (worker.isAlive()) {
+            // Still inside a Mongo call; what it has taken is journaled and replayed on the next start
+            return;
+        }
+
+        // Synchronous final flush; whatever still fails stays in the journal for the next start
+        List<StockHistory> rest = new ArrayList<>(interruptedBatch);
+        List<StockHistory> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        journal(queued);
+        rest.addAll(queued);
+        try {
+            for (int i = 0; i < rest.size(); i += batchSize) {
+                insert(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+            }
+            truncateJournal();
+        } finally {
+            closeJournal();
+        }
+    }
+
+    private void run() {
+        try {
+            replayJournal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<StockHistory> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                StockHistory first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                journal(batch);
+                long deadline = System.currentTimeMillis() + lingerMillis;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    StockHistory next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    // Group commit: whatever arrived with it goes to the journal in the same flush
+                    List<StockHistory> group = new ArrayList<>();
+                    group.add(next);
+                    queue.drainTo(group, batchSize - batch.size() - 1);
+                    journal(group);
+                    batch.addAll(group);
+                }
+                writeWithRetry(batch);
+                batch.clear();
+                truncateJournal();
+            } catch (InterruptedException e) {
+                // Shutting down: hand the unwritten batch to the final flush
+                interruptedBatch = new ArrayList<>(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // False if the batch was dropped after the last attempt
+    private boolean writeWithRetry(List<StockHistory> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insert(batch);
+                return true;
+            } catch (RuntimeException e) {
+                failedBatches.incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    log.warn("Dropping {} stock history records after {} failed attempts: {}", batch.size(),
+                            attempt, e.getMessage());
+                    dropped.addAndGet(batch.size());
+                    return false;
+                }
+                Thread.sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void insert(List<StockHistory> batch) {
+        long start = System.currentTimeMillis();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockHistory.class)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Duplicate ids mean the record was already written by an earlier attempt or replay
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == 11000);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+        lastBatchMillis = System.currentTimeMillis() - start;
+    }
+
+    // One flush for the whole group; a journal that cannot be written only costs crash recovery
+    private void journal(List<StockHistory> group) {
+        if (journal == null || group.isEmpty()) {
+            return;
+        }
+        try {
+            for (StockHistory history : group) {
+                journal.write(objectMapper.writeValueAsString(history));
+                journal.newLine();
+            }
+            journal.flush();
+        } catch (IOException e) {
+            log.warn("Stock history journal write failed: {}", e.getMessage());
+        }
+    }
+
+    private void truncateJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+            journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            journal = null;
+            log.warn("Stock history journal could not be reopened: {}", e.getMessage());
+        }
+    }
+
+    // New records queue up meanwhile. Batches that are dropped keep the replay file for the next start
+    private void replayJournal() throws InterruptedException {
+        if (!Files.exists(replayPath)) {
+            return;
+        }
+        List<StockHistory> pending = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(replayPath, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    try {
+                        pending.add(objectMapper.readValue(line, StockHistory.class));
+                    } catch (IOException e) {
+                        // A torn last line from the crash; everything before it is intact
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Stock history journal could not be read for replay: {}", e.getMessage());
+            return;
+        }
+        boolean complete = true;
+        for (int i = 0; i < pending.size(); i += batchSize) {
+            complete &= writeWithRetry(pending.subList(i, Math.min(pending.size(), i + batchSize)));
+        }
+        if (!complete) {
+            // Ids make a second replay of the records that did go in harmless
+            return;
+        }
+        try {
+            Files.deleteIfExists(replayPath);
+        } catch (IOException e) {
+            // Replaying it again next time is harmless
+        }
+        replayed.set(pending.size());
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            // Nothing left to do on shutdown
+        } finally {
+            journal = null;
+        }
+    }
+}
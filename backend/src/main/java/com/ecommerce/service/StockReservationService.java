@@ -0,0 +1,362 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockReservation;
+import com.ecommerce.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for orders between checkout and payment. Each product keeps three counters:
+ * stockQuantity (available), reservedQuantity (held by unpaid orders) and soldQuantity.
+ * A hold moves units from available to reserved, payment converts them to sold, and an
+ * unpaid hold is released back to available once its TTL expires.
+ */
+@Service
+public class StockReservationService {
+
+    private final MongoTemplate mongoTemplate;
+    private final StockReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+    private final FlashSaleService flashSaleService;
+    private final LowStockMonitor lowStockMonitor;
+    private final WarehouseAllocationService warehouseAllocationService;
+
+    // Striped locks queue same-SKU reservations inside this node so hot products do not
+    // pile concurrent writes onto one Mongo document
+    private final ReentrantLock[] stripes;
+
+    // Last available quantity seen per product, used to turn away sold-out requests without a round trip
+    private final Map<String, Snapshot> lastSeen = new ConcurrentHashMap<>();
+
+    private final long holdTtlMinutes;
+    private final long snapshotTtlMillis;
+
+    public StockReservationService(MongoTemplate mongoTemplate,
+            StockReservationRepository reservationRepository,
+            InventoryService inventoryService,
+            FlashSaleService flashSaleService,
+            LowStockMonitor lowStockMonitor,
+            WarehouseAllocationService warehouseAllocationService,
+            @Value("${app.inventory.reservation.ttl-minutes:15}") long holdTtlMinutes,
+            @Value("${app.inventory.reservation.lock-stripes:64}") int lockStripes,
+            @Value("${app.inventory.reservation.snapshot-ttl-ms:1000}") long snapshotTtlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.reservationRepository = reservationRepository;
+        this.inventoryService = inventoryService;
+        this.flashSaleService = flashSaleService;
+        this.lowStockMonitor = lowStockMonitor;
+        this.warehouseAllocationService = warehouseAllocationService;
+        this.holdTtlMinutes = holdTtlMinutes;
+        this.snapshotTtlMillis = snapshotTtlMillis;
+        this.stripes = new ReentrantLock[Math.max(1, lockStripes)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public StockReservation reserve(String orderId, String userId, List<Order.OrderItem> orderItems,
+            String destinationState) {
+        List<StockReservation.Item> held = new ArrayList<>();
+        List<Order.Allocation> allocations;
+        try {
+            for (Order.OrderItem orderItem : orderItems) {
+                hold(orderItem.getProductId(), orderItem.getQuantity(), orderId, held);
+            }
+            Map<String, Integer> demand = new LinkedHashMap<>();
+            held.forEach(item -> demand.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            allocations = warehouseAllocationService.allocate(demand, destinationState);
+        } catch (RuntimeException e) {
+            for (StockReservation.Item item : held) {
+                try {
+                    giveBack(item, "reservedQuantity", StockHistory.StockChangeType.RESERVATION_RELEASE,
+                            "Reservation rolled back", orderId);
+                } catch (RuntimeException rollbackFailure) {
+                    // Keep returning the other lines; this one's stock is back unless the $inc itself failed
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e;
+        }
+
+        // Saved after the holds: a crash in between under-counts stock rather than overselling it
+        StockReservation reservation = StockReservation.builder()
+                .orderId(orderId)
+                .userId(userId)
+                .items(held)
+                .allocations(allocations)
+                .status(StockReservation.ReservationStatus.HELD)
+                .expiresAt(LocalDateTime.now().plusMinutes(holdTtlMinutes))
+                .build();
+        return reservationRepository.save(reservation);
+    }
+
+    public void convertToSale(String orderId) {
+        StockReservation reservation = transition(orderId, StockReservation.ReservationStatus.HELD,
+                StockReservation.ReservationStatus.CONVERTED);
+        if (reservation != null) {
+            reservation.getItems().forEach(item -> mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(item.getProductId())),
+                    new Update().inc("reservedQuantity", -item.getQuantity()).inc("soldQuantity", item.getQuantity()),
+                    Product.class));
+            return;
+        }
+
+        // Paid after the sweeper released the hold: a paid order is honoured, so the units are
+        // taken back even if that drives available stock negative (surfaces as a low-stock alert)
+        StockReservation released = transition(orderId, StockReservation.ReservationStatus.RELEASED,
+                StockReservation.ReservationStatus.CONVERTED);
+        if (released != null) {
+            warehouseAllocationService.reclaim(released.getAllocations());
+            released.getItems().forEach(item -> {
+                Product product = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(item.getProductId())),
+                        new Update().inc("stockQuantity", -item.getQuantity()).inc("soldQuantity", item.getQuantity()),
+                        FindAndModifyOptions.options().returnNew(true), Product.class);
+                if (product != null) {
+                    remember(product);
+                    inventoryService.recordHistory(item.getProductId(), -item.getQuantity(),
+                            product.getStockQuantity(), StockHistory.StockChangeType.ORDER_PLACEMENT,
+                            "Stock reclaimed for late payment", orderId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns held stock to available. Returns false when the order has no active hold.
+     */
+    public boolean release(String orderId, String notes) {
+        StockReservation reservation = transition(orderId, StockReservation.ReservationStatus.HELD,
+                StockReservation.ReservationStatus.RELEASED);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.getItems().forEach(item -> giveBack(item, "reservedQuantity",
+                StockHistory.StockChangeType.RESERVATION_RELEASE, notes, orderId));
+        warehouseAllocationService.restore(reservation.getAllocations());
+        return true;
+    }
+
+    /**
+     * Returns sold stock to available for a cancelled or returned paid order. Returns false
+     * when the order has no converted reservation, so a second call never restocks twice.
+     */
+    public boolean reverseSale(String orderId, StockHistory.StockChangeType type, String notes) {
+        StockReservation reservation = transition(orderId, StockReservation.ReservationStatus.CONVERTED,
+                StockReservation.ReservationStatus.REVERSED);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.getItems().forEach(item -> giveBack(item, "soldQuantity", type, notes, orderId));
+        warehouseAllocationService.restore(reservation.getAllocations());
+        return true;
+    }
+
+    /**
+     * Batch form of release and reverseSale for bulk status changes. Each reservation is still
+     * moved exactly once, but product and warehouse counters are adjusted with one bulk write.
+     * Returns the ids of the orders that had stock to give back.
+     */
+    public Set<String> restockOrders(Collection<String> orderIds, boolean releaseHolds,
+            StockHistory.StockChangeType type, String notes) {
+        List<StockReservation.ReservationStatus> from = releaseHolds
+                ? List.of(StockReservation.ReservationStatus.HELD, StockReservation.ReservationStatus.CONVERTED)
+                : List.of(StockReservation.ReservationStatus.CONVERTED);
+        List<StockReservation> candidates = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(orderIds).and("status").in(from)), StockReservation.class);
+
+        Map<String, int[]> deltas = new LinkedHashMap<>();
+        List<StockReservation> restocked = new ArrayList<>();
+        List<Order.Allocation> allocations = new ArrayList<>();
+        for (StockReservation candidate : candidates) {
+            boolean held = candidate.getStatus() == StockReservation.ReservationStatus.HELD;
+            StockReservation reservation = transition(candidate.getOrderId(), candidate.getStatus(),
+                    held ? StockReservation.ReservationStatus.RELEASED : StockReservation.ReservationStatus.REVERSED);
+            if (reservation == null) {
+                continue;
+            }
+            restocked.add(reservation);
+            if (reservation.getAllocations() != null) {
+                allocations.addAll(reservation.getAllocations());
+            }
+            for (StockReservation.Item item : reservation.getItems()) {
+                // [available, reserved, sold]
+                int[] delta = deltas.computeIfAbsent(item.getProductId(), id -> new int[3]);
+                delta[0] += item.getQuantity();
+                delta[held ? 1 : 2] -= item.getQuantity();
+            }
+        }
+        if (deltas.isEmpty()) {
+            return Set.of();
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        deltas.forEach((productId, delta) -> bulk.updateOne(Query.query(Criteria.where("_id").is(productId)),
+                new Update().inc("stockQuantity", delta[0]).inc("reservedQuantity", delta[1])
+                        .inc("soldQuantity", delta[2])));
+        bulk.execute();
+        warehouseAllocationService.restore(allocations);
+
+        Map<String, Product> products = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("_id").in(deltas.keySet())), Product.class)
+                .forEach(product -> products.put(product.getId(), product));
+        deltas.forEach((productId, delta) -> {
+            Product product = products.get(productId);
+            if (product != null) {
+                remember(product);
+                flashSaleService.returned(productId, delta[0]);
+            }
+        });
+        // One history row per order line, all showing the quantity after the whole batch
+        for (StockReservation reservation : restocked) {
+            boolean held = reservation.getStatus() == StockReservation.ReservationStatus.HELD;
+            for (StockReservation.Item item : reservation.getItems()) {
+                Product product = products.get(item.getProductId());
+                inventoryService.recordHistory(item.getProductId(), item.getQuantity(),
+                        product != null ? product.getStockQuantity() : 0,
+                        held ? StockHistory.StockChangeType.RESERVATION_RELEASE : type, notes, reservation.getOrderId());
+            }
+        }
+        return restocked.stream().map(StockReservation::getOrderId).collect(Collectors.toSet());
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredHolds() {
+        List<StockReservation> expired = reservationRepository.findTop500ByStatusAndExpiresAtBefore(
+                StockReservation.ReservationStatus.HELD, LocalDateTime.now());
+
+        for (StockReservation reservation : expired) {
+            if (release(reservation.getOrderId(), "Reservation expired")) {
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(reservation.getOrderId())
+                                .and("status").is(Order.OrderStatus.PENDING)
+                                .and("paymentStatus").in(Order.PaymentStatus.PENDING, Order.PaymentStatus.FAILED)),
+                        new Update().set("status", Order.OrderStatus.CANCELLED)
+                                .set("paymentStatus", Order.PaymentStatus.FAILED)
+                                .set("updatedAt", LocalDateTime.now()),
+                        Order.class);
+            }
+        }
+    }
+
+    // Adds the line to held as soon as its units are taken, so anything failing after that (such as
+    // the history write) still has the line rolled back
+    private void hold(String productId, int quantity, String orderId, List<StockReservation.Item> held) {
+        if (flashSaleService.isActive(productId)) {
+            if (!flashSaleService.tryReserve(productId, quantity, orderId)) {
+                throw new BadRequestException("This flash-sale item is sold out");
+            }
+            held.add(new StockReservation.Item(productId, quantity));
+            return;
+        }
+
+        Snapshot snapshot = lastSeen.get(productId);
+        if (snapshot != null && snapshot.isFresh(snapshotTtlMillis) && snapshot.available() < quantity) {
+            throw new BadRequestException("Insufficient stock for " + snapshot.name());
+        }
+
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            // Flash-sale stock belongs to the ledger, which is seeded from the stock read when the flag is set
+            Product product = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(productId).and("stockQuantity").gte(quantity)
+                            .and("flashSale").ne(true)),
+                    new Update().inc("stockQuantity", -quantity).inc("reservedQuantity", quantity),
+                    FindAndModifyOptions.options().returnNew(true), Product.class);
+
+            if (product == null) {
+                if (flashSaleService.isActive(productId)) {
+                    // The sale started while this hold was on its way
+                    if (!flashSaleService.tryReserve(productId, quantity, orderId)) {
+                        throw new BadRequestException("This flash-sale item is sold out");
+                    }
+                    held.add(new StockReservation.Item(productId, quantity));
+                    return;
+                }
+                Product current = mongoTemplate.findById(productId, Product.class);
+                if (current == null) {
+                    throw new ResourceNotFoundException("Product", "id", productId);
+                }
+                remember(current);
+                throw new BadRequestException("Insufficient stock for " + current.getName());
+            }
+
+            held.add(new StockReservation.Item(productId, quantity));
+            remember(product);
+            inventoryService.recordHistory(productId, -quantity, product.getStockQuantity(),
+                    StockHistory.StockChangeType.ORDER_PLACEMENT, "Stock reserved for order", orderId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void giveBack(StockReservation.Item item, String fromCounter, StockHistory.StockChangeType type,
+            String notes, String orderId) {
+        ReentrantLock lock = stripeFor(item.getProductId());
+        lock.lock();
+        try {
+            Product product = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(item.getProductId())),
+                    new Update().inc("stockQuantity", item.getQuantity()).inc(fromCounter, -item.getQuantity()),
+                    FindAndModifyOptions.options().returnNew(true), Product.class);
+            if (product != null) {
+                remember(product);
+                flashSaleService.returned(item.getProductId(), item.getQuantity());
+                inventoryService.recordHistory(item.getProductId(), item.getQuantity(), product.getStockQuantity(),
+                        type, notes, orderId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Atomically moves a reservation between states so each transition is applied exactly once
+    private StockReservation transition(String orderId, StockReservation.ReservationStatus from,
+            StockReservation.ReservationStatus to) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("status").is(from)),
+                new Update().set("status", to).set("resolvedAt", LocalDateTime.now()),
+                StockReservation.class);
+    }
+
+    private void remember(Product product) {
+        lowStockMonitor.onStockChanged(product);
+        lastSeen.put(product.getId(),
+                new Snapshot(product.getName(), product.getStockQuantity(), System.currentTimeMillis()));
+    }
+
+    private ReentrantLock stripeFor(String productId) {
+        return stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+    }
+
+    private record Snapshot(String name, int available, long seenAt) {
+        boolean isFresh(long ttlMillis) {
+            return System.currentTimeMillis() - seenAt < ttlMillis;
+        }
+    }
+}
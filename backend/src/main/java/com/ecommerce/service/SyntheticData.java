@@ -0,0 +1,660 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.SeedRequest;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Review;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.User;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic store data for DataGenerator. Every document is a pure function of the seed, its
+ * collection and its index: it draws from its own random stream and gets an id derived from the
+ * same three values. Chunks can therefore be built in any order on any thread, references (an
+ * order's products, a review's author) are recomputed instead of looked up, and the same seed and
+ * asOf always give the same database.
+ */
+final class SyntheticData {
+
+    static final String PASSWORD = "password123";
+
+    // Collection tags, part of every id and random stream
+    private static final int CATEGORY = 1;
+    private static final int PRODUCT = 2;
+    private static final int QUALITY = 3;
+    private static final int STOCK = 4;
+    private static final int USER = 5;
+    private static final int SIGNUP = 6;
+    private static final int ORDER = 7;
+    private static final int REVIEW = 8;
+    private static final int CART = 9;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    record Leaf(String name, String noun, int medianPrice, String... tags) {
+    }
+
+    record Root(String name, String description, Leaf... leaves) {
+    }
+
+    private static final List<Root> TREE = List.of(
+            new Root("Electronics", "Gadgets and devices",
+                    new Leaf("Laptops", "Laptop", 55_000, "laptop", "computer", "work"),
+                    new Leaf("Smartphones", "Smartphone", 18_000, "phone", "5g", "android"),
+                    new Leaf("Headphones", "Headphones", 2_500, "audio", "wireless", "music"),
+                    new Leaf("Cameras", "Camera", 35_000, "photography", "lens"),
+                    new Leaf("Smartwatches", "Smartwatch", 6_000, "wearable", "fitness"),
+                    new Leaf("Tablets", "Tablet", 22_000, "tablet", "reading")),
+            new Root("Clothing", "Apparel and fashion",
+                    new Leaf("Shirts", "Shirt", 1_200, "cotton", "formal", "men"),
+                    new Leaf("Jeans", "Jeans", 1_800, "denim", "casual"),
+                    new Leaf("Jackets", "Jacket", 3_500, "winter", "outerwear"),
+                    new Leaf("Dresses", "Dress", 2_200, "women", "party"),
+                    new Leaf("T-Shirts", "T-Shirt", 600, "cotton", "casual"),
+                    new Leaf("Sweaters", "Sweater", 1_900, "wool", "winter")),
+            new Root("Home & Kitchen", "Everything for the home",
+                    new Leaf("Cookware", "Pan", 1_500, "kitchen", "nonstick"),
+                    new Leaf("Furniture", "Chair", 7_500, "furniture", "wood"),
+                    new Leaf("Bedding", "Bedsheet", 1_300, "cotton", "bedroom"),
+                    new Leaf("Lighting", "Lamp", 1_100, "led", "decor"),
+                    new Leaf("Storage", "Organizer", 700, "storage", "plastic"),
+                    new Leaf("Appliances", "Blender", 3_200, "kitchen", "electric")),
+            new Root("Sports & Outdoors", "Gear for training and the outdoors",
+                    new Leaf("Running Shoes", "Running Shoe", 3_800, "running", "shoes"),
+                    new Leaf("Yoga", "Yoga Mat", 900, "yoga", "fitness"),
+                    new Leaf("Bicycles", "Bicycle", 14_000, "cycling", "outdoor"),
+                    new Leaf("Weights", "Dumbbell", 1_600, "gym", "strength"),
+                    new Leaf("Camping", "Tent", 4_500, "camping", "outdoor"),
+                    new Leaf("Backpacks", "Backpack", 1_700, "travel", "bag")),
+            new Root("Books", "Fiction, non-fiction and more",
+                    new Leaf("Fiction", "Novel", 350, "fiction", "paperback"),
+                    new Leaf("Biographies", "Biography", 450, "biography", "hardcover"),
+                    new Leaf("Science", "Science Book", 550, "science", "education"),
+                    new Leaf("Cookbooks", "Cookbook", 600, "cooking", "recipes"),
+                    new Leaf("Comics", "Comic", 300, "comics", "illustrated"),
+                    new Leaf("Children's Books", "Picture Book", 250, "kids", "illustrated")),
+            new Root("Beauty", "Skincare, makeup and grooming",
+                    new Leaf("Skincare", "Moisturizer", 650, "skincare", "natural"),
+                    new Leaf("Makeup", "Lipstick", 500, "makeup", "matte"),
+                    new Leaf("Fragrances", "Perfume", 2_400, "fragrance", "gift"),
+                    new Leaf("Haircare", "Shampoo", 400, "haircare", "natural"),
+                    new Leaf("Grooming", "Trimmer", 1_400, "grooming", "men"),
+                    new Leaf("Bath", "Body Wash", 350, "bath", "natural")),
+            new Root("Toys & Games", "For kids and the young at heart",
+                    new Leaf("Puzzles", "Puzzle", 600, "puzzle", "kids"),
+                    new Leaf("Board Games", "Board Game", 1_200, "family", "strategy"),
+                    new Leaf("Dolls", "Doll", 900, "kids", "gift"),
+                    new Leaf("Building Sets", "Building Set", 2_500, "creative", "kids"),
+                    new Leaf("RC Toys", "RC Car", 2_000, "remote", "kids"),
+                    new Leaf("Plush", "Plush Toy", 500, "soft", "gift")),
+            new Root("Grocery", "Pantry staples and treats",
+                    new Leaf("Coffee", "Coffee", 550, "coffee", "organic"),
+                    new Leaf("Tea", "Tea", 300, "tea", "organic"),
+                    new Leaf("Snacks", "Snack Pack", 150, "snacks", "vegan"),
+                    new Leaf("Spices", "Spice Mix", 120, "spices", "organic"),
+                    new Leaf("Chocolate", "Chocolate", 250, "chocolate", "gift"),
+                    new Leaf("Breakfast", "Granola", 350, "breakfast", "healthy")));
+
+    private static final List<String> BRANDS = List.of("Acme", "Nova", "Zenith", "Orbit", "Lumen", "Vertex",
+            "Aurora", "Kinetic", "Harbor", "Summit", "Pioneer", "Maple", "Cobalt", "Ember", "Atlas", "Nimbus",
+            "Solace", "Urban", "Willow", "Crest");
+    private static final List<String> ADJECTIVES = List.of("Classic", "Premium", "Essential", "Pro", "Ultra",
+            "Compact", "Eco", "Deluxe", "Smart", "Vintage", "Sport", "Lite");
+    private static final List<String> COMMON_TAGS = List.of("bestseller", "new", "sale", "gift", "premium",
+            "budget", "eco-friendly", "limited");
+    private static final List<String> COLORS = List.of("Black", "White", "Blue", "Red", "Grey", "Green", "Beige");
+    private static final List<String> MATERIALS = List.of("Plastic", "Steel", "Cotton", "Wood", "Glass", "Leather");
+    private static final List<String> FIRST_NAMES = List.of("Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Rohan",
+            "Ishaan", "Kabir", "Ananya", "Diya", "Saanvi", "Aadhya", "Priya", "Kavya", "Meera", "Neha", "Rahul",
+            "Vikram", "Sneha", "Pooja", "Amit", "Sanjay", "Deepa", "Lakshmi", "John", "Maria", "David", "Sara",
+            "Ali", "Fatima");
+    private static final List<String> LAST_NAMES = List.of("Sharma", "Verma", "Patel", "Reddy", "Iyer", "Nair",
+            "Gupta", "Singh", "Kumar", "Das", "Mehta", "Joshi", "Rao", "Bose", "Kapoor", "Malhotra", "Chopra",
+            "Menon", "Pillai", "Banerjee", "Khan", "Fernandes", "DSouza", "Thomas", "Mishra");
+    private static final List<String> STREETS = List.of("MG Road", "Park Street", "Station Road", "Church Street",
+            "Lake View Road", "Nehru Nagar", "Gandhi Marg", "Residency Road", "Hill Road", "Temple Street");
+
+    record City(String name, String state, int zipPrefix) {
+    }
+
+    // Ordered by population; picked with a Zipf skew
+    private static final List<City> CITIES = List.of(
+            new City("Mumbai", "Maharashtra", 400),
+            new City("Delhi", "Delhi", 110),
+            new City("Bengaluru", "Karnataka", 560),
+            new City("Hyderabad", "Telangana", 500),
+            new City("Ahmedabad", "Gujarat", 380),
+            new City("Chennai", "Tamil Nadu", 600),
+            new City("Kolkata", "West Bengal", 700),
+            new City("Pune", "Maharashtra", 411),
+            new City("Jaipur", "Rajasthan", 302),
+            new City("Lucknow", "Uttar Pradesh", 226),
+            new City("Kochi", "Kerala", 682),
+            new City("Chandigarh", "Chandigarh", 160));
+
+    private static final String[][] REVIEW_TEXT = {
+            {"Very disappointed", "Stopped working within a week and support was no help."},
+            {"Not worth it", "Quality is below what the photos suggest."},
+            {"It's okay", "Does the job, nothing special for the price."},
+            {"Good value", "Works well and arrived on time. Would buy again."},
+            {"Excellent!", "Exactly as described, great quality. Highly recommended."}};
+
+    private final SeedRequest request;
+    private final LocalDateTime asOf;
+    private final LocalDateTime windowStart;
+    private final String encodedPassword;
+    private final int lowStockThreshold;
+    private final int idPrefix;
+    private final List<Category> categories;
+    private final List<Category> leaves = new ArrayList<>();
+    private final List<Leaf> leafKinds = new ArrayList<>();
+    private final Zipf products;
+    private final Zipf customers;
+    private final Zipf brands = new Zipf(BRANDS.size(), 1.0);
+    private final Zipf cities = new Zipf(CITIES.size(), 0.8);
+
+    SyntheticData(SeedRequest request, LocalDateTime asOf, String encodedPassword, int lowStockThreshold) {
+        this.request = request;
+        this.asOf = asOf;
+        this.windowStart = asOf.minusDays(request.getDays());
+        this.encodedPassword = encodedPassword;
+        this.lowStockThreshold = lowStockThreshold;
+        this.idPrefix = (int) (mix(request.getSeed()) & 0xFFFFFF);
+        this.products = new Zipf(request.getProducts(), request.getPopularitySkew());
+        // Repeat customers: some users order far more often than others
+        this.customers = new Zipf(request.getUsers(), 0.8);
+        this.categories = buildCategories();
+    }
+
+    List<Category> categories() {
+        return categories;
+    }
+
+    private List<Category> buildCategories() {
+        List<Category> all = new ArrayList<>();
+        int index = 0;
+        for (int r = 0; r < request.getRootCategories(); r++) {
+            Root root = TREE.get(r % TREE.size());
+            String rootName = numbered(root.name(), r, TREE.size());
+            Category parent = category(index++, rootName, root.description(), null, r);
+            all.add(parent);
+            for (int s = 0; s < request.getSubcategories(); s++) {
+                Leaf leaf = root.leaves()[s % root.leaves().length];
+                String name = numbered(leaf.name(), s, root.leaves().length)
+                        + (r >= TREE.size() ? " (" + rootName + ")" : "");
+                Category child = category(index++, name, leaf.name() + " in " + rootName, parent.getId(), s);
+                all.add(child);
+                leaves.add(child);
+                leafKinds.add(leaf);
+            }
+        }
+        // Without subcategories, products go straight into the roots
+        if (leaves.isEmpty()) {
+            for (int r = 0; r < all.size(); r++) {
+                leaves.add(all.get(r));
+                leafKinds.add(TREE.get(r % TREE.size()).leaves()[0]);
+            }
+        }
+        return all;
+    }
+
+    private Category category(int index, String name, String description, String parentId, int displayOrder) {
+        LocalDateTime created = windowStart.minusDays(400);
+        return Category.builder()
+                .id(id(CATEGORY, index))
+                .name(name)
+                .description(description)
+                .slug(CategoryService.generateSlug(name))
+                .image("https://picsum.photos/seed/category-" + index + "/600/400")
+                .parentId(parentId)
+                .displayOrder(displayOrder)
+                .createdAt(created)
+                .updatedAt(created)
+                .build();
+    }
+
+    /**
+     * Catalog fields only; stock, sales and rating counters are filled in by withStock and
+     * withStats. Orders and carts call this again for the products they reference.
+     */
+    Product product(int index) {
+        SplittableRandom random = random(PRODUCT, index);
+        int leafIndex = random.nextInt(leaves.size());
+        Category category = leaves.get(leafIndex);
+        Leaf kind = leafKinds.get(leafIndex);
+        String brand = BRANDS.get(brands.sample(random));
+        String adjective = pick(ADJECTIVES, random);
+        String id = id(PRODUCT, index);
+
+        // Log-normal around the subcategory's typical price, ending in 9
+        double raw = kind.medianPrice() * Math.exp(0.6 * random.nextGaussian());
+        BigDecimal price = BigDecimal.valueOf(Math.max(49, Math.round(raw / 10) * 10 - 1)).setScale(2);
+        int discount = random.nextInt(100) < 25 ? 5 * (1 + random.nextInt(random.nextInt(100) < 80 ? 4 : 10)) : 0;
+        BigDecimal discountPrice = discount > 0
+                ? price.multiply(BigDecimal.valueOf(100 - discount)).divide(HUNDRED, 2, RoundingMode.HALF_UP)
+                : null;
+
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(kind.tags()[0]);
+        int extraTags = random.nextInt(4);
+        for (int t = 0; t < extraTags; t++) {
+            tags.add(random.nextBoolean() ? pick(List.of(kind.tags()), random) : pick(COMMON_TAGS, random));
+        }
+        if (discount > 0) {
+            tags.add("sale");
+        }
+
+        LocalDateTime created = between(random, windowStart.minusDays(180), windowStart);
+        return Product.builder()
+                .id(id)
+                .name(brand + " " + adjective + " " + kind.noun() + " " + (char) ('A' + random.nextInt(26))
+                        + (100 + random.nextInt(900)))
+                .description(adjective + " " + kind.noun().toLowerCase() + " by " + brand + ", part of our "
+                        + category.getName() + " range.")
+                .brand(brand)
+                .price(price)
+                .discountPrice(discountPrice)
+                .discountPercentage(discount)
+                .categoryId(category.getId())
+                .categoryName(category.getName())
+                .images(new ArrayList<>(List.of("https://picsum.photos/seed/" + id + "/800/800")))
+                .active(random.nextInt(100) < 97)
+                .featured(random.nextInt(100) < 2)
+                .tags(new ArrayList<>(tags))
+                .specs(Product.ProductSpecs.builder()
+                        .color(pick(COLORS, random))
+                        .material(pick(MATERIALS, random))
+                        .weight((50 + random.nextInt(4950)) + " g")
+                        .warranty(random.nextBoolean() ? "1 year" : "6 months")
+                        .build())
+                .createdAt(created)
+                .updatedAt(created)
+                .build();
+    }
+
+    /**
+     * The product's stock history from its creation to asOf: an initial restock, then sales,
+     * cancellations, restocks and stock-count adjustments. The product ends at the last level.
+     */
+    List<StockHistory> withStock(Product product, int index) {
+        SplittableRandom random = random(STOCK, index);
+        int events = request.getStockEventsPerProduct();
+        List<LocalDateTime> times = new ArrayList<>(events);
+        for (int e = 0; e < events; e++) {
+            times.add(between(random, product.getCreatedAt(), asOf));
+        }
+        times.sort(null);
+
+        List<StockHistory> history = new ArrayList<>(events);
+        int level = 0;
+        for (int e = 0; e < events; e++) {
+            int roll = random.nextInt(100);
+            StockHistory.StockChangeType type;
+            int change;
+            if (e == 0 || level == 0 || (roll >= 60 && roll < 80)) {
+                type = StockHistory.StockChangeType.RESTOCK;
+                change = e == 0 ? 20 + random.nextInt(480) : 50 + random.nextInt(250);
+            } else if (roll < 60) {
+                type = StockHistory.StockChangeType.ORDER_PLACEMENT;
+                change = -Math.min(level, 1 + random.nextInt(5));
+            } else if (roll < 90) {
+                type = StockHistory.StockChangeType.ORDER_CANCELLATION;
+                change = 1 + random.nextInt(3);
+            } else {
+                type = StockHistory.StockChangeType.MANUAL_UPDATE;
+                change = Math.max(-level, random.nextInt(21) - 10);
+            }
+            level += change;
+            history.add(StockHistory.builder()
+                    .id(id(STOCK, (long) index * events + e))
+                    .productId(product.getId())
+                    .changeQuantity(change)
+                    .newQuantity(level)
+                    .type(type)
+                    .notes(type == StockHistory.StockChangeType.MANUAL_UPDATE ? "Stock count adjustment" : null)
+                    .timestamp(times.get(e))
+                    .build());
+        }
+        product.setStockQuantity(level);
+        product.setLowStock(level <= lowStockThreshold);
+        return history;
+    }
+
+    void withStats(Product product, int sold, int reviewCount, long ratingSum) {
+        product.setSoldQuantity(sold);
+        product.setReviewCount(reviewCount);
+        product.setAverageRating(reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0);
+    }
+
+    User user(int index) {
+        SplittableRandom random = random(USER, index);
+        String firstName = pick(FIRST_NAMES, random);
+        String lastName = pick(LAST_NAMES, random);
+        int addressCount = random.nextInt(10) < 6 ? 1 : random.nextInt(10) < 8 ? 2 : 3;
+        List<User.Address> addresses = new ArrayList<>(addressCount);
+        for (int a = 0; a < addressCount; a++) {
+            City city = CITIES.get(cities.sample(random));
+            addresses.add(User.Address.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .street((1 + random.nextInt(300)) + ", " + pick(STREETS, random))
+                    .city(city.name())
+                    .state(city.state())
+                    .zipCode(String.valueOf(city.zipPrefix() * 1000 + random.nextInt(100)))
+                    .country("India")
+                    .isDefault(a == 0)
+                    .build());
+        }
+        LocalDateTime created = signedUpAt(index);
+        return User.builder()
+                .id(userId(index))
+                .firstName(firstName)
+                .lastName(lastName)
+                .email((firstName + "." + lastName + "." + index + "@example.com").toLowerCase())
+                .password(encodedPassword)
+                .phone(String.valueOf(6_000_000_000L + random.nextLong(4_000_000_000L)))
+                .addresses(addresses)
+                .roles(new HashSet<>(Set.of(User.Role.USER)))
+                .active(random.nextInt(100) < 99)
+                .createdAt(created)
+                .updatedAt(created)
+                .build();
+    }
+
+    // Sign-ups grow over time: more accounts are recent than old
+    private LocalDateTime signedUpAt(int userIndex) {
+        SplittableRandom random = random(SIGNUP, userIndex);
+        LocalDateTime from = windowStart.minusDays(365);
+        return recent(random, from, asOf.minusDays(1));
+    }
+
+    private String userId(int index) {
+        return id(USER, index);
+    }
+
+    Order order(int index) {
+        SplittableRandom random = random(ORDER, index);
+        int userIndex = customers.sample(random);
+        User user = user(userIndex);
+        LocalDateTime signedUp = user.getCreatedAt();
+        LocalDateTime created = recent(random, signedUp.isAfter(windowStart) ? signedUp : windowStart, asOf);
+
+        int lines = 1;
+        while (lines < 8 && random.nextInt(100) < 45) {
+            lines++;
+        }
+        List<Order.OrderItem> items = new ArrayList<>(lines);
+        Set<Integer> chosen = new LinkedHashSet<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int l = 0; l < lines; l++) {
+            int productIndex = products.sample(random);
+            if (!chosen.add(productIndex)) {
+                continue;
+            }
+            Product product = product(productIndex);
+            int roll = random.nextInt(100);
+            int quantity = roll < 80 ? 1 : roll < 95 ? 2 : 3;
+            BigDecimal price = effectivePrice(product);
+            BigDecimal lineTotal = price.multiply(BigDecimal.valueOf(quantity));
+            subtotal = subtotal.add(lineTotal);
+            items.add(Order.OrderItem.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .productImage(product.getImages().get(0))
+                    .price(price)
+                    .quantity(quantity)
+                    .subtotal(lineTotal)
+                    .build());
+        }
+
+        String couponCode = null;
+        BigDecimal discount = BigDecimal.ZERO;
+        if (random.nextInt(100) < 10) {
+            couponCode = "SAVE10";
+            discount = subtotal.divide(BigDecimal.TEN, 2, RoundingMode.HALF_UP).min(BigDecimal.valueOf(500));
+        }
+        OrderService.Totals totals = OrderService.calculateTotals(subtotal, discount);
+
+        User.Address address = user.getAddresses().get(0);
+        boolean prepaid = random.nextInt(100) < 65;
+        long ageDays = Duration.between(created, asOf).toDays();
+        Order.OrderStatus status = status(random, ageDays);
+        Order.PaymentStatus paymentStatus = switch (status) {
+            case DELIVERED -> Order.PaymentStatus.COMPLETED;
+            case RETURNED, REFUNDED -> Order.PaymentStatus.REFUNDED;
+            case CANCELLED -> prepaid ? Order.PaymentStatus.FAILED : Order.PaymentStatus.PENDING;
+            case PENDING -> Order.PaymentStatus.PENDING;
+            default -> prepaid ? Order.PaymentStatus.COMPLETED : Order.PaymentStatus.PENDING;
+        };
+        boolean shipped = status == Order.OrderStatus.SHIPPED || status == Order.OrderStatus.DELIVERED
+                || status == Order.OrderStatus.RETURN_REQUESTED || status == Order.OrderStatus.RETURNED
+                || status == Order.OrderStatus.REFUNDED;
+        LocalDateTime shippedAt = shipped ? notAfterAsOf(created.plusHours(12 + random.nextInt(60))) : null;
+        LocalDateTime deliveredAt = shipped && status != Order.OrderStatus.SHIPPED
+                ? notAfterAsOf(shippedAt.plusHours(24 + random.nextInt(96))) : null;
+
+        return Order.builder()
+                .id(id(ORDER, index))
+                .orderNumber(orderNumber(created, index))
+                .userId(user.getId())
+                .userName(user.getFirstName() + " " + user.getLastName())
+                .userEmail(user.getEmail())
+                .items(items)
+                .shippingAddress(Order.ShippingAddress.builder()
+                        .fullName(user.getFirstName() + " " + user.getLastName())
+                        .phone(user.getPhone())
+                        .street(address.getStreet())
+                        .city(address.getCity())
+                        .state(address.getState())
+                        .zipCode(address.getZipCode())
+                        .country(address.getCountry())
+                        .build())
+                .subtotal(subtotal)
+                .shippingCost(totals.shippingCost())
+                .tax(totals.tax())
+                .totalAmount(totals.totalAmount())
+                .discountAmount(discount)
+                .couponCode(couponCode)
+                .status(status)
+                .paymentStatus(paymentStatus)
+                .paymentMethod(prepaid ? "RAZORPAY" : "COD")
+                .trackingNumber(shipped ? "TRK" + HEX.toHexDigits(mix(index ^ request.getSeed())).substring(0, 10)
+                        .toUpperCase() : null)
+                .createdAt(created)
+                .updatedAt(deliveredAt != null ? deliveredAt : shippedAt != null ? shippedAt : created)
+                .shippedAt(shippedAt)
+                .deliveredAt(deliveredAt)
+                .build();
+    }
+
+    private LocalDateTime notAfterAsOf(LocalDateTime time) {
+        return time.isAfter(asOf) ? asOf : time;
+    }
+
+    // Recent orders are still moving through fulfilment; older ones have mostly been delivered
+    private static Order.OrderStatus status(SplittableRandom random, long ageDays) {
+        int roll = random.nextInt(100);
+        if (ageDays < 2) {
+            return roll < 40 ? Order.OrderStatus.PENDING
+                    : roll < 80 ? Order.OrderStatus.CONFIRMED : Order.OrderStatus.PROCESSING;
+        }
+        if (ageDays < 5) {
+            return roll < 8 ? Order.OrderStatus.CANCELLED
+                    : roll < 30 ? Order.OrderStatus.PROCESSING : Order.OrderStatus.SHIPPED;
+        }
+        if (roll < 6) {
+            return Order.OrderStatus.CANCELLED;
+        }
+        if (roll < 9) {
+            return ageDays < 30 ? Order.OrderStatus.RETURN_REQUESTED : Order.OrderStatus.RETURNED;
+        }
+        if (roll < 10) {
+            return Order.OrderStatus.REFUNDED;
+        }
+        return Order.OrderStatus.DELIVERED;
+    }
+
+    // Same format as OrderNumberGenerator, with the order index in place of node id and sequence
+    private static String orderNumber(LocalDateTime created, int index) {
+        long millis = created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                - OrderNumberGenerator.EPOCH_MILLIS;
+        return "ORD" + OrderNumberGenerator.encode((Math.max(0, millis) << 22) | (index & 0x3FFFFF));
+    }
+
+    Review review(int index) {
+        SplittableRandom random = random(REVIEW, index);
+        int productIndex = products.sample(random);
+        int userIndex = random.nextInt(request.getUsers());
+        User author = user(userIndex);
+        int rating = (int) Math.max(1, Math.min(5, Math.round(quality(productIndex) + random.nextGaussian())));
+        LocalDateTime signedUp = author.getCreatedAt();
+        LocalDateTime created = between(random, signedUp.isAfter(windowStart) ? signedUp : windowStart, asOf);
+        return Review.builder()
+                .id(id(REVIEW, index))
+                .productId(id(PRODUCT, productIndex))
+                .userId(author.getId())
+                .userName(author.getFirstName() + " " + author.getLastName().charAt(0) + ".")
+                .rating(rating)
+                .title(REVIEW_TEXT[rating - 1][0])
+                .comment(REVIEW_TEXT[rating - 1][1])
+                .verified(random.nextInt(100) < 70)
+                .helpfulCount((int) (Math.pow(random.nextDouble(), 4) * 60))
+                .createdAt(created)
+                .updatedAt(created)
+                .build();
+    }
+
+    // The index a product id was generated from
+    static int productIndex(String productId) {
+        return (int) Long.parseLong(productId.substring(8), 16);
+    }
+
+    // Mean rating the product's reviews scatter around; most products are liked
+    private double quality(int productIndex) {
+        SplittableRandom random = random(QUALITY, productIndex);
+        return Math.max(1.5, Math.min(4.95, 4.0 + 0.6 * random.nextGaussian()));
+    }
+
+    /** The user's open cart, or null for the users without one. */
+    Cart cart(int userIndex) {
+        SplittableRandom random = random(CART, userIndex);
+        if (random.nextInt(100) >= request.getCartPercent()) {
+            return null;
+        }
+        int lines = 1 + random.nextInt(4);
+        Set<Integer> chosen = new LinkedHashSet<>();
+        List<Cart.CartItem> items = new ArrayList<>(lines);
+        for (int l = 0; l < lines; l++) {
+            int productIndex = products.sample(random);
+            if (!chosen.add(productIndex)) {
+                continue;
+            }
+            Product product = product(productIndex);
+            int quantity = random.nextInt(100) < 85 ? 1 : 2;
+            BigDecimal price = effectivePrice(product);
+            items.add(Cart.CartItem.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .productImage(product.getImages().get(0))
+                    .price(price)
+                    .quantity(quantity)
+                    .subtotal(price.multiply(BigDecimal.valueOf(quantity)))
+                    .build());
+        }
+        LocalDateTime updated = between(random, asOf.minusDays(14), asOf);
+        Cart cart = Cart.builder()
+                .id(id(CART, userIndex))
+                .userId(userId(userIndex))
+                .items(items)
+                .createdAt(updated.minusHours(random.nextInt(72)))
+                .updatedAt(updated)
+                .build();
+        cart.recalculateTotals();
+        return cart;
+    }
+
+    private static BigDecimal effectivePrice(Product product) {
+        return product.getDiscountPrice() != null ? product.getDiscountPrice() : product.getPrice();
+    }
+
+    // 24 hex digits, so the ids are stored as ObjectIds like those Mongo assigns
+    private String id(int tag, long index) {
+        return HEX.toHexDigits((tag << 24) | idPrefix) + HEX.toHexDigits(index);
+    }
+
+    private SplittableRandom random(int tag, long index) {
+        return new SplittableRandom(mix(request.getSeed() ^ mix(((long) tag << 48) ^ index)));
+    }
+
+    // SplitMix64 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String numbered(String name, int index, int size) {
+        return index < size ? name : name + " " + (index / size + 1);
+    }
+
+    private static <T> T pick(List<T> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static LocalDateTime between(SplittableRandom random, LocalDateTime from, LocalDateTime to) {
+        long seconds = Duration.between(from, to).getSeconds();
+        return seconds <= 0 ? from : from.plusSeconds(random.nextLong(seconds + 1));
+    }
+
+    // Like between, but denser towards the end of the range
+    private static LocalDateTime recent(SplittableRandom random, LocalDateTime from, LocalDateTime to) {
+        long seconds = Duration.between(from, to).getSeconds();
+        return seconds <= 0 ? from : from.plusSeconds((long) (seconds * Math.sqrt(random.nextDouble())));
+    }
+
+    /** Samples 0..n-1 with probability proportional to 1 / (rank + 1)^exponent. */
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += Math.pow(i + 1, -exponent);
+                cumulative[i] = total;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] <= target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
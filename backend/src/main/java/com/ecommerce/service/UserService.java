@@ -97,7 +97,9 @@ public class UserService {
         userRepository.save(user);
 
         try {
-            mailService.sendPasswordResetOtp(user.getEmail(), otp);
+            mailService.awaitSent(mailService.sendPasswordResetOtp(user.getEmail(), otp));
+        } catch (com.ecommerce.exception.ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new com.ecommerce.exception.BadRequestException("Failed to send OTP email");
         }
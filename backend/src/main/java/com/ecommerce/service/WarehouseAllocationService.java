@@ -0,0 +1,241 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.Warehouse;
+import com.ecommerce.model.WarehouseStock;
+import com.ecommerce.repository.WarehouseRepository;
+import com.ecommerce.repository.WarehouseStockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which warehouses ship an order and deducts their per-warehouse stock. The warehouses
+ * chosen for a (SKU set, destination state) pair are cached; a cached plan is reused as long as
+ * those warehouses can still cover the order, so hot combinations skip the planner.
+ */
+@Service
+public class WarehouseAllocationService {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final WarehouseRepository warehouseRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final MongoTemplate mongoTemplate;
+    private final InventoryService inventoryService;
+    private final long warehouseCacheMillis;
+
+    private final Map<String, List<String>> planCache;
+    private final CacheStats planCacheStats = new CacheStats();
+    private volatile List<Warehouse> activeWarehouses;
+    private volatile long warehousesLoadedAt;
+
+    public WarehouseAllocationService(WarehouseRepository warehouseRepository,
+            WarehouseStockRepository warehouseStockRepository,
+            MongoTemplate mongoTemplate,
+            InventoryService inventoryService,
+            @Value("${app.inventory.allocation.plan-cache-size:10000}") int planCacheSize,
+            @Value("${app.inventory.allocation.warehouse-cache-ms:30000}") long warehouseCacheMillis) {
+        this.warehouseRepository = warehouseRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.inventoryService = inventoryService;
+        this.warehouseCacheMillis = warehouseCacheMillis;
+        this.planCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return size() > planCacheSize;
+            }
+        });
+    }
+
+    public List<Order.Allocation> allocate(Map<String, Integer> demand, String destinationState) {
+        List<Warehouse> warehouses = getActiveWarehouses();
+        Map<String, Warehouse> warehousesById = warehouses.stream()
+                .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+        String cacheKey = (destinationState != null ? destinationState.toUpperCase() : "") + "|"
+                + String.join(",", new TreeSet<>(demand.keySet()));
+
+        List<Order.Allocation> applied = new ArrayList<>();
+        Map<String, Integer> remaining = new HashMap<>(demand);
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+                Map<String, Map<String, Integer>> stock = loadStock(remaining.keySet());
+                List<AllocationPlanner.Line> lines = cachedPlan(cacheKey, remaining, warehousesById, stock);
+                if (lines == null) {
+                    lines = AllocationPlanner.plan(remaining, destinationState, warehouses, stock);
+                    planCache.put(cacheKey, lines.stream().map(AllocationPlanner.Line::warehouseId)
+                            .filter(id -> id != null).distinct().toList());
+                }
+
+                for (AllocationPlanner.Line line : lines) {
+                    if (line.warehouseId() != null && deduct(line.warehouseId(), line.productId(), line.quantity())) {
+                        Warehouse warehouse = warehousesById.get(line.warehouseId());
+                        applied.add(Order.Allocation.builder()
+                                .warehouseId(line.warehouseId())
+                                .warehouseName(warehouse != null ? warehouse.getName() : null)
+                                .productId(line.productId())
+                                .quantity(line.quantity())
+                                .build());
+                        remaining.computeIfPresent(line.productId(),
+                                (id, quantity) -> quantity - line.quantity() > 0 ? quantity - line.quantity() : null);
+                    }
+                }
+                // Anything left lost a race for warehouse stock (or is untracked); re-plan once with fresh levels
+            }
+        } catch (RuntimeException e) {
+            restore(applied);
+            throw e;
+        }
+
+        // Units no warehouse tracks stay unassigned for fulfilment to route by hand
+        remaining.forEach((productId, quantity) -> applied.add(Order.Allocation.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .build()));
+        return applied;
+    }
+
+    public void restore(List<Order.Allocation> allocations) {
+        adjust(allocations, 1);
+    }
+
+    // A late payment for a released hold ships from the warehouses it was first allocated to,
+    // even if that takes their stock below zero
+    public void reclaim(List<Order.Allocation> allocations) {
+        adjust(allocations, -1);
+    }
+
+    public List<WarehouseStock> getWarehouseStock(String warehouseId) {
+        return warehouseStockRepository.findByWarehouseId(warehouseId);
+    }
+
+    /**
+     * Sets the on-hand quantity of a product in a warehouse and moves the product's sellable total
+     * by the same difference. If the product refuses the difference, the warehouse row is put back.
+     */
+    public WarehouseStock setWarehouseStock(String warehouseId, String productId, int quantity) {
+        if (quantity < 0) {
+            throw new BadRequestException("Warehouse stock cannot be negative");
+        }
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new ResourceNotFoundException("Warehouse", "id", warehouseId);
+        }
+        WarehouseStock previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("warehouseId").is(warehouseId).and("productId").is(productId)),
+                new Update().set("quantity", quantity),
+                FindAndModifyOptions.options().upsert(true), WarehouseStock.class);
+        int delta = quantity - (previous != null ? previous.getQuantity() : 0);
+        if (delta != 0) {
+            try {
+                inventoryService.updateStock(productId, delta, StockHistory.StockChangeType.MANUAL_UPDATE,
+                        "Warehouse stock set", warehouseId);
+            } catch (RuntimeException e) {
+                // The product refused the change (flash sale, or fewer units left than the cut), so the
+                // warehouse row goes back unless another edit has replaced it since
+                Query unchanged = Query.query(Criteria.where("warehouseId").is(warehouseId)
+                        .and("productId").is(productId).and("quantity").is(quantity));
+                if (previous != null) {
+                    mongoTemplate.updateFirst(unchanged, new Update().set("quantity", previous.getQuantity()),
+                            WarehouseStock.class);
+                } else {
+                    mongoTemplate.remove(unchanged, WarehouseStock.class);
+                }
+                throw e;
+            }
+        }
+        return mongoTemplate.findOne(
+                Query.query(Criteria.where("warehouseId").is(warehouseId).and("productId").is(productId)),
+                WarehouseStock.class);
+    }
+
+    // Other nodes pick up warehouse edits when their cache expires
+    public void evictWarehouses() {
+        warehousesLoadedAt = 0;
+    }
+
+    private void adjust(List<Order.Allocation> allocations, int sign) {
+        if (allocations == null) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WarehouseStock.class);
+        int queued = 0;
+        for (Order.Allocation allocation : allocations) {
+            if (allocation.getWarehouseId() != null) {
+                bulk.updateOne(
+                        Query.query(Criteria.where("warehouseId").is(allocation.getWarehouseId())
+                                .and("productId").is(allocation.getProductId())),
+                        new Update().inc("quantity", sign * allocation.getQuantity()));
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            bulk.execute();
+        }
+    }
+
+    private List<AllocationPlanner.Line> cachedPlan(String cacheKey, Map<String, Integer> demand,
+            Map<String, Warehouse> warehousesById, Map<String, Map<String, Integer>> stock) {
+        List<String> warehouseIds = planCache.get(cacheKey);
+        if (warehouseIds == null || !warehousesById.keySet().containsAll(warehouseIds)) {
+            planCacheStats.record(false);
+            return null;
+        }
+        List<Warehouse> planned = warehouseIds.stream().map(warehousesById::get).toList();
+        List<AllocationPlanner.Line> lines = AllocationPlanner.plan(demand, null, planned, stock);
+        boolean usable = lines.stream().noneMatch(line -> line.warehouseId() == null);
+        planCacheStats.record(usable);
+        return usable ? lines : null;
+    }
+
+    private Map<String, Map<String, Integer>> loadStock(Collection<String> productIds) {
+        Map<String, Map<String, Integer>> stock = new HashMap<>();
+        for (WarehouseStock row : warehouseStockRepository.findByProductIdIn(productIds)) {
+            stock.computeIfAbsent(row.getWarehouseId(), id -> new HashMap<>()).put(row.getProductId(), row.getQuantity());
+        }
+        return stock;
+    }
+
+    private boolean deduct(String warehouseId, String productId, int quantity) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("warehouseId").is(warehouseId)
+                        .and("productId").is(productId)
+                        .and("quantity").gte(quantity)),
+                new Update().inc("quantity", -quantity), WarehouseStock.class).getModifiedCount() > 0;
+    }
+
+    CacheStats planCacheStats() {
+        return planCacheStats;
+    }
+
+    int planCacheSize() {
+        return planCache.size();
+    }
+
+    private List<Warehouse> getActiveWarehouses() {
+        if (activeWarehouses == null || System.currentTimeMillis() - warehousesLoadedAt > warehouseCacheMillis) {
+            activeWarehouses = warehouseRepository.findByActive(true);
+            warehousesLoadedAt = System.currentTimeMillis();
+        }
+        return activeWarehouses;
+    }
+}
@@ -13,6 +13,7 @@ import java.util.List;
 public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
+    private final WarehouseAllocationService warehouseAllocationService;
 
     public List<Warehouse> getAllWarehouses() {
         return warehouseRepository.findAll();
@@ -32,7 +33,9 @@ public class WarehouseService {
                 .contactNumber(request.getContactNumber())
                 .active(request.isActive())
                 .build();
-        return warehouseRepository.save(warehouse);
+        Warehouse saved = warehouseRepository.save(warehouse);
+        warehouseAllocationService.evictWarehouses();
+        return saved;
     }
 
     public Warehouse updateWarehouse(String id, WarehouseRequest request) {
@@ -43,7 +46,9 @@ public class WarehouseService {
         warehouse.setState(request.getState());
         warehouse.setContactNumber(request.getContactNumber());
         warehouse.setActive(request.isActive());
-        return warehouseRepository.save(warehouse);
+        Warehouse saved = warehouseRepository.save(warehouse);
+        warehouseAllocationService.evictWarehouses();
+        return saved;
     }
 
     public void deleteWarehouse(String id) {
@@ -51,5 +56,6 @@ public class WarehouseService {
             throw new ResourceNotFoundException("Warehouse", "id", id);
         }
         warehouseRepository.deleteById(id);
+        warehouseAllocationService.evictWarehouses();
     }
 }
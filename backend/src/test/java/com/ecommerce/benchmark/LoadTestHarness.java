@@ -0,0 +1,158 @@
+package com.ecommerce.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running backend. Each simulated user sends a request, waits for
+ * the response and sends the next one straight away, so throughput is capped by how many requests
+ * the server can have in flight at once: with platform threads that is the Tomcat pool, with
+ * virtual threads it is the connection limit. Users are callbacks on a small client pool rather
+ * than threads, so 2,000 of them cost the load generator almost nothing.
+ *
+ * Usage: LoadTestHarness baseUrl [users=2000] [seconds=60] [warmupSeconds=15] [apiPath=/api]
+ * scripts/compare-thread-modes.sh starts the backend in each thread mode and runs this against it;
+ * scripts/compare-catalog-stacks.sh runs it against the servlet (/api) and reactive (/api/reactive)
+ * catalog endpoints of one backend.
+ */
+public class LoadTestHarness {
+
+    // Public catalog reads, each of which blocks on at least one Mongo round trip
+    private static final List<String> PATHS = List.of(
+            "/products?page=0&size=20",
+            "/products/featured",
+            "/categories",
+            "/products/search?q=shirt&page=0&size=20");
+
+    record Result(long requests, long errors, long[] latenciesMicros, double seconds) {
+
+        double throughput() {
+            return requests / seconds;
+        }
+
+        long percentile(double p) {
+            if (latenciesMicros.length == 0) {
+                return 0;
+            }
+            return latenciesMicros[(int) Math.min(latenciesMicros.length - 1, Math.floor(p * latenciesMicros.length))];
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println(
+                    "Usage: LoadTestHarness baseUrl [users=2000] [seconds=60] [warmupSeconds=15] [apiPath=/api]");
+            System.exit(2);
+        }
+        String apiPath = args.length > 4 ? args[4] : "/api";
+        String baseUrl = args[0].replaceAll("/$", "") + apiPath.replaceAll("/$", "");
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+
+        ExecutorService clientPool = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientPool)
+                .build();
+        try {
+            run(client, baseUrl, users, warmupSeconds);
+            Result result = run(client, baseUrl, users, seconds);
+            System.out.printf("users=%d duration=%ds requests=%d errors=%d throughput=%.1f req/s%n",
+                    users, seconds, result.requests(), result.errors(), result.throughput());
+            System.out.printf("latency p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                    result.percentile(0.50) / 1000.0, result.percentile(0.90) / 1000.0,
+                    result.percentile(0.99) / 1000.0, result.percentile(1.0) / 1000.0);
+        } finally {
+            clientPool.shutdownNow();
+        }
+    }
+
+    static Result run(HttpClient client, String baseUrl, int users, int seconds) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(users);
+        User[] all = new User[users];
+        for (int i = 0; i < users; i++) {
+            all[i] = new User(client, baseUrl, i, deadline, errors, done);
+            all[i].next();
+        }
+        // Requests still in flight at the deadline are allowed a grace period, then abandoned
+        done.await(seconds + 30L, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long requests = 0;
+        for (User user : all) {
+            requests += user.count;
+        }
+        long[] latencies = new long[(int) requests];
+        int offset = 0;
+        for (User user : all) {
+            int n = Math.min(user.count, latencies.length - offset);
+            System.arraycopy(user.latencies, 0, latencies, offset, n);
+            offset += n;
+        }
+        Arrays.sort(latencies, 0, offset);
+        return new Result(offset, errors.get(), Arrays.copyOf(latencies, offset), elapsed);
+    }
+
+    // One simulated user. Its callbacks never overlap, so its fields need no synchronisation
+    private static final class User {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final long deadline;
+        private final AtomicLong errors;
+        private final CountDownLatch done;
+        private int pathIndex;
+        private long[] latencies = new long[256];
+        private int count;
+
+        User(HttpClient client, String baseUrl, int id, long deadline, AtomicLong errors, CountDownLatch done) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.pathIndex = id % PATHS.size();
+            this.deadline = deadline;
+            this.errors = errors;
+            this.done = done;
+        }
+
+        void next() {
+            if (System.nanoTime() - deadline >= 0) {
+                done.countDown();
+                return;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + PATHS.get(pathIndex++ % PATHS.size())))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                if (failure != null || response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                } else {
+                    record((System.nanoTime() - sent) / 1000);
+                }
+                next();
+            });
+        }
+
+        private void record(long micros) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = micros;
+        }
+    }
+}
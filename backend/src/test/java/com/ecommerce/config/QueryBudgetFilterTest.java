@@ -0,0 +1,141 @@
+package com.ecommerce.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class QueryBudgetFilterTest {
+
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private final QueryTracker tracker = new QueryTracker();
+
+    @Test
+    void lookupsThatDifferOnlyInTheirArgumentsShareAShape() {
+        assertEquals("find products {_id:?}", QueryTracker.shape("find", findById("a")));
+        assertEquals(QueryTracker.shape("find", findById("a")), QueryTracker.shape("find", findById("b")));
+
+        BsonDocument byIds = new BsonDocument("find", new BsonString("users")).append("filter",
+                new BsonDocument("_id", new BsonDocument("$in", new BsonArray(List.of(new BsonString("x"),
+                        new BsonString("y"))))));
+        assertEquals("find users {_id:{$in:[?]}}", QueryTracker.shape("find", byIds));
+        assertNull(QueryTracker.shape("getMore", new BsonDocument("getMore", new BsonInt32(1))));
+    }
+
+    @Test
+    void countsAreSentAsHeadersAndRepeatedLookupsAreNamed() throws Exception {
+        MockMvc mockMvc = mockMvc(true, false);
+
+        mockMvc.perform(get("/lookups").param("count", "6"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryBudgetFilter.QUERIES_HEADER, "6"))
+                .andExpect(header().string(QueryBudgetFilter.DOCUMENTS_HEADER, "6"))
+                .andExpect(header().string(QueryBudgetFilter.REPEATED_HEADER, "6 x find products {_id:?}"));
+    }
+
+    @Test
+    void cursorBatchesAddDocumentsButNotQueries() throws Exception {
+        MockMvc mockMvc = mockMvc(true, true);
+
+        mockMvc.perform(get("/page"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryBudgetFilter.QUERIES_HEADER, "1"))
+                .andExpect(header().string(QueryBudgetFilter.DOCUMENTS_HEADER, "5"));
+    }
+
+    @Test
+    void endpointsOverTheirBudgetFailWhenEnforced() throws Exception {
+        MockMvc mockMvc = mockMvc(false, true);
+
+        mockMvc.perform(get("/lookups").param("count", "3")).andExpect(status().isOk());
+        // Thrown while the body is being written, before anything is committed, so it surfaces
+        // from the dispatcher rather than after a 200 has gone out
+        Exception thrown = assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/lookups").param("count", "4")));
+        Throwable e = thrown.getCause();
+        assertTrue(e instanceof IllegalStateException, String.valueOf(e));
+        assertTrue(e.getMessage().startsWith("GET /lookups sent 4 MongoDB commands, over its budget of 3"),
+                e.getMessage());
+    }
+
+    private MockMvc mockMvc(boolean headers, boolean failOnExceed) {
+        QueryBudgetFilter filter = new QueryBudgetFilter(tracker, new SimpleMeterRegistry(), 5, headers,
+                failOnExceed);
+        return MockMvcBuilders.standaloneSetup(new StubController(tracker)).addFilters(filter).build();
+    }
+
+    private static BsonDocument findById(String id) {
+        return new BsonDocument("find", new BsonString("products"))
+                .append("filter", new BsonDocument("_id", new BsonString(id)));
+    }
+
+    private static BsonDocument batch(String field, int size) {
+        List<BsonDocument> documents = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            documents.add(new BsonDocument("_id", new BsonInt32(i)));
+        }
+        return new BsonDocument("cursor", new BsonDocument(field, new BsonArray(documents)));
+    }
+
+    // Stands in for the driver, which calls the listener on the request thread
+    private static void send(QueryTracker tracker, String commandName, BsonDocument command, BsonDocument reply) {
+        tracker.commandStarted(new CommandStartedEvent(null, 1, 1, CONNECTION, "ecommerce", commandName, command));
+        tracker.commandSucceeded(new CommandSucceededEvent(null, 1, 1, CONNECTION, "ecommerce", commandName,
+                new RawBsonDocument(reply, new BsonDocumentCodec()), 1_000));
+    }
+
+    @RestController
+    static class StubController {
+
+        private final QueryTracker tracker;
+
+        StubController(QueryTracker tracker) {
+            this.tracker = tracker;
+        }
+
+        @GetMapping("/lookups")
+        @QueryBudget(3)
+        String lookups(@RequestParam int count) {
+            for (int i = 0; i < count; i++) {
+                send(tracker, "find", findById("p" + i), batch("firstBatch", 1));
+            }
+            return "ok";
+        }
+
+        @GetMapping("/page")
+        String page() {
+            send(tracker, "find", findById("p"), batch("firstBatch", 2));
+            send(tracker, "getMore", new BsonDocument("getMore", new BsonInt32(7)), batch("nextBatch", 3));
+            return "ok";
+        }
+    }
+}
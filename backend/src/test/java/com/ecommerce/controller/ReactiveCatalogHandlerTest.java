@@ -0,0 +1,89 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.config.ReactiveCatalogConfig;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ReactiveCategoryRepository;
+import com.ecommerce.repository.ReactiveProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveCatalogHandlerTest {
+
+    private final ReactiveProductRepository productRepository = mock(ReactiveProductRepository.class);
+    private final WebTestClient client = WebTestClient.bindToRouterFunction(new ReactiveCatalogConfig()
+                    .reactiveCatalogRoutes(new ReactiveCatalogHandler(productRepository,
+                            mock(ReactiveCategoryRepository.class))))
+            .build();
+
+    @Test
+    void streamsProductsAsJsonOrNdjson() {
+        when(productRepository.findByActiveTrue(any(Pageable.class)))
+                .thenAnswer(call -> Flux.just(product("p1"), product("p2")));
+
+        client.get().uri("/products").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$[1].id").isEqualTo("p2");
+
+        String body = client.get().uri("/products").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertEquals(2, body.lines().count());
+    }
+
+    @Test
+    void clampsPageSizeAndIgnoresUnknownSortFields() {
+        when(productRepository.findByActiveTrue(any(Pageable.class))).thenReturn(Flux.empty());
+
+        client.get().uri("/products?size=5000&sortBy=password").exchange().expectStatus().isOk();
+
+        verify(productRepository).findByActiveTrue(eq(PageRequest.of(0,
+                ReactiveCatalogHandler.MAX_PAGE_SIZE, Sort.by("createdAt").descending())));
+        client.get().uri("/products?page=x").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void searchMatchesTheQueryLiterally() {
+        when(productRepository.searchByName(any(), any(Pageable.class))).thenReturn(Flux.empty());
+
+        client.get().uri("/products/search?q=a.*").exchange().expectStatus().isOk();
+
+        verify(productRepository).searchByName(eq("\\Qa.*\\E"), any(Pageable.class));
+    }
+
+    @Test
+    void missingProductIsNotFound() {
+        when(productRepository.findById("nope")).thenReturn(Mono.empty());
+        when(productRepository.findById("p1")).thenReturn(Mono.just(product("p1")));
+
+        client.get().uri("/products/nope").exchange().expectStatus().isNotFound();
+        client.get().uri("/products/p1").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Product p1");
+    }
+
+    private static Product product(String id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("499.00"))
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderSalesRollup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderHistoryRepositoryImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OrderHistoryRepositoryImpl repository = new OrderHistoryRepositoryImpl(mongoTemplate, new ObjectMapper());
+
+    @Test
+    void archivedItemsSurviveTheRoundTrip() {
+        List<ArchivedOrder> archived = archive(order("o1", 400));
+        ArchivedOrder stored = archived.get(0);
+        assertEquals(2, stored.getItemCount());
+        assertTrue(stored.getItems().length > 0);
+
+        when(mongoTemplate.findById("o1", Order.class)).thenReturn(null);
+        when(mongoTemplate.findById("o1", ArchivedOrder.class)).thenReturn(stored);
+        Order restored = repository.findAnyById("o1").orElseThrow();
+
+        assertEquals(order("o1", 400).getItems(), restored.getItems());
+        assertEquals(Order.OrderStatus.DELIVERED, restored.getStatus());
+        assertEquals(NOW.minusDays(400), restored.getCreatedAt());
+    }
+
+    @Test
+    void historyPagesMergeBothTiersNewestFirst() {
+        List<Order> hot = List.of(order("h1", 1), order("h2", 3), order("h3", 5));
+        List<ArchivedOrder> cold = archive(order("c1", 2), order("c2", 400), order("c3", 500));
+
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenReturn(3L);
+        when(mongoTemplate.count(any(Query.class), eq(ArchivedOrder.class))).thenReturn(3L);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(hot);
+        when(mongoTemplate.find(any(Query.class), eq(ArchivedOrder.class))).thenReturn(cold);
+
+        Page<Order> first = repository.findHistoryByUserId("u1", PageRequest.of(0, 2));
+        assertEquals(List.of("h1", "c1"), first.getContent().stream().map(Order::getId).toList());
+        assertEquals(6, first.getTotalElements());
+
+        Page<Order> second = repository.findHistoryByUserId("u1", PageRequest.of(1, 2));
+        assertEquals(List.of("h2", "h3"), second.getContent().stream().map(Order::getId).toList());
+    }
+
+    @Test
+    void streamedHistoryMergesTiersOnIdAndPrefersTheLiveCopy() {
+        List<ArchivedOrder> cold = archive(order("b", 400), order("c", 400));
+        Order liveCopy = order("c", 400);
+        liveCopy.setStatus(Order.OrderStatus.RETURNED);
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order("a", 1), liveCopy));
+        when(mongoTemplate.stream(any(Query.class), eq(ArchivedOrder.class))).thenReturn(cold.stream());
+
+        List<Order> merged;
+        try (Stream<Order> history = repository.streamHistoryByCreatedAtBetween(NOW.minusYears(2), NOW)) {
+            merged = history.toList();
+        }
+
+        assertEquals(List.of("a", "b", "c"), merged.stream().map(Order::getId).toList());
+        assertEquals(Order.OrderStatus.RETURNED, merged.get(2).getStatus());
+    }
+
+    @Test
+    void anOrderChangedAfterItWasCopiedStaysLiveAndLosesItsCopy() {
+        Order changed = order("o2", 400);
+        BulkOperations copies = mock(BulkOperations.class);
+        BulkOperations removals = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedOrder.class)).thenReturn(copies);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(removals);
+        when(removals.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(changed));
+
+        assertEquals(1, repository.archive(List.of(order("o1", 400), changed)));
+
+        ArgumentCaptor<Query> removal = ArgumentCaptor.forClass(Query.class);
+        verify(removals, times(2)).remove(removal.capture());
+        Document expected = removal.getAllValues().get(1).getQueryObject();
+        assertEquals(Order.OrderStatus.DELIVERED, expected.get("status"));
+        assertEquals(Order.PaymentStatus.COMPLETED, expected.get("paymentStatus"));
+        assertTrue(expected.containsKey("updatedAt"));
+        ArgumentCaptor<Query> dropped = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(dropped.capture(), eq(ArchivedOrder.class));
+        assertEquals(List.of("o2"), new ArrayList<>(dropped.getValue().getQueryObject()
+                .get("_id", Document.class).get("$in", Collection.class)));
+    }
+
+    @Test
+    void salesTotalsAddRecentlyArchivedAndLiveOrdersToTheStoredRollup() {
+        OrderSalesRollup stored = OrderSalesRollup.builder().id("archive").archivedThrough(NOW).build();
+        stored.add("p1", "Lamp", 10, new BigDecimal("4990.00"));
+        stored.setRevenue(new BigDecimal("5000.00"));
+        when(mongoTemplate.findById("archive", OrderSalesRollup.class)).thenReturn(stored);
+        ArchivedOrder recent = archive(order("c1", 2)).get(0);
+        when(mongoTemplate.stream(any(Query.class), eq(ArchivedOrder.class))).thenReturn(Stream.of(recent));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Order.class), eq(Document.class))).thenReturn(
+                new AggregationResults<>(List.of(new Document("revenue", new Decimal128(new BigDecimal("100.00")))),
+                        new Document()),
+                new AggregationResults<>(List.of(new Document("_id", "p2").append("name", "Bulb").append("quantity", 4)
+                        .append("revenue", new Decimal128(new BigDecimal("198.00")))), new Document()));
+
+        OrderSalesRollup totals = repository.findSalesTotals();
+
+        assertEquals(new BigDecimal("6147.50"), totals.getRevenue());
+        assertEquals(12, totals.getProducts().get("p1").getQuantity());
+        assertEquals(new BigDecimal("5988.00"), totals.getProducts().get("p1").getRevenue());
+        assertEquals(5, totals.getProducts().get("p2").getQuantity());
+        assertEquals(new BigDecimal("247.50"), totals.getProducts().get("p2").getRevenue());
+    }
+
+    private List<ArchivedOrder> archive(Order... orders) {
+        BulkOperations copies = mock(BulkOperations.class);
+        BulkOperations removals = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedOrder.class)).thenReturn(copies);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(removals);
+        when(removals.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, orders.length, 0, List.of(), List.of()));
+
+        assertEquals(orders.length, repository.archive(List.of(orders)));
+
+        ArgumentCaptor<ArchivedOrder> copied = ArgumentCaptor.forClass(ArchivedOrder.class);
+        verify(copies, times(orders.length)).replaceOne(any(Query.class), copied.capture(),
+                any(FindAndReplaceOptions.class));
+        return new ArrayList<>(copied.getAllValues());
+    }
+
+    private static Order order(String id, int daysAgo) {
+        List<Order.OrderItem> items = List.of(
+                Order.OrderItem.builder().productId("p1").productName("Lamp").price(new BigDecimal("499.00"))
+                        .quantity(2).subtotal(new BigDecimal("998.00")).build(),
+                Order.OrderItem.builder().productId("p2").productName("Bulb").price(new BigDecimal("49.50"))
+                        .quantity(1).subtotal(new BigDecimal("49.50")).build());
+        return Order.builder()
+                .id(id)
+                .userId("u1")
+                .items(new ArrayList<>(items))
+                .status(Order.OrderStatus.DELIVERED)
+                .paymentStatus(Order.PaymentStatus.COMPLETED)
+                .totalAmount(new BigDecimal("1047.50"))
+                .createdAt(NOW.minusDays(daysAgo))
+                .build();
+    }
+}
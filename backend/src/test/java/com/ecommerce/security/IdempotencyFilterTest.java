@@ -0,0 +1,156 @@
+package com.ecommerce.security;
+
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private final IdempotencyFilter filter = new IdempotencyFilter(idempotencyService(), new ObjectMapper().findAndRegisterModules(),
+            List.of("/api/orders/**"));
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentDuplicatesRunTheHandlerOnceAndReplayItsResponse() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain checkout = (request, response) -> {
+            executions.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.getWriter().write("{\"order\":\"ORD1\"}");
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(pool.submit(() -> send("{\"cart\":1}", checkout)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        int replayed = 0;
+        for (Future<MockHttpServletResponse> future : responses) {
+            MockHttpServletResponse response = future.get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"order\":\"ORD1\"}", response.getContentAsString());
+            if ("true".equals(response.getHeader(IdempotencyFilter.REPLAYED_HEADER))) {
+                replayed++;
+            }
+        }
+        pool.shutdown();
+        assertEquals(1, executions.get());
+        assertEquals(3, replayed);
+    }
+
+    @Test
+    void reusingAKeyWithADifferentBodyIsRejected() throws Exception {
+        FilterChain checkout = (request, response) -> executions.incrementAndGet();
+
+        assertEquals(200, send("{\"cart\":1}", checkout).getStatus());
+        MockHttpServletResponse mismatch = send("{\"cart\":2}", checkout);
+
+        assertEquals(422, mismatch.getStatus());
+        assertTrue(mismatch.getContentAsString().contains("different request"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void handlersCanReadTheCachedBodyWithAReadListener() throws Exception {
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicInteger allRead = new AtomicInteger();
+        FilterChain asyncReader = (request, response) -> {
+            ServletInputStream in = request.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (in.isReady() && !in.isFinished()) {
+                        read.write(in.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        };
+
+        send("{\"cart\":1}", asyncReader);
+
+        assertEquals("{\"cart\":1}", read.toString(StandardCharsets.UTF_8));
+        assertEquals(1, allRead.get());
+    }
+
+    private MockHttpServletResponse send(String body, FilterChain chain) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.addHeader(IdempotencyFilter.HEADER, "checkout-1");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static IdempotencyService idempotencyService() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(IdempotencyRecord.class))).thenAnswer(call -> {
+                    Document set = call.<Update>getArgument(1).getUpdateObject().get("$set", Document.class);
+                    return IdempotencyRecord.builder()
+                            .status(IdempotencyRecord.Status.COMPLETED)
+                            .responseStatus(set.getInteger("responseStatus"))
+                            .responseContentType(set.getString("responseContentType"))
+                            .responseBody((byte[]) set.get("responseBody"))
+                            .build();
+                });
+        return new IdempotencyService(mongoTemplate, 60, 60_000, 5_000, 60_000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.AdminActivityLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdminActivityLogWriterTest {
+
+    @Test
+    void ringBufferHandsEveryItemToTheConsumerOnce() throws InterruptedException {
+        RingBuffer<Integer> ring = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            pool.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> drained = new ArrayList<>();
+        while (seen.size() < producers * perProducer) {
+            drained.clear();
+            ring.drainTo(drained, 32);
+            for (Integer item : drained) {
+                assertTrue(seen.add(item), "delivered twice: " + item);
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, ring.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3), drained);
+        assertTrue(ring.offer(5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writerBatchesEntriesAndFlushesOnShutdown() throws InterruptedException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        List<AdminActivityLog> inserted = new ArrayList<>();
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminActivityLog.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenAnswer(call -> {
+            synchronized (inserted) {
+                inserted.addAll((List<AdminActivityLog>) call.getArgument(0));
+            }
+            return bulk;
+        });
+
+        AdminActivityLogWriter writer = new AdminActivityLogWriter(mongoTemplate, 1024, 100, 50, 5, 10);
+        writer.start();
+        for (int i = 0; i < 250; i++) {
+            assertTrue(writer.write(AdminActivityLog.builder().action("UPDATE_PRODUCT").entityId("p" + i).build()));
+        }
+        writer.shutdown();
+
+        assertEquals(250, inserted.size());
+        assertEquals(250, inserted.stream().map(AdminActivityLog::getId).distinct().count());
+        assertEquals(250L, writer.getStats().get("written"));
+        assertEquals(0L, writer.getStats().get("dropped"));
+    }
+
+    @Test
+    void batchThatKeepsFailingIsDroppedAfterTheLastAttempt() throws InterruptedException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminActivityLog.class))
+                .thenThrow(new IllegalStateException("mongo down"));
+
+        AdminActivityLogWriter writer = new AdminActivityLogWriter(mongoTemplate, 1024, 10, 10, 3, 10);
+        writer.start();
+        for (int i = 0; i < 10; i++) {
+            writer.write(AdminActivityLog.builder().action("UPDATE_PRODUCT").entityId("p" + i).build());
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((Long) writer.getStats().get("dropped") < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.shutdown();
+
+        assertEquals(10L, writer.getStats().get("dropped"));
+        assertEquals(3L, writer.getStats().get("failedBatches"));
+        assertEquals(0L, writer.getStats().get("written"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.CursorPageResponse;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.AdminActivityLog;
+import com.ecommerce.repository.UserRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdminManagementServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final AdminManagementService service = new AdminManagementService(mock(UserRepository.class),
+            mock(AdminActivityLogWriter.class), mongoTemplate);
+
+    @Test
+    void pagesContinueAfterTheLastEntryOfThePreviousPage() {
+        LocalDateTime now = LocalDateTime.of(2025, 6, 1, 12, 0);
+        List<AdminActivityLog> stored = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            stored.add(AdminActivityLog.builder().id(new ObjectId().toHexString()).entityType("ORDER")
+                    .timestamp(now.minusMinutes(i)).build());
+        }
+        when(mongoTemplate.find(any(Query.class), eq(AdminActivityLog.class))).thenReturn(stored);
+
+        CursorPageResponse<AdminActivityLog> first = service.getLogs(null, "ORDER", null, null, null, 2);
+        assertEquals(2, first.getSize());
+        AdminActivityLog last = stored.get(1);
+        AdminManagementService.LogCursor cursor = AdminManagementService.LogCursor.parse(first.getNextCursor());
+        assertEquals(last.getTimestamp(), cursor.timestamp());
+        assertEquals(last.getId(), cursor.id().toHexString());
+
+        when(mongoTemplate.find(any(Query.class), eq(AdminActivityLog.class))).thenReturn(stored.subList(2, 3));
+        CursorPageResponse<AdminActivityLog> second = service.getLogs(null, "ORDER", null, null,
+                first.getNextCursor(), 2);
+        assertNull(second.getNextCursor());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(query.capture(), eq(AdminActivityLog.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("ORDER", filter.get("entityType"));
+        assertTrue(filter.containsKey("$or"));
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals(new Document("timestamp", -1).append("_id", -1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(BadRequestException.class,
+                () -> service.getLogs(null, null, null, null, "not-a-cursor", 20));
+    }
+}
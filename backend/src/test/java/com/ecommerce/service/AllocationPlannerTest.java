@@ -0,0 +1,91 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Warehouse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AllocationPlannerTest {
+
+    @Test
+    void prefersSingleNearbyWarehouseThatCoversEverything() {
+        List<Warehouse> warehouses = List.of(warehouse("w1", "Delhi"), warehouse("w2", "Karnataka"));
+        Map<String, Map<String, Integer>> stock = Map.of(
+                "w1", Map.of("a", 5, "b", 5),
+                "w2", Map.of("a", 5, "b", 5));
+
+        List<AllocationPlanner.Line> lines = AllocationPlanner.plan(Map.of("a", 2, "b", 1), "karnataka",
+                warehouses, stock);
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.stream().allMatch(line -> "w2".equals(line.warehouseId())));
+    }
+
+    @Test
+    void splitsAcrossWarehousesAndReportsShortfall() {
+        List<Warehouse> warehouses = List.of(warehouse("w1", "Delhi"), warehouse("w2", "Goa"));
+        Map<String, Map<String, Integer>> stock = Map.of(
+                "w1", Map.of("a", 3),
+                "w2", Map.of("a", 1, "b", 2));
+        Map<String, Integer> demand = new LinkedHashMap<>();
+        demand.put("a", 5);
+        demand.put("b", 2);
+
+        List<AllocationPlanner.Line> lines = AllocationPlanner.plan(demand, "Delhi", warehouses, stock);
+
+        assertEquals(4, units(lines, "w1", "a") + units(lines, "w2", "a"));
+        assertEquals(2, units(lines, "w2", "b"));
+        AllocationPlanner.Line shortfall = lines.stream().filter(line -> line.warehouseId() == null).findFirst().orElseThrow();
+        assertNull(shortfall.warehouseId());
+        assertEquals("a", shortfall.productId());
+        assertEquals(1, shortfall.quantity());
+    }
+
+    @Test
+    void plansEveryUnitOfRandomOrdersAcrossFiftyWarehouses() {
+        Random random = new Random(42);
+        List<Warehouse> warehouses = new ArrayList<>();
+        Map<String, Map<String, Integer>> stock = new HashMap<>();
+        for (int w = 0; w < 50; w++) {
+            warehouses.add(warehouse("w" + w, "S" + (w % 10)));
+            Map<String, Integer> levels = new HashMap<>();
+            for (int p = 0; p < 200; p++) {
+                if (random.nextInt(3) == 0) {
+                    levels.put("p" + p, random.nextInt(20));
+                }
+            }
+            stock.put("w" + w, levels);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            Map<String, Integer> demand = new HashMap<>();
+            for (int k = 0; k < 1 + random.nextInt(5); k++) {
+                demand.merge("p" + random.nextInt(200), 1 + random.nextInt(3), Integer::sum);
+            }
+            List<AllocationPlanner.Line> lines = AllocationPlanner.plan(demand, "S" + random.nextInt(10),
+                    warehouses, stock);
+            int planned = lines.stream().mapToInt(AllocationPlanner.Line::quantity).sum();
+            assertEquals(demand.values().stream().mapToInt(Integer::intValue).sum(), planned);
+        }
+    }
+
+    private static int units(List<AllocationPlanner.Line> lines, String warehouseId, String productId) {
+        return lines.stream()
+                .filter(line -> warehouseId.equals(line.warehouseId()) && productId.equals(line.productId()))
+                .mapToInt(AllocationPlanner.Line::quantity)
+                .sum();
+    }
+
+    private static Warehouse warehouse(String id, String state) {
+        return Warehouse.builder().id(id).name(id).state(state).build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.model.AdminActivityLog;
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AuditTrailTest {
+
+    private final AdminActivityLogWriter writer = mock(AdminActivityLogWriter.class);
+    private final AuditTrail auditTrail = new AuditTrail(writer, new ObjectMapper(), 64, 100);
+
+    public static class ProductAdmin {
+        private final Product product = Product.builder().id("p1").name("Lamp")
+                .price(new BigDecimal("100")).stockQuantity(5).build();
+
+        @Audited(action = "UPDATE_PRODUCT", entityType = "PRODUCT")
+        public ResponseEntity<ApiResponse<Product>> update(String id, BigDecimal price) {
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("negative price");
+            }
+            product.setPrice(price);
+            return ResponseEntity.ok(ApiResponse.success(copy()));
+        }
+
+        @Audited(action = "CREATE_PRODUCT", entityType = "PRODUCT")
+        public Product create(Map<String, Object> body) {
+            return copy();
+        }
+
+        private Product copy() {
+            return Product.builder().id(product.getId()).name(product.getName())
+                    .price(product.getPrice()).stockQuantity(product.getStockQuantity()).build();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        auditTrail.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        auditTrail.shutdown();
+    }
+
+    @Test
+    void successfulCallsAreLoggedWithDiffsAgainstTheLastAuditedState() throws InterruptedException {
+        ProductAdmin admin = proxy();
+
+        admin.update("p1", new BigDecimal("120"));
+        admin.update("p1", new BigDecimal("90"));
+        assertThrows(IllegalArgumentException.class, () -> admin.update("p1", new BigDecimal("-1")));
+
+        ArgumentCaptor<AdminActivityLog> entries = ArgumentCaptor.forClass(AdminActivityLog.class);
+        verify(writer, timeout(5000).times(2)).write(entries.capture());
+        List<AdminActivityLog> logged = entries.getAllValues();
+
+        AdminActivityLog first = logged.get(0);
+        assertEquals("UPDATE_PRODUCT", first.getAction());
+        assertEquals("p1", first.getEntityId());
+        assertEquals("SYSTEM", first.getAdminId());
+        assertTrue(first.getDetails().containsKey("state"));
+        // Nothing cached for p1 yet, so this is not presented as a creation
+        assertEquals("unknown", first.getDetails().get("before"));
+        assertEquals("Update product p1 (before-state unknown)", first.getDescription());
+        assertEquals(Map.of("price", new BigDecimal("120")), first.getDetails().get("arguments"));
+
+        AdminActivityLog second = logged.get(1);
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> changes = (Map<String, Map<String, Object>>) second.getDetails().get("changes");
+        assertEquals(List.of("price"), List.copyOf(changes.keySet()));
+        assertEquals("120", changes.get("price").get("from").toString());
+        assertEquals("90", changes.get("price").get("to").toString());
+        assertEquals("Update product p1: price", second.getDescription());
+        assertFalse(second.getDetails().containsKey("before"));
+        // The worker counts an entry after handing it to the writer
+        auditTrail.shutdown();
+        assertEquals(2L, auditTrail.getStats().get("processed"));
+    }
+
+    @Test
+    void entityIdFallsBackToTheReturnedEntity() throws Exception {
+        AdminActivityLog entry = auditTrail.toLogEntry(new AuditTrail.Call(
+                ProductAdmin.class.getMethod("create", Map.class).getAnnotation(Audited.class),
+                ProductAdmin.class.getMethod("create", Map.class),
+                new Object[] {Map.of("name", "Lamp")},
+                new ProductAdmin().create(Map.of()),
+                new AdminActivityLog()));
+
+        assertEquals("p1", entry.getEntityId());
+        assertFalse(entry.getDetails().containsKey("arguments"));
+        assertEquals("Create product p1", entry.getDescription());
+    }
+
+    @Test
+    void shutdownHandsOverEverythingStillBuffered() throws Exception {
+        AdminActivityLogWriter bigWriter = mock(AdminActivityLogWriter.class);
+        AuditTrail trail = new AuditTrail(bigWriter, new ObjectMapper(), 256, 100);
+        trail.start();
+        Method create = ProductAdmin.class.getMethod("create", Map.class);
+        for (int i = 0; i < 200; i++) {
+            trail.record(create.getAnnotation(Audited.class), create, new Object[] {Map.of()}, null);
+        }
+        trail.shutdown();
+
+        verify(bigWriter, times(200)).write(any(AdminActivityLog.class));
+        assertEquals(200L, trail.getStats().get("processed"));
+    }
+
+    @Test
+    void redactionReachesNestedMapsAndLists() {
+        Map<String, Object> user = new HashMap<>(Map.of("email", "a@b.c", "password", "x"));
+        Map<String, Object> session = new HashMap<>(Map.of("refreshToken", "r", "device", "phone"));
+        Map<String, Object> body = new HashMap<>(Map.of("user", user, "sessions", new ArrayList<>(List.of(session)),
+                "token", "t"));
+
+        AuditTrail.redact(body);
+
+        assertEquals(Map.of("user", Map.of("email", "a@b.c"), "sessions", List.of(Map.of("device", "phone"))), body);
+    }
+
+    @Test
+    void diffReportsAddedRemovedAndChangedFields() {
+        Map<String, Map<String, Object>> changes = AuditTrail.diff(
+                Map.of("name", "Lamp", "stock", 5, "sku", "L-1"),
+                Map.of("name", "Lamp", "stock", 4, "tag", "sale"));
+
+        assertEquals(List.of("sku", "stock", "tag"), List.copyOf(changes.keySet()));
+        assertNull(changes.get("sku").get("to"));
+        assertNull(changes.get("tag").get("from"));
+    }
+
+    private ProductAdmin proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ProductAdmin());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new AuditAspect(auditTrail));
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DomainEventLogTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @Test
+    void aDeliveryLeasedElsewhereIsNotRun() throws Exception {
+        DomainEventLog log = log(event -> handled.incrementAndGet());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DomainEvent.class))).thenReturn(null);
+
+        deliver(log);
+
+        assertEquals(0, handled.get());
+        // The claim takes due pending deliveries and running ones whose lease has expired
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> lease = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(claim.capture(), lease.capture(), any(FindAndModifyOptions.class),
+                eq(DomainEvent.class));
+        List<?> branches = claim.getValue().getQueryObject().get("$or", List.class);
+        assertEquals(2, branches.size());
+        assertTrue(branches.get(1).toString().contains("leaseUntil"));
+        Document set = lease.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(DomainEvent.DeliveryStatus.RUNNING, set.get("deliveries.test.status"));
+        LocalDateTime leaseUntil = (LocalDateTime) set.get("deliveries.test.leaseUntil");
+        assertTrue(leaseUntil.isAfter(LocalDateTime.now().plusSeconds(50)));
+    }
+
+    @Test
+    void aFailedAttemptIsRescheduledWithBackoff() throws Exception {
+        DomainEventLog log = log(event -> {
+            throw new IllegalStateException("downstream unavailable");
+        });
+        claimedOnAttempt(2);
+
+        deliver(log);
+
+        Document set = lastOutcome().get("$set", Document.class);
+        assertEquals(DomainEvent.DeliveryStatus.PENDING, set.get("deliveries.test.status"));
+        assertEquals("downstream unavailable", set.get("deliveries.test.lastError"));
+        long backoff = Duration.between(LocalDateTime.now(), (LocalDateTime) set.get("deliveries.test.nextAttemptAt"))
+                .toSeconds();
+        assertTrue(backoff >= 3 && backoff <= 4, "backoff " + backoff);
+    }
+
+    @Test
+    void theLastAttemptIsDeadLetteredAndLeavesThePendingList() throws Exception {
+        DomainEventLog log = log(event -> {
+            throw new IllegalStateException("still failing");
+        });
+        claimedOnAttempt(MAX_ATTEMPTS);
+
+        deliver(log);
+
+        Document outcome = lastOutcome();
+        assertEquals(DomainEvent.DeliveryStatus.DEAD,
+                outcome.get("$set", Document.class).get("deliveries.test.status"));
+        assertEquals("test", outcome.get("$pull", Document.class).get("pendingHandlers"));
+        assertEquals(1L, log.getStats().get("test").get("deadLettered"));
+    }
+
+    private DomainEventLog log(Consumer<DomainEvent> handle) {
+        DomainEventHandler handler = new DomainEventHandler() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public boolean handles(String eventType) {
+                return true;
+            }
+
+            @Override
+            public void handle(DomainEvent event) {
+                handle.accept(event);
+            }
+        };
+        return new DomainEventLog(mongoTemplate, List.of(handler), 1, 10, MAX_ATTEMPTS, 60_000, 5_000);
+    }
+
+    private void claimedOnAttempt(int attempts) {
+        DomainEvent claimed = event();
+        claimed.getDeliveries().get("test").setStatus(DomainEvent.DeliveryStatus.RUNNING);
+        claimed.getDeliveries().get("test").setAttempts(attempts);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DomainEvent.class))).thenReturn(claimed);
+    }
+
+    private void deliver(DomainEventLog log) throws InterruptedException {
+        log.publish(event());
+        log.shutdown();
+    }
+
+    private Document lastOutcome() {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), updates.capture(), eq(DomainEvent.class));
+        // The delivery outcome comes first, then the completedAt check
+        return updates.getAllValues().get(0).getUpdateObject();
+    }
+
+    private static DomainEvent event() {
+        DomainEvent event = DomainEvent.builder()
+                .id("e1")
+                .type(DomainEvent.ORDER_PLACED)
+                .aggregateId("o1")
+                .createdAt(LocalDateTime.now())
+                .build();
+        event.getPendingHandlers().add("test");
+        event.getDeliveries().put("test", DomainEvent.Delivery.builder()
+                .status(DomainEvent.DeliveryStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+        return event;
+    }
+}
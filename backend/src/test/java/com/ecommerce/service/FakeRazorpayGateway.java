@@ -0,0 +1,79 @@
+package com.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Stands in for Razorpay in tests. Builds signed webhook deliveries for a payment's lifecycle and
+ * replays them the way a gateway retrying over a flaky network does: shuffled and with duplicates.
+ * The same seed always gives the same burst.
+ */
+class FakeRazorpayGateway {
+
+    record Delivery(String eventId, String signature, String body) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String secret;
+    private final Random random;
+    private int sequence;
+
+    FakeRazorpayGateway(String secret, long seed) {
+        this.secret = secret;
+        this.random = new Random(seed);
+    }
+
+    // One delivery per event type, in the order the gateway emitted them
+    List<Delivery> lifecycle(String gatewayOrderId, long amountPaise, String... eventTypes) {
+        String paymentId = "pay_" + gatewayOrderId;
+        List<Delivery> deliveries = new ArrayList<>();
+        for (String type : eventTypes) {
+            ObjectNode root = objectMapper.createObjectNode();
+            root.put("entity", "event");
+            root.put("event", type);
+            root.put("created_at", 1_700_000_000L + sequence);
+            ObjectNode payment = root.putObject("payload").putObject("payment").putObject("entity");
+            payment.put("id", paymentId);
+            payment.put("order_id", gatewayOrderId);
+            payment.put("amount", amountPaise);
+            payment.put("currency", "INR");
+            payment.put("method", "upi");
+            if (type.equals(PaymentWebhookService.PAYMENT_FAILED)) {
+                payment.put("error_description", "Payment declined by bank");
+            }
+            if (type.equals(PaymentWebhookService.REFUND_PROCESSED)) {
+                ObjectNode refund = ((ObjectNode) root.get("payload")).putObject("refund").putObject("entity");
+                refund.put("id", "rfnd_" + gatewayOrderId);
+                refund.put("payment_id", paymentId);
+                refund.put("amount", amountPaise);
+            }
+            deliveries.add(sign("evt_" + (++sequence), root.toString()));
+        }
+        return deliveries;
+    }
+
+    // The events in random order, with some of them delivered more than once
+    List<Delivery> burst(List<Delivery> events, int duplicates) {
+        List<Delivery> burst = new ArrayList<>(events);
+        for (int i = 0; i < duplicates; i++) {
+            burst.add(events.get(random.nextInt(events.size())));
+        }
+        Collections.shuffle(burst, random);
+        return burst;
+    }
+
+    Delivery sign(String eventId, String body) {
+        try {
+            return new Delivery(eventId, Utils.getHash(body, secret), body);
+        } catch (RazorpayException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockReservation;
+import com.ecommerce.repository.ProductRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlashSaleServiceTest {
+
+    @Test
+    void concurrentBuyersNeverOversell() throws InterruptedException {
+        MongoTemplate mongoTemplate = mongoWithStock(100);
+        FlashSaleService service = new FlashSaleService(mock(ProductRepository.class), mock(StockHistoryWriter.class),
+                mongoTemplate, mock(LowStockMonitor.class));
+        service.enable("p1");
+
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            pool.execute(() -> {
+                if (service.tryReserve("p1", 1, "order")) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(100, accepted.get());
+        assertEquals(0, service.getRemaining().get("p1"));
+        assertFalse(service.tryReserve("p1", 1, "late"));
+    }
+
+    @Test
+    void disableWritesAcceptedHoldsBeforeHandingStockBack() {
+        MongoTemplate mongoTemplate = mongoWithStock(10);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        FlashSaleService service = new FlashSaleService(mock(ProductRepository.class), mock(StockHistoryWriter.class),
+                mongoTemplate, mock(LowStockMonitor.class));
+        service.enable("p1");
+        assertTrue(service.tryReserve("p1", 3, "order"));
+
+        service.disable("p1");
+
+        InOrder inOrder = inOrder(bulk, mongoTemplate);
+        inOrder.verify(bulk).execute();
+        inOrder.verify(mongoTemplate).updateFirst(any(Query.class), eq(Update.update("flashSale", false)),
+                eq(Product.class));
+        assertFalse(service.isActive("p1"));
+    }
+
+    @Test
+    void restoreDeductsTakesThatWereReservedButNeverFlushed() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findByFlashSaleTrue()).thenReturn(List.of(
+                Product.builder().id("p1").stockQuantity(10).reservedQuantity(2).flashSale(true).build()));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(StockReservation.class))).thenReturn(List.of(
+                held("o1", 2), held("o2", 3)));
+        ArgumentCaptor<Update> repair = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.findAndModify(any(Query.class), repair.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(
+                Product.builder().id("p1").stockQuantity(7).reservedQuantity(5).flashSale(true).build());
+        FlashSaleService service = new FlashSaleService(productRepository, mock(StockHistoryWriter.class),
+                mongoTemplate, mock(LowStockMonitor.class));
+
+        service.restoreLedgers();
+
+        // o1 was flushed before the crash, o2's three units were still queued
+        assertEquals(new Document("stockQuantity", -3).append("reservedQuantity", 3),
+                repair.getValue().getUpdateObject().get("$inc"));
+        assertEquals(7, service.getRemaining().get("p1"));
+    }
+
+    private static StockReservation held(String orderId, int quantity) {
+        return StockReservation.builder().orderId(orderId).status(StockReservation.ReservationStatus.HELD)
+                .items(List.of(new StockReservation.Item("p1", quantity))).build();
+    }
+
+    // The product as returned by the findAndModify that sets the flash-sale flag
+    private static MongoTemplate mongoWithStock(int stock) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(Product.builder().id("p1").stockQuantity(stock).flashSale(true).build());
+        return mongoTemplate;
+    }
+}
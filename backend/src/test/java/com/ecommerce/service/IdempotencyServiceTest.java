@@ -0,0 +1,87 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.IdempotencyRecord;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstRequestAndReplayIt() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        IdempotencyRecord stored = IdempotencyRecord.builder()
+                .id("user:key")
+                .status(IdempotencyRecord.Status.COMPLETED)
+                .responseStatus(200)
+                .responseBody("{\"ok\":true}".getBytes())
+                .build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(IdempotencyRecord.class))).thenReturn(stored);
+        IdempotencyService service = new IdempotencyService(mongoTemplate, 60, 60_000, 5_000, 60_000);
+
+        IdempotencyService.Claim first = service.begin("user:key", "hash");
+        assertEquals(IdempotencyService.Outcome.EXECUTE, first.outcome());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch started = new CountDownLatch(8);
+        List<Future<IdempotencyService.Claim>> duplicates = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            duplicates.add(pool.submit(() -> {
+                started.countDown();
+                return service.begin("user:key", "hash");
+            }));
+        }
+        started.await();
+        Thread.sleep(100);
+        service.complete("user:key", 200, "application/json", "{\"ok\":true}".getBytes());
+
+        for (Future<IdempotencyService.Claim> duplicate : duplicates) {
+            IdempotencyService.Claim claim = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals(IdempotencyService.Outcome.REPLAY, claim.outcome());
+            assertEquals(200, claim.record().getResponseStatus());
+        }
+        pool.shutdown();
+
+        // Only the first request claimed the key in Mongo
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+        assertEquals(IdempotencyService.Outcome.MISMATCH, service.begin("user:key", "other").outcome());
+    }
+
+    @Test
+    void theOwnerRenewsItsLeaseUntilTheRequestFinishes() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        IdempotencyService service = new IdempotencyService(mongoTemplate, 60, 60_000, 5_000, 30_000);
+
+        assertEquals(IdempotencyService.Outcome.EXECUTE, service.begin("user:key", "hash").outcome());
+        service.renewLeases();
+        ArgumentCaptor<Query> renewed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(renewed.capture(), any(Update.class), eq(IdempotencyRecord.class));
+        assertEquals(List.of("user:key"),
+                renewed.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+
+        service.complete("user:key", 200, "application/json", new byte[0]);
+        service.renewLeases();
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @TempDir
+    Path cacheDir;
+
+    private final PdfService pdfService = mock(PdfService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private InvoiceService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rendersOncePerOrderVersion() throws IOException {
+        service = new InvoiceService(pdfService, orderRepository, cacheDir.toString(), 30, 1);
+        Order order = order("o1", "ORD1");
+        when(pdfService.generateInvoice(any())).thenReturn(new byte[]{1}, new byte[]{2});
+
+        assertArrayEquals(new byte[]{1}, service.getInvoice(order));
+        assertArrayEquals(new byte[]{1}, service.getInvoice(order));
+        verify(pdfService, times(1)).generateInvoice(any());
+
+        // A status change bumps updatedAt, which must not serve the old document
+        order.setUpdatedAt(CREATED.plusDays(1));
+        assertArrayEquals(new byte[]{2}, service.getInvoice(order));
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void zipKeepsOrderAcrossWorkers() throws IOException {
+        service = new InvoiceService(pdfService, orderRepository, cacheDir.toString(), 30, 2);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            orders.add(order("o" + i, "ORD" + i));
+        }
+        when(orderRepository.streamHistoryByCreatedAtBetween(any(), any())).thenReturn(orders.stream());
+        when(pdfService.generateInvoice(any()))
+                .thenAnswer(call -> ((Order) call.getArgument(0)).getOrderNumber().getBytes());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeInvoiceZip(CREATED, CREATED.plusDays(1), out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+                assertEquals("invoice_" + new String(zip.readAllBytes()) + ".pdf", entry.getName());
+            }
+        }
+        assertEquals(orders.stream().map(o -> "invoice_" + o.getOrderNumber() + ".pdf").toList(), names);
+    }
+
+    private static Order order(String id, String orderNumber) {
+        return Order.builder()
+                .id(id)
+                .orderNumber(orderNumber)
+                .status(Order.OrderStatus.DELIVERED)
+                .createdAt(CREATED)
+                .updatedAt(CREATED)
+                .build();
+    }
+}
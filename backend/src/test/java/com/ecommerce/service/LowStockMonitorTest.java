@@ -0,0 +1,58 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LowStockMonitorTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final LowStockMonitor monitor = new LowStockMonitor(mongoTemplate, 10);
+
+    @Test
+    void unchangedThresholdOnlyBackfillsProductsWithoutAFlag() {
+        recordedThreshold(10);
+
+        monitor.initialiseFlags();
+
+        Document query = backfillQuery();
+        assertTrue(query.containsKey("lowStock"));
+        verify(mongoTemplate, never()).save(any(Document.class), eq(LowStockMonitor.STATE_COLLECTION));
+    }
+
+    @Test
+    void changedThresholdRecomputesEveryStaleFlagAndRecordsTheNewThreshold() {
+        recordedThreshold(5);
+
+        monitor.initialiseFlags();
+
+        assertTrue(backfillQuery().containsKey("$expr"));
+        ArgumentCaptor<Document> state = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).save(state.capture(), eq(LowStockMonitor.STATE_COLLECTION));
+        assertEquals(10, state.getValue().get("defaultThreshold"));
+    }
+
+    private void recordedThreshold(int threshold) {
+        when(mongoTemplate.findById(LowStockMonitor.BACKFILL_STATE_ID, Document.class, LowStockMonitor.STATE_COLLECTION))
+                .thenReturn(new Document("_id", LowStockMonitor.BACKFILL_STATE_ID).append("defaultThreshold", threshold));
+    }
+
+    private Document backfillQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(UpdateDefinition.class), eq(Product.class));
+        return query.getValue().getQueryObject();
+    }
+}
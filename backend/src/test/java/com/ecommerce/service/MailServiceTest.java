@@ -0,0 +1,24 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class MailServiceTest {
+
+    @Test
+    void waitingOnADiscardedSendEndsInServiceUnavailable() throws Exception {
+        MailService mailService = new MailService(mock(JavaMailSender.class));
+        ReflectionTestUtils.setField(mailService, "awaitTimeoutMillis", 50L);
+
+        // What the mail pool leaves behind when its queue is full: a future nobody completes
+        assertThrows(ServiceUnavailableException.class, () -> mailService.awaitSent(new CompletableFuture<>()));
+        mailService.awaitSent(CompletableFuture.completedFuture(null));
+    }
+}
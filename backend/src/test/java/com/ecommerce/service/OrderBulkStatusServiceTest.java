@@ -0,0 +1,79 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.BulkOrderStatusRequest;
+import com.ecommerce.dto.response.BulkOrderStatusResponse;
+import com.ecommerce.dto.response.BulkOrderStatusResponse.Outcome;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.StockHistory;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBulkStatusServiceTest {
+
+    @Test
+    void onlyOrdersTheConditionalUpdateMovedAreReportedAndRestocked() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        List<Order> stored = List.of(
+                order("o1", Order.OrderStatus.PENDING, Order.PaymentStatus.PENDING),
+                order("o2", Order.OrderStatus.PENDING, Order.PaymentStatus.PENDING),
+                order("o3", Order.OrderStatus.DELIVERED, Order.PaymentStatus.COMPLETED));
+        // o2 was paid and shipped by someone else between the read and the update
+        BulkOperations bulk = mock(BulkOperations.class);
+        List<String> tagged = new ArrayList<>();
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(call -> {
+            String id = call.<Query>getArgument(0).getQueryObject().getString("_id");
+            if ("o1".equals(id)) {
+                tagged.add(id);
+            }
+            return bulk;
+        });
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenAnswer(call ->
+                call.<Query>getArgument(0).getQueryObject().containsKey("bulkTokens")
+                        ? tagged.stream().map(id -> Order.builder().id(id).build()).toList()
+                        : stored);
+        StockReservationService reservations = mock(StockReservationService.class);
+        when(reservations.restockOrders(anyCollection(), eq(true), any(StockHistory.StockChangeType.class), anyString()))
+                .thenAnswer(call -> new HashSet<>(call.<Set<String>>getArgument(0)));
+        DomainEventLog eventLog = mock(DomainEventLog.class);
+        when(eventLog.appendAll(anyString(), anyMap())).thenReturn(List.of());
+
+        OrderBulkStatusService service = new OrderBulkStatusService(mongoTemplate, new OrderStateMachine(mongoTemplate),
+                reservations, mock(InventoryService.class), eventLog, 1000, 20000);
+        BulkOrderStatusResponse response = service.updateStatus(BulkOrderStatusRequest.builder()
+                .status("CANCELLED")
+                .orderIds(List.of("o1", "o2", "o3", "o4"))
+                .build());
+
+        Map<String, Outcome> outcomes = response.getResults().stream()
+                .collect(Collectors.toMap(BulkOrderStatusResponse.Result::getOrderId, BulkOrderStatusResponse.Result::getOutcome));
+        assertEquals(Map.of("o1", Outcome.UPDATED, "o2", Outcome.CONFLICT, "o3", Outcome.INVALID_TRANSITION,
+                "o4", Outcome.NOT_FOUND), outcomes);
+        verify(reservations).restockOrders(eq(Set.of("o1")), eq(true),
+                eq(StockHistory.StockChangeType.ORDER_CANCELLATION), anyString());
+    }
+
+    private static Order order(String id, Order.OrderStatus status, Order.PaymentStatus paymentStatus) {
+        return Order.builder().id(id).orderNumber("ORD-" + id).status(status).paymentStatus(paymentStatus).build();
+    }
+}
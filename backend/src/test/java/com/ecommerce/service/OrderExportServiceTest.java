@@ -0,0 +1,116 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.ArchivedOrder;
+import com.ecommerce.model.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderExportServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OrderExportService service = new OrderExportService(mongoTemplate, new ObjectMapper());
+    private final OrderExportService.Filter all = new OrderExportService.Filter(null, null, Set.of(), null, true);
+
+    private final ObjectId first = new ObjectId(new Date(1_000_000L), 1);
+    private final ObjectId second = new ObjectId(new Date(2_000_000L), 1);
+    private final ObjectId third = new ObjectId(new Date(3_000_000L), 1);
+
+    @Test
+    void csvMergesLiveAndArchivedOrdersInIdOrder() throws IOException {
+        givenOrders(List.of(row(second, "ORD2", "1200.50")), List.of(row(first, "ORD1", "10"), row(third, "ORD3", "7")));
+
+        String[] lines = export(OrderExportService.Format.CSV, false).split("\n");
+
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("id,orderNumber,createdAt,status"));
+        assertTrue(lines[1].startsWith(first.toHexString() + ",ORD1,"));
+        assertTrue(lines[2].startsWith(second.toHexString() + ",ORD2,"));
+        assertTrue(lines[3].startsWith(third.toHexString() + ",ORD3,"));
+    }
+
+    @Test
+    void anOrderInBothCollectionsIsExportedOnceFromTheLiveCopy() throws IOException {
+        givenOrders(List.of(row(second, "ORD2", "55")),
+                List.of(row(second, "ORD2", "50"), row(third, "ORD3", "7")));
+
+        String[] lines = export(OrderExportService.Format.CSV, false).split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith(second.toHexString() + ",ORD2,"));
+        assertTrue(lines[1].contains("55"), lines[1]);
+        assertTrue(lines[2].startsWith(third.toHexString() + ",ORD3,"));
+    }
+
+    @Test
+    void ndjsonIsGzippedOnRequest() throws IOException {
+        givenOrders(List.of(row(first, "ORD1", "99.90")), List.of());
+
+        byte[] gzipped = exportBytes(OrderExportService.Format.NDJSON, true);
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes(),
+                StandardCharsets.UTF_8);
+
+        String[] lines = text.split("\n");
+        assertEquals(1, lines.length);
+        JsonNode json = new ObjectMapper().readTree(lines[0]);
+        assertEquals("ORD1", json.get("orderNumber").asText());
+        assertTrue(lines[0].contains("\"totalAmount\":99.90"), lines[0]);
+        assertEquals("KA", json.get("shippingState").asText());
+    }
+
+    @Test
+    void rejectsMalformedCheckpoint() {
+        assertThrows(BadRequestException.class, () -> service.export(
+                new OrderExportService.Filter(null, null, Set.of(), "not-an-id", true),
+                OrderExportService.Format.CSV, false));
+    }
+
+    private void givenOrders(List<Document> live, List<Document> archived) {
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        when(mongoTemplate.getCollectionName(ArchivedOrder.class)).thenReturn("orders_archive");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("orders"))).thenReturn(live.stream());
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("orders_archive")))
+                .thenReturn(archived.stream());
+    }
+
+    private String export(OrderExportService.Format format, boolean gzip) throws IOException {
+        return new String(exportBytes(format, gzip), StandardCharsets.UTF_8);
+    }
+
+    private byte[] exportBytes(OrderExportService.Format format, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(all, format, gzip).writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static Document row(ObjectId id, String orderNumber, String total) {
+        return new Document("_id", id)
+                .append("orderNumber", orderNumber)
+                .append("createdAt", new Date(id.getTimestamp() * 1000L))
+                .append("status", "DELIVERED")
+                .append("totalAmount", total)
+                .append("shippingAddress", new Document("state", "KA"));
+    }
+}
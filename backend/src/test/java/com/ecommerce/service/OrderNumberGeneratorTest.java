@@ -0,0 +1,93 @@
+package com.ecommerce.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderNumberGeneratorTest {
+
+    @Test
+    void idsStayMonotonicWhenSequenceOverflowsOrClockGoesBack() {
+        AtomicLong now = new AtomicLong(OrderNumberGenerator.EPOCH_MILLIS + 1_000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(7, now::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                now.addAndGet(-500);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(7, OrderNumberGenerator.nodeIdOf(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodesNeverCollideAndRenderingSortsLikeTheId() throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int node = 0; node < 4; node++) {
+            OrderNumberGenerator generator = new OrderNumberGenerator(node, System::currentTimeMillis);
+            for (int thread = 0; thread < 2; thread++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+            }
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(400_000, ids.size());
+
+        List<Long> sorted = ids.stream().sorted().limit(1000).toList();
+        Set<String> encoded = new HashSet<>();
+        for (int i = 1; i < sorted.size(); i++) {
+            String a = OrderNumberGenerator.encode(sorted.get(i - 1));
+            String b = OrderNumberGenerator.encode(sorted.get(i));
+            assertTrue(a.compareTo(b) < 0);
+            assertEquals(sorted.get(i), OrderNumberGenerator.decode(b));
+            encoded.add(b);
+        }
+        assertEquals(sorted.size() - 1, encoded.size());
+    }
+
+    @Test
+    void unconfiguredNodesLeaseAFreeIdFromMongo() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(OrderNodeIdAllocator.COLLECTION)))
+                .thenReturn(List.of(new Document("_id", 0)));
+        // Id 1 was claimed by another instance after the held ids were read
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(OrderNodeIdAllocator.COLLECTION)))
+                .thenAnswer(call -> {
+                    if (call.<Query>getArgument(0).getQueryObject().getInteger("_id") == 1) {
+                        throw new DuplicateKeyException("E11000");
+                    }
+                    return null;
+                });
+
+        OrderNumberGenerator generator = new OrderNumberGenerator(-1, new OrderNodeIdAllocator(mongoTemplate, 600_000));
+
+        assertEquals(2, OrderNumberGenerator.nodeIdOf(generator.nextId()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Order.OrderStatus;
+import com.ecommerce.model.Order.PaymentStatus;
+import com.ecommerce.service.OrderStateMachine.Effect;
+import com.ecommerce.service.OrderStateMachine.Transition;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderStateMachineTest {
+
+    private final OrderStateMachine machine = new OrderStateMachine(mock(MongoTemplate.class));
+
+    // Every allowed change, written out independently of the table it checks
+    private static final Map<String, Transition> EXPECTED = new HashMap<>();
+
+    static {
+        for (PaymentStatus open : EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED)) {
+            expect(OrderStatus.PENDING, open, OrderStatus.CONFIRMED, open);
+            expect(OrderStatus.PENDING, open, OrderStatus.PROCESSING, open);
+            expect(OrderStatus.CONFIRMED, open, OrderStatus.PROCESSING, open);
+            expect(OrderStatus.CONFIRMED, open, OrderStatus.SHIPPED, open, Effect.STAMP_SHIPPED, Effect.NOTIFY_CUSTOMER);
+            expect(OrderStatus.PROCESSING, open, OrderStatus.SHIPPED, open, Effect.STAMP_SHIPPED, Effect.NOTIFY_CUSTOMER);
+            expect(OrderStatus.DELIVERED, open, OrderStatus.RETURN_REQUESTED, open);
+            expect(OrderStatus.DELIVERED, open, OrderStatus.RETURNED, open, Effect.RETURN_STOCK, Effect.NOTIFY_CUSTOMER);
+            expect(OrderStatus.RETURN_REQUESTED, open, OrderStatus.RETURNED, open,
+                    Effect.RETURN_STOCK, Effect.NOTIFY_CUSTOMER);
+            expect(OrderStatus.RETURN_REQUESTED, open, OrderStatus.DELIVERED, open);
+        }
+        for (PaymentStatus payment : EnumSet.of(PaymentStatus.PENDING, PaymentStatus.COMPLETED, PaymentStatus.FAILED)) {
+            expect(OrderStatus.PENDING, payment, OrderStatus.CANCELLED, payment, Effect.RELEASE_STOCK);
+            expect(OrderStatus.CONFIRMED, payment, OrderStatus.CANCELLED, payment, Effect.RELEASE_STOCK);
+            expect(OrderStatus.PROCESSING, payment, OrderStatus.CANCELLED, payment, Effect.RELEASE_STOCK);
+        }
+        expect(OrderStatus.SHIPPED, PaymentStatus.COMPLETED, OrderStatus.DELIVERED, PaymentStatus.COMPLETED,
+                Effect.STAMP_DELIVERED, Effect.NOTIFY_CUSTOMER);
+        expect(OrderStatus.SHIPPED, PaymentStatus.PENDING, OrderStatus.DELIVERED, PaymentStatus.COMPLETED,
+                Effect.STAMP_DELIVERED, Effect.NOTIFY_CUSTOMER);
+        expect(OrderStatus.RETURNED, PaymentStatus.COMPLETED, OrderStatus.REFUNDED, PaymentStatus.REFUNDED,
+                Effect.NOTIFY_CUSTOMER);
+        expect(OrderStatus.CANCELLED, PaymentStatus.COMPLETED, OrderStatus.REFUNDED, PaymentStatus.REFUNDED,
+                Effect.NOTIFY_CUSTOMER);
+    }
+
+    @Test
+    void tableMatchesSpecificationForEveryStatePair() {
+        int allowed = 0;
+        for (OrderStatus from : OrderStatus.values()) {
+            for (PaymentStatus payment : PaymentStatus.values()) {
+                for (OrderStatus to : OrderStatus.values()) {
+                    Transition expected = EXPECTED.get(key(from, payment, to));
+                    Transition actual = machine.find(from, payment, to);
+                    String label = from + "/" + payment + " -> " + to;
+                    if (expected == null) {
+                        assertNull(actual, label + " should be rejected");
+                        assertFalse(machine.targetsOf(from, payment).contains(to), label);
+                    } else {
+                        assertEquals(expected, actual, label);
+                        assertTrue(machine.targetsOf(from, payment).contains(to), label);
+                        allowed++;
+                    }
+                }
+            }
+        }
+        assertEquals(EXPECTED.size(), allowed);
+    }
+
+    @Test
+    void noSelfLoopsAndRefundedIsTerminal() {
+        for (OrderStatus status : OrderStatus.values()) {
+            for (PaymentStatus payment : PaymentStatus.values()) {
+                assertNull(machine.find(status, payment, status), status + "/" + payment);
+                assertTrue(machine.targetsOf(OrderStatus.REFUNDED, payment).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void stockIsGivenBackOnlyOnTransitionsIntoCancelledOrReturned() {
+        for (Transition transition : EXPECTED.values()) {
+            assertEquals(transition.to() == OrderStatus.CANCELLED, transition.has(Effect.RELEASE_STOCK));
+            assertEquals(transition.to() == OrderStatus.RETURNED, transition.has(Effect.RETURN_STOCK));
+        }
+        // So a returned order cannot be returned again, and a cancelled one cannot ship
+        for (PaymentStatus payment : PaymentStatus.values()) {
+            assertNull(machine.find(OrderStatus.RETURNED, payment, OrderStatus.RETURNED));
+            assertNull(machine.find(OrderStatus.CANCELLED, payment, OrderStatus.SHIPPED));
+        }
+    }
+
+    @Test
+    void updateSetsStatusPaymentAndTimestamps() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Document shipped = machine.updateFor(
+                machine.find(OrderStatus.CONFIRMED, PaymentStatus.COMPLETED, OrderStatus.SHIPPED), now)
+                .getUpdateObject().get("$set", Document.class);
+        assertEquals(OrderStatus.SHIPPED, shipped.get("status"));
+        assertEquals(now, shipped.get("shippedAt"));
+        assertFalse(shipped.containsKey("paymentStatus"));
+
+        Document delivered = machine.updateFor(
+                machine.find(OrderStatus.SHIPPED, PaymentStatus.PENDING, OrderStatus.DELIVERED), now)
+                .getUpdateObject().get("$set", Document.class);
+        assertEquals(PaymentStatus.COMPLETED, delivered.get("paymentStatus"));
+        assertEquals(now, delivered.get("deliveredAt"));
+
+        Document refunded = machine.updateFor(
+                machine.find(OrderStatus.RETURNED, PaymentStatus.COMPLETED, OrderStatus.REFUNDED), now)
+                .getUpdateObject().get("$set", Document.class);
+        assertEquals(PaymentStatus.REFUNDED, refunded.get("paymentStatus"));
+    }
+
+    @Test
+    void applyIsConditionalOnTheExpectedStatusPair() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        OrderStateMachine conditional = new OrderStateMachine(mongoTemplate);
+        Transition transition = conditional.find(OrderStatus.DELIVERED, PaymentStatus.COMPLETED, OrderStatus.RETURNED);
+        assertNotNull(transition);
+
+        conditional.apply("o1", transition);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class));
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals("o1", criteria.get("_id"));
+        Document expected = criteria.getList("$and", Document.class).get(0);
+        assertEquals(OrderStatus.DELIVERED, expected.get("status"));
+        assertEquals(PaymentStatus.COMPLETED, expected.get("paymentStatus"));
+    }
+
+    private static void expect(OrderStatus from, PaymentStatus payment, OrderStatus to, PaymentStatus paymentAfter,
+            Effect... effects) {
+        Set<Effect> effectSet = EnumSet.noneOf(Effect.class);
+        Collections.addAll(effectSet, effects);
+        EXPECTED.put(key(from, payment, to), new Transition(from, payment, to, paymentAfter, effectSet));
+    }
+
+    private static String key(OrderStatus from, PaymentStatus payment, OrderStatus to) {
+        return from + "/" + payment + "/" + to;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.PaymentReconciliation;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentReconcilerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Test
+    void classifiesGatewayStates() {
+        Payment initiated = payment("p1", Payment.PaymentStatus.INITIATED, NOW.minusHours(2));
+        Payment processing = payment("p2", Payment.PaymentStatus.PROCESSING, NOW.minusHours(2));
+        LocalDateTime abandonBefore = NOW.minusHours(1);
+
+        assertEquals(PaymentReconciler.Verdict.CAPTURE,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.CAPTURED, 49900L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.AMOUNT_MISMATCH,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.CAPTURED, 100L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.AUTHORIZE,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.AUTHORIZED, 49900L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.UNCHANGED,
+                PaymentReconciler.classify(processing, remote(PaymentGateway.State.AUTHORIZED, 49900L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.FAIL,
+                PaymentReconciler.classify(processing, remote(PaymentGateway.State.FAILED, 49900L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.ABANDON,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.CREATED, null), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.UNCHANGED,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.CREATED, null), NOW.minusDays(1)));
+        assertEquals(PaymentReconciler.Verdict.REFUNDED_AT_GATEWAY,
+                PaymentReconciler.classify(initiated, remote(PaymentGateway.State.REFUNDED, 49900L), abandonBefore));
+        assertEquals(PaymentReconciler.Verdict.MISSING_AT_GATEWAY,
+                PaymentReconciler.classify(initiated, null, abandonBefore));
+    }
+
+    @Test
+    void runsAreDeterministicAndAccountForEveryPayment() {
+        List<Payment> open = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            open.add(payment("p" + i, i % 3 == 0 ? Payment.PaymentStatus.PROCESSING : Payment.PaymentStatus.INITIATED,
+                    NOW.minusDays(2)));
+        }
+
+        PaymentService paymentService = mock(PaymentService.class);
+        PaymentReconciliation first = run(open, paymentService);
+        PaymentReconciliation second = run(open, mock(PaymentService.class));
+
+        long corrections = first.getCorrections().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(250, first.getScanned());
+        assertEquals(250, first.getUnchanged() + corrections + first.getDiscrepancyCount());
+        assertEquals(corrections, first.getApplied());
+        assertTrue(first.getGatewayErrors() > 0);
+        assertTrue(first.getCorrections().get("CAPTURE") > 0);
+        verify(paymentService, times(first.getCorrections().get("CAPTURE").intValue())).settleOrder(anyString());
+
+        assertEquals(first.getCorrections(), second.getCorrections());
+        assertEquals(first.getDiscrepancyCount(), second.getDiscrepancyCount());
+        assertEquals(first.getGatewayErrors(), second.getGatewayErrors());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PaymentReconciliation run(List<Payment> open, PaymentService paymentService) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Payment.class))).thenReturn(open.stream());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulk);
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenReturn(bulk);
+        // Every correction finds its payment unchanged
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenAnswer(call -> {
+            Document id = (Document) ((Query) call.getArgument(0)).getQueryObject().get("_id");
+            Collection<String> ids = (Collection<String>) id.get("$in");
+            return open.stream().filter(payment -> ids.contains(payment.getId())).toList();
+        });
+        when(mongoTemplate.insert(any(PaymentReconciliation.class))).thenAnswer(call -> call.getArgument(0));
+
+        SimulatedPaymentGateway gateway = new SimulatedPaymentGateway(7, 0, 0, 0.05, 0.6, 0.15, 0.05, 0.05);
+        PaymentReconciler reconciler = new PaymentReconciler(mongoTemplate, gateway, paymentService,
+                100, 4, 0, 15, 24, 500);
+        try {
+            return reconciler.reconcile();
+        } finally {
+            reconciler.shutdown();
+        }
+    }
+
+    private static Payment payment(String id, Payment.PaymentStatus status, LocalDateTime createdAt) {
+        return Payment.builder()
+                .id(id)
+                .orderId("o" + id)
+                .razorpayOrderId("order_" + id)
+                .amount(new BigDecimal("499.00"))
+                .status(status)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static PaymentGateway.GatewayPayment remote(PaymentGateway.State state, Long amountPaise) {
+        return new PaymentGateway.GatewayPayment("order_p1", state, "pay_1", amountPaise, "upi");
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.PaymentWebhookEvent;
+import com.ecommerce.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentWebhookServiceTest {
+
+    private static final String SECRET = "whsec_test";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final PaymentWebhookService service = new PaymentWebhookService(mongoTemplate, paymentRepository,
+            paymentService, new ObjectMapper(), SECRET, 1, 100, 10, 30000, 5000);
+
+    // The payments collection, keyed by gateway order id
+    private final Map<String, Payment> payments = new HashMap<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void duplicateDeliveriesAreAcknowledgedButStoredOnce() {
+        FakeRazorpayGateway.Delivery delivery = new FakeRazorpayGateway(SECRET, 1)
+                .lifecycle("order_1", 49900, PaymentWebhookService.PAYMENT_CAPTURED).get(0);
+        when(mongoTemplate.insert(any(PaymentWebhookEvent.class)))
+                .thenAnswer(call -> call.getArgument(0))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertTrue(service.ingest(delivery.eventId(), delivery.signature(), delivery.body()));
+        assertFalse(service.ingest(delivery.eventId(), delivery.signature(), delivery.body()));
+    }
+
+    @Test
+    void rejectsUnsignedEvents() {
+        FakeRazorpayGateway.Delivery forged = new FakeRazorpayGateway("someone-else", 1)
+                .lifecycle("order_1", 49900, PaymentWebhookService.PAYMENT_CAPTURED).get(0);
+
+        assertThrows(BadRequestException.class,
+                () -> service.ingest(forged.eventId(), forged.signature(), forged.body()));
+        assertThrows(BadRequestException.class, () -> service.ingest(forged.eventId(), null, forged.body()));
+    }
+
+    @Test
+    void shuffledBurstsWithDuplicatesConverge() {
+        givenPaymentStore();
+        for (long seed = 0; seed < 50; seed++) {
+            payments.clear();
+            FakeRazorpayGateway gateway = new FakeRazorpayGateway(SECRET, seed);
+            List<FakeRazorpayGateway.Delivery> events = new ArrayList<>();
+            events.addAll(lifecycle(gateway, "order_paid", PaymentWebhookService.PAYMENT_AUTHORIZED,
+                    PaymentWebhookService.PAYMENT_CAPTURED));
+            events.addAll(lifecycle(gateway, "order_retried", PaymentWebhookService.PAYMENT_FAILED,
+                    PaymentWebhookService.PAYMENT_CAPTURED));
+            events.addAll(lifecycle(gateway, "order_declined", PaymentWebhookService.PAYMENT_AUTHORIZED,
+                    PaymentWebhookService.PAYMENT_FAILED));
+            events.addAll(lifecycle(gateway, "order_refunded", PaymentWebhookService.PAYMENT_AUTHORIZED,
+                    PaymentWebhookService.PAYMENT_CAPTURED, PaymentWebhookService.REFUND_PROCESSED));
+
+            replay(gateway.burst(events, 10));
+
+            assertEquals(Payment.PaymentStatus.SUCCESS, payments.get("order_paid").getStatus(), "seed " + seed);
+            assertEquals(Payment.PaymentStatus.SUCCESS, payments.get("order_retried").getStatus(), "seed " + seed);
+            assertEquals(Payment.PaymentStatus.FAILED, payments.get("order_declined").getStatus(), "seed " + seed);
+            assertEquals(Payment.PaymentStatus.REFUNDED, payments.get("order_refunded").getStatus(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void amountMismatchIsRejected() {
+        givenPaymentStore();
+        lifecycle(new FakeRazorpayGateway(SECRET, 1), "order_1");
+        FakeRazorpayGateway.Delivery tampered = new FakeRazorpayGateway(SECRET, 1)
+                .lifecycle("order_1", 100, PaymentWebhookService.PAYMENT_CAPTURED).get(0);
+
+        assertThrows(PaymentWebhookService.Rejected.class, () -> service.apply(event(tampered)));
+        assertEquals(Payment.PaymentStatus.INITIATED, payments.get("order_1").getStatus());
+    }
+
+    @Test
+    void unknownEventTypesAreIgnored() {
+        FakeRazorpayGateway.Delivery delivery = new FakeRazorpayGateway(SECRET, 1)
+                .lifecycle("order_1", 49900, "order.paid").get(0);
+
+        assertEquals("ignored order.paid", service.apply(event(delivery)));
+    }
+
+    // Delivers every event, putting deferred ones back at the end as the retry backoff would
+    private void replay(List<FakeRazorpayGateway.Delivery> burst) {
+        Deque<FakeRazorpayGateway.Delivery> queue = new ArrayDeque<>(burst);
+        int budget = burst.size() * 10;
+        while (!queue.isEmpty()) {
+            assertTrue(--budget > 0, "events never settled");
+            FakeRazorpayGateway.Delivery delivery = queue.poll();
+            try {
+                service.apply(event(delivery));
+            } catch (PaymentWebhookService.Rejected e) {
+                throw e;
+            } catch (IllegalStateException e) {
+                queue.add(delivery);
+            }
+        }
+    }
+
+    private List<FakeRazorpayGateway.Delivery> lifecycle(FakeRazorpayGateway gateway, String gatewayOrderId,
+            String... types) {
+        payments.put(gatewayOrderId, Payment.builder()
+                .id("p_" + gatewayOrderId)
+                .razorpayOrderId(gatewayOrderId)
+                .amount(new BigDecimal("499.00"))
+                .status(Payment.PaymentStatus.INITIATED)
+                .build());
+        return gateway.lifecycle(gatewayOrderId, 49900, types);
+    }
+
+    // Mirrors the conditional updates in PaymentService against the in-memory store
+    private void givenPaymentStore() {
+        when(paymentRepository.findByRazorpayOrderId(anyString()))
+                .thenAnswer(call -> Optional.ofNullable(payments.get((String) call.getArgument(0)))
+                        .map(payment -> Payment.builder().id(payment.getId())
+                                .razorpayOrderId(payment.getRazorpayOrderId())
+                                .amount(payment.getAmount())
+                                .status(payment.getStatus())
+                                .build()));
+        when(paymentService.markAuthorized(anyString())).thenAnswer(call -> move(call.getArgument(0),
+                Set.of(Payment.PaymentStatus.INITIATED), Payment.PaymentStatus.PROCESSING));
+        when(paymentService.completePayment(anyString(), anyString(), anyString(), eq("UPI")))
+                .thenAnswer(call -> move(call.getArgument(0), PaymentService.CAPTURABLE, Payment.PaymentStatus.SUCCESS));
+        when(paymentService.markFailed(anyString(), anyString())).thenAnswer(call -> move(call.getArgument(0),
+                PaymentService.FAILABLE, Payment.PaymentStatus.FAILED));
+        when(paymentService.markRefunded(anyString(), anyString())).thenAnswer(call -> move(call.getArgument(0),
+                Set.of(Payment.PaymentStatus.SUCCESS), Payment.PaymentStatus.REFUNDED));
+    }
+
+    private boolean move(String paymentId, Set<Payment.PaymentStatus> from, Payment.PaymentStatus to) {
+        Function<Payment, Boolean> apply = payment -> {
+            if (!from.contains(payment.getStatus())) {
+                return false;
+            }
+            payment.setStatus(to);
+            return true;
+        };
+        return payments.values().stream()
+                .filter(payment -> payment.getId().equals(paymentId))
+                .findFirst()
+                .map(apply)
+                .orElse(false);
+    }
+
+    private static PaymentWebhookEvent event(FakeRazorpayGateway.Delivery delivery) {
+        return PaymentWebhookEvent.builder().id(delivery.eventId()).payload(delivery.body()).build();
+    }
+}
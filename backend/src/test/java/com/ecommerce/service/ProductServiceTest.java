@@ -1,11 +1,64 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class ProductServiceTest {
     @Test
     void simpleTest() {
         assertTrue(true);
     }
+
+    @Test
+    void updateWritesOnlyEditedFieldsAndRestocksByDelta() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        InventoryService inventoryService = mock(InventoryService.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        Product loaded = Product.builder().id("p1").name("Kettle").stockQuantity(10).build();
+        when(productRepository.findById("p1")).thenReturn(Optional.of(loaded));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(loaded);
+        ProductService service = new ProductService(productRepository, mock(CategoryRepository.class),
+                mock(LowStockMonitor.class), inventoryService, mongoTemplate);
+
+        ProductRequest request = new ProductRequest();
+        request.setPrice(new BigDecimal("499"));
+        request.setStockQuantity(25);
+        service.updateProduct("p1", request);
+
+        verify(inventoryService).updateStock(eq("p1"), eq(15), eq(StockHistory.StockChangeType.MANUAL_UPDATE),
+                anyString(), any());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(new BigDecimal("499"), set.get("price"));
+        assertFalse(set.containsKey("stockQuantity"));
+        assertFalse(set.containsKey("reservedQuantity"));
+        verify(productRepository, never()).save(any());
+    }
 }
@@ -0,0 +1,110 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.DomainEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.ProcessedEvent;
+import com.ecommerce.model.SalesDaily;
+import com.ecommerce.repository.OrderRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalesRollupHandlerTest {
+
+    private final Map<String, Document> days = new HashMap<>();
+    private final Set<String> markers = new HashSet<>();
+    private final AtomicBoolean failMarker = new AtomicBoolean();
+
+    @Test
+    void redeliveriesAtAnyPointCountTheOrderOnce() {
+        SalesRollupHandler handler = new SalesRollupHandler(orders(), fakeMongo());
+        DomainEvent event = DomainEvent.builder()
+                .id("e1").type(DomainEvent.ORDER_PLACED).aggregateId("o1")
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 0))
+                .build();
+
+        // Stops after counting, before the marker is written
+        failMarker.set(true);
+        assertThrows(IllegalStateException.class, () -> handler.handle(event));
+        handler.handle(event);
+        handler.handle(event);
+
+        Document day = days.get("2024-05-01");
+        assertEquals(1, day.get("orders"));
+        assertEquals(3, day.get("units"));
+        assertTrue(((List<?>) day.get("pendingEvents")).isEmpty());
+        assertEquals(Set.of("sales-rollup:e1"), markers);
+    }
+
+    private static OrderRepository orders() {
+        OrderRepository repository = mock(OrderRepository.class);
+        Order order = Order.builder()
+                .id("o1")
+                .items(List.of(Order.OrderItem.builder().productId("p1").quantity(3).build()))
+                .totalAmount(new BigDecimal("300.00"))
+                .build();
+        when(repository.findById("o1")).thenReturn(Optional.of(order));
+        return repository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoTemplate fakeMongo() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.exists(any(Query.class), eq(ProcessedEvent.class))).thenAnswer(call ->
+                markers.contains(call.<Query>getArgument(0).getQueryObject().getString("_id")));
+        when(mongoTemplate.insert(any(ProcessedEvent.class))).thenAnswer(call -> {
+            if (failMarker.getAndSet(false)) {
+                throw new IllegalStateException("connection reset");
+            }
+            if (!markers.add(call.<ProcessedEvent>getArgument(0).getId())) {
+                throw new DuplicateKeyException("E11000");
+            }
+            return call.getArgument(0);
+        });
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(SalesDaily.class))).thenAnswer(call -> {
+            Document query = call.<Query>getArgument(0).getQueryObject();
+            Document update = call.<Update>getArgument(1).getUpdateObject();
+            String eventId = (String) query.get("pendingEvents", Document.class).get("$ne");
+            Document day = days.computeIfAbsent(query.getString("_id"),
+                    id -> new Document("_id", id).append("pendingEvents", new ArrayList<String>()));
+            List<String> pending = (List<String>) day.get("pendingEvents");
+            if (pending.contains(eventId)) {
+                throw new DuplicateKeyException("E11000");
+            }
+            update.get("$inc", Document.class).forEach((field, delta) ->
+                    day.merge(field, delta, (a, b) -> a instanceof Integer ? (Integer) a + (Integer) b
+                            : ((Number) a).doubleValue() + ((Number) b).doubleValue()));
+            pending.add(eventId);
+            return null;
+        });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(SalesDaily.class))).thenAnswer(call -> {
+            Document day = days.get(call.<Query>getArgument(0).getQueryObject().getString("_id"));
+            Object eventId = call.<Update>getArgument(1).getUpdateObject().get("$pull", Document.class).get("pendingEvents");
+            ((List<String>) day.get("pendingEvents")).remove(eventId);
+            return null;
+        });
+        return mongoTemplate;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.AsyncConfig;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Service
+    public static class CheckoutService {
+        public String checkout(String cart) {
+            if (cart.isEmpty()) {
+                throw new IllegalArgumentException("empty cart");
+            }
+            return "order-" + cart;
+        }
+
+        public int count() {
+            return 1;
+        }
+    }
+
+    @Test
+    void serviceCallsAreTimedByClassMethodAndException() {
+        // SimpleMeterRegistry keeps no buckets, so the histogram setting is read as the timer is configured
+        Map<String, Boolean> histograms = new HashMap<>();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                histograms.put(id.getTag("method"), config.isPercentileHistogram());
+                return config;
+            }
+        });
+        AspectJProxyFactory factory = new AspectJProxyFactory(new CheckoutService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceTimingAspect(registry, Set.of("CheckoutService.checkout")));
+        CheckoutService service = factory.getProxy();
+
+        service.checkout("c1");
+        service.checkout("c2");
+        assertThrows(IllegalArgumentException.class, () -> service.checkout(""));
+        service.count();
+
+        Timer ok = registry.find("ecommerce.service")
+                .tags("class", "CheckoutService", "method", "checkout", "exception", "none").timer();
+        Timer failed = registry.find("ecommerce.service")
+                .tags("class", "CheckoutService", "method", "checkout", "exception", "IllegalArgumentException").timer();
+        Timer count = registry.find("ecommerce.service").tags("method", "count").timer();
+        assertNotNull(ok);
+        assertNotNull(failed);
+        assertNotNull(count);
+        assertEquals(2, ok.count());
+        assertEquals(1, failed.count());
+        // Only the allow-listed method publishes histogram buckets
+        assertEquals(Map.of("checkout", true, "count", false), histograms);
+    }
+
+    @Test
+    void queuesAndCachesArePublishedAsGauges() {
+        StockHistoryWriter stockHistoryWriter = mock(StockHistoryWriter.class);
+        AdminActivityLogWriter activityLogWriter = mock(AdminActivityLogWriter.class);
+        AuditTrail auditTrail = mock(AuditTrail.class);
+        DomainEventLog domainEventLog = mock(DomainEventLog.class);
+        PaymentWebhookService paymentWebhookService = mock(PaymentWebhookService.class);
+        PaymentReconciler paymentReconciler = mock(PaymentReconciler.class);
+        InvoiceService invoiceService = mock(InvoiceService.class);
+        WarehouseAllocationService warehouseAllocationService = mock(WarehouseAllocationService.class);
+
+        ArrayBlockingQueue<Object> stockQueue = new ArrayBlockingQueue<>(10);
+        stockQueue.add("event");
+        RingBuffer<Object> ring = new RingBuffer<>(8);
+        ring.offer("entry");
+        ring.offer("entry");
+        CacheStats invoices = new CacheStats();
+        invoices.record(true);
+        invoices.record(true);
+        invoices.record(true);
+        invoices.record(false);
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        doReturn(stockQueue).when(stockHistoryWriter).queue();
+        doReturn(ring).when(activityLogWriter).buffer();
+        doReturn(new RingBuffer<>(4)).when(auditTrail).buffer();
+        when(auditTrail.stateCacheStats()).thenReturn(new CacheStats());
+        when(domainEventLog.workers()).thenReturn(pool);
+        when(paymentWebhookService.workers()).thenReturn(pool);
+        when(paymentReconciler.workers()).thenReturn(pool);
+        when(invoiceService.workers()).thenReturn(pool);
+        when(invoiceService.cacheStats()).thenReturn(invoices);
+        when(warehouseAllocationService.planCacheStats()).thenReturn(new CacheStats());
+        when(warehouseAllocationService.planCacheSize()).thenReturn(3);
+
+        try {
+            new ServiceMetrics(stockHistoryWriter, activityLogWriter, auditTrail, domainEventLog,
+                    paymentWebhookService, paymentReconciler, invoiceService, warehouseAllocationService,
+                    new AsyncConfig.DiscardAndCountPolicy("mail")).bindTo(registry);
+
+            assertEquals(1, registry.get("ecommerce.queue.size").tag("queue", "stock-history").gauge().value());
+            assertEquals(10, registry.get("ecommerce.queue.capacity").tag("queue", "stock-history").gauge().value());
+            assertEquals(2, registry.get("ecommerce.queue.size").tag("queue", "admin-activity-log").gauge().value());
+            assertEquals(8, registry.get("ecommerce.queue.capacity").tag("queue", "admin-activity-log").gauge().value());
+            assertEquals(0.75, registry.get("cache.hit.ratio").tag("cache", "invoices").gauge().value());
+            assertEquals(3, registry.get("cache.gets").tags("cache", "invoices", "result", "hit")
+                    .functionCounter().count());
+            assertEquals(3, registry.get("cache.size").tag("cache", "allocation-plans").gauge().value());
+            assertNotNull(registry.find("executor.discarded").tag("name", "mailExecutor").functionCounter());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockHistoryDaily;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockHistoryCompactorTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private final List<StockHistory> raw = new ArrayList<>();
+    private final Map<String, Document> daily = new LinkedHashMap<>();
+    private final AtomicBoolean failNextRemove = new AtomicBoolean();
+    private final StockHistoryCompactor compactor = new StockHistoryCompactor(fakeMongo(), 90);
+
+    @Test
+    void foldsEachProductDayAndRemovesExactlyTheFoldedEvents() {
+        raw.add(event("e1", "p1", DAY, -2, 8));
+        raw.add(event("e2", "p1", DAY.plusHours(1), 5, 13));
+        raw.add(event("e3", "p2", DAY, -1, 4));
+        raw.add(event("late", "p1", DAY.plusDays(30), -1, 12));
+
+        assertEquals(3, compactor.compactBefore(DAY.plusDays(1)));
+
+        Document p1 = daily.get("p1:2024-03-01");
+        assertEquals(10, p1.get("openingQuantity"));
+        assertEquals(13, p1.get("closingQuantity"));
+        assertEquals(5, p1.get("totalIn"));
+        assertEquals(2, p1.get("totalOut"));
+        assertEquals(2, p1.get("eventCount"));
+        assertFalse(p1.containsKey("lastBatch"));
+        assertEquals(List.of("late"), raw.stream().map(StockHistory::getId).toList());
+    }
+
+    @Test
+    void aRunThatStopsAfterWritingSummariesIsNotFoldedTwice() {
+        raw.add(event("e1", "p1", DAY, -2, 8));
+        raw.add(event("e2", "p1", DAY.plusHours(1), -3, 5));
+        failNextRemove.set(true);
+
+        assertThrows(IllegalStateException.class, () -> compactor.compactBefore(DAY.plusDays(1)));
+        assertEquals(2, raw.size());
+
+        assertEquals(0, compactor.compactBefore(DAY.plusDays(1)));
+
+        Document p1 = daily.get("p1:2024-03-01");
+        assertEquals(5, p1.get("totalOut"));
+        assertEquals(2, p1.get("eventCount"));
+        assertFalse(p1.containsKey("lastBatch"));
+        assertTrue(raw.isEmpty());
+    }
+
+    private static StockHistory event(String id, String productId, LocalDateTime at, int change, int newQuantity) {
+        return StockHistory.builder()
+                .id(id)
+                .productId(productId)
+                .changeQuantity(change)
+                .newQuantity(newQuantity)
+                .type(StockHistory.StockChangeType.ORDER_PLACEMENT)
+                .timestamp(at)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoTemplate fakeMongo() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+        when(mongoTemplate.stream(any(Query.class), eq(StockHistory.class))).thenAnswer(call -> {
+            LocalDateTime cutoff = (LocalDateTime) call.<Query>getArgument(0).getQueryObject()
+                    .get("timestamp", Document.class).get("$lt");
+            return new ArrayList<>(raw).stream()
+                    .filter(event -> event.getTimestamp().isBefore(cutoff))
+                    .sorted(Comparator.comparing(StockHistory::getProductId).thenComparing(StockHistory::getTimestamp));
+        });
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockHistoryDaily.class)).thenAnswer(call -> {
+            BulkOperations bulk = mock(BulkOperations.class);
+            List<Object[]> upserts = new ArrayList<>();
+            when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(upsert -> {
+                upserts.add(new Object[]{upsert.getArgument(0), upsert.getArgument(1)});
+                return bulk;
+            });
+            when(bulk.execute()).thenAnswer(execute -> {
+                for (Object[] upsert : upserts) {
+                    String id = ((Query) upsert[0]).getQueryObject().getString("_id");
+                    Document update = ((Update) upsert[1]).getUpdateObject();
+                    Document row = daily.get(id);
+                    if (row == null) {
+                        row = new Document("_id", id);
+                        row.putAll(update.get("$setOnInsert", Document.class));
+                        daily.put(id, row);
+                    }
+                    row.putAll(update.get("$set", Document.class));
+                    Document target = row;
+                    update.get("$inc", Document.class).forEach((field, delta) ->
+                            target.merge(field, delta, (a, b) -> (Integer) a + (Integer) b));
+                }
+                return null;
+            });
+            return bulk;
+        });
+
+        when(mongoTemplate.find(any(Query.class), eq(StockHistoryDaily.class))).thenAnswer(call ->
+                daily.values().stream()
+                        .filter(row -> row.containsKey("lastBatch"))
+                        .map(row -> StockHistoryDaily.builder()
+                                .id(row.getString("_id"))
+                                .lastBatch((List<String>) row.get("lastBatch"))
+                                .build())
+                        .toList());
+
+        when(mongoTemplate.remove(any(Query.class), eq(StockHistory.class))).thenAnswer(call -> {
+            if (failNextRemove.getAndSet(false)) {
+                throw new IllegalStateException("connection reset");
+            }
+            List<String> ids = (List<String>) call.<Query>getArgument(0).getQueryObject()
+                    .get("_id", Document.class).get("$in");
+            raw.removeIf(event -> ids.contains(event.getId()));
+            return null;
+        });
+
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(StockHistoryDaily.class))).thenAnswer(call -> {
+            List<String> keys = (List<String>) call.<Query>getArgument(0).getQueryObject()
+                    .get("_id", Document.class).get("$in");
+            keys.forEach(key -> daily.get(key).remove("lastBatch"));
+            return null;
+        });
+        return mongoTemplate;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.StockHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockHistoryWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> inserted = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private int maxAttempts = 5;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void queuedRecordsAreInsertedAndTheJournalEmptied() throws Exception {
+        Path journal = dir.resolve("history.journal");
+        StockHistoryWriter writer = writer(journal);
+        writer.start();
+
+        for (int i = 0; i < 3; i++) {
+            writer.write(history(i));
+        }
+        awaitInserted(3);
+        writer.shutdown();
+
+        assertEquals(3, inserted.size());
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void aLeftoverJournalIsReplayedInTheBackgroundWhileMongoIsDown() throws Exception {
+        Path journal = dir.resolve("history.journal");
+        StockHistory leftover = history(7);
+        leftover.setId("leftover");
+        Files.writeString(journal, objectMapper.writeValueAsString(leftover) + "\n", StandardCharsets.UTF_8);
+        failuresLeft.set(1);
+
+        StockHistoryWriter writer = writer(journal);
+        writer.start();
+        // Startup returned without touching Mongo; the new journal starts empty
+        assertEquals(0, Files.size(journal));
+
+        awaitInserted(1);
+        writer.shutdown();
+        assertEquals(List.of("leftover"), inserted);
+        assertFalse(Files.exists(dir.resolve("history.journal.replay")));
+    }
+
+    @Test
+    void aBatchThatKeepsFailingIsDroppedSoLaterRecordsStillGoIn() throws Exception {
+        Path journal = dir.resolve("history.journal");
+        maxAttempts = 2;
+        failuresLeft.set(2);
+        StockHistoryWriter writer = writer(journal);
+        writer.start();
+
+        writer.write(history(1));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((Long) writer.getStats().get("dropped") < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        writer.write(history(2));
+        awaitInserted(1);
+        writer.shutdown();
+
+        assertEquals(1L, writer.getStats().get("dropped"));
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    void relativeJournalPathsAreRejected() {
+        assertThrows(IllegalStateException.class, () -> writer(Path.of("data/history.journal")));
+    }
+
+    private StockHistoryWriter writer(Path journal) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockHistory.class)).thenReturn(bulk);
+        List<String> pending = new CopyOnWriteArrayList<>();
+        when(bulk.insert(anyList())).thenAnswer(call -> {
+            call.<List<StockHistory>>getArgument(0).forEach(history -> pending.add(history.getId()));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(call -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                pending.clear();
+                throw new IllegalStateException("Mongo is down");
+            }
+            inserted.addAll(pending);
+            pending.clear();
+            return null;
+        });
+        return new StockHistoryWriter(mongoTemplate, objectMapper, 100, 50, 10, maxAttempts, 10, journal.toString());
+    }
+
+    private void awaitInserted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (inserted.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(inserted.size() >= count, "inserted " + inserted);
+    }
+
+    private static StockHistory history(int i) {
+        return StockHistory.builder()
+                .productId("p" + i)
+                .changeQuantity(-1)
+                .newQuantity(10 - i)
+                .type(StockHistory.StockChangeType.ORDER_PLACEMENT)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
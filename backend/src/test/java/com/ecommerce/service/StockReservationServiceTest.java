@@ -0,0 +1,221 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.StockReservation;
+import com.ecommerce.repository.StockReservationRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockReservationServiceTest {
+
+    // In-memory stand-ins for the products and stock_reservations collections
+    private final Map<String, Product> products = new HashMap<>();
+    private final Map<String, StockReservation> reservations = new HashMap<>();
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StockReservationRepository reservationRepository = mock(StockReservationRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        products.put("p1", Product.builder().id("p1").name("Kettle").stockQuantity(5).build());
+        products.put("p2", Product.builder().id("p2").name("Toaster").stockQuantity(3).build());
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenAnswer(call -> incrementProduct(call.getArgument(0), call.getArgument(1)));
+        when(mongoTemplate.findById(anyString(), eq(Product.class)))
+                .thenAnswer(call -> products.get(call.<String>getArgument(0)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(StockReservation.class)))
+                .thenAnswer(call -> transition(call.getArgument(0), call.getArgument(1)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Product.class)))
+                .thenAnswer(call -> {
+                    incrementProduct(call.getArgument(0), call.getArgument(1));
+                    return null;
+                });
+        when(mongoTemplate.find(any(Query.class), eq(StockReservation.class))).thenAnswer(call -> {
+            Document filter = call.<Query>getArgument(0).getQueryObject();
+            List<?> ids = (List<?>) filter.get("_id", Document.class).get("$in");
+            List<?> statuses = (List<?>) filter.get("status", Document.class).get("$in");
+            return reservations.values().stream()
+                    .filter(reservation -> ids.contains(reservation.getOrderId())
+                            && statuses.contains(reservation.getStatus()))
+                    .toList();
+        });
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenAnswer(call -> List.copyOf(products.values()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenAnswer(call -> {
+            BulkOperations bulk = mock(BulkOperations.class);
+            when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(op -> {
+                incrementProduct(op.getArgument(0), op.getArgument(1));
+                return bulk;
+            });
+            return bulk;
+        });
+        when(reservationRepository.save(any(StockReservation.class))).thenAnswer(call -> {
+            StockReservation reservation = call.getArgument(0);
+            reservations.put(reservation.getOrderId(), reservation);
+            return reservation;
+        });
+
+        WarehouseAllocationService allocation = mock(WarehouseAllocationService.class);
+        when(allocation.allocate(any(), any())).thenReturn(List.of());
+        service = new StockReservationService(mongoTemplate, reservationRepository, inventoryService,
+                mock(FlashSaleService.class), mock(LowStockMonitor.class), allocation, 15, 4, 1000);
+    }
+
+    @Test
+    void reserveMovesEveryLineFromAvailableToReserved() {
+        StockReservation reservation = service.reserve("o1", "u1", List.of(line("p1", 2), line("p2", 3)), "KA");
+
+        assertEquals(StockReservation.ReservationStatus.HELD, reservation.getStatus());
+        assertTrue(reservation.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(14)));
+        assertStock("p1", 3, 2);
+        assertStock("p2", 0, 3);
+    }
+
+    @Test
+    void reserveGivesBackEarlierLinesWhenALineIsShort() {
+        assertThrows(BadRequestException.class,
+                () -> service.reserve("o1", "u1", List.of(line("p1", 2), line("p2", 4)), "KA"));
+
+        assertStock("p1", 5, 0);
+        assertStock("p2", 3, 0);
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void aLineWhoseHistoryWriteFailsIsRolledBackToo() {
+        doThrow(new IllegalStateException("history queue full")).when(inventoryService).recordHistory(eq("p2"),
+                anyInt(), anyInt(), eq(StockHistory.StockChangeType.ORDER_PLACEMENT), anyString(), anyString());
+
+        assertThrows(IllegalStateException.class,
+                () -> service.reserve("o1", "u1", List.of(line("p1", 2), line("p2", 3)), "KA"));
+
+        assertStock("p1", 5, 0);
+        assertStock("p2", 3, 0);
+    }
+
+    @Test
+    void releaseReturnsHeldStockExactlyOnce() {
+        service.reserve("o1", "u1", List.of(line("p1", 2)), "KA");
+
+        assertTrue(service.release("o1", "Payment failed"));
+        assertFalse(service.release("o1", "Payment failed"));
+
+        assertStock("p1", 5, 0);
+        assertEquals(StockReservation.ReservationStatus.RELEASED, reservations.get("o1").getStatus());
+    }
+
+    @Test
+    void expiredHoldsAreReleasedAndTheirUnpaidOrdersCancelled() {
+        service.reserve("o1", "u1", List.of(line("p1", 2)), "KA");
+        when(reservationRepository.findTop500ByStatusAndExpiresAtBefore(eq(StockReservation.ReservationStatus.HELD),
+                any(LocalDateTime.class))).thenReturn(List.of(reservations.get("o1")));
+
+        service.releaseExpiredHolds();
+
+        assertStock("p1", 5, 0);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Order.class));
+        assertEquals(Order.OrderStatus.PENDING, query.getValue().getQueryObject().get("status"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(Order.OrderStatus.CANCELLED, set.get("status"));
+        assertEquals(Order.PaymentStatus.FAILED, set.get("paymentStatus"));
+        assertTrue(set.get("updatedAt") instanceof LocalDateTime);
+    }
+
+    @Test
+    void restockOrdersGivesBackHeldAndSoldStockOncePerOrder() {
+        service.reserve("o1", "u1", List.of(line("p1", 2)), "KA");
+        service.reserve("o2", "u1", List.of(line("p2", 2)), "KA");
+        service.convertToSale("o2");
+        assertStock("p2", 1, 0);
+
+        Set<String> restocked = service.restockOrders(List.of("o1", "o2", "o3"), true,
+                StockHistory.StockChangeType.ORDER_CANCELLATION, "Order cancelled");
+        Set<String> again = service.restockOrders(List.of("o1", "o2", "o3"), true,
+                StockHistory.StockChangeType.ORDER_CANCELLATION, "Order cancelled");
+
+        assertEquals(Set.of("o1", "o2"), restocked);
+        assertTrue(again.isEmpty());
+        assertStock("p1", 5, 0);
+        assertStock("p2", 3, 0);
+        assertEquals(0, products.get("p2").getSoldQuantity());
+        assertEquals(StockReservation.ReservationStatus.RELEASED, reservations.get("o1").getStatus());
+        assertEquals(StockReservation.ReservationStatus.REVERSED, reservations.get("o2").getStatus());
+    }
+
+    private void assertStock(String productId, int available, int reserved) {
+        assertEquals(available, products.get(productId).getStockQuantity(), productId + " available");
+        assertEquals(reserved, products.get(productId).getReservedQuantity(), productId + " reserved");
+    }
+
+    private static Order.OrderItem line(String productId, int quantity) {
+        return Order.OrderItem.builder().productId(productId).quantity(quantity).build();
+    }
+
+    // Applies {_id, stockQuantity: {$gte}} with $inc the way Mongo would, returning the new document
+    private Product incrementProduct(Query query, Update update) {
+        Document filter = query.getQueryObject();
+        Product product = products.get(filter.getString("_id"));
+        Document minimum = filter.get("stockQuantity", Document.class);
+        if (product == null || (minimum != null && product.getStockQuantity() < minimum.getInteger("$gte"))) {
+            return null;
+        }
+        Document inc = update.getUpdateObject().get("$inc", Document.class);
+        product.setStockQuantity(product.getStockQuantity() + inc.getInteger("stockQuantity", 0));
+        product.setReservedQuantity(product.getReservedQuantity() + inc.getInteger("reservedQuantity", 0));
+        product.setSoldQuantity(product.getSoldQuantity() + inc.getInteger("soldQuantity", 0));
+        return product;
+    }
+
+    // Compare-and-set on the reservation status, returning the document as it was before
+    private StockReservation transition(Query query, Update update) {
+        Document filter = query.getQueryObject();
+        StockReservation reservation = reservations.get(filter.getString("_id"));
+        if (reservation == null || reservation.getStatus() != filter.get("status")) {
+            return null;
+        }
+        StockReservation before = StockReservation.builder()
+                .orderId(reservation.getOrderId())
+                .items(reservation.getItems())
+                .allocations(reservation.getAllocations())
+                .status(reservation.getStatus())
+                .build();
+        reservation.setStatus((StockReservation.ReservationStatus) update.getUpdateObject()
+                .get("$set", Document.class).get("status"));
+        return before;
+    }
+}
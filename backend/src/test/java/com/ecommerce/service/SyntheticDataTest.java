@@ -0,0 +1,98 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.SeedRequest;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.StockHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticDataTest {
+
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    private static SyntheticData data(long seed) {
+        SeedRequest request = SeedRequest.builder().seed(seed).products(1000).users(500).build();
+        return new SyntheticData(request, AS_OF, "{noop}password123", 10);
+    }
+
+    @Test
+    void sameSeedGivesTheSameDocuments() {
+        SyntheticData first = data(7);
+        SyntheticData second = data(7);
+
+        assertEquals(first.categories(), second.categories());
+        assertEquals(first.product(123), second.product(123));
+        assertEquals(first.user(45), second.user(45));
+        assertEquals(first.order(678), second.order(678));
+        assertEquals(first.review(9), second.review(9));
+        assertNotEquals(first.product(123), data(8).product(123));
+    }
+
+    @Test
+    void orderedProductsFollowAZipfPopularity() {
+        SyntheticData data = data(1);
+        int[] units = new int[1000];
+        int total = 0;
+        for (int i = 0; i < 5000; i++) {
+            for (Order.OrderItem item : data.order(i).getItems()) {
+                units[SyntheticData.productIndex(item.getProductId())] += item.getQuantity();
+                total += item.getQuantity();
+            }
+        }
+        int topTen = 0;
+        for (int i = 0; i < 10; i++) {
+            topTen += units[i];
+        }
+        // With exponent 1 over 1000 products the top 1% take about 39% of demand
+        assertTrue(topTen > total * 0.3, "top 10 products sold " + topTen + " of " + total);
+    }
+
+    @Test
+    void ordersAreConsistentWithTheirItemsAndUser() {
+        SyntheticData data = data(3);
+        Set<String> orderNumbers = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            Order order = data.order(i);
+            BigDecimal subtotal = order.getItems().stream().map(Order.OrderItem::getSubtotal)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(subtotal, order.getSubtotal());
+            assertEquals(OrderService.calculateTotals(subtotal, order.getDiscountAmount()).totalAmount(),
+                    order.getTotalAmount());
+            assertTrue(!order.getCreatedAt().isAfter(AS_OF));
+            assertTrue(orderNumbers.add(order.getOrderNumber()));
+        }
+    }
+
+    @Test
+    void stockHistoryEndsAtTheProductsStock() {
+        SyntheticData data = data(5);
+        Product product = data.product(42);
+        List<StockHistory> history = data.withStock(product, 42);
+
+        assertEquals(6, history.size());
+        assertEquals(StockHistory.StockChangeType.RESTOCK, history.get(0).getType());
+        int level = 0;
+        for (StockHistory event : history) {
+            level += event.getChangeQuantity();
+            assertEquals(level, event.getNewQuantity());
+            assertTrue(level >= 0);
+        }
+        assertEquals(level, product.getStockQuantity());
+    }
+
+    @Test
+    void defaultsApplyWithoutABuilder() {
+        assertEquals(10_000, new SeedRequest().getProducts());
+        assertEquals(42, new SeedRequest().getSeed());
+    }
+}
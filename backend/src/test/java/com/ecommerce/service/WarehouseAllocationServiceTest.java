@@ -0,0 +1,52 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.StockHistory;
+import com.ecommerce.model.WarehouseStock;
+import com.ecommerce.repository.WarehouseRepository;
+import com.ecommerce.repository.WarehouseStockRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WarehouseAllocationServiceTest {
+
+    @Test
+    void warehouseStockIsPutBackWhenTheProductRefusesTheChange() {
+        WarehouseRepository warehouseRepository = mock(WarehouseRepository.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        InventoryService inventoryService = mock(InventoryService.class);
+        when(warehouseRepository.existsById("w1")).thenReturn(true);
+        WarehouseStock previous = new WarehouseStock();
+        previous.setQuantity(10);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(WarehouseStock.class))).thenReturn(previous);
+        doThrow(new BadRequestException("Insufficient stock")).when(inventoryService).updateStock(eq("p1"), eq(-8),
+                eq(StockHistory.StockChangeType.MANUAL_UPDATE), anyString(), anyString());
+
+        WarehouseAllocationService service = new WarehouseAllocationService(warehouseRepository,
+                mock(WarehouseStockRepository.class), mongoTemplate, inventoryService, 100, 30_000);
+        assertThrows(BadRequestException.class, () -> service.setWarehouseStock("w1", "p1", 2));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(WarehouseStock.class));
+        // Only if the row still holds what this call wrote
+        assertEquals(2, query.getValue().getQueryObject().get("quantity"));
+        assertEquals(10, update.getValue().getUpdateObject().get("$set", Document.class).get("quantity"));
+    }
+}
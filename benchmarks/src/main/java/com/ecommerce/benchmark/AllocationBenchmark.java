@@ -0,0 +1,157 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Warehouse;
+import com.ecommerce.model.WarehouseStock;
+import com.ecommerce.repository.WarehouseRepository;
+import com.ecommerce.repository.WarehouseStockRepository;
+import com.ecommerce.service.AllocationPlanner;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.WarehouseAllocationService;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of placing one order's lines across 50 warehouses holding 200 products. "plan" is the bare
+ * AllocationPlanner; "allocate" is WarehouseAllocationService end to end: stock lookup, the plan
+ * cache and one conditional deduct per line. Mongo is answered from memory by mocks whose levels
+ * never drop, so every operation sees the same stock, and the score includes mock dispatch. A plan
+ * cache of size 0 plans every order from scratch; 10000 holds all 1024 distinct orders.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar AllocationBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllocationBenchmark {
+
+    private static final int WAREHOUSES = 50;
+    private static final int PRODUCTS = 200;
+    private static final int ORDERS = 1024;
+
+    private List<Warehouse> warehouses;
+    private Map<String, Map<String, Integer>> stock;
+    private List<Map<String, Integer>> demands;
+    private List<String> destinations;
+    private int next;
+
+    @State(Scope.Thread)
+    public static class Allocator {
+        @Param({"0", "10000"})
+        public int planCacheSize;
+
+        WarehouseAllocationService service;
+
+        @Setup(Level.Trial)
+        public void setUp(AllocationBenchmark orders) {
+            WarehouseRepository warehouseRepository = Mockito.mock(WarehouseRepository.class);
+            Mockito.when(warehouseRepository.findByActive(true)).thenReturn(orders.warehouses);
+            WarehouseStockRepository stockRepository = Mockito.mock(WarehouseStockRepository.class);
+            Mockito.when(stockRepository.findByProductIdIn(Mockito.anyCollection()))
+                    .thenAnswer(call -> orders.rows(call.getArgument(0)));
+            MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+            Mockito.when(mongoTemplate.updateFirst(Mockito.any(Query.class), Mockito.any(Update.class),
+                    Mockito.eq(WarehouseStock.class))).thenAnswer(call -> orders.deduct(call.getArgument(0)));
+            service = new WarehouseAllocationService(warehouseRepository, stockRepository, mongoTemplate,
+                    Mockito.mock(InventoryService.class), planCacheSize, Long.MAX_VALUE);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        warehouses = new ArrayList<>();
+        stock = new HashMap<>();
+        for (int w = 0; w < WAREHOUSES; w++) {
+            warehouses.add(Warehouse.builder().id("w" + w).name("w" + w).state("S" + (w % 10)).active(true).build());
+            Map<String, Integer> levels = new HashMap<>();
+            for (int p = 0; p < PRODUCTS; p++) {
+                if (random.nextInt(3) == 0) {
+                    levels.put("p" + p, random.nextInt(20));
+                }
+            }
+            stock.put("w" + w, levels);
+        }
+        demands = new ArrayList<>();
+        destinations = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Map<String, Integer> demand = new HashMap<>();
+            for (int k = 0; k < 1 + random.nextInt(5); k++) {
+                demand.merge("p" + random.nextInt(PRODUCTS), 1 + random.nextInt(3), Integer::sum);
+            }
+            demands.add(demand);
+            destinations.add("S" + random.nextInt(10));
+        }
+    }
+
+    @Benchmark
+    public List<AllocationPlanner.Line> plan() {
+        int order = next++ & (ORDERS - 1);
+        return AllocationPlanner.plan(demands.get(order), destinations.get(order), warehouses, stock);
+    }
+
+    @Benchmark
+    public List<Order.Allocation> allocate(Allocator allocator) {
+        int order = next++ & (ORDERS - 1);
+        return allocator.service.allocate(demands.get(order), destinations.get(order));
+    }
+
+    private List<WarehouseStock> rows(Collection<String> productIds) {
+        List<WarehouseStock> rows = new ArrayList<>();
+        stock.forEach((warehouseId, levels) -> {
+            for (String productId : productIds) {
+                Integer quantity = levels.get(productId);
+                if (quantity != null) {
+                    rows.add(WarehouseStock.builder().warehouseId(warehouseId).productId(productId)
+                            .quantity(quantity).build());
+                }
+            }
+        });
+        return rows;
+    }
+
+    // The conditional deduct: matches only while the row holds at least the quantity taken
+    private UpdateResult deduct(Query query) {
+        Document filter = query.getQueryObject();
+        Integer level = stock.getOrDefault(filter.getString("warehouseId"), Map.of()).get(filter.getString("productId"));
+        int wanted = filter.get("quantity", Document.class).getInteger("$gte");
+        long matched = level != null && level >= wanted ? 1 : 0;
+        return UpdateResult.acknowledged(matched, matched, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AllocationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
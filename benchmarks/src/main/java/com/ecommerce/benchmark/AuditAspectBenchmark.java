@@ -0,0 +1,135 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.model.Product;
+import com.ecommerce.security.UserPrincipal;
+import com.ecommerce.service.AdminActivityLogWriter;
+import com.ecommerce.service.AuditAspect;
+import com.ecommerce.service.AuditTrail;
+import com.ecommerce.service.Audited;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency an @Audited method pays for being audited. "direct" calls the method on the bean itself,
+ * "proxied" goes through an AOP proxy without advice (what any @PreAuthorize or @Transactional bean
+ * already pays) and "audited" goes through the audit aspect. The audited-minus-direct difference is
+ * the cost of auditing on the request thread; building, diffing and writing the entry happen on the
+ * audit trail's own thread. The log writer is never started, so its buffer fills and entries are
+ * dropped there instead of being inserted.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar AuditAspectBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuditAspectBenchmark {
+
+    public static class ProductAdmin {
+        private final Product product = Product.builder().id("p1").name("Desk lamp")
+                .price(new BigDecimal("1499.00")).stockQuantity(40).build();
+
+        @Audited(action = "UPDATE_PRODUCT", entityType = "PRODUCT")
+        public ResponseEntity<ApiResponse<Product>> update(String id, int stock) {
+            product.setStockQuantity(stock);
+            return ResponseEntity.ok(ApiResponse.success("Product updated", product));
+        }
+    }
+
+    // Without the audit trail's worker, the buffer fills and calls take the drop path. This isolates the
+    // request-thread cost; with it, the worker shares the machine, which matters on a single core
+    @Param({"false", "true"})
+    public boolean worker;
+
+    private ProductAdmin direct;
+    private ProductAdmin proxied;
+    private ProductAdmin audited;
+    private AuditTrail auditTrail;
+    private int stock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        auditTrail = new AuditTrail(new AdminActivityLogWriter(null, 8192, 500, 200, 5, 1000), objectMapper, 4096, 10000);
+        if (worker) {
+            auditTrail.start();
+        }
+
+        direct = new ProductAdmin();
+        AspectJProxyFactory plain = new AspectJProxyFactory(new ProductAdmin());
+        plain.setProxyTargetClass(true);
+        proxied = plain.getProxy();
+        AspectJProxyFactory advised = new AspectJProxyFactory(new ProductAdmin());
+        advised.setProxyTargetClass(true);
+        advised.addAspect(new AuditAspect(auditTrail));
+        audited = advised.getProxy();
+
+        // What an authenticated admin request has bound to the thread
+        UserPrincipal admin = new UserPrincipal("u1", "Ada Admin", "ada@shopease.test", "", true,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (worker) {
+            auditTrail.shutdown();
+        }
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Object direct() {
+        return direct.update("p1", ++stock);
+    }
+
+    @Benchmark
+    public Object proxied() {
+        return proxied.update("p1", ++stock);
+    }
+
+    @Benchmark
+    public Object audited() {
+        return audited.update("p1", ++stock);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuditAspectBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.Cart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart.recalculateTotals, which runs on every cart mutation and every cart read that reprices
+ * items, for a small, a typical and a large cart with a coupon discount applied.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar CartBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+    @Param({"1", "10", "50"})
+    int items;
+
+    Cart cart;
+
+    @Setup
+    public void setUp() {
+        List<Cart.CartItem> cartItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            BigDecimal price = new BigDecimal(149 + i * 37 + ".99");
+            int quantity = 1 + i % 3;
+            cartItems.add(Cart.CartItem.builder()
+                    .productId("p" + i)
+                    .productName("Product " + i)
+                    .price(price)
+                    .quantity(quantity)
+                    .subtotal(price.multiply(BigDecimal.valueOf(quantity)))
+                    .build());
+        }
+        cart = Cart.builder().userId("u1").items(cartItems).discount(new BigDecimal("100.00")).build();
+    }
+
+    @Benchmark
+    public BigDecimal recalculateTotals() {
+        cart.recalculateTotals();
+        return cart.getTotalPrice();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CartBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.service.InvoiceService;
+import com.ecommerce.service.PdfService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of one invoice. "render" is a cold PdfService render, single-threaded and with four threads
+ * sharing the service; "cached" is a repeat request served by InvoiceService from its disk cache.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar InvoiceRenderBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceRenderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Invoices {
+        @Param({"3", "30"})
+        int lines;
+
+        final PdfService pdfService = new PdfService();
+        Order order;
+        Path cacheDir;
+        InvoiceService invoiceService;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            order = sampleOrder(lines);
+            cacheDir = Files.createTempDirectory("invoice-bench");
+            invoiceService = new InvoiceService(pdfService, Mockito.mock(OrderRepository.class),
+                    cacheDir.toString(), 30, 1);
+            invoiceService.getInvoice(order);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            invoiceService.shutdown();
+            try (Stream<Path> files = Files.walk(cacheDir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] render(Invoices invoices) {
+        return invoices.pdfService.generateInvoice(invoices.order);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] renderConcurrently(Invoices invoices) {
+        return invoices.pdfService.generateInvoice(invoices.order);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] cached(Invoices invoices) {
+        return invoices.invoiceService.getInvoice(invoices.order);
+    }
+
+    static Order sampleOrder(int lines) {
+        List<Order.OrderItem> items = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal price = new BigDecimal(199 + i * 10 + ".00");
+            BigDecimal lineTotal = price.multiply(BigDecimal.valueOf(2));
+            items.add(Order.OrderItem.builder().productId("p" + i).productName("Product " + i)
+                    .price(price).quantity(2).subtotal(lineTotal).build());
+            subtotal = subtotal.add(lineTotal);
+        }
+        BigDecimal tax = subtotal.multiply(new BigDecimal("0.18"));
+        LocalDateTime createdAt = LocalDateTime.of(2025, 6, 1, 10, 30);
+        return Order.builder()
+                .id("665f1c2ab4e5a10c3d2e9f01")
+                .orderNumber("ORD-20250601-000001")
+                .userName("Asha Rao")
+                .userEmail("asha@example.com")
+                .items(items)
+                .shippingAddress(Order.ShippingAddress.builder().fullName("Asha Rao").phone("9876543210")
+                        .street("12 MG Road").city("Bengaluru").state("KA").zipCode("560001").country("India")
+                        .build())
+                .subtotal(subtotal)
+                .shippingCost(BigDecimal.ZERO)
+                .tax(tax)
+                .totalAmount(subtotal.add(tax))
+                .status(Order.OrderStatus.DELIVERED)
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusDays(3))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoiceRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
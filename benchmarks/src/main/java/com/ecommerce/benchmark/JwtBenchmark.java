@@ -0,0 +1,66 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenProvider: issuing a token at login, and the validate-then-read-subject pair that
+ * JwtAuthenticationFilter runs on every authenticated request.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar JwtBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private final JwtTokenProvider tokenProvider = new JwtTokenProvider();
+    private String token;
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "benchmark-secret-that-is-32-bytes!");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 86_400_000L);
+        token = tokenProvider.generateToken("asha@example.com");
+    }
+
+    @Benchmark
+    public String generate() {
+        return tokenProvider.generateToken("asha@example.com");
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return tokenProvider.validateToken(token);
+    }
+
+    // What the filter does per request
+    @Benchmark
+    public String authenticate() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getEmailFromToken(token) : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
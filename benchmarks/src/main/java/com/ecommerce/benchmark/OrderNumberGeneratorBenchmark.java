@@ -0,0 +1,95 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.service.OrderNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of OrderNumberGenerator. "shared" has every benchmark thread on one generator;
+ * "perNode" gives each thread its own generator with a distinct node id, simulating a cluster.
+ * Ids from different nodes differ in their node bits, so the cluster is collision-free exactly when
+ * every node's ids strictly increase and carry its own node id, which perNode checks on every call.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar OrderNumberGeneratorBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderNumberGeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final OrderNumberGenerator generator = new OrderNumberGenerator(1, System::currentTimeMillis);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Cluster {
+        final AtomicInteger nextNode = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class Node {
+        int nodeId;
+        OrderNumberGenerator generator;
+        long last;
+
+        @Setup(Level.Trial)
+        public void setUp(Cluster cluster) {
+            nodeId = cluster.nextNode.getAndIncrement();
+            generator = new OrderNumberGenerator(nodeId, System::currentTimeMillis);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleThread(Shared shared) {
+        return shared.generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long shared(Shared shared) {
+        return shared.generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long perNode(Node node) {
+        long id = node.generator.nextId();
+        if (id <= node.last || OrderNumberGenerator.nodeIdOf(id) != node.nodeId) {
+            throw new IllegalStateException("Id " + id + " could collide on node " + node.nodeId);
+        }
+        node.last = id;
+        return id;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String orderNumber(Shared shared) {
+        return shared.generator.nextOrderNumber();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderNumberGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
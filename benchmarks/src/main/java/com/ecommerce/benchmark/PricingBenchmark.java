@@ -0,0 +1,80 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.Coupon;
+import com.ecommerce.service.CouponService;
+import com.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BigDecimal arithmetic of checkout: CouponService.calculateDiscount for a capped percentage
+ * coupon and a flat one, and OrderService.calculateTotals (tax and shipping) below and above the
+ * free-shipping threshold.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar PricingBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PricingBenchmark {
+
+    // calculateDiscount touches none of the service's collaborators
+    private final CouponService couponService = new CouponService(null, null, null);
+
+    private final Coupon percentage = Coupon.builder()
+            .code("SAVE15")
+            .discountType(Coupon.DiscountType.PERCENTAGE)
+            .discountValue(new BigDecimal("15"))
+            .maxDiscountAmount(new BigDecimal("500"))
+            .build();
+    private final Coupon flat = Coupon.builder()
+            .code("FLAT200")
+            .discountType(Coupon.DiscountType.FIXED_AMOUNT)
+            .discountValue(new BigDecimal("200"))
+            .build();
+
+    private final BigDecimal smallOrder = new BigDecimal("349.00");
+    private final BigDecimal largeOrder = new BigDecimal("4899.50");
+
+    @Benchmark
+    public BigDecimal percentageDiscount() {
+        return couponService.calculateDiscount(percentage, largeOrder);
+    }
+
+    @Benchmark
+    public BigDecimal flatDiscount() {
+        return couponService.calculateDiscount(flat, largeOrder);
+    }
+
+    @Benchmark
+    public OrderService.Totals totalsWithShipping() {
+        return OrderService.calculateTotals(smallOrder, BigDecimal.ZERO);
+    }
+
+    @Benchmark
+    public OrderService.Totals totalsWithDiscount() {
+        return OrderService.calculateTotals(largeOrder, couponService.calculateDiscount(percentage, largeOrder));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
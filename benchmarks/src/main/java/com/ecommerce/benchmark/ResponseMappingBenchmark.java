@@ -0,0 +1,95 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-response mapping paid once per item on every catalog page and order listing:
+ * ProductResponse.fromProduct for a fully populated product, and OrderResponse.fromOrder for
+ * orders of 1, 5 and 30 lines.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar ResponseMappingBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Products {
+        final Product product = Product.builder()
+                .id("665f1c2ab4e5a10c3d2e9f10")
+                .name("Noise Cancelling Wireless Headphones")
+                .description("Over-ear headphones with 30 hours of battery and adaptive noise cancelling.")
+                .brand("Sonora")
+                .price(new BigDecimal("7999.00"))
+                .discountPrice(new BigDecimal("6499.00"))
+                .discountPercentage(19)
+                .categoryId("665f1c2ab4e5a10c3d2e9f02")
+                .categoryName("Audio")
+                .images(List.of("https://cdn.example.com/p/1-front.jpg", "https://cdn.example.com/p/1-side.jpg",
+                        "https://cdn.example.com/p/1-case.jpg"))
+                .stockQuantity(120)
+                .featured(true)
+                .averageRating(4.4)
+                .reviewCount(312)
+                .tags(List.of("audio", "wireless", "bluetooth", "noise-cancelling"))
+                .specs(Product.ProductSpecs.builder().weight("250 g").dimensions("18 x 16 x 8 cm")
+                        .color("Black").material("Aluminium").warranty("1 year").build())
+                .createdAt(LocalDateTime.of(2025, 5, 1, 9, 0))
+                .updatedAt(LocalDateTime.of(2025, 6, 1, 9, 0))
+                .build();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Orders {
+        @Param({"1", "5", "30"})
+        int lines;
+
+        Order order;
+
+        @Setup
+        public void setUp() {
+            order = InvoiceRenderBenchmark.sampleOrder(lines);
+        }
+    }
+
+    @Benchmark
+    public ProductResponse fromProduct(Products products) {
+        return ProductResponse.fromProduct(products.product);
+    }
+
+    @Benchmark
+    public OrderResponse fromOrder(Orders orders) {
+        return OrderResponse.fromOrder(orders.order);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.service.CategoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CategoryService.generateSlug, a chain of regex replacements, for a short name, one full of
+ * punctuation and runs of spaces, and a long one.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar SlugBenchmark (or main() from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SlugBenchmark {
+
+    @Param({
+            "Laptops",
+            "Men's   Shoes & Sandals -- (Summer '25)!",
+            "Home Kitchen Appliances Small Appliances Coffee Makers Espresso Machines Accessories And Spare Parts"})
+    String name;
+
+    @Benchmark
+    public String generateSlug() {
+        return CategoryService.generateSlug(name);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SlugBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
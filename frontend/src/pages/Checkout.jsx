@@ -30,6 +30,8 @@ export default function Checkout() {
   const [paymentMethod, setPaymentMethod] = useState('COD');
   const [couponCode, setCouponCode] = useState('');
   const [isApplyingCoupon, setIsApplyingCoupon] = useState(false);
+  // Reused when a placement is retried so the server creates at most one order for this attempt
+  const [idempotencyKey, setIdempotencyKey] = useState(() => crypto.randomUUID());
 
   useEffect(() => {
     fetchCart();
@@ -150,7 +152,7 @@ export default function Checkout() {
         paymentMethod,
       };
 
-      const response = await ordersAPI.create(orderData);
+      const response = await ordersAPI.create(orderData, idempotencyKey);
       const orderId = response.data.data.id;
 
       if (paymentMethod === 'COD') {
@@ -163,6 +165,10 @@ export default function Checkout() {
       }
     } catch (error) {
       console.error('Failed to place order:', error);
+      // A rejected order (e.g. out of stock) needs a new key once the cart changes; network errors keep it for the retry
+      if (error.response && error.response.status < 500 && error.response.status !== 409) {
+        setIdempotencyKey(crypto.randomUUID());
+      }
       toast.error(error.response?.data?.message || 'Failed to place order');
     } finally {
       setIsLoading(false);
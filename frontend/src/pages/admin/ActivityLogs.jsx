@@ -22,32 +22,39 @@ const ENTITY_ICONS = {
 
 export default function ActivityLogs() {
     const [logs, setLogs] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [isLoading, setIsLoading] = useState(true);
+    const [isLoadingMore, setIsLoadingMore] = useState(false);
     const [searchTerm, setSearchTerm] = useState('');
     const [filterType, setFilterType] = useState('ALL');
 
-    const fetchLogs = async () => {
-        setIsLoading(true);
+    // The entity filter and paging run on the server; search only narrows the pages already loaded
+    const fetchLogs = async (cursor) => {
+        const params = { size: 50 };
+        if (filterType !== 'ALL') params.entityType = filterType;
+        if (cursor) params.cursor = cursor;
+
+        cursor ? setIsLoadingMore(true) : setIsLoading(true);
         try {
-            const res = await adminAPI.getActivityLogs();
-            setLogs(res.data.data);
+            const res = await adminAPI.getActivityLogs(params);
+            const page = res.data.data;
+            setLogs(prev => cursor ? [...prev, ...page.content] : page.content);
+            setNextCursor(page.nextCursor);
         } catch (error) {
             toast.error('Failed to fetch activity logs');
         } finally {
-            setIsLoading(false);
+            cursor ? setIsLoadingMore(false) : setIsLoading(false);
         }
     };
 
     useEffect(() => {
         fetchLogs();
-    }, []);
+    }, [filterType]);
 
-    const filteredLogs = logs.filter(log => {
-        const matchesSearch = log.adminName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-            log.description.toLowerCase().includes(searchTerm.toLowerCase());
-        const matchesFilter = filterType === 'ALL' || log.entityType === filterType;
-        return matchesSearch && matchesFilter;
-    });
+    const filteredLogs = logs.filter(log =>
+        log.adminName?.toLowerCase().includes(searchTerm.toLowerCase()) ||
+        log.description?.toLowerCase().includes(searchTerm.toLowerCase())
+    );
 
     if (isLoading) return <div className="flex justify-center py-20"><LoadingSpinner size="lg" /></div>;
 
@@ -146,6 +153,17 @@ export default function ActivityLogs() {
                         </tbody>
                     </table>
                 </div>
+                {nextCursor && (
+                    <div className="px-6 py-4 border-t dark:border-gray-700 text-center">
+                        <button
+                            onClick={() => fetchLogs(nextCursor)}
+                            disabled={isLoadingMore}
+                            className="px-4 py-2 text-sm font-medium text-indigo-600 dark:text-indigo-400 hover:bg-indigo-50 dark:hover:bg-indigo-900/20 rounded-xl disabled:opacity-50"
+                        >
+                            {isLoadingMore ? 'Loading...' : 'Load older entries'}
+                        </button>
+                    </div>
+                )}
             </div>
         </div>
     );
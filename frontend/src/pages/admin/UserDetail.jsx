@@ -18,6 +18,9 @@ export default function UserDetail() {
     const navigate = useNavigate();
     const [user, setUser] = useState(null);
     const [orders, setOrders] = useState([]);
+    const [ordersPage, setOrdersPage] = useState(0);
+    const [ordersTotalPages, setOrdersTotalPages] = useState(0);
+    const [ordersTotal, setOrdersTotal] = useState(0);
     const [isLoading, setIsLoading] = useState(true);
     const [isEditing, setIsEditing] = useState(false);
     const [formData, setFormData] = useState({});
@@ -27,10 +30,12 @@ export default function UserDetail() {
         try {
             const [userRes, ordersRes] = await Promise.all([
                 adminAPI.getUserById(id),
-                adminAPI.getUserOrders(id)
+                adminAPI.getUserOrders(id, { page: ordersPage, size: 10 })
             ]);
             setUser(userRes.data.data);
-            setOrders(ordersRes.data.data);
+            setOrders(ordersRes.data.data.content || []);
+            setOrdersTotalPages(ordersRes.data.data.totalPages || 0);
+            setOrdersTotal(ordersRes.data.data.totalElements || 0);
             setFormData({
                 firstName: userRes.data.data.firstName || '',
                 lastName: userRes.data.data.lastName || '',
@@ -51,7 +56,7 @@ export default function UserDetail() {
 
     useEffect(() => {
         fetchData();
-    }, [id]);
+    }, [id, ordersPage]);
 
     const handleUpdate = async (e) => {
         e.preventDefault();
@@ -148,7 +153,7 @@ export default function UserDetail() {
                             </div>
                             <div className="flex items-center gap-3 text-gray-600 dark:text-gray-400">
                                 <ShoppingBagIcon className="h-5 w-5" />
-                                <span>{orders.length} Orders</span>
+                                <span>{ordersTotal} Orders</span>
                             </div>
                             <div className="pt-4 border-t dark:border-gray-700">
                                 <p className="text-sm text-gray-500 uppercase font-semibold">Joined</p>
@@ -337,6 +342,27 @@ export default function UserDetail() {
                                     </table>
                                 </div>
                             )}
+                            {ordersTotalPages > 1 && (
+                                <div className="flex justify-center gap-2">
+                                    <button
+                                        onClick={() => setOrdersPage(p => Math.max(0, p - 1))}
+                                        disabled={ordersPage === 0}
+                                        className="px-4 py-2 border rounded-lg disabled:opacity-50"
+                                    >
+                                        Previous
+                                    </button>
+                                    <span className="px-4 py-2">
+                                        Page {ordersPage + 1} of {ordersTotalPages}
+                                    </span>
+                                    <button
+                                        onClick={() => setOrdersPage(p => Math.min(ordersTotalPages - 1, p + 1))}
+                                        disabled={ordersPage >= ordersTotalPages - 1}
+                                        className="px-4 py-2 border rounded-lg disabled:opacity-50"
+                                    >
+                                        Next
+                                    </button>
+                                </div>
+                            )}
                         </div>
                     )}
                 </div>
@@ -96,7 +96,8 @@ export const cartAPI = {
 
 // Orders API
 export const ordersAPI = {
-  create: (data) => api.post('/orders', data),
+  create: (data, idempotencyKey) =>
+    api.post('/orders', data, { headers: { 'Idempotency-Key': idempotencyKey } }),
   getAll: (params) => api.get('/orders', { params }),
   getMyOrders: (params) => api.get('/orders', { params }),
   getById: (id) => api.get(`/orders/${id}`),
@@ -184,7 +185,7 @@ export const adminAPI = {
   getUserById: (id) => api.get(`/admin/users/${id}`),
   updateUserRole: (id, role) => api.put(`/admin/users/${id}/role?role=${role}`),
   adminDeactivateUser: (itemId) => api.put(`/admin/users/${itemId}/deactivate`), // This was lines 185-186? No, let's look at view_file output.
-  getUserOrders: (id) => api.get(`/admin/users/${id}/orders`),
+  getUserOrders: (id, params) => api.get(`/admin/users/${id}/orders`, { params }),
   updateUser: (id, data) => api.put(`/admin/users/${id}`, data),
 
   // Payments
@@ -207,6 +208,9 @@ export const adminAPI = {
     api.post('/admin/inventory/update-stock', null, {
       params: { productId, change, type, notes }
     }),
+  getStockHistory: (productId, params) => api.get(`/admin/inventory/${productId}/history`, { params }),
+  getDailyStockHistory: (productId, from, to) =>
+    api.get(`/admin/inventory/${productId}/history/daily`, { params: { from, to } }),
 
   // Coupons
   getCoupons: () => api.get('/admin/coupons'),
@@ -220,11 +224,14 @@ export const adminAPI = {
   // Admin Role Management
   getAdminUsers: () => api.get('/admin/admin-users'),
   updateAdminPermissions: (id, permissions) => api.put(`/admin/admin-users/${id}/permissions`, permissions),
-  getActivityLogs: () => api.get('/admin/activity-logs'),
+  getActivityLogs: (params) => api.get('/admin/activity-logs', { params }),
 };
 
 // Payment API
 export const paymentAPI = {
-  createRazorpayOrder: (orderId) => api.post(`/payments/razorpay/order/${orderId}`),
+  createRazorpayOrder: (orderId) =>
+    api.post(`/payments/razorpay/order/${orderId}`, null, {
+      headers: { 'Idempotency-Key': `razorpay-order-${orderId}` },
+    }),
   verifyRazorpayPayment: (data) => api.post('/payments/razorpay/verify', data),
 };
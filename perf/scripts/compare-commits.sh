@@ -0,0 +1,48 @@
+#!/usr/bin/env sh
+# Runs the same load against the backend of two commits and fails if the second one regressed
+# (see RegressionCheck). Without a second ref the working tree is compared with the first. Both
+# runs use this checkout's simulation, each against its own fresh MongoDB; -D options are passed
+# to both.
+#
+#   scripts/compare-commits.sh main
+#   TOLERANCE=15 scripts/compare-commits.sh v1.4 HEAD -DusersPerSec=40 -DdurationSeconds=600
+set -e
+[ $# -ge 1 ] || { echo "usage: $0 baseRef [ref] [-Dname=value ...]"; exit 2; }
+PERF_DIR=$(cd "$(dirname "$0")/.." && pwd)
+REPO_DIR=$(cd "$PERF_DIR/.." && pwd)
+MVN=${MVN:-mvn}
+BASE_REF=$1
+shift
+CURRENT_REF=
+case "$1" in
+    ""|-*) ;;
+    *) CURRENT_REF=$1; shift ;;
+esac
+OUT="$PERF_DIR/target/compare"
+rm -rf "$OUT"
+mkdir -p "$OUT"
+
+run() {
+    label=$1
+    ref=$2
+    shift 2
+    backend="$REPO_DIR/backend"
+    if [ -n "$ref" ]; then
+        git -C "$REPO_DIR" worktree add --detach "$OUT/src-$label" "$ref" > /dev/null
+        backend="$OUT/src-$label/backend"
+    fi
+    echo "== $label (${ref:-working tree})"
+    BACKEND_DIR="$backend" "$PERF_DIR/scripts/run-local.sh" -Dgatling.failOnError=false "$@"
+    cp -r "$(ls -d "$PERF_DIR"/target/gatling/storefrontsimulation-* | tail -n 1)" "$OUT/$label"
+    if [ -n "$ref" ]; then
+        git -C "$REPO_DIR" worktree remove --force "$OUT/src-$label"
+    fi
+}
+
+run baseline "$BASE_REF" "$@"
+run current "$CURRENT_REF" "$@"
+
+cd "$PERF_DIR"
+$MVN -q -B dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+java -cp "target/test-classes:$(cat target/classpath.txt)" com.ecommerce.perf.RegressionCheck \
+    "$OUT/baseline" "$OUT/current" "${TOLERANCE:-10}" "${MIN_DELTA_MS:-5}"
@@ -0,0 +1,66 @@
+#!/usr/bin/env sh
+# Builds the backend, fills a fresh MongoDB with synthetic data, starts the backend and runs
+# StorefrontSimulation. Unless MONGODB_URI is set, MongoDB runs in a throwaway Docker container.
+# Extra arguments go to Maven, e.g.
+#
+#   SEED_ARGS="--app.seed.products=100000 --app.seed.orders=1000000" \
+#       scripts/run-local.sh -DusersPerSec=50 -Dmix=browse=60,search=30,checkout=10
+#
+# The HTML report is written to target/gatling/storefrontsimulation-*/index.html. BACKEND_DIR
+# selects the backend to test (compare-commits.sh points it at a checkout of another commit). The
+# data always comes from this checkout's generator, so every backend sees the same documents.
+# Existing data is only wiped in the container started here; against MONGODB_URI the generator
+# adds to what is there unless PERF_RESET=1.
+set -e
+PERF_DIR=$(cd "$(dirname "$0")/.." && pwd)
+BACKEND_DIR=${BACKEND_DIR:-$PERF_DIR/../backend}
+SEED_DIR=$(cd "$PERF_DIR/../backend" && pwd)
+MVN=${MVN:-mvn}
+PORT=${PERF_PORT:-8088}
+MONGO_PORT=${PERF_MONGO_PORT:-27018}
+export JWT_SECRET=${JWT_SECRET:-perf-only-jwt-secret-0123456789abcdef}
+export STOCK_HISTORY_JOURNAL=${STOCK_HISTORY_JOURNAL:-$PERF_DIR/target/stock-history.journal}
+
+server=
+container=
+cleanup() {
+    [ -n "$server" ] && kill "$server" 2> /dev/null && wait "$server" 2> /dev/null
+    [ -n "$container" ] && docker rm -f "$container" > /dev/null
+    return 0
+}
+trap cleanup EXIT
+mkdir -p "$PERF_DIR/target"
+
+reset=false
+[ "$PERF_RESET" = 1 ] && reset=true
+if [ -z "$MONGODB_URI" ]; then
+    reset=true
+    container=$(docker run -d -p "$MONGO_PORT:27017" mongo:7)
+    MONGODB_URI="mongodb://localhost:$MONGO_PORT/ecommerce"
+    until docker exec "$container" mongosh --quiet --eval 'db.runCommand({ping: 1})' > /dev/null 2>&1; do
+        sleep 1
+    done
+fi
+
+$MVN -q -B -f "$BACKEND_DIR/pom.xml" -DskipTests package
+if [ "$(cd "$BACKEND_DIR" && pwd)" != "$SEED_DIR" ]; then
+    $MVN -q -B -f "$SEED_DIR/pom.xml" -DskipTests package
+fi
+MONGODB_URI=$MONGODB_URI java -jar "$SEED_DIR/target/ecommerce-backend-1.0.0.jar" \
+    --spring.main.web-application-type=none --app.seed.run=true --app.seed.exit=true --app.seed.reset=$reset \
+    $SEED_ARGS > "$PERF_DIR/target/seed.log" 2>&1 || { echo "seeding failed, see target/seed.log"; exit 1; }
+grep "Synthetic data generated" "$PERF_DIR/target/seed.log"
+
+MONGODB_URI=$MONGODB_URI java -jar "$BACKEND_DIR/target/ecommerce-backend-1.0.0.jar" --server.port="$PORT" \
+    > "$PERF_DIR/target/backend.log" 2>&1 &
+server=$!
+until curl -sf "http://localhost:$PORT/api/categories" > /dev/null; do
+    kill -0 "$server" 2> /dev/null || { echo "backend failed to start, see target/backend.log"; exit 1; }
+    sleep 1
+done
+
+cd "$PERF_DIR"
+status=0
+$MVN -B test-compile gatling:test -DbaseUrl="http://localhost:$PORT" "$@" || status=$?
+echo "Report: $(ls -d "$PERF_DIR"/target/gatling/storefrontsimulation-* | tail -n 1)/index.html"
+exit $status
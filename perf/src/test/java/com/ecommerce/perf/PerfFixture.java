@@ -0,0 +1,126 @@
+package com.ecommerce.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * What the journeys need from the seeded backend, fetched once before the load starts: product and
+ * category ids, search terms taken from product names, and signed-in shopper and admin tokens.
+ * Shopper accounts are registered on first use and reused by later runs.
+ */
+final class PerfFixture {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SHOPPER_PASSWORD = "perf-shopper-123";
+    private static final int PAGE_SIZE = 100;
+    // A few terms that match nothing, as real search traffic does
+    private static final List<String> MISSES = List.of("zzqx", "unobtainium", "xylophone-pro");
+
+    final List<String> productIds = new ArrayList<>();
+    final List<String> categoryIds = new ArrayList<>();
+    final List<String> searchTerms = new ArrayList<>();
+    final List<String> shopperTokens = new ArrayList<>();
+    String adminToken;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final String baseUrl;
+
+    PerfFixture(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    void load(int maxProducts, int shoppers, String adminEmail, String adminPassword) {
+        try {
+            Set<String> terms = new LinkedHashSet<>();
+            for (int page = 0; productIds.size() < maxProducts; page++) {
+                JsonNode data = get("/api/products?page=" + page + "&size=" + PAGE_SIZE).path("data");
+                for (JsonNode product : data.path("content")) {
+                    productIds.add(product.path("id").asText());
+                    for (String word : product.path("name").asText().toLowerCase().split("[^a-z0-9]+")) {
+                        if (word.length() > 3) {
+                            terms.add(word);
+                        }
+                    }
+                }
+                if (data.path("last").asBoolean(true)) {
+                    break;
+                }
+            }
+            for (JsonNode category : get("/api/categories").path("data")) {
+                categoryIds.add(category.path("id").asText());
+            }
+            if (productIds.isEmpty() || categoryIds.isEmpty()) {
+                throw new IllegalStateException("No catalog at " + baseUrl + "; seed the backend before running");
+            }
+            searchTerms.addAll(terms);
+            searchTerms.addAll(MISSES);
+
+            for (int i = 0; i < shoppers; i++) {
+                shopperTokens.add(shopperToken("perf.shopper." + i + "@example.com", i));
+            }
+            adminToken = login(adminEmail, adminPassword);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not prepare the load test against " + baseUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Picks uniformly; skew comes from the data itself (see the synthetic data generator)
+    static String pick(List<String> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private String shopperToken(String email, int index) throws IOException, InterruptedException {
+        HttpResponse<String> registered = post("/api/auth/register", Map.of(
+                "firstName", "Perf",
+                "lastName", "Shopper " + index,
+                "email", email,
+                "password", SHOPPER_PASSWORD,
+                "phone", String.format("90000%05d", index)));
+        if (registered.statusCode() < 300) {
+            return JSON.readTree(registered.body()).path("data").path("token").asText();
+        }
+        // Registered by an earlier run
+        return login(email, SHOPPER_PASSWORD);
+    }
+
+    private String login(String email, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/api/auth/login", Map.of("email", email, "password", password));
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Login failed for " + email + ": " + response.statusCode());
+        }
+        return JSON.readTree(response.body()).path("data").path("token").asText();
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return JSON.readTree(response.body());
+    }
+
+    private HttpResponse<String> post(String path, Object body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
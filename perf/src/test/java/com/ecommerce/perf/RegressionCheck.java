@@ -0,0 +1,132 @@
+package com.ecommerce.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two Gatling runs endpoint by endpoint and exits non-zero when the second is slower.
+ * An endpoint regresses when its p95 or p99 grows by more than the tolerance and by more than a
+ * few milliseconds (so a 2 ms endpoint going to 3 ms is noise, not a regression), or when its
+ * error rate rises by more than a percentage point.
+ *
+ * Usage: RegressionCheck baselineReportDir currentReportDir [tolerancePercent=10] [minDeltaMillis=5]
+ * A report dir is target/gatling/storefrontsimulation-*, or anything holding its js/stats.json.
+ */
+public class RegressionCheck {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // From js/stats.json; percentiles3 and percentiles4 are p95 and p99 (see gatling.conf)
+    record EndpointStats(long requests, long errors, double p95, double p99) {
+
+        double errorPercent() {
+            return requests == 0 ? 0 : errors * 100.0 / requests;
+        }
+    }
+
+    record Finding(String endpoint, String metric, double baseline, double current) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: RegressionCheck baselineReportDir currentReportDir [tolerancePercent=10] [minDeltaMillis=5]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        double minDelta = args.length > 3 ? Double.parseDouble(args[3]) : 5;
+        Map<String, EndpointStats> baseline = read(Path.of(args[0]));
+        Map<String, EndpointStats> current = read(Path.of(args[1]));
+
+        System.out.printf("%-45s %10s %10s %10s %10s %8s %8s%n",
+                "endpoint", "p95 base", "p95 now", "p99 base", "p99 now", "err base", "err now");
+        current.forEach((endpoint, now) -> {
+            EndpointStats base = baseline.get(endpoint);
+            if (base != null) {
+                System.out.printf("%-45s %10.0f %10.0f %10.0f %10.0f %7.2f%% %7.2f%%%n", endpoint,
+                        base.p95(), now.p95(), base.p99(), now.p99(), base.errorPercent(), now.errorPercent());
+            } else {
+                System.out.printf("%-45s %10s %10.0f %10s %10.0f %8s %7.2f%%%n", endpoint,
+                        "-", now.p95(), "-", now.p99(), "-", now.errorPercent());
+            }
+        });
+
+        List<Finding> findings = compare(baseline, current, tolerance, minDelta);
+        if (findings.isEmpty()) {
+            System.out.printf("No regressions (tolerance %.0f%%, %.0f ms)%n", tolerance, minDelta);
+            return;
+        }
+        System.out.printf("%d regression(s):%n", findings.size());
+        for (Finding finding : findings) {
+            System.out.printf("  %s %s: %.1f -> %.1f%n",
+                    finding.endpoint(), finding.metric(), finding.baseline(), finding.current());
+        }
+        System.exit(1);
+    }
+
+    static List<Finding> compare(Map<String, EndpointStats> baseline, Map<String, EndpointStats> current,
+            double tolerancePercent, double minDeltaMillis) {
+        List<Finding> findings = new ArrayList<>();
+        current.forEach((endpoint, now) -> {
+            EndpointStats base = baseline.get(endpoint);
+            if (base == null) {
+                return;
+            }
+            if (slower(base.p95(), now.p95(), tolerancePercent, minDeltaMillis)) {
+                findings.add(new Finding(endpoint, "p95 ms", base.p95(), now.p95()));
+            }
+            if (slower(base.p99(), now.p99(), tolerancePercent, minDeltaMillis)) {
+                findings.add(new Finding(endpoint, "p99 ms", base.p99(), now.p99()));
+            }
+            if (now.errorPercent() - base.errorPercent() > 1.0) {
+                findings.add(new Finding(endpoint, "error %", base.errorPercent(), now.errorPercent()));
+            }
+        });
+        return findings;
+    }
+
+    private static boolean slower(double baseline, double current, double tolerancePercent, double minDeltaMillis) {
+        return current - baseline > minDeltaMillis && current > baseline * (1 + tolerancePercent / 100);
+    }
+
+    // Per-request stats keyed by request name, plus the "All Requests" total
+    static Map<String, EndpointStats> read(Path reportDir) throws IOException {
+        Path stats = reportDir.resolve("js").resolve("stats.json");
+        if (!Files.exists(stats)) {
+            stats = reportDir.resolve("stats.json");
+        }
+        JsonNode root = JSON.readTree(stats.toFile());
+        Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        collect(root, endpoints);
+        return endpoints;
+    }
+
+    private static void collect(JsonNode node, Map<String, EndpointStats> endpoints) {
+        JsonNode stats = node.path("stats");
+        if (!stats.isMissingNode()) {
+            endpoints.put(stats.path("name").asText(), new EndpointStats(
+                    number(stats.path("numberOfRequests").path("total")),
+                    number(stats.path("numberOfRequests").path("ko")),
+                    number(stats.path("percentiles3").path("ok")),
+                    number(stats.path("percentiles4").path("ok"))));
+        }
+        for (Iterator<JsonNode> children = node.path("contents").elements(); children.hasNext(); ) {
+            collect(children.next(), endpoints);
+        }
+    }
+
+    // Gatling writes "-" for metrics with no samples
+    private static long number(JsonNode value) {
+        return value.isNumber() ? value.asLong() : value.isTextual() && value.asText().matches("\\d+")
+                ? Long.parseLong(value.asText()) : 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.perf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegressionCheckTest {
+
+    @TempDir
+    Path reports;
+
+    @Test
+    void readsPerEndpointStatsFromAGatlingReport() throws IOException {
+        Path report = report("run1", 120, "-");
+
+        Map<String, RegressionCheck.EndpointStats> stats = RegressionCheck.read(report);
+
+        assertEquals(List.of("All Requests", "GET /api/products"), List.copyOf(stats.keySet()));
+        assertEquals(new RegressionCheck.EndpointStats(1000, 0, 120, 240), stats.get("GET /api/products"));
+    }
+
+    @Test
+    void flagsSlowdownsBeyondToleranceAndNoise() {
+        Map<String, RegressionCheck.EndpointStats> baseline = Map.of(
+                "GET /api/products", new RegressionCheck.EndpointStats(1000, 0, 100, 200),
+                "GET /api/cart", new RegressionCheck.EndpointStats(1000, 0, 2, 3));
+        Map<String, RegressionCheck.EndpointStats> current = Map.of(
+                "GET /api/products", new RegressionCheck.EndpointStats(1000, 30, 115, 205),
+                "GET /api/cart", new RegressionCheck.EndpointStats(1000, 0, 4, 6));
+
+        List<RegressionCheck.Finding> findings = RegressionCheck.compare(baseline, current, 10, 5);
+
+        assertEquals(List.of(
+                new RegressionCheck.Finding("GET /api/products", "p95 ms", 100, 115),
+                new RegressionCheck.Finding("GET /api/products", "error %", 0, 3)), findings);
+    }
+
+    private Path report(String name, int p95, String ko) throws IOException {
+        Path js = Files.createDirectories(reports.resolve(name).resolve("js"));
+        Files.writeString(js.resolve("stats.json"), """
+                {"type": "GROUP", "name": "All Requests", "path": "", "pathFormatted": "group_missing-name",
+                 "stats": {"name": "All Requests",
+                   "numberOfRequests": {"total": 1000, "ok": 1000, "ko": "%2$s"},
+                   "percentiles3": {"total": %1$d, "ok": %1$d, "ko": "-"},
+                   "percentiles4": {"total": %3$d, "ok": %3$d, "ko": "-"}},
+                 "contents": {
+                   "req_get--api-produc-1": {"type": "REQUEST", "name": "GET /api/products",
+                     "stats": {"name": "GET /api/products",
+                       "numberOfRequests": {"total": 1000, "ok": 1000, "ko": "%2$s"},
+                       "percentiles3": {"total": %1$d, "ok": %1$d, "ko": "-"},
+                       "percentiles4": {"total": %3$d, "ok": %3$d, "ko": "-"}}}}}
+                """.formatted(p95, ko, p95 * 2));
+        return reports.resolve(name);
+    }
+}
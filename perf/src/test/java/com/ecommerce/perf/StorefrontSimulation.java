@@ -0,0 +1,192 @@
+package com.ecommerce.perf;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Choice;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.global;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.percent;
+import static io.gatling.javaapi.core.CoreDsl.rampUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Open-model load against a running backend: users arrive at a fixed rate and each takes one
+ * journey (browse, search, product page, cart, checkout or admin dashboard) picked by the traffic
+ * mix. Requests are named after their endpoint templates, so the HTML report breaks throughput and
+ * latency percentiles down per endpoint. Settings are system properties:
+ *
+ * <pre>
+ * baseUrl          http://localhost:8080
+ * mix              browse=40,search=20,pdp=25,cart=8,checkout=5,admin=2
+ * usersPerSec      20       arrival rate once ramped up
+ * rampSeconds      30
+ * durationSeconds  300      at full rate, after the ramp
+ * thinkMillis      500-2000 pause between a user's requests
+ * shoppers         200      signed-in accounts shared by cart and checkout users
+ * products         2000     product ids sampled for product pages and carts
+ * adminEmail, adminPassword admin@example.com / admin123
+ * maxP95Millis     800      assertions: a run that breaks them fails the build
+ * maxP99Millis     2000
+ * maxErrorPercent  1
+ * </pre>
+ */
+public class StorefrontSimulation extends Simulation {
+
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER = "Bearer #{token}";
+    private static final List<String> SORTS = List.of("createdAt", "price", "averageRating");
+
+    private final String baseUrl = System.getProperty("baseUrl", "http://localhost:8080").replaceAll("/$", "");
+    private final TrafficMix mix = TrafficMix.parse(System.getProperty("mix", TrafficMix.DEFAULT));
+    private final double usersPerSec = Double.parseDouble(System.getProperty("usersPerSec", "20"));
+    private final int rampSeconds = Integer.getInteger("rampSeconds", 30);
+    private final int durationSeconds = Integer.getInteger("durationSeconds", 300);
+    private final Duration thinkMin = Duration.ofMillis(Long.parseLong(thinkRange()[0]));
+    private final Duration thinkMax = Duration.ofMillis(Long.parseLong(thinkRange()[1]));
+
+    // Filled in before(); the feeder only reads it once users start arriving
+    private final PerfFixture fixture = new PerfFixture(baseUrl);
+
+    private final Iterator<Map<String, Object>> picks = Stream.generate(this::pick).iterator();
+
+    private final HttpProtocolBuilder protocol = http.baseUrl(baseUrl)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .userAgentHeader("ecommerce-perf");
+
+    private final ChainBuilder browse = exec(http("GET /api/categories/root").get("/api/categories/root"))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/products/category/{categoryId}")
+                    .get("/api/products/category/#{categoryId}?page=0&size=12"))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/products").get("/api/products?page=#{page}&size=12&sortBy=#{sortBy}&sortDir=desc"))
+            .exec(http("GET /api/products/featured").get("/api/products/featured"));
+
+    private final ChainBuilder search = exec(http("GET /api/products/search")
+            .get("/api/products/search").queryParam("q", "#{term}").queryParam("page", "0").queryParam("size", "12"))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/products/search")
+                    .get("/api/products/search").queryParam("q", "#{term}").queryParam("page", "1").queryParam("size", "12"));
+
+    private final ChainBuilder productPage = exec(http("GET /api/products/{id}").get("/api/products/#{productId}"))
+            .exec(http("GET /api/reviews/product/{productId}").get("/api/reviews/product/#{productId}"))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/products/category/{categoryId}")
+                    .get("/api/products/category/#{categoryId}?page=0&size=12"));
+
+    // Leaves the cart as it found it, so carts do not grow over a long run
+    private final ChainBuilder cart = exec(http("GET /api/cart").get("/api/cart").header(AUTHORIZATION, BEARER))
+            .pause(thinkMin, thinkMax)
+            .exec(http("POST /api/cart/add").post("/api/cart/add").header(AUTHORIZATION, BEARER)
+                    .body(StringBody("{\"productId\":\"#{productId}\",\"quantity\":1}")))
+            .pause(thinkMin, thinkMax)
+            .exec(http("PUT /api/cart/update/{productId}").put("/api/cart/update/#{productId}?quantity=2")
+                    .header(AUTHORIZATION, BEARER))
+            .pause(thinkMin, thinkMax)
+            .exec(http("DELETE /api/cart/remove/{productId}").delete("/api/cart/remove/#{productId}")
+                    .header(AUTHORIZATION, BEARER));
+
+    private final ChainBuilder checkout = exec(http("POST /api/cart/add").post("/api/cart/add")
+            .header(AUTHORIZATION, BEARER)
+            .body(StringBody("{\"productId\":\"#{productId}\",\"quantity\":1}")))
+            .exec(http("GET /api/cart").get("/api/cart").header(AUTHORIZATION, BEARER))
+            .pause(thinkMin, thinkMax)
+            .exec(http("POST /api/orders").post("/api/orders").header(AUTHORIZATION, BEARER)
+                    .body(StringBody("""
+                            {"items":[{"productId":"#{productId}","quantity":1}],
+                             "shippingAddress":{"fullName":"Perf Shopper","phone":"9000000000",
+                               "street":"1 Load Test Lane","city":"Bengaluru","state":"Karnataka",
+                               "zipCode":"560001","country":"India"},
+                             "paymentMethod":"COD"}"""))
+                    .check(status().is(200), jsonPath("$.data.id").saveAs("orderId")))
+            .exec(http("GET /api/orders/{id}").get("/api/orders/#{orderId}").header(AUTHORIZATION, BEARER));
+
+    private final ChainBuilder admin = exec(session -> session.set("token", fixture.adminToken))
+            .exec(http("GET /api/admin/dashboard/stats").get("/api/admin/dashboard/stats")
+                    .header(AUTHORIZATION, BEARER))
+            .exec(http("GET /api/admin/dashboard/daily-sales").get("/api/admin/dashboard/daily-sales")
+                    .queryParam("from", LocalDate.now().minusDays(30).toString())
+                    .queryParam("to", LocalDate.now().toString())
+                    .header(AUTHORIZATION, BEARER))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/admin/orders").get("/api/admin/orders?page=0&size=20").header(AUTHORIZATION, BEARER))
+            .pause(thinkMin, thinkMax)
+            .exec(http("GET /api/admin/products").get("/api/admin/products?page=0&size=20")
+                    .header(AUTHORIZATION, BEARER));
+
+    {
+        ScenarioBuilder storefront = scenario("Storefront").feed(picks).randomSwitch().on(choices());
+
+        setUp(storefront.injectOpen(
+                rampUsersPerSec(1).to(usersPerSec).during(rampSeconds),
+                constantUsersPerSec(usersPerSec).during(durationSeconds)))
+                .protocols(protocol)
+                .assertions(
+                        global().responseTime().percentile(95.0).lt(Integer.getInteger("maxP95Millis", 800)),
+                        global().responseTime().percentile(99.0).lt(Integer.getInteger("maxP99Millis", 2000)),
+                        global().failedRequests().percent()
+                                .lt(Double.parseDouble(System.getProperty("maxErrorPercent", "1"))));
+    }
+
+    @Override
+    public void before() {
+        fixture.load(Integer.getInteger("products", 2000), Integer.getInteger("shoppers", 200),
+                System.getProperty("adminEmail", "admin@example.com"),
+                System.getProperty("adminPassword", "admin123"));
+        System.out.printf("Traffic mix: %s; %d products, %d categories, %d search terms, %d shoppers%n",
+                mix, fixture.productIds.size(), fixture.categoryIds.size(), fixture.searchTerms.size(),
+                fixture.shopperTokens.size());
+    }
+
+    private List<Choice.WithWeight> choices() {
+        List<Choice.WithWeight> choices = new ArrayList<>();
+        for (TrafficMix.Journey journey : mix.journeys()) {
+            ChainBuilder chain = switch (journey) {
+                case BROWSE -> browse;
+                case SEARCH -> search;
+                case PDP -> productPage;
+                case CART -> cart;
+                case CHECKOUT -> checkout;
+                case ADMIN -> admin;
+            };
+            choices.add(percent(mix.percentage(journey)).then(chain));
+        }
+        return choices;
+    }
+
+    private Map<String, Object> pick() {
+        Random random = ThreadLocalRandom.current();
+        Map<String, Object> values = new HashMap<>();
+        values.put("productId", PerfFixture.pick(fixture.productIds, random));
+        values.put("categoryId", PerfFixture.pick(fixture.categoryIds, random));
+        values.put("term", PerfFixture.pick(fixture.searchTerms, random));
+        values.put("token", PerfFixture.pick(fixture.shopperTokens, random));
+        values.put("page", random.nextInt(5));
+        values.put("sortBy", SORTS.get(random.nextInt(SORTS.size())));
+        return values;
+    }
+
+    private static String[] thinkRange() {
+        String[] range = System.getProperty("thinkMillis", "500-2000").split("-", 2);
+        return range.length == 2 ? range : new String[] {range[0], range[0]};
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.perf;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The share of arriving users that take each journey, parsed from "browse=45,search=20,..." and
+ * normalised to percentages. Journeys left out of the spec get no traffic.
+ */
+public record TrafficMix(Map<Journey, Double> percentages) {
+
+    public enum Journey {
+        BROWSE, SEARCH, PDP, CART, CHECKOUT, ADMIN
+    }
+
+    public static final String DEFAULT = "browse=40,search=20,pdp=25,cart=8,checkout=5,admin=2";
+
+    public static TrafficMix parse(String spec) {
+        Map<Journey, Double> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected journey=weight, got '" + part.trim() + "'");
+            }
+            Journey journey = Journey.valueOf(pair[0].trim().toUpperCase());
+            double weight = Double.parseDouble(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + journey);
+            }
+            weights.merge(journey, weight, Double::sum);
+        }
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("Traffic mix '" + spec + "' has no traffic");
+        }
+
+        // Gatling rejects shares adding up to more than 100, so the last one absorbs any rounding
+        Map<Journey, Double> percentages = new LinkedHashMap<>();
+        List<Journey> journeys = weights.keySet().stream().filter(journey -> weights.get(journey) > 0).toList();
+        double assigned = 0;
+        for (int i = 0; i < journeys.size(); i++) {
+            Journey journey = journeys.get(i);
+            double percent = i == journeys.size() - 1 ? 100.0 - assigned : weights.get(journey) * 100.0 / total;
+            percentages.put(journey, percent);
+            assigned += percent;
+        }
+        return new TrafficMix(percentages);
+    }
+
+    public List<Journey> journeys() {
+        return List.copyOf(percentages.keySet());
+    }
+
+    public double percentage(Journey journey) {
+        return percentages.getOrDefault(journey, 0.0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        percentages.forEach((journey, percent) -> text.append(text.isEmpty() ? "" : ", ")
+                .append(journey.name().toLowerCase()).append(' ').append(String.format("%.1f%%", percent)));
+        return text.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.perf;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrafficMixTest {
+
+    @Test
+    void normalisesWeightsToPercentagesThatGatlingAccepts() {
+        TrafficMix mix = TrafficMix.parse("browse=1, search=1,pdp=1,admin=0");
+
+        assertEquals(List.of(TrafficMix.Journey.BROWSE, TrafficMix.Journey.SEARCH, TrafficMix.Journey.PDP),
+                mix.journeys());
+        assertEquals(100.0 / 3, mix.percentage(TrafficMix.Journey.BROWSE), 1e-9);
+        assertEquals(0.0, mix.percentage(TrafficMix.Journey.ADMIN));
+        double total = mix.journeys().stream().mapToDouble(mix::percentage).sum();
+        assertTrue(total <= 100.0 && total > 99.999);
+    }
+
+    @Test
+    void defaultMixCoversEveryJourney() {
+        TrafficMix mix = TrafficMix.parse(TrafficMix.DEFAULT);
+
+        assertEquals(List.of(TrafficMix.Journey.values()), mix.journeys());
+        assertEquals(40.0, mix.percentage(TrafficMix.Journey.BROWSE), 1e-9);
+    }
+
+    @Test
+    void rejectsMalformedSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("browse"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("checkout=-1"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("wishlist=5"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("browse=0"));
+    }
+}